@@ -0,0 +1,34 @@
+#!/bin/bash
+
+#This script runs the JMH microbenchmarks of the framework.
+# - JMH_HOME : directory containing the JMH jars (required):
+#              jmh-core, jmh-generator-annprocess, jopt-simple and commons-math3
+# - the parameters of the script are given to JMH, e.g.
+#     bash runJMH.sh SolutionBenchmark -p instance=j301_1.sm
+#   (java -jar ... -h lists the JMH options)
+#
+#The results (throughput, sample time percentiles and allocation rate measured
+#by the GC profiler) are printed and written in the file jmh-result.json.
+
+if [ -z "$JMH_HOME" ] || [ ! -d "$JMH_HOME" ]; then
+	echo "Error : set JMH_HOME to the directory containing the JMH jars." >&2
+	exit 1
+fi
+
+JMH_CP=$(ls "$JMH_HOME"/*.jar | tr '\n' ':')
+
+rm -rf ./bin
+mkdir ./bin
+
+#The Vector API kernel (src/rcpsp/simd) is compiled and used if the JDK has the
+#module jdk.incubator.vector, see ProfileKernelBenchmark.
+VECTOR=""
+SIMD=""
+if java --add-modules jdk.incubator.vector -version > /dev/null 2>&1; then
+	VECTOR="--add-modules=jdk.incubator.vector"
+	SIMD=./../../src/rcpsp/simd/*.java
+fi
+
+javac -encoding UTF-8 $VECTOR -d ./bin/ -cp "$JMH_CP./../../lib/plot.jar" -processorpath "$JMH_CP" ./../../src/rcpsp/*.java $SIMD ./src/rcpsp/jmh/*.java || exit 1
+
+java -cp "./bin/:$JMH_CP./../../lib/plot.jar" org.openjdk.jmh.Main -prof gc -rf json -rff jmh-result.json -jvmArgsAppend "-Drcpsp.instances=./../../instances $VECTOR" "$@"
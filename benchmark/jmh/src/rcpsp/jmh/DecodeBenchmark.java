@@ -0,0 +1,89 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rcpsp.SerialSGS;
+import rcpsp.Solution;
+
+/**
+ * Benchmarks of the decoding of activity lists by the {@link SerialSGS},
+ * the inner loop of the engines.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+	/**
+	 * Decoder of a benchmark thread.
+	 */
+	@State(Scope.Thread)
+	public static class DecoderState
+	{
+		SerialSGS sgs;
+		int next;
+
+		@Setup
+		public void setup(InstanceState state)
+		{
+			sgs = new SerialSGS(state.data);
+		}
+	}
+
+	/** Decoding of a random activity list (the lists are used in turn) */
+	@Benchmark
+	public int decode(InstanceState state, DecoderState decoder)
+	{
+		int[] list = state.activityLists[decoder.next];
+		decoder.next = (decoder.next + 1) % InstanceState.NB_LISTS;
+		return decoder.sgs.decode(list);
+	}
+
+	/** Decoding followed by the copy of the schedule in a new {@link Solution} */
+	@Benchmark
+	public Solution decodeToSolution(InstanceState state, DecoderState decoder) throws Exception
+	{
+		int[] list = state.activityLists[decoder.next];
+		decoder.next = (decoder.next + 1) % InstanceState.NB_LISTS;
+		decoder.sgs.decode(list);
+		Solution solution = new Solution(state.problem);
+		decoder.sgs.toSolution(solution);
+		return solution;
+	}
+
+}
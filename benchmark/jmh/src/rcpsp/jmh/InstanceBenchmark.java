@@ -0,0 +1,66 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rcpsp.CompactInstance;
+import rcpsp.Instance;
+
+/**
+ * Benchmarks of the loading of an instance.
+ *
+ * The constructor of {@link Instance} reads the file and computes the
+ * transitive closure of the precedences; on large instances the closure
+ * dominates the time.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstanceBenchmark {
+
+	/** Parsing of the file and precedence closure */
+	@Benchmark
+	public Instance parse(InstanceState state) throws Exception
+	{
+		return new Instance(state.fileName);
+	}
+
+	/** Copy of the instance in primitive arrays (successors, predecessors, topological order) */
+	@Benchmark
+	public CompactInstance compact(InstanceState state) throws Exception
+	{
+		return new CompactInstance(state.problem);
+	}
+
+}
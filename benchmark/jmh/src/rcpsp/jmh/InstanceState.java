@@ -0,0 +1,161 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp.jmh;
+
+import java.io.File;
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import rcpsp.CompactInstance;
+import rcpsp.Instance;
+import rcpsp.SerialSGS;
+import rcpsp.Solution;
+
+/**
+ * Instance shared by the benchmarks, with precomputed activity lists and a
+ * feasible schedule.
+ *
+ * The parameter is the name of a file of the instance directory (system
+ * property rcpsp.instances, ../../instances by default), optionally followed
+ * by "*k" for the synthetic instance made of k copies of the file (see
+ * {@link ScaledInstance}).
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+@State(Scope.Benchmark)
+public class InstanceState {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Number of random activity lists decoded in turn */
+	public static final int NB_LISTS = 64;
+
+	/** Instance file, or file*k for a scaled instance */
+	@Param({"j301_1.sm", "j1201_1.sm", "j1201_1.sm*4", "j1201_1.sm*16"})
+	public String instance;
+
+	/** Name of the file read by the benchmarks */
+	public String fileName;
+
+	/** The instance */
+	public Instance problem;
+
+	/** The instance in primitive arrays */
+	public CompactInstance data;
+
+	/** Random precedence feasible activity lists */
+	public int[][] activityLists;
+
+	/** Feasible schedule of the first activity list */
+	public Solution schedule;
+
+	/** Temporary file of the scaled instance (null if none) */
+	private File m_scaledFile;
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	@Setup
+	public void setup() throws Exception
+	{
+		String directory = System.getProperty("rcpsp.instances", "../../instances");
+		int star = instance.indexOf('*');
+		if(star < 0)
+		{
+			fileName = new File(directory, instance).getPath();
+		}
+		else
+		{
+			Instance base = new Instance(new File(directory, instance.substring(0, star)).getPath());
+			int k = Integer.parseInt(instance.substring(star + 1));
+			m_scaledFile = File.createTempFile("scaled", ".sm");
+			m_scaledFile.deleteOnExit();
+			ScaledInstance.write(base, k, m_scaledFile);
+			fileName = m_scaledFile.getPath();
+		}
+		problem = new Instance(fileName);
+		data = new CompactInstance(problem);
+
+		SplittableRandom random = new SplittableRandom(0);
+		activityLists = new int[NB_LISTS][];
+		for(int l = 0; l < NB_LISTS; l++)
+		{
+			activityLists[l] = randomActivityList(data, random);
+		}
+		SerialSGS sgs = new SerialSGS(data);
+		sgs.decode(activityLists[0]);
+		schedule = new Solution(problem);
+		sgs.toSolution(schedule);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		if(m_scaledFile != null)
+		{
+			m_scaledFile.delete();
+		}
+	}
+
+	/**
+	 * @return A random topological order of the precedence graph.
+	 */
+	private static int[] randomActivityList(CompactInstance data, SplittableRandom random)
+	{
+		int n = data.nbActivities;
+		int[] list = new int[n];
+		int[] remaining = new int[n];
+		int[] eligible = new int[n];
+		int nbEligible = 0;
+		for(int j = 0; j < n; j++)
+		{
+			remaining[j] = data.predecessors[j].length;
+			if(remaining[j] == 0)
+			{
+				eligible[nbEligible++] = j;
+			}
+		}
+		for(int k = 0; k < n; k++)
+		{
+			int index = random.nextInt(nbEligible);
+			int j = eligible[index];
+			eligible[index] = eligible[--nbEligible];
+			list[k] = j;
+			for(int s : data.successors[j])
+			{
+				if(--remaining[s] == 0)
+				{
+					eligible[nbEligible++] = s;
+				}
+			}
+		}
+		return list;
+	}
+
+}
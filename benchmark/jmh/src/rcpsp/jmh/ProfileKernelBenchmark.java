@@ -0,0 +1,123 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rcpsp.ProfileKernel;
+
+/**
+ * Benchmarks of the {@link ProfileKernel}: the scalar implementation against
+ * the implementation with the Vector API, for several numbers of resources and
+ * durations. The vector implementation is only used if the benchmark runs with
+ * --add-modules jdk.incubator.vector (done by runJMH.sh); otherwise both
+ * parameters measure the scalar implementation.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProfileKernelBenchmark {
+
+	/** Number of resources */
+	@Param({"4", "16", "64"})
+	public int nbResources;
+
+	/** Duration of the activity */
+	@Param({"5", "50"})
+	public int duration;
+
+	/** Implementation: scalar or vector */
+	@Param({"scalar", "vector"})
+	public String kernel;
+
+	private ProfileKernel m_kernel;
+	private int[] m_profile;
+	private int[] m_demand;
+	private int[] m_capacity;
+	private int m_from;
+
+	@Setup
+	public void setup()
+	{
+		m_kernel = kernel.equals("scalar") ? null : ProfileKernel.vector(nbResources);
+		if(m_kernel == null)
+		{
+			m_kernel = new ProfileKernel(nbResources);
+		}
+		m_profile = new int[(duration + 64) * nbResources];
+		m_demand = new int[nbResources];
+		m_capacity = new int[nbResources];
+		for(int i = 0; i < nbResources; i++)
+		{
+			m_demand[i] = 1 + i % 5;
+			m_capacity[i] = 20;
+		}
+		// A conflict on the last resource at the end of the interval: the whole interval is read
+		for(int k = 0; k < m_profile.length; k++)
+		{
+			m_profile[k] = k % 7;
+		}
+		m_from = 32;
+		m_profile[(m_from + duration - 1) * nbResources + nbResources - 1] = 20;
+		System.out.println("kernel " + kernel + ": " + m_kernel.getName());
+	}
+
+	/** Fit check of an activity, as in Solution.isPossibleToAdd */
+	@Benchmark
+	public int firstConflict()
+	{
+		return m_kernel.firstConflict(m_profile, m_demand, m_capacity, m_from, m_from + duration);
+	}
+
+	/** Addition then removal of an activity, as in Solution.addActivity and removeActivity */
+	@Benchmark
+	public int[] addSubtract()
+	{
+		m_kernel.add(m_profile, m_demand, m_from, m_from + duration);
+		m_kernel.subtract(m_profile, m_demand, m_from, m_from + duration);
+		return m_profile;
+	}
+
+	/** Capacity sweep of the interval, as in Solution.validate */
+	@Benchmark
+	public int firstExcess()
+	{
+		return m_kernel.firstExcess(m_profile, m_capacity, 0, m_from + duration);
+	}
+
+}
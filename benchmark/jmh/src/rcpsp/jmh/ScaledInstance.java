@@ -0,0 +1,169 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import rcpsp.Instance;
+
+/**
+ * Synthetic instances for the benchmarks: k copies of an instance are run in
+ * parallel between a common source and a common sink, and the capacities are
+ * multiplied by k. The resource strength stays the same while the number of
+ * activities (and the horizon of the schedules) grows.
+ *
+ * The scaled instance is written in the format of the .sm files, so that it
+ * is read by the constructor of {@link Instance} like the bundled instances.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class ScaledInstance {
+
+	private ScaledInstance()
+	{
+	}
+
+	/**
+	 * Writes k parallel copies of an instance in a .sm file.
+	 *
+	 * @param instance The instance to replicate. Activity 0 must be the source and the last activity the sink.
+	 * @param k Number of copies.
+	 * @param file The file to write.
+	 * @throws Exception Throw an exception if the file cannot be written.
+	 */
+	public static void write(Instance instance, int k, File file) throws Exception
+	{
+		int n = instance.getNbActivities();
+		int nbResources = instance.getNbResources();
+		int nbReal = n - 2;
+		int nbActivities = k * nbReal + 2;
+		int sink = nbActivities - 1;
+
+		// Direct successors of each activity of the scaled instance
+		List<List<Integer>> successors = new ArrayList<List<Integer>>();
+		for(int j = 0; j < nbActivities; j++)
+		{
+			successors.add(new ArrayList<Integer>());
+		}
+		for(int c = 0; c < k; c++)
+		{
+			for(int a = 0; a < n - 1; a++)
+			{
+				int from = (a == 0) ? 0 : map(a, c, nbReal);
+				for(int b = 1; b < n; b++)
+				{
+					if(instance.getDirectPrecedence(a, b))
+					{
+						int to = (b == n - 1) ? sink : map(b, c, nbReal);
+						if(!successors.get(from).contains(to))
+						{
+							successors.get(from).add(to);
+						}
+					}
+				}
+			}
+		}
+
+		try(PrintWriter out = new PrintWriter(file))
+		{
+			out.println("************************************************************************");
+			out.println("file with basedata            : " + new File(instance.getFileName()).getName() + " x " + k);
+			out.println("************************************************************************");
+			out.println("projects                      :  1");
+			out.println("jobs (incl. supersource/sink ):  " + nbActivities);
+			out.println("RESOURCES");
+			out.println("  - renewable                 :  " + nbResources + "   R");
+			out.println("  - nonrenewable              :  0   N");
+			out.println("  - doubly constrained        :  0   D");
+			out.println("************************************************************************");
+			out.println("PRECEDENCE RELATIONS:");
+			out.println("jobnr.    #modes  #successors   successors");
+			for(int j = 0; j < nbActivities; j++)
+			{
+				StringBuilder line = new StringBuilder();
+				line.append(j + 1).append("  1  ").append(successors.get(j).size());
+				for(int s : successors.get(j))
+				{
+					line.append("  ").append(s + 1);
+				}
+				out.println(line);
+			}
+			out.println("************************************************************************");
+			out.println("REQUESTS/DURATIONS:");
+			out.println("jobnr. mode duration");
+			out.println("------------------------------------------------------------------------");
+			for(int j = 0; j < nbActivities; j++)
+			{
+				int a = original(j, n, nbActivities, nbReal);
+				StringBuilder line = new StringBuilder();
+				line.append(j + 1).append("  1  ").append(instance.getDurationActivity(a));
+				for(int i = 0; i < nbResources; i++)
+				{
+					line.append("  ").append(instance.getConsumptionResourceActivity(i, a));
+				}
+				out.println(line);
+			}
+			out.println("************************************************************************");
+			out.println("RESOURCEAVAILABILITIES:");
+			out.println("  R 1 ...");
+			StringBuilder line = new StringBuilder();
+			for(int i = 0; i < nbResources; i++)
+			{
+				line.append("  ").append(k * instance.getCapacityResource(i));
+			}
+			out.println(line);
+			out.println("************************************************************************");
+		}
+		catch(IOException e)
+		{
+			throw new Exception("Error: cannot write the scaled instance " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return Index in the scaled instance of the real activity a of copy c.
+	 */
+	private static int map(int a, int c, int nbReal)
+	{
+		return 1 + c * nbReal + (a - 1);
+	}
+
+	/**
+	 * @return Index in the original instance (of n activities) of activity j of the scaled instance.
+	 */
+	private static int original(int j, int n, int nbActivities, int nbReal)
+	{
+		if(j == 0)
+		{
+			return 0;
+		}
+		if(j == nbActivities - 1)
+		{
+			return n - 1;
+		}
+		return 1 + (j - 1) % nbReal;
+	}
+
+}
@@ -0,0 +1,144 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rcpsp.ProfileArena;
+import rcpsp.Solution;
+
+/**
+ * Benchmarks of the operations of {@link Solution}, on a feasible schedule
+ * of the instance.
+ *
+ * The operations that modify the schedule are measured in pairs that restore
+ * it (remove then add the same activity), so that every invocation works on
+ * the same schedule. The resource profile of the solution is on the heap or
+ * outside of the heap (parameter profile, see {@link ProfileArena}).
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolutionBenchmark {
+
+	/**
+	 * Copy of the schedule owned by a benchmark thread, and the next activity to use.
+	 */
+	@State(Scope.Thread)
+	public static class ScheduleState
+	{
+		/** Storage of the resource profile: heap or offHeap */
+		@Param({"heap", "offHeap"})
+		public String profile;
+
+		ProfileArena arena;
+		Solution solution;
+		Integer[] beginTimes;
+		int nbActivities;
+		int next;
+
+		@Setup
+		public void setup(InstanceState state)
+		{
+			arena = profile.equals("offHeap") ? new ProfileArena() : null;
+			solution = state.schedule.clone(arena);
+			beginTimes = solution.getBeginTimeActivities().clone();
+			nbActivities = beginTimes.length;
+		}
+
+		@TearDown
+		public void tearDown()
+		{
+			if(arena != null)
+			{
+				arena.close();
+			}
+		}
+
+		/** @return The next activity (all activities are used in turn) */
+		int nextActivity()
+		{
+			int j = next;
+			next = (next + 1 == nbActivities) ? 0 : next + 1;
+			return j;
+		}
+	}
+
+	/** Removal of an activity and addition at the same time */
+	@Benchmark
+	public int removeAndAdd(ScheduleState schedule) throws Exception
+	{
+		int j = schedule.nextActivity();
+		schedule.solution.removeActivity(j);
+		schedule.solution.addActivity(j, schedule.beginTimes[j]);
+		return schedule.solution.getObjectiveValue();
+	}
+
+	/** Test of an activity at its own begin time, once removed from the schedule */
+	@Benchmark
+	public boolean isPossibleToAdd(ScheduleState schedule) throws Exception
+	{
+		int j = schedule.nextActivity();
+		schedule.solution.removeActivity(j);
+		boolean possible = schedule.solution.isPossibleToAdd(j, schedule.beginTimes[j]);
+		schedule.solution.addActivity(j, schedule.beginTimes[j]);
+		return possible;
+	}
+
+	/** Full check of the schedule */
+	@Benchmark
+	public boolean validate(ScheduleState schedule) throws Exception
+	{
+		return schedule.solution.validate();
+	}
+
+	/** Computation of the makespan */
+	@Benchmark
+	public int evaluate(ScheduleState schedule) throws Exception
+	{
+		return schedule.solution.evaluate();
+	}
+
+	/** Copy of the schedule */
+	@Benchmark
+	public Solution cloneSolution(ScheduleState schedule)
+	{
+		return schedule.solution.clone();
+	}
+
+}
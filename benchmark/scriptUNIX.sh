@@ -3,16 +3,31 @@
 #This script runs the framework over all instances.
 # - standard output are written in the file standardOutput.txt
 # - error output are written in the file errorOutput.txt
+#
+#All instances are solved in a single java program (rcpsp.BatchMain).
+# - WORKERS : number of instances solved at the same time (1 by default)
+# - WARMUP  : number of seconds of a silent first run on every instance (0 by default)
+#
+#The results are then analysed (rcpsp.ResultAnalyzer): gaps to the best known
+#values, time to target (from progress.jsonl) and failures are written in the
+#files results.csv and results.json.
+# - BASELINE : directory of a previous run (its standardOutput.txt and progress.jsonl);
+#              the script ends with exit code 2 if the new run is a regression
 
 
 rm -f standardOutput.txt
 rm -f errorOutput.txt
+rm -f progress.jsonl
 
-javac -d ./../bin/ ./../src/rcpsp/*.java -cp ./../lib/plot.jar
+WORKERS=${WORKERS:-1}
+WARMUP=${WARMUP:-0}
 
-for i in ./../instances/*.sm;do
-	sleep 1;
-	echo "Executing instance ".$i
-	java -cp "./../bin/:./../lib/plot.jar" -Djava.library.path=./../lib/ rcpsp.Main -t 60 $i >> standardOutput.txt 2>> errorOutput.txt
-done
+javac -encoding UTF-8 -d ./../bin/ ./../src/rcpsp/*.java -cp ./../lib/plot.jar
 
+java -cp "./../bin/:./../lib/plot.jar" -Djava.library.path=./../lib/ rcpsp.BatchMain -t 60 -workers $WORKERS -warmup $WARMUP -progress progress.jsonl ./../instances >> standardOutput.txt 2>> errorOutput.txt
+
+if [ -n "$BASELINE" ]; then
+	java -cp "./../bin/" rcpsp.ResultAnalyzer -reference ./../instances/optimal_solutions.txt -progress progress.jsonl -csv results.csv -json results.json -baseline "$BASELINE/standardOutput.txt" -baselineProgress "$BASELINE/progress.jsonl" standardOutput.txt
+else
+	java -cp "./../bin/" rcpsp.ResultAnalyzer -reference ./../instances/optimal_solutions.txt -progress progress.jsonl -csv results.csv -json results.json standardOutput.txt
+fi
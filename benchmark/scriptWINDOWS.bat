@@ -1,13 +1,15 @@
-@del /Q result.txt
-@del /Q err.txt
+@del /Q standardOutput.txt
+@del /Q errorOutput.txt
+@del /Q progress.jsonl
 
 @echo "Create bin directory"
 @md bin
 
 @echo "Create class files"
-@javac -d "./../bin" ./../src/rcpsp/*.java -cp "./../lib/plot.jar"
+@javac -encoding UTF-8 -d "./../bin" ./../src/rcpsp/*.java -cp "./../lib/plot.jar"
 
-for %%f in (./instances/*.dat) do (
-	@java -cp "./../bin/:./../lib/plot.jar" -Djava.library.path="./../lib/" rcpsp.Main %%f -t 60 >> standardOutput.txt 2>> errorOutput.txt
-	@timeout /T 1 /NOBREAK
-)
+@rem All instances are solved in a single java program, -workers sets the number of instances solved at the same time
+@java -cp "./../bin/;./../lib/plot.jar" -Djava.library.path="./../lib/" rcpsp.BatchMain -t 60 -workers 1 -progress progress.jsonl ./../instances >> standardOutput.txt 2>> errorOutput.txt
+
+@rem Gaps to the best known values, time to target and failures are written in results.csv and results.json
+@java -cp "./../bin/" rcpsp.ResultAnalyzer -reference ./../instances/optimal_solutions.txt -progress progress.jsonl -csv results.csv -json results.json standardOutput.txt
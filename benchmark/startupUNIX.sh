@@ -0,0 +1,48 @@
+#!/bin/bash
+
+#This script builds an application class-data sharing archive (AppCDS) of the
+#solver classes, and measures the time of short runs of rcpsp.Main on the j30
+#instances without and with the archive.
+# - the classes are packed in rcpsp.jar (the archive only keeps classes read from jar files)
+# - the archive rcpsp.jsa holds the classes loaded by a training run, already parsed and verified
+# - RUNS : number of runs per instance and per configuration (3 by default)
+#
+#Use the archive with the same class path:
+#  java -XX:SharedArchiveFile=rcpsp.jsa -cp rcpsp.jar rcpsp.Main -t 1 ./../instances/j301_1.sm
+#The archive must be built again when the code or the JDK changes (the JVM
+#ignores an archive that does not match, with a warning).
+
+
+RUNS=${RUNS:-3}
+
+mkdir -p ./../bin
+javac -encoding UTF-8 -d ./../bin/ ./../src/rcpsp/*.java -cp ./../lib/plot.jar || exit 1
+jar cf rcpsp.jar -C ./../bin rcpsp || exit 1
+
+# Training run: the classes loaded by the program are written in the archive when it ends
+rm -f rcpsp.jsa
+java -XX:ArchiveClassesAtExit=rcpsp.jsa -cp rcpsp.jar rcpsp.Main -engine sampling -t 1 -iterations 1000 ./../instances/j301_1.sm > /dev/null 2>&1
+if [ ! -f rcpsp.jsa ]; then
+	echo "Error: the archive rcpsp.jsa was not created" >&2
+	exit 1
+fi
+
+# Mean time (in milliseconds) of a run of the j30 instances, with a short search
+measure() {
+	local total=0
+	local count=0
+	for run in $(seq $RUNS); do
+		for instance in ./../instances/j30*.sm; do
+			local start=$(date +%s%N)
+			java "$@" -cp rcpsp.jar rcpsp.Main -engine sampling -t 1 -iterations 1000 $instance > /dev/null 2>&1
+			local end=$(date +%s%N)
+			total=$((total + (end - start) / 1000))
+			count=$((count + 1))
+		done
+	done
+	echo "$((total / count / 1000)).$(( (total / count) % 1000 / 100 ))"
+}
+
+echo "Mean time of a run of rcpsp.Main on the j30 instances (ms):"
+echo "  without archive : $(measure -Xshare:auto)"
+echo "  with archive    : $(measure -XX:SharedArchiveFile=rcpsp.jsa)"
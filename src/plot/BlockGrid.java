@@ -0,0 +1,76 @@
+package plot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index of the blocks of a resource, to find the block under a point in
+ * constant time: the time axis is cut in cells of the same width, and each
+ * cell lists the blocks it intersects.
+ */
+public class BlockGrid
+{
+
+	/** Maximum number of cells */
+	private static final int MAX_CELLS = 4096;
+
+	private final double cellWidth;
+	private final RectangleActivity[][] cells;
+
+	/**
+	 * @param blocks Blocks in time units (x) and resource units (y).
+	 * @param horizon End of the last block.
+	 */
+	public BlockGrid(List<RectangleActivity> blocks, int horizon)
+	{
+		// About one block per cell, no more cells than time units
+		int nbCells = Math.max(1, Math.min(Math.min(MAX_CELLS, horizon), blocks.size()));
+		cellWidth = horizon / (double) nbCells;
+		List<List<RectangleActivity>> lists = new ArrayList<List<RectangleActivity>>();
+		for(int c = 0; c < nbCells; c++)
+		{
+			lists.add(new ArrayList<RectangleActivity>());
+		}
+		for(RectangleActivity rec : blocks)
+		{
+			int first = cell(rec.getX1(), nbCells);
+			int last = cell(Math.max(rec.getX1(), rec.getX2() - 1), nbCells);
+			for(int c = first; c <= last; c++)
+			{
+				lists.get(c).add(rec);
+			}
+		}
+		cells = new RectangleActivity[nbCells][];
+		for(int c = 0; c < nbCells; c++)
+		{
+			cells[c] = lists.get(c).toArray(new RectangleActivity[0]);
+		}
+	}
+
+	private int cell(double t, int nbCells)
+	{
+		return Math.max(0, Math.min(nbCells - 1, (int) (t / cellWidth)));
+	}
+
+	/**
+	 * @param t Time.
+	 * @param u Level of the resource.
+	 * @return Index of the activity of the block containing the point, or -1 if none.
+	 */
+	public int find(double t, double u)
+	{
+		if(t < 0 || u < 0)
+		{
+			return -1;
+		}
+		for(RectangleActivity rec : cells[cell(t, cells.length)])
+		{
+			if(rec.getX1() <= t && t < rec.getX2() && rec.getY1() <= u && u < rec.getY2())
+			{
+				return rec.getIndexActivity();
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,522 @@
+package plot;
+
+import rcpsp.CompactInstance;
+import rcpsp.Instance;
+import rcpsp.Solution;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Drawing of a solution, independent of the output: the {@link Panel} draws
+ * it on the screen, the {@link ChartExporter} in PNG and SVG files.
+ *
+ * Two charts are available: the resource profiles ({@link #paintProfiles(ChartCanvas, int, int)},
+ * the consumption of each resource over time) and the Gantt chart
+ * ({@link #paintGantt(ChartCanvas, int, int)}, one row per activity).
+ *
+ * The rectangles of the profiles are computed once per solution (see {@link #setSolution(Solution)}),
+ * in time units and resource units: an activity is drawn as a few blocks, one for
+ * each interval of time during which it stays at the same height in the stack.
+ * The blocks are indexed by a {@link BlockGrid} to find the activity under a
+ * point. When a time unit is narrower than {@link #MIN_BLOCK_WIDTH} pixels, the
+ * narrow blocks are not drawn and the load of the resource is drawn instead.
+ */
+public class Chart
+{
+
+	private static final int LEFT_OFFSET = 50;
+	private static final int NB_VERTICAL_TICK = 4;
+	private static final int NB_HORIZONTAL_TICK = 10;
+
+	/** Width (in pixels) under which a block is only drawn as a part of the load */
+	public static final int MIN_BLOCK_WIDTH = 2;
+
+	/** Minimum space (in pixels) between two short ticks */
+	private static final int MIN_TICK_SPACE = 4;
+
+	/** Minimum height (in pixels) of a row of the Gantt chart to print the index of the activity */
+	private static final int MIN_LABEL_HEIGHT = 12;
+
+	private static final BasicStroke DOT = new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[] {5,5}, 0);
+	private static final BasicStroke BOLD = new BasicStroke(3, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[] {1,0}, 0);
+	private static final BasicStroke STANDARD = new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[] {1,0}, 0);
+	private static final Font TITLE_FONT = new Font("TimesRoman", Font.PLAIN, 20);
+	private static final Font RESOURCE_FONT = new Font("TimesRoman", Font.PLAIN, 16);
+	private static final Font TICK_FONT = new Font("TimesRoman", Font.PLAIN, 12);
+	private static final Color LOAD_COLOR = Color.LIGHT_GRAY;
+
+	private final Instance instance;
+	private final int nbResources;
+	private final int nbActivities;
+	private int[] durations; // Replaced with the blocks, in the modes of the schedule
+	private int[][] consumptions;
+	private final int[] yMax;
+	private final Color[] colors;
+
+	private int objectiveValue;
+	private int xMax;
+	private int[] beginTimes; // -1 if the activity is not scheduled
+	private List<List<RectangleActivity>> blocks; // Blocks of each resource, in time units and resource units
+	private BlockGrid[] grids;
+	private int[][] loadTimes; // Load of each resource: loadValues[i][k] from loadTimes[i][k] to loadTimes[i][k+1]
+	private int[][] loadValues;
+
+
+	/**
+	 * @param instance The instance of the solutions to draw.
+	 * @throws Exception If the data of the instance cannot be read.
+	 */
+	public Chart(Instance instance) throws Exception
+	{
+		this.instance = instance;
+		nbResources = instance.getNbResources();
+		nbActivities = instance.getNbActivities();
+
+		// Data read once, the getters of Instance check their indices
+		// (multi-mode instance: the modes used by the solver until a solution gives its own)
+		durations = new int[nbActivities];
+		consumptions = new int[nbResources][nbActivities];
+		readModes(instance.isMultiMode() ? new CompactInstance(instance).modes : new int[nbActivities], durations, consumptions);
+
+		// Axes size
+		yMax = new int[nbResources];
+		for(int i = 0; i < nbResources; i++)
+		{
+			yMax[i] = Math.max(1, instance.getCapacityResource(i));
+		}
+
+		// Color definition
+		colors = new Color[nbActivities];
+		for(int j = 0; j < nbActivities; j++)
+		{
+			colors[j] = RandomColor.getRandomColor();
+		}
+	}
+
+	private void readModes(int[] modes, int[] newDurations, int[][] newConsumptions) throws Exception
+	{
+		for(int j = 0; j < nbActivities; j++)
+		{
+			newDurations[j] = instance.getDurationActivity(j, modes[j]);
+			for(int i = 0; i < nbResources; i++)
+			{
+				newConsumptions[i][j] = instance.getConsumptionResourceActivity(i, j, modes[j]);
+			}
+		}
+	}
+
+	/**
+	 * Computes the blocks of a solution.
+	 *
+	 * @param sol The solution to draw.
+	 */
+	public void setSolution(Solution sol)
+	{
+		Integer[] begins = sol.getBeginTimeActivities();
+		int[] beginTimes = new int[nbActivities];
+		for(int j = 0; j < nbActivities; j++)
+		{
+			beginTimes[j] = (begins[j] == null) ? -1 : begins[j];
+		}
+		if(!instance.isMultiMode())
+		{
+			setSchedule(beginTimes, sol.getObjectiveValue());
+			return;
+		}
+		// New arrays for the modes of the solution, published with its blocks
+		int[] newDurations = new int[nbActivities];
+		int[][] newConsumptions = new int[nbResources][nbActivities];
+		try
+		{
+			readModes(sol.getModeActivities(), newDurations, newConsumptions);
+		}
+		catch(Exception e)
+		{
+			throw new IllegalArgumentException(e.getMessage());
+		}
+		setSchedule(beginTimes, sol.getObjectiveValue(), newDurations, newConsumptions);
+	}
+
+	/**
+	 * Computes the blocks of a schedule, e.g. a snapshot of the best solution
+	 * sent by the solver during the search. The colors of the activities do not
+	 * change from a schedule to the next.
+	 *
+	 * @param begins Begin time of each activity (-1 if the activity is not scheduled), kept by the chart: do not modify it afterwards.
+	 * @param objective Objective value of the schedule.
+	 */
+	public void setSchedule(int[] begins, int objective)
+	{
+		int[] currentDurations;
+		int[][] currentConsumptions;
+		synchronized(this)
+		{
+			currentDurations = durations;
+			currentConsumptions = consumptions;
+		}
+		setSchedule(begins, objective, currentDurations, currentConsumptions);
+	}
+
+	/**
+	 * Computes the blocks of a schedule with the durations and the consumptions
+	 * of the activities in their modes, and replaces the drawn schedule with them.
+	 */
+	private void setSchedule(int[] begins, int objective, int[] durations, int[][] consumptions)
+	{
+		int makespan = 0;
+		for(int j = 0; j < nbActivities; j++)
+		{
+			if(begins[j] >= 0)
+			{
+				makespan = Math.max(makespan, begins[j] + durations[j]);
+			}
+		}
+		List<List<RectangleActivity>> newBlocks = new ArrayList<List<RectangleActivity>>();
+		BlockGrid[] newGrids = new BlockGrid[nbResources];
+		int[][] newLoadTimes = new int[nbResources][];
+		int[][] newLoadValues = new int[nbResources][];
+		for(int i = 0; i < nbResources; i++)
+		{
+			List<RectangleActivity> list = new ArrayList<RectangleActivity>();
+			buildBlocks(i, begins, durations, consumptions, list, newLoadTimes, newLoadValues);
+			newBlocks.add(list);
+			newGrids[i] = new BlockGrid(list, Math.max(1, makespan));
+		}
+
+		synchronized(this)
+		{
+			objectiveValue = objective;
+			xMax = Math.max(1, Math.max(objectiveValue, makespan));
+			beginTimes = begins;
+			this.durations = durations;
+			this.consumptions = consumptions;
+			blocks = newBlocks;
+			grids = newGrids;
+			loadTimes = newLoadTimes;
+			loadValues = newLoadValues;
+		}
+	}
+
+	/**
+	 * Computes the blocks of resource i. The activities in progress are stacked
+	 * in the order of their indices, so the height of an activity changes only
+	 * when an activity starts or ends: the time is cut at these dates and an
+	 * activity gets a new block only when its height changes.
+	 */
+	private void buildBlocks(int i, int[] begins, int[] durations, int[][] consumptions, List<RectangleActivity> list, int[][] newLoadTimes, int[][] newLoadValues)
+	{
+		// Activities using the resource, sorted by begin and by end
+		int nb = 0;
+		Integer[] used = new Integer[nbActivities];
+		for(int j = 0; j < nbActivities; j++)
+		{
+			if(begins[j] >= 0 && durations[j] > 0 && consumptions[i][j] > 0)
+			{
+				used[nb++] = j;
+			}
+		}
+		Integer[] byBegin = Arrays.copyOf(used, nb);
+		Integer[] byEnd = Arrays.copyOf(used, nb);
+		Arrays.sort(byBegin, (a, b) -> Integer.compare(begins[a], begins[b]));
+		Arrays.sort(byEnd, (a, b) -> Integer.compare(begins[a] + durations[a], begins[b] + durations[b]));
+
+		int[] openStart = new int[nbActivities];
+		int[] openOffset = new int[nbActivities];
+		int[] activeList = new int[nb];
+		int nbActive = 0;
+		int[] times = new int[2 * nb + 1];
+		int[] values = new int[2 * nb + 1];
+		int nbSteps = 0;
+
+		int b = 0;
+		int e = 0;
+		while(e < nb)
+		{
+			int t = (b < nb) ? Math.min(begins[byBegin[b]], begins[byEnd[e]] + durations[byEnd[e]]) : begins[byEnd[e]] + durations[byEnd[e]];
+
+			// Activities ending at t
+			while(e < nb && begins[byEnd[e]] + durations[byEnd[e]] == t)
+			{
+				int j = byEnd[e++];
+				list.add(new RectangleActivity(openStart[j], t, openOffset[j], openOffset[j] + consumptions[i][j], j));
+				int k = Arrays.binarySearch(activeList, 0, nbActive, j);
+				System.arraycopy(activeList, k + 1, activeList, k, nbActive - k - 1);
+				nbActive--;
+			}
+			// Activities starting at t, the list stays sorted by index
+			while(b < nb && begins[byBegin[b]] == t)
+			{
+				int j = byBegin[b++];
+				int k = -Arrays.binarySearch(activeList, 0, nbActive, j) - 1;
+				System.arraycopy(activeList, k, activeList, k + 1, nbActive - k);
+				activeList[k] = j;
+				nbActive++;
+				openStart[j] = t;
+				openOffset[j] = -1;
+			}
+
+			// Stack of the activities in progress, in the order of their indices
+			int offset = 0;
+			for(int k = 0; k < nbActive; k++)
+			{
+				int j = activeList[k];
+				if(openOffset[j] != offset)
+				{
+					if(openOffset[j] >= 0 && openStart[j] < t)
+					{
+						list.add(new RectangleActivity(openStart[j], t, openOffset[j], openOffset[j] + consumptions[i][j], j));
+					}
+					openStart[j] = t;
+					openOffset[j] = offset;
+				}
+				offset += consumptions[i][j];
+			}
+			times[nbSteps] = t;
+			values[nbSteps++] = offset;
+		}
+		newLoadTimes[i] = Arrays.copyOf(times, nbSteps);
+		newLoadValues[i] = Arrays.copyOf(values, nbSteps);
+	}
+
+	/**
+	 * @param x Abscissa of a point of the resource profiles.
+	 * @param y Ordinate of a point of the resource profiles.
+	 * @param width Width of the drawing.
+	 * @param height Height of the drawing.
+	 * @return Index of the activity drawn at this point, or -1 if none.
+	 */
+	public synchronized int getActivityAt(int x, int y, int width, int height)
+	{
+		if(blocks == null || x < LEFT_OFFSET)
+		{
+			return -1;
+		}
+		double scaleH = getScaleH(width);
+		for(int i = 0; i < nbResources; i++)
+		{
+			int heightBase = getHeightBase(i, height);
+			double scaleV = getScaleV(i, height);
+			if(y > heightBase || y < heightBase - yMax[i] * scaleV)
+			{
+				continue;
+			}
+			return grids[i].find((x - LEFT_OFFSET) / scaleH, (heightBase - y) / scaleV);
+		}
+		return -1;
+	}
+
+	private int getHeightBase(int i, int height)
+	{
+		return (height - 50) / nbResources * (i + 1);
+	}
+
+	/** @return Number of pixels of a unit of resource i */
+	private double getScaleV(int i, int height)
+	{
+		return Math.max(0, height - 50 - 150) / (double) (nbResources * yMax[i]);
+	}
+
+	/** @return Number of pixels of a time unit */
+	private double getScaleH(int width)
+	{
+		return Math.max(1, width - LEFT_OFFSET) / (double) xMax;
+	}
+
+	/**
+	 * Draws the resource profiles of the solution.
+	 *
+	 * @param g Output of the drawing.
+	 * @param width Width of the drawing.
+	 * @param height Height of the drawing.
+	 */
+	public synchronized void paintProfiles(ChartCanvas g, int width, int height)
+	{
+		double scaleH = getScaleH(width);
+		boolean detailed = scaleH >= MIN_BLOCK_WIDTH;
+
+		// Print makespan
+		g.setColor(Color.BLACK);
+		g.setFont(TITLE_FONT);
+		g.drawString("Makespan : " + objectiveValue, width/2-40, 20);
+
+		// Loop on resources (one plot per resource)
+		for(int i = 0; i < nbResources; i++)
+		{
+			g.setStroke(BOLD);
+			g.setColor(Color.BLACK);
+
+			int heightBase = getHeightBase(i, height);
+			g.drawLine(0, heightBase, width, heightBase);
+
+			double scaleV = getScaleV(i, height);
+			int heightBis = (int) Math.round(scaleV*yMax[i]);
+
+			g.drawLine(LEFT_OFFSET, heightBase-heightBis, width, heightBase-heightBis);
+			g.setFont(RESOURCE_FONT);
+			g.drawString("Resource "+i, width/2-20, heightBase-heightBis-5);
+			g.setFont(TICK_FONT);
+
+			g.drawLine(LEFT_OFFSET, heightBase, LEFT_OFFSET, heightBase-heightBis);
+
+			// Level of detail: load of the resource under the blocks that are too narrow
+			if(!detailed)
+			{
+				paintLoad(g, i, heightBase, scaleH, scaleV);
+			}
+
+			// Rectangles of consumption
+			for(RectangleActivity rec : blocks.get(i))
+			{
+				int x1 = LEFT_OFFSET + (int) Math.round(rec.getX1()*scaleH);
+				int x2 = LEFT_OFFSET + (int) Math.round(rec.getX2()*scaleH);
+				if(!detailed && x2 - x1 < MIN_BLOCK_WIDTH)
+				{
+					continue;
+				}
+				int y1 = heightBase - (int) Math.round(rec.getY2()*scaleV);
+				int y2 = heightBase - (int) Math.round(rec.getY1()*scaleV);
+				g.setColor(colors[rec.getIndexActivity()]);
+				g.fillRect(x1, y1, x2 - x1, y2 - y1);
+			}
+
+			// Tick on axes
+			// 4 marks on vertical axes
+			int stepTickV = Math.max(1, yMax[i] / NB_VERTICAL_TICK);
+			g.setStroke(STANDARD);
+			g.setColor(Color.BLACK);
+			for(int k = 0; k < NB_VERTICAL_TICK; k++)
+			{
+				int y = heightBase - (int) Math.round((k+1)*stepTickV*scaleV);
+				g.drawLine(LEFT_OFFSET-10, y, LEFT_OFFSET, y);
+				g.drawString(String.valueOf((k+1)*stepTickV), LEFT_OFFSET-25, y+5);
+			}
+
+			paintTimeAxis(g, heightBase, scaleH);
+
+			// --- Dot on vertival grid
+			g.setStroke(DOT);
+			for(int y = 0; y < yMax[i]; y += stepTickV)
+			{
+				int py = heightBase - (int) Math.round(y*scaleV);
+				g.drawLine(LEFT_OFFSET, py, width, py);
+			}
+		}
+	}
+
+	/**
+	 * Draws the Gantt chart of the solution: one row per activity, in the order of the indices.
+	 *
+	 * @param g Output of the drawing.
+	 * @param width Width of the drawing.
+	 * @param height Height of the drawing.
+	 */
+	public synchronized void paintGantt(ChartCanvas g, int width, int height)
+	{
+		double scaleH = getScaleH(width);
+		int top = 40;
+		int heightBase = height - 40;
+		double rowHeight = (heightBase - top) / (double) nbActivities;
+		boolean labels = rowHeight >= MIN_LABEL_HEIGHT;
+
+		// Print makespan
+		g.setColor(Color.BLACK);
+		g.setFont(TITLE_FONT);
+		g.drawString("Makespan : " + objectiveValue, width/2-40, 20);
+		g.setFont(TICK_FONT);
+
+		// One bar per activity, at least one pixel high
+		for(int j = 0; j < nbActivities; j++)
+		{
+			int y1 = top + (int) Math.round(j*rowHeight);
+			int y2 = Math.max(y1 + 1, top + (int) Math.round((j+1)*rowHeight) - ((rowHeight >= 4) ? 1 : 0));
+			if(labels)
+			{
+				g.setColor(Color.BLACK);
+				g.drawString(String.valueOf(j), LEFT_OFFSET-30, y2-2);
+			}
+			if(beginTimes[j] < 0 || durations[j] == 0)
+			{
+				continue;
+			}
+			int x1 = LEFT_OFFSET + (int) Math.round(beginTimes[j]*scaleH);
+			int x2 = Math.max(x1 + 1, LEFT_OFFSET + (int) Math.round((beginTimes[j]+durations[j])*scaleH));
+			g.setColor(colors[j]);
+			g.fillRect(x1, y1, x2 - x1, y2 - y1);
+		}
+
+		// Axes
+		g.setStroke(BOLD);
+		g.setColor(Color.BLACK);
+		g.drawLine(LEFT_OFFSET, heightBase, width, heightBase);
+		g.drawLine(LEFT_OFFSET, heightBase, LEFT_OFFSET, top);
+		g.setStroke(STANDARD);
+		paintTimeAxis(g, heightBase, scaleH);
+	}
+
+	/**
+	 * Draws the ticks of the time axis: 10 marks, short ticks only if they are not too close.
+	 */
+	private void paintTimeAxis(ChartCanvas g, int heightBase, double scaleH)
+	{
+		int stepTickH = Math.max(1, xMax / NB_HORIZONTAL_TICK);
+		int stepShort = Math.max(1, (int) Math.ceil(MIN_TICK_SPACE / scaleH));
+		for(int k = 0; k <= xMax; k++)
+		{
+			int x = LEFT_OFFSET + (int) Math.round(k*scaleH);
+			if(k%stepTickH==0)
+			{
+				// --- Long tick
+				g.drawString(String.valueOf(k), x-7, heightBase+25);
+				g.drawLine(x, heightBase, x, heightBase+10);
+			}
+			else if(k%stepShort==0)
+			{
+				// --- Short tick
+				g.drawLine(x, heightBase, x, heightBase+5);
+			}
+			else
+			{
+				// --- Next tick
+				k += Math.min(stepTickH - k%stepTickH, stepShort - k%stepShort) - 1;
+			}
+		}
+	}
+
+	/**
+	 * Draws the maximum load of resource i over the time units of each column of pixels.
+	 */
+	private void paintLoad(ChartCanvas g, int i, int heightBase, double scaleH, double scaleV)
+	{
+		int[] times = loadTimes[i];
+		int[] values = loadValues[i];
+		g.setColor(LOAD_COLOR);
+		int k = 0;
+		int columns = (int) Math.ceil(xMax * scaleH);
+		for(int c = 0; c < columns && k < times.length; c++)
+		{
+			double begin = c / scaleH;
+			double end = (c + 1) / scaleH;
+			// Steps ending in the column
+			while(k + 1 < times.length && times[k + 1] <= begin)
+			{
+				k++;
+			}
+			int load = (times[k] < end) ? values[k] : 0;
+			for(int m = k + 1; m < times.length && times[m] < end; m++)
+			{
+				load = Math.max(load, values[m]);
+			}
+			if(load > 0)
+			{
+				int h = (int) Math.round(load*scaleV);
+				g.fillRect(LEFT_OFFSET + c, heightBase - h, 1, h);
+			}
+		}
+	}
+
+}
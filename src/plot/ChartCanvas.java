@@ -0,0 +1,26 @@
+package plot;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+
+/**
+ * Output of a {@link Chart}: the few drawing operations it uses, so that the
+ * same drawing code writes on the screen, in an image or in an SVG file.
+ */
+public interface ChartCanvas
+{
+
+	void setColor(Color color);
+
+	void setStroke(BasicStroke stroke);
+
+	void setFont(Font font);
+
+	void drawLine(int x1, int y1, int x2, int y2);
+
+	void fillRect(int x, int y, int width, int height);
+
+	void drawString(String text, int x, int y);
+
+}
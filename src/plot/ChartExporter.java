@@ -0,0 +1,129 @@
+package plot;
+
+import rcpsp.Instance;
+import rcpsp.Solution;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import javax.imageio.ImageIO;
+
+/**
+ * Writes the charts of a solution in files, without a screen (it works with
+ * java.awt.headless=true): the resource profiles drawn by the {@link Panel},
+ * and the Gantt chart of the activities.
+ *
+ * The format is given by the extension of the file: .png (the chart is drawn
+ * in an image) or .svg (the chart is written element by element on the file).
+ * The methods can be called by several threads at the same time, for
+ * different solutions.
+ */
+public class ChartExporter
+{
+
+	/** Width of the charts (in pixels) */
+	public static final int WIDTH = 1200;
+
+	/** Height of the charts (in pixels) */
+	public static final int HEIGHT = 800;
+
+	/** Suffix added to the name of the file of the Gantt chart */
+	public static final String GANTT_SUFFIX = "-gantt";
+
+	private ChartExporter()
+	{
+	}
+
+	/**
+	 * Writes the resource profiles of a solution in a file, and its Gantt chart
+	 * in the file with the suffix {@link #GANTT_SUFFIX} (e.g. j301_1.png and j301_1-gantt.png).
+	 *
+	 * @param solution The solution.
+	 * @param file File of the resource profiles, .png or .svg.
+	 * @throws Exception If the format is unknown or if a file cannot be written.
+	 */
+	public static void export(Solution solution, File file) throws Exception
+	{
+		Instance instance = solution.getInstance();
+		Chart chart = new Chart(instance);
+		chart.setSolution(solution);
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		if(dot < 0)
+		{
+			throw new Exception("Error: the file " + file + " has no extension (.png or .svg)");
+		}
+		File gantt = new File(file.getParentFile(), name.substring(0, dot) + GANTT_SUFFIX + name.substring(dot));
+		write(chart, false, file);
+		write(chart, true, gantt);
+	}
+
+	/**
+	 * Writes a chart in a file.
+	 *
+	 * @param chart The chart of a solution.
+	 * @param gantt True for the Gantt chart, false for the resource profiles.
+	 * @param file The file, .png or .svg.
+	 * @throws Exception If the format is unknown or if the file cannot be written.
+	 */
+	public static void write(Chart chart, boolean gantt, File file) throws Exception
+	{
+		String name = file.getName().toLowerCase();
+		if(name.endsWith(".png"))
+		{
+			BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = image.createGraphics();
+			try
+			{
+				g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+				g.setColor(Color.WHITE);
+				g.fillRect(0, 0, WIDTH, HEIGHT);
+				paint(chart, gantt, new GraphicsCanvas(g));
+			}
+			finally
+			{
+				g.dispose();
+			}
+			if(!ImageIO.write(image, "png", file))
+			{
+				throw new IOException("no PNG writer");
+			}
+		}
+		else if(name.endsWith(".svg"))
+		{
+			try(SvgCanvas svg = new SvgCanvas(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)), WIDTH, HEIGHT))
+			{
+				paint(chart, gantt, svg);
+			}
+			catch(UncheckedIOException e)
+			{
+				throw e.getCause();
+			}
+		}
+		else
+		{
+			throw new Exception("Error: unknown format of " + file + " (.png or .svg expected)");
+		}
+	}
+
+	private static void paint(Chart chart, boolean gantt, ChartCanvas canvas)
+	{
+		if(gantt)
+		{
+			chart.paintGantt(canvas, WIDTH, HEIGHT);
+		}
+		else
+		{
+			chart.paintProfiles(canvas, WIDTH, HEIGHT);
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+package plot;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+
+/**
+ * Drawing of a {@link Chart} with an AWT graphics: a component on the screen or a BufferedImage.
+ */
+public class GraphicsCanvas implements ChartCanvas
+{
+
+	private final Graphics2D g;
+
+	public GraphicsCanvas(Graphics2D g)
+	{
+		this.g = g;
+	}
+
+	@Override
+	public void setColor(Color color)
+	{
+		g.setColor(color);
+	}
+
+	@Override
+	public void setStroke(BasicStroke stroke)
+	{
+		g.setStroke(stroke);
+	}
+
+	@Override
+	public void setFont(Font font)
+	{
+		g.setFont(font);
+	}
+
+	@Override
+	public void drawLine(int x1, int y1, int x2, int y2)
+	{
+		g.drawLine(x1, y1, x2, y2);
+	}
+
+	@Override
+	public void fillRect(int x, int y, int width, int height)
+	{
+		g.fillRect(x, y, width, height);
+	}
+
+	@Override
+	public void drawString(String text, int x, int y)
+	{
+		g.drawString(text, x, y);
+	}
+
+}
@@ -0,0 +1,170 @@
+package plot;
+
+import rcpsp.Instance;
+import rcpsp.ProgressEvent;
+import rcpsp.ProgressListener;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+/**
+ * Window showing the best solution while the solver searches: register it on
+ * the solver as a {@link ProgressListener}.
+ *
+ * The solver only stores the last snapshot it sends ({@link #onIncumbent(ProgressEvent)}
+ * does not block). A render thread takes the last snapshot, at most
+ * {@link #MAX_FRAMES_PER_SECOND} times per second, draws it in a back buffer
+ * with a {@link Chart} and asks Swing to repaint: the event thread only copies
+ * the buffer on the screen. The snapshots received between two frames are
+ * skipped, and the activities keep their colors from a frame to the next.
+ */
+public class LiveFrame extends JFrame implements ProgressListener {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Maximum number of frames drawn per second */
+	public static final int MAX_FRAMES_PER_SECOND = 10;
+
+	private final Chart chart;
+	private final LivePanel panel = new LivePanel();
+	private final AtomicReference<ProgressEvent> pending = new AtomicReference<ProgressEvent>();
+	private final Thread renderer;
+	private volatile boolean resized;
+	private volatile BufferedImage frame; // Last drawing, read by the event thread
+	private ProgressEvent current; // Snapshot drawn in the last frame (render thread)
+
+	private class LivePanel extends JPanel
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void paintComponent(Graphics g)
+		{
+			super.paintComponent(g);
+			BufferedImage image = frame;
+			if(image != null)
+			{
+				g.drawImage(image, 0, 0, null);
+			}
+		}
+	}
+
+	/**
+	 * Opens the window and starts the render thread.
+	 *
+	 * @param instance The instance solved.
+	 * @throws Exception If the data of the instance cannot be read.
+	 */
+	public LiveFrame(Instance instance) throws Exception
+	{
+		chart = new Chart(instance);
+		setTitle("RCPSPS - " + instance.getFileName() + " - waiting for a solution");
+		setSize(800, 600);
+		setResizable(true);
+		setLocationRelativeTo(null);
+		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		setContentPane(panel);
+
+		panel.addMouseMotionListener(new MouseAdapter()
+		{
+			@Override
+			public void mouseMoved(MouseEvent e)
+			{
+				int j = chart.getActivityAt(e.getX(), e.getY(), panel.getWidth(), panel.getHeight());
+				panel.setToolTipText((j >= 0) ? "Activity " + j : null);
+			}
+		});
+		panel.addComponentListener(new ComponentAdapter()
+		{
+			@Override
+			public void componentResized(ComponentEvent e)
+			{
+				resized = true;
+				LockSupport.unpark(renderer);
+			}
+		});
+
+		renderer = new Thread(this::render, "rcpsp-live");
+		renderer.setDaemon(true);
+		renderer.start();
+		setVisible(true);
+	}
+
+	/**
+	 * Stores the snapshot for the next frame. Called by the solver.
+	 */
+	@Override
+	public void onIncumbent(ProgressEvent event)
+	{
+		pending.set(event);
+		LockSupport.unpark(renderer);
+	}
+
+	/**
+	 * Loop of the render thread.
+	 */
+	private void render()
+	{
+		long period = 1000000000L / MAX_FRAMES_PER_SECOND;
+		long next = System.nanoTime();
+		while(true)
+		{
+			// Wait for a new snapshot or a new size, then for the time of the next frame
+			while(pending.get() == null && !resized)
+			{
+				LockSupport.park(this);
+			}
+			long now = System.nanoTime();
+			if(now < next)
+			{
+				LockSupport.parkNanos(this, next - now);
+				continue;
+			}
+			next = now + period;
+			resized = false;
+
+			ProgressEvent event = pending.getAndSet(null);
+			if(event != null)
+			{
+				current = event;
+				chart.setSchedule(event.getBeginTimes(), event.getMakespan());
+			}
+			if(current == null)
+			{
+				continue;
+			}
+			int width = panel.getWidth();
+			int height = panel.getHeight();
+			if(width <= 0 || height <= 0)
+			{
+				continue;
+			}
+			BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = image.createGraphics();
+			g.setColor(panel.getBackground());
+			g.fillRect(0, 0, width, height);
+			g.setColor(Color.BLACK);
+			chart.paintProfiles(new GraphicsCanvas(g), width, height);
+			g.dispose();
+			frame = image;
+
+			String title = String.format("RCPSPS - %s - makespan %d (lower bound %d) - %s, iteration %d, %.1f s",
+					current.getFileName(), current.getMakespan(), current.getLowerBound(), current.getEngine(),
+					current.getIteration(), current.getElapsedNanos() / 1e9);
+			SwingUtilities.invokeLater(() -> setTitle(title));
+			panel.repaint();
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+package plot;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Drawing of a {@link Chart} in SVG. Each operation is written at once on the
+ * writer, so a large drawing is not kept in memory: use a buffered writer on
+ * a file, and call {@link #close()} to end the document.
+ */
+public class SvgCanvas implements ChartCanvas, AutoCloseable
+{
+
+	private final Writer out;
+	private String color = "#000000";
+	private String stroke = " stroke-width=\"1\"";
+	private String font = " font-family=\"serif\" font-size=\"12\"";
+
+	/**
+	 * Writes the beginning of the document, with a white background.
+	 *
+	 * @param out Output of the document.
+	 * @param width Width of the drawing.
+	 * @param height Height of the drawing.
+	 * @throws IOException If the document cannot be written.
+	 */
+	public SvgCanvas(Writer out, int width, int height) throws IOException
+	{
+		this.out = out;
+		out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height
+				+ "\" viewBox=\"0 0 " + width + " " + height + "\" shape-rendering=\"crispEdges\">\n");
+		out.write("<rect width=\"100%\" height=\"100%\" fill=\"#ffffff\"/>\n");
+	}
+
+	@Override
+	public void setColor(Color c)
+	{
+		color = String.format("#%02x%02x%02x", c.getRed(), c.getGreen(), c.getBlue());
+	}
+
+	@Override
+	public void setStroke(BasicStroke s)
+	{
+		StringBuilder attributes = new StringBuilder(" stroke-width=\"").append(s.getLineWidth()).append('"');
+		float[] dash = s.getDashArray();
+		if(dash != null && dash.length > 1 && dash[1] > 0)
+		{
+			attributes.append(" stroke-dasharray=\"");
+			for(int k = 0; k < dash.length; k++)
+			{
+				attributes.append((k > 0) ? "," : "").append(dash[k]);
+			}
+			attributes.append('"');
+		}
+		stroke = attributes.toString();
+	}
+
+	@Override
+	public void setFont(Font f)
+	{
+		font = " font-family=\"serif\" font-size=\"" + f.getSize() + "\"";
+	}
+
+	@Override
+	public void drawLine(int x1, int y1, int x2, int y2)
+	{
+		write("<line x1=\"" + x1 + "\" y1=\"" + y1 + "\" x2=\"" + x2 + "\" y2=\"" + y2 + "\" stroke=\"" + color + "\"" + stroke + "/>\n");
+	}
+
+	@Override
+	public void fillRect(int x, int y, int width, int height)
+	{
+		if(width > 0 && height > 0)
+		{
+			write("<rect x=\"" + x + "\" y=\"" + y + "\" width=\"" + width + "\" height=\"" + height + "\" fill=\"" + color + "\"/>\n");
+		}
+	}
+
+	@Override
+	public void drawString(String text, int x, int y)
+	{
+		String escaped = text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+		write("<text x=\"" + x + "\" y=\"" + y + "\" fill=\"" + color + "\"" + font + ">" + escaped + "</text>\n");
+	}
+
+	private void write(String element)
+	{
+		try
+		{
+			out.write(element);
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Ends the document and closes the writer.
+	 *
+	 * @throws IOException If the document cannot be written.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		out.write("</svg>\n");
+		out.close();
+	}
+
+}
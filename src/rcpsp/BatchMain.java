@@ -0,0 +1,251 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs the solver on many instances in a single program, instead of starting
+ * a new java program per instance (see benchmark/scriptUNIX.sh).
+ *
+ * **command**: java rcpsp.BatchMain [options] (directory|dataFile)...
+ * Every .sm file of the directories is solved. **Options**:
+ *  - -help :prints this parameter description
+ *  - -workers (int) :number of instances solved at the same time (1 by default)
+ *  - -warmup (int) :number of seconds of a first, silent, run on every instance (0 by default: no warm-up)
+ *  - -charts (directory) :writes the charts of each solution in the directory (see plot.ChartExporter)
+ *  - -chartFormat (png|svg) :format of the charts (png by default)
+ *  - the options of {@link SolverRun} (-t, -lb, -seed, -threads, ...)
+ *
+ * **Program output**: one line per instance, with the format of {@link Main}
+ * (fileName;objectiveValue;time;e;lowerBound;gap), printed on the standard output
+ * as soon as the instance is solved. Every other message goes to the error output.
+ *
+ * Each instance is solved by its own {@link RCPSPSolver}, with a deadline starting
+ * when a worker takes the instance. The warm-up pass lets the JIT compiler
+ * optimize the code before the measured runs. The charts are drawn by a pool of
+ * threads of their own (one per processor), while the workers solve the next
+ * instances.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class BatchMain {
+
+	/**
+	 * Main method.
+	 *
+	 * @param arg program parameters.
+	 */
+	public static void main(String[] arg) {
+		SolverRun run = new SolverRun();
+		List<String> files = new ArrayList<String>();
+		int nbWorkers = 1;
+		long warmup = 0;
+		File chartDirectory = null;
+		String chartFormat = "png";
+
+		// Parse command line
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].compareTo("-help") == 0) {
+				System.err.println("The Resource-Constrained Project Scheduling Problem - batch mode");
+				System.err.println("Program parameters:");
+				System.err.println("command: java rcpsp.BatchMain [options] (directory|dataFile)...");
+				System.err.println("Options:");
+				System.err.println("\t-help\t: prints this parameter description");
+				System.err.println("\t-workers\t: number of instances solved at the same time (int, 1 by default)");
+				System.err.println("\t-warmup\t\t: number of seconds of a silent first run on every instance (int, 0 by default)");
+				System.err.println("\t-charts\t\t: writes the charts of each solution in a directory (name of the instance .png and -gantt.png)");
+				System.err.println("\t-chartFormat\t: format of the charts, png or svg (png by default)");
+				SolverRun.printOptions(System.err);
+				return;
+			}
+			try {
+				if (arg[i].compareTo("-workers") == 0 && i + 1 < arg.length) {
+					nbWorkers = Integer.parseInt(arg[++i]);
+				} else if (arg[i].compareTo("-warmup") == 0 && i + 1 < arg.length) {
+					warmup = Integer.parseInt(arg[++i]);
+				} else if (arg[i].compareTo("-charts") == 0 && i + 1 < arg.length) {
+					chartDirectory = new File(arg[++i]);
+				} else if (arg[i].compareTo("-chartFormat") == 0 && i + 1 < arg.length) {
+					chartFormat = arg[++i];
+					if (!chartFormat.equals("png") && !chartFormat.equals("svg")) {
+						throw new IllegalArgumentException("Error: the format of the charts must be png or svg.");
+					}
+				} else {
+					int last = run.parseArgument(arg, i);
+					if (last >= 0) {
+						i = last;
+					} else {
+						addInstances(new File(arg[i]), files);
+					}
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Error: The value given for " + arg[i - 1] + " is not a valid integer value.");
+				System.exit(1);
+			} catch (IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+
+		if (files.isEmpty()) {
+			System.err.println("Error : you must specify a directory or the filenames of instances as parameter.");
+			System.exit(1);
+		}
+		if (run.getCheckpointFile() != null || run.getResumeFile() != null) {
+			System.err.println("Error : -checkpoint and -resume cannot be used in batch mode.");
+			System.exit(1);
+		}
+		int nbCores = Runtime.getRuntime().availableProcessors();
+		if (nbWorkers * run.getNbThreads() > nbCores) {
+			System.err.println("Warning: " + nbWorkers + " workers x " + run.getNbThreads() + " threads for " + nbCores + " processors, the runs will compete for the processors");
+		}
+
+		try
+		{
+			// All the measured runs write their progress in the same file
+			JsonLinesProgressSink progress = null;
+			if (run.getProgressFile() != null) {
+				progress = JsonLinesProgressSink.open(run.getProgressFile());
+				run.setProgressFile(null);
+			}
+
+			// Warm-up pass: same runs with a short time limit, results are not printed
+			if (warmup > 0) {
+				long timeLimit = run.getTimeLimit();
+				run.setTimeLimit(warmup);
+				System.err.println("Warm-up: " + files.size() + " instances, " + warmup + " s each");
+				solveAll(run, files, nbWorkers, false, null);
+				run.setTimeLimit(timeLimit);
+			}
+
+			if (progress != null) {
+				run.addProgressListener(progress);
+			}
+			if (Metrics.ENABLED) {
+				Metrics.reset();
+			}
+			// Charts drawn in parallel with the next runs
+			ExecutorService renderer = null;
+			Consumer<RunResult> charts = null;
+			if (chartDirectory != null) {
+				if (!chartDirectory.isDirectory() && !chartDirectory.mkdirs()) {
+					throw new Exception("Error: cannot create the directory " + chartDirectory);
+				}
+				ExecutorService pool = Executors.newFixedThreadPool(nbCores, r -> {
+					Thread thread = new Thread(r, "rcpsp-chart");
+					thread.setDaemon(true);
+					return thread;
+				});
+				File directory = chartDirectory;
+				String extension = "." + chartFormat;
+				charts = result -> pool.execute(() -> {
+					String name = new File(result.getFileName()).getName();
+					int dot = name.lastIndexOf('.');
+					File file = new File(directory, ((dot > 0) ? name.substring(0, dot) : name) + extension);
+					try {
+						Main.exportChart(result.getSolution(), file);
+					} catch (Exception e) {
+						System.err.println("Error: chart of " + result.getFileName() + ": " + e.getMessage());
+					}
+				});
+				renderer = pool;
+			}
+
+			solveAll(run, files, nbWorkers, true, charts);
+			if (renderer != null) {
+				renderer.shutdown();
+				renderer.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+			}
+			if (Metrics.ENABLED) {
+				Metrics.dump(System.err);
+			}
+
+			if (progress != null) {
+				progress.close();
+			}
+		} catch (Exception e) {
+			System.err.printf("Error: %s", e.getMessage());
+			System.err.println();
+			e.printStackTrace(System.err);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Adds the file, or the .sm files of the directory, to the list of instances.
+	 */
+	static void addInstances(File file, List<String> files) {
+		if (file.isDirectory()) {
+			File[] content = file.listFiles((dir, name) -> name.endsWith(".sm"));
+			if (content != null) {
+				Arrays.sort(content);
+				for (File f : content) {
+					files.add(f.getPath());
+				}
+			}
+		} else {
+			files.add(file.getPath());
+		}
+	}
+
+	/**
+	 * Solves the instances on a pool of workers.
+	 *
+	 * @param print True if the result lines must be printed.
+	 * @param charts Receives the result of each run to draw its charts (null if none).
+	 */
+	private static void solveAll(SolverRun run, List<String> files, int nbWorkers, boolean print, Consumer<RunResult> charts) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, nbWorkers), r -> {
+			Thread thread = new Thread(r, "rcpsp-batch");
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (String file : files) {
+			executor.execute(() -> {
+				try {
+					RunResult result = run.run(file);
+					if (print) {
+						synchronized (System.out) {
+							System.out.println(result);
+							System.out.flush();
+						}
+					}
+					if (charts != null) {
+						charts.accept(result);
+					}
+				} catch (Exception e) {
+					System.err.println("Error: instance " + file + ": " + e.getMessage());
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+	}
+
+}
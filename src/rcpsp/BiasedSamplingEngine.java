@@ -0,0 +1,328 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Regret-based biased random sampling: many passes of the serial schedule
+ * generation scheme in which the next activity is drawn among the eligible
+ * activities with a probability that favours the activities of smallest
+ * latest finish time (LFT), and the best schedule is kept.
+ *
+ * The latest finish times are computed once from the precedence graph. At
+ * each step of a pass, the regret of an eligible activity j is
+ * max LFT(i) - LFT(j) over the eligible activities i, and j is drawn with a
+ * probability proportional to (regret + 1)^bias: an activity is favoured
+ * when choosing another one instead would delay a more urgent activity.
+ *
+ * Passes are grouped in batches: a batch runs batchSize passes on each
+ * of the {@link RCPSPSolver#getNbThreads()} workers of a {@link WorkerPool}, and
+ * the best schedules of the workers are merged in the order of the workers at
+ * the end of the batch. The passes of block b draw their random numbers from
+ * {@link RandomService#forTask(long)} of task b, so the run only depends on the
+ * seed and the number of threads (as long as the deadline does not cut a batch).
+ * Each worker reuses its own decoder and arrays from one pass to the next. The
+ * number of passes per second is printed on the error output at the end of the run.
+ *
+ * The bias ({@link #PARAMETER_BIAS}, {@link #BIAS} by default) and the batch size
+ * ({@link #PARAMETER_BATCH_SIZE}, {@link #BATCH_SIZE} by default) are read from the
+ * {@link SolverConfiguration} of the solver.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class BiasedSamplingEngine implements Engine {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Name of the engine */
+	public static final String NAME = "biased";
+
+	/** Name of the parameter giving the number of passes of a worker in a batch */
+	public static final String PARAMETER_BATCH_SIZE = "biased.batchSize";
+
+	/** Name of the parameter giving the exponent of the regret in the selection probabilities */
+	public static final String PARAMETER_BIAS = "biased.bias";
+
+	/** Default number of passes of a worker in a batch */
+	public static final int BATCH_SIZE = 256;
+
+	/** Default exponent of the regret in the selection probabilities (0: uniform choice) */
+	public static final double BIAS = 1.0;
+
+	/** Number of passes done by the engine (see {@link Metrics}) */
+	private static final Metrics.Counter PASSES = Metrics.counter("biased.passes");
+
+	/**
+	 * Scratch data of a worker, reused from one pass to the next.
+	 */
+	private static final class Worker
+	{
+		final SerialSGS sgs;
+		final int[] activityList;
+		final int[] remaining;
+		final int[] eligible;
+		final double[] weights;
+
+		/** Best makespan found during the current batch */
+		int bestMakespan;
+		/** Solution of makespan bestMakespan, null if the worker did not improve the bound it was given */
+		Solution best;
+		/** Activity list of best */
+		final int[] bestList;
+		/** Pass at which best was found */
+		long bestIteration;
+		/** Number of passes done during the current batch */
+		int nbPasses;
+
+		Worker(CompactInstance data)
+		{
+			sgs = new SerialSGS(data);
+			activityList = new int[data.nbActivities];
+			remaining = new int[data.nbActivities];
+			eligible = new int[data.nbActivities];
+			weights = new double[data.nbActivities];
+			bestList = new int[data.nbActivities];
+		}
+	}
+
+	/** Number of passes of a worker in a batch */
+	private int m_batchSize;
+
+	/** Exponent of the regret in the selection probabilities */
+	private double m_bias;
+
+	/** Activity lists of the best schedules found by the engine */
+	private ElitePool m_elite;
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	public void run(RCPSPSolver solver) throws Exception
+	{
+		CompactInstance data = solver.getCompactInstance();
+		int nbWorkers = solver.getNbThreads();
+		Worker[] workers = new Worker[nbWorkers];
+		for(int w = 0; w < nbWorkers; w++)
+		{
+			workers[w] = new Worker(data);
+		}
+		int[] lft = latestFinishTimes(data);
+		m_batchSize = solver.getConfiguration().getInt(PARAMETER_BATCH_SIZE, BATCH_SIZE);
+		m_bias = solver.getConfiguration().getDouble(PARAMETER_BIAS, BIAS);
+
+		long firstBlock = 0;
+		m_elite = new ElitePool(ElitePool.SIZE, null);
+		SearchState resume = solver.getResumeState();
+		if(resume != null && NAME.equals(resume.getEngine()))
+		{
+			// The batches depend on the number of threads
+			resume.checkResume(solver, true);
+			firstBlock = resume.getIteration() / m_batchSize;
+			m_elite = new ElitePool(ElitePool.SIZE, resume.getElite());
+		}
+
+		Deadline deadline = solver.getDeadline();
+		long start = System.nanoTime();
+		long nbPasses = 0;
+		int bestMakespan = bestMakespan(solver);
+		long block = firstBlock;
+		try(WorkerPool pool = new WorkerPool(nbWorkers))
+		{
+			while(!deadline.isExpired() && !Thread.currentThread().isInterrupted() && !solver.isOptimal(bestMakespan)
+					&& block * m_batchSize < solver.getIterationLimit())
+			{
+				publishState(solver, block * m_batchSize);
+				final long batchBlock = block;
+				final int bound = bestMakespan;
+				pool.runWorkers(w -> runBlock(solver, lft, workers[w], batchBlock + w, bound));
+				for(Worker worker : workers)
+				{
+					nbPasses += worker.nbPasses;
+					if(worker.best != null && worker.bestMakespan < bestMakespan)
+					{
+						bestMakespan = worker.bestMakespan;
+						if(solver.updateIncumbent(worker.best, NAME, worker.bestIteration))
+						{
+							m_elite.add(worker.bestList);
+						}
+					}
+				}
+				block += nbWorkers;
+			}
+		}
+		double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+		System.err.println("Biased sampling: " + nbPasses + " passes in " + String.format(Locale.ROOT, "%.2f", seconds)
+				+ " s on " + nbWorkers + " thread(s), " + Math.round(nbPasses / seconds) + " passes/s");
+	}
+
+	/**
+	 * Runs the m_batchSize passes of a block (fewer for the last blocks before
+	 * the iteration limit), until the deadline.
+	 *
+	 * @param lft Latest finish time of each activity.
+	 * @param bound Makespan to improve.
+	 * @return true if the block was completed, false if it was interrupted by the deadline.
+	 */
+	private boolean runBlock(RCPSPSolver solver, int[] lft, Worker worker, long block, int bound) throws Exception
+	{
+		Deadline deadline = solver.getDeadline();
+		CompactInstance data = solver.getCompactInstance();
+		EvaluationCache cache = solver.getEvaluationCache();
+		SplittableRandom random = solver.getRandomService().forTask(block);
+		worker.best = null;
+		worker.bestMakespan = bound;
+		worker.nbPasses = 0;
+		int size = (int) Math.max(0, Math.min(m_batchSize, solver.getIterationLimit() - block * m_batchSize));
+		for(int k = 0; k < size; k++)
+		{
+			if(deadline.poll())
+			{
+				return false;
+			}
+			biasedActivityList(data, lft, m_bias, random, worker);
+			int makespan = (cache == null) ? worker.sgs.decode(worker.activityList) : cache.decode(worker.sgs, worker.activityList, worker.bestMakespan);
+			worker.nbPasses++;
+			PASSES.increment();
+			if(makespan < worker.bestMakespan)
+			{
+				worker.bestMakespan = makespan;
+				worker.bestIteration = block * m_batchSize + k + 1;
+				worker.best = new Solution(solver.getInstance(), solver.getSolution().getProfileArena());
+				worker.sgs.toSolution(worker.best);
+				System.arraycopy(worker.activityList, 0, worker.bestList, 0, worker.bestList.length);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the latest finish time of every activity when resources are
+	 * ignored, for a project that ends at the length of the critical path.
+	 *
+	 * @return An array whose element j is the latest finish time of activity j.
+	 */
+	static int[] latestFinishTimes(CompactInstance data)
+	{
+		int[] tails = data.tails();
+		int length = 0;
+		for(int q : tails)
+		{
+			length = Math.max(length, q);
+		}
+		int[] lft = new int[data.nbActivities];
+		for(int j = 0; j < data.nbActivities; j++)
+		{
+			lft[j] = length - tails[j] + data.duration[j];
+		}
+		return lft;
+	}
+
+	/**
+	 * Builds a precedence feasible activity list: at each step, an eligible
+	 * activity is drawn with a probability proportional to (regret + 1)^bias.
+	 */
+	private static void biasedActivityList(CompactInstance data, int[] lft, double bias, SplittableRandom random, Worker worker)
+	{
+		int[] activityList = worker.activityList;
+		int[] remaining = worker.remaining;
+		int[] eligible = worker.eligible;
+		double[] weights = worker.weights;
+		int nbEligible = 0;
+		for(int j = 0; j < data.nbActivities; j++)
+		{
+			remaining[j] = data.predecessors[j].length;
+			if(remaining[j] == 0)
+			{
+				eligible[nbEligible++] = j;
+			}
+		}
+		for(int k = 0; k < data.nbActivities; k++)
+		{
+			int index = 0;
+			if(nbEligible > 1)
+			{
+				int maxLft = 0;
+				for(int e = 0; e < nbEligible; e++)
+				{
+					maxLft = Math.max(maxLft, lft[eligible[e]]);
+				}
+				double total = 0;
+				for(int e = 0; e < nbEligible; e++)
+				{
+					double regret = maxLft - lft[eligible[e]] + 1;
+					total += (bias == 1.0) ? regret : Math.pow(regret, bias);
+					weights[e] = total;
+				}
+				double r = random.nextDouble() * total;
+				while(index < nbEligible - 1 && weights[index] <= r)
+				{
+					index++;
+				}
+			}
+			int j = eligible[index];
+			eligible[index] = eligible[--nbEligible];
+			activityList[k] = j;
+			for(int s : data.successors[j])
+			{
+				if(--remaining[s] == 0)
+				{
+					eligible[nbEligible++] = s;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return Makespan of the best solution of the solver (Integer.MAX_VALUE if none).
+	 */
+	private static int bestMakespan(RCPSPSolver solver)
+	{
+		Solution best = solver.getBestSolution();
+		return (best == null) ? Integer.MAX_VALUE : best.getObjectiveValue();
+	}
+
+	/**
+	 * Publishes the state of the engine if the solver is checkpointing.
+	 */
+	private void publishState(RCPSPSolver solver, long iteration)
+	{
+		if(solver.isCheckpointing())
+		{
+			String fileName = solver.getInstance().getFileName();
+			long seed = solver.getRandomService().getSeed();
+			solver.publishState(new SearchState(fileName, NAME, seed, solver.getNbThreads(), iteration, solver.getElapsedNanos(),
+					solver.getBestSolution(), m_elite.toArray()));
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes periodically the last {@link SearchState} published by the solver in a file.
+ *
+ * The writer runs in a background thread: the search only publishes immutable
+ * snapshots (see {@link RCPSPSolver#publishState(SearchState)}) and never waits
+ * for the disk. A snapshot is written in a temporary file which then replaces
+ * the checkpoint file, so the checkpoint is never left half written.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class CheckpointWriter implements AutoCloseable {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Solver publishing the snapshots */
+	private final RCPSPSolver m_solver;
+
+	/** Name of the checkpoint file */
+	private final String m_fileName;
+
+	/** Thread writing the snapshots */
+	private final ScheduledExecutorService m_executor;
+
+	/** Last snapshot written (only accessed by the writer thread) */
+	private SearchState m_lastWritten;
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Starts writing the snapshots of the solver.
+	 *
+	 * @param solver The solver publishing the snapshots.
+	 * @param fileName Name of the checkpoint file.
+	 * @param intervalSeconds Time (in seconds) between two writes.
+	 */
+	public CheckpointWriter(RCPSPSolver solver, String fileName, long intervalSeconds)
+	{
+		m_solver = solver;
+		m_fileName = fileName;
+		m_executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "rcpsp-checkpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		m_solver.setCheckpointing(true);
+		long interval = Math.max(1, intervalSeconds);
+		m_executor.scheduleWithFixedDelay(this::writeLast, interval, interval, TimeUnit.SECONDS);
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Writes the last snapshot if it has not been written yet.
+	 */
+	private void writeLast()
+	{
+		SearchState state = m_solver.getPublishedState();
+		if(state == null || state == m_lastWritten)
+		{
+			return;
+		}
+		try
+		{
+			File target = new File(m_fileName);
+			File temp = new File(m_fileName + ".tmp");
+			state.write(temp.getPath());
+			try
+			{
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			m_lastWritten = state;
+		}
+		catch (IOException e)
+		{
+			System.err.println("Error: the checkpoint " + m_fileName + " cannot be written: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the last snapshot and stops the writer thread.
+	 */
+	@Override
+	public void close()
+	{
+		m_executor.shutdown();
+		try
+		{
+			m_executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		writeLast();
+		m_solver.setCheckpointing(false);
+	}
+
+}
@@ -0,0 +1,543 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Arrays;
+
+/**
+ * Read-only copy of the data of an {@link Instance} stored in primitive arrays.
+ *
+ * The getters of Instance check their indices and throw exceptions, which is
+ * fine for occasional accesses but expensive in the inner loops of algorithms.
+ * This class copies the data once so that bounds, decoders and engines can
+ * read durations, consumptions and direct successors without boxing.
+ *
+ * The arrays are exposed directly for performance: they must not be modified.
+ *
+ * For a multi-mode instance the data of every mode are copied in flat arrays
+ * indexed by mode (see {@link #modeOffset}), and the single-mode views
+ * {@link #duration} and {@link #demand} contain the modes of a fixed mode
+ * vector {@link #modes}, chosen by {@link #selectModes()} unless given to the
+ * constructor. {@link #relaxation(Instance)} builds instead the single-mode
+ * relaxation used by the lower bounds.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class CompactInstance {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Instance the data are copied from */
+	private final Instance m_instance;
+
+	/** Number of activities */
+	public final int nbActivities;
+
+	/** Number of resources */
+	public final int nbResources;
+
+	/** duration[j] is the duration of activity j */
+	public final int[] duration;
+
+	/** capacity[i] is the capacity of resource i */
+	public final int[] capacity;
+
+	/** demand[j][i] is the consumption of resource i by activity j */
+	public final int[][] demand;
+
+	/** successors[j] contains the direct successors of activity j */
+	public final int[][] successors;
+
+	/** predecessors[j] contains the direct predecessors of activity j */
+	public final int[][] predecessors;
+
+	/** Activities sorted in a topological order of the precedence graph */
+	public final int[] topologicalOrder;
+
+	/** The modes of activity j are numbered modeOffset[j] to modeOffset[j + 1] - 1 */
+	public final int[] modeOffset;
+
+	/** modeDuration[mode] is the duration of a mode */
+	public final int[] modeDuration;
+
+	/** modeDemand[mode * nbResources + i] is the consumption of renewable resource i by a mode */
+	public final int[] modeDemand;
+
+	/** Number of nonrenewable resources */
+	public final int nbNonrenewable;
+
+	/** nonrenewableCapacity[k] is the capacity of nonrenewable resource k */
+	public final int[] nonrenewableCapacity;
+
+	/** modeNonrenewable[mode * nbNonrenewable + k] is the consumption of nonrenewable resource k by a mode */
+	public final int[] modeNonrenewable;
+
+	/** modes[j] is the mode of activity j in {@link #duration} and {@link #demand} (null for the relaxation) */
+	public final int[] modes;
+
+	/** True if a mode can be scheduled alone, i.e. its demands do not exceed the renewable capacities */
+	private final boolean[] m_executable;
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Copies the data of the instance given as parameter. The activities of a
+	 * multi-mode instance are in the modes chosen by {@link #selectModes()}.
+	 *
+	 * @param instance The instance of the problem.
+	 * @throws Exception Throw an exception if the precedence graph contains a cycle.
+	 */
+	public CompactInstance(Instance instance) throws Exception
+	{
+		this(instance, null, false);
+	}
+
+	/**
+	 * Copies the data of the instance given as parameter, the activities being in the given modes.
+	 *
+	 * @param instance The instance of the problem.
+	 * @param modes modes[j] is the mode of activity j.
+	 * @throws Exception Throw an exception if the precedence graph contains a cycle or if the modes are not feasible.
+	 */
+	public CompactInstance(Instance instance, int[] modes) throws Exception
+	{
+		this(instance, modes, false);
+	}
+
+	private CompactInstance(Instance instance, int[] modes, boolean relaxation) throws Exception
+	{
+		m_instance = instance;
+		nbActivities = instance.getNbActivities();
+		nbResources = instance.getNbResources();
+		nbNonrenewable = instance.getNbNonrenewableResources();
+
+		capacity = new int[nbResources];
+		for(int i = 0; i < nbResources; i++)
+		{
+			capacity[i] = instance.getCapacityResource(i);
+		}
+		nonrenewableCapacity = new int[nbNonrenewable];
+		for(int k = 0; k < nbNonrenewable; k++)
+		{
+			nonrenewableCapacity[k] = instance.getCapacityNonrenewableResource(k);
+		}
+
+		// Modes
+		modeOffset = new int[nbActivities + 1];
+		for(int j = 0; j < nbActivities; j++)
+		{
+			modeOffset[j + 1] = modeOffset[j] + instance.getNbModes(j);
+		}
+		int nbModes = modeOffset[nbActivities];
+		modeDuration = new int[nbModes];
+		modeDemand = new int[nbModes * nbResources];
+		modeNonrenewable = new int[nbModes * nbNonrenewable];
+		m_executable = new boolean[nbModes];
+		for(int j = 0; j < nbActivities; j++)
+		{
+			for(int m = 0; m < modeOffset[j + 1] - modeOffset[j]; m++)
+			{
+				int mode = modeOffset[j] + m;
+				modeDuration[mode] = instance.getDurationActivity(j, m);
+				m_executable[mode] = true;
+				for(int i = 0; i < nbResources; i++)
+				{
+					modeDemand[mode * nbResources + i] = instance.getConsumptionResourceActivity(i, j, m);
+					m_executable[mode] &= modeDemand[mode * nbResources + i] <= capacity[i];
+				}
+				for(int k = 0; k < nbNonrenewable; k++)
+				{
+					modeNonrenewable[mode * nbNonrenewable + k] = instance.getConsumptionNonrenewableActivity(k, j, m);
+				}
+			}
+		}
+
+		// Single-mode views: the chosen modes, or the smallest duration and demands of the relaxation
+		if(relaxation)
+		{
+			this.modes = null;
+		}
+		else if(modes == null)
+		{
+			this.modes = selectModes();
+		}
+		else
+		{
+			if(modes.length != nbActivities || !isFeasible(modes))
+			{
+				throw new Exception("Error: the modes are not a feasible mode vector of " + instance.getFileName());
+			}
+			this.modes = modes.clone();
+		}
+		duration = new int[nbActivities];
+		demand = new int[nbActivities][nbResources];
+		for(int j = 0; j < nbActivities; j++)
+		{
+			if(relaxation)
+			{
+				duration[j] = Integer.MAX_VALUE;
+				Arrays.fill(demand[j], Integer.MAX_VALUE);
+				for(int mode = modeOffset[j]; mode < modeOffset[j + 1]; mode++)
+				{
+					duration[j] = Math.min(duration[j], modeDuration[mode]);
+					for(int i = 0; i < nbResources; i++)
+					{
+						demand[j][i] = Math.min(demand[j][i], modeDemand[mode * nbResources + i]);
+					}
+				}
+			}
+			else
+			{
+				int mode = modeOffset[j] + this.modes[j];
+				duration[j] = modeDuration[mode];
+				for(int i = 0; i < nbResources; i++)
+				{
+					demand[j][i] = modeDemand[mode * nbResources + i];
+				}
+			}
+		}
+
+		// Direct successors and predecessors
+		successors = new int[nbActivities][];
+		int[] nbPred = new int[nbActivities];
+		for(int a = 0; a < nbActivities; a++)
+		{
+			successors[a] = instance.getDirectSuccessors(a);
+			Arrays.sort(successors[a]);
+			for(int b : successors[a])
+			{
+				nbPred[b]++;
+			}
+		}
+		predecessors = new int[nbActivities][];
+		for(int j = 0; j < nbActivities; j++)
+		{
+			predecessors[j] = new int[nbPred[j]];
+		}
+		Arrays.fill(nbPred, 0);
+		for(int a = 0; a < nbActivities; a++)
+		{
+			for(int b : successors[a])
+			{
+				predecessors[b][nbPred[b]++] = a;
+			}
+		}
+
+		// Topological order (Kahn's algorithm)
+		topologicalOrder = new int[nbActivities];
+		int[] remaining = new int[nbActivities];
+		int head = 0;
+		int tail = 0;
+		for(int j = 0; j < nbActivities; j++)
+		{
+			remaining[j] = predecessors[j].length;
+			if(remaining[j] == 0)
+			{
+				topologicalOrder[tail++] = j;
+			}
+		}
+		while(head < tail)
+		{
+			int j = topologicalOrder[head++];
+			for(int s : successors[j])
+			{
+				if(--remaining[s] == 0)
+				{
+					topologicalOrder[tail++] = s;
+				}
+			}
+		}
+		if(tail != nbActivities)
+		{
+			throw new Exception("Error: the precedence graph of " + instance.getFileName() + " contains a cycle");
+		}
+	}
+
+	/**
+	 * Relaxation of a multi-mode instance: every activity takes the smallest
+	 * duration and, for each resource, the smallest demand of its modes, and the
+	 * nonrenewable resources are ignored. A lower bound of the relaxation is a
+	 * lower bound of the instance.
+	 *
+	 * @param instance The instance of the problem.
+	 * @return The relaxation (its field {@link #modes} is null).
+	 * @throws Exception Throw an exception if the precedence graph contains a cycle.
+	 */
+	public static CompactInstance relaxation(Instance instance) throws Exception
+	{
+		return new CompactInstance(instance, null, true);
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @return The instance the data were copied from.
+	 */
+	public Instance getInstance()
+	{
+		return m_instance;
+	}
+
+	/**
+	 * Computes the earliest start time of every activity when resources are ignored.
+	 *
+	 * @return An array whose element j is the earliest start time of activity j.
+	 */
+	public int[] earliestStartTimes()
+	{
+		int[] es = new int[nbActivities];
+		for(int j : topologicalOrder)
+		{
+			for(int s : successors[j])
+			{
+				es[s] = Math.max(es[s], es[j] + duration[j]);
+			}
+		}
+		return es;
+	}
+
+	/**
+	 * Computes the length of the longest path from the start of every activity
+	 * to the end of the project when resources are ignored (the "tail" of the activity,
+	 * including its own duration).
+	 *
+	 * @return An array whose element j is the tail of activity j.
+	 */
+	public int[] tails()
+	{
+		int[] q = new int[nbActivities];
+		for(int k = nbActivities - 1; k >= 0; k--)
+		{
+			int j = topologicalOrder[k];
+			int tail = 0;
+			for(int s : successors[j])
+			{
+				tail = Math.max(tail, q[s]);
+			}
+			q[j] = tail + duration[j];
+		}
+		return q;
+	}
+
+	/**
+	 * Checks a mode vector before decoding it: every mode exists and can be
+	 * scheduled alone, and the consumption of each nonrenewable resource does
+	 * not exceed its capacity. It reads O(n) values; no schedule of an
+	 * infeasible mode vector can be feasible.
+	 *
+	 * @param modes modes[j] is the mode of activity j.
+	 * @return True if the mode vector is feasible.
+	 */
+	public boolean isFeasible(int[] modes)
+	{
+		for(int j = 0; j < nbActivities; j++)
+		{
+			if(modes[j] < 0 || modes[j] >= modeOffset[j + 1] - modeOffset[j] || !m_executable[modeOffset[j] + modes[j]])
+			{
+				return false;
+			}
+		}
+		for(int k = 0; k < nbNonrenewable; k++)
+		{
+			int consumption = 0;
+			for(int j = 0; j < nbActivities; j++)
+			{
+				consumption += modeNonrenewable[(modeOffset[j] + modes[j]) * nbNonrenewable + k];
+			}
+			if(consumption > nonrenewableCapacity[k])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Chooses a mode for every activity. Each activity first takes the
+	 * executable mode that uses the smallest fraction of the nonrenewable
+	 * capacities (the shortest one if there are no nonrenewable resources);
+	 * while a nonrenewable resource is exceeded, the change of mode that most
+	 * reduces the excess is applied; then each activity in turn takes the
+	 * shortest mode that keeps the mode vector feasible.
+	 *
+	 * @return The modes, a feasible mode vector unless the instance has none or the
+	 *         nonrenewable resources are too tight for this greedy choice.
+	 */
+	public int[] selectModes()
+	{
+		int[] modes = new int[nbActivities];
+		int[] consumption = new int[nbNonrenewable];
+		for(int j = 0; j < nbActivities; j++)
+		{
+			double bestUse = Double.MAX_VALUE;
+			for(int mode = modeOffset[j]; mode < modeOffset[j + 1]; mode++)
+			{
+				double use = m_executable[mode] ? 0 : Double.MAX_VALUE / 2;
+				for(int k = 0; k < nbNonrenewable; k++)
+				{
+					use += (double) modeNonrenewable[mode * nbNonrenewable + k] / Math.max(1, nonrenewableCapacity[k]);
+				}
+				// Ties: the shortest mode
+				use += 1e-9 * modeDuration[mode];
+				if(use < bestUse)
+				{
+					bestUse = use;
+					modes[j] = mode - modeOffset[j];
+				}
+			}
+			for(int k = 0; k < nbNonrenewable; k++)
+			{
+				consumption[k] += modeNonrenewable[(modeOffset[j] + modes[j]) * nbNonrenewable + k];
+			}
+		}
+
+		// Repair: the change of mode that most reduces the excess of the nonrenewable resources
+		double excess = excess(consumption, -1, -1);
+		while(excess > 0)
+		{
+			int bestActivity = -1;
+			int bestMode = -1;
+			double bestExcess = excess;
+			for(int j = 0; j < nbActivities; j++)
+			{
+				int current = modeOffset[j] + modes[j];
+				for(int mode = modeOffset[j]; mode < modeOffset[j + 1]; mode++)
+				{
+					if(mode != current && m_executable[mode])
+					{
+						double e = excess(consumption, current, mode);
+						if(e < bestExcess)
+						{
+							bestExcess = e;
+							bestActivity = j;
+							bestMode = mode;
+						}
+					}
+				}
+			}
+			if(bestActivity < 0)
+			{
+				return modes;
+			}
+			int current = modeOffset[bestActivity] + modes[bestActivity];
+			for(int k = 0; k < nbNonrenewable; k++)
+			{
+				consumption[k] += modeNonrenewable[bestMode * nbNonrenewable + k] - modeNonrenewable[current * nbNonrenewable + k];
+			}
+			modes[bestActivity] = bestMode - modeOffset[bestActivity];
+			excess = bestExcess;
+		}
+		if(!isFeasible(modes))
+		{
+			return modes;
+		}
+
+		// Shorter modes while the nonrenewable capacities allow them
+		for(int j = 0; j < nbActivities; j++)
+		{
+			int current = modeOffset[j] + modes[j];
+			int best = current;
+			for(int mode = modeOffset[j]; mode < modeOffset[j + 1]; mode++)
+			{
+				if(!m_executable[mode] || modeDuration[mode] >= modeDuration[best])
+				{
+					continue;
+				}
+				boolean fits = true;
+				for(int k = 0; k < nbNonrenewable && fits; k++)
+				{
+					fits = consumption[k] - modeNonrenewable[current * nbNonrenewable + k] + modeNonrenewable[mode * nbNonrenewable + k] <= nonrenewableCapacity[k];
+				}
+				if(fits)
+				{
+					best = mode;
+				}
+			}
+			for(int k = 0; k < nbNonrenewable; k++)
+			{
+				consumption[k] += modeNonrenewable[best * nbNonrenewable + k] - modeNonrenewable[current * nbNonrenewable + k];
+			}
+			modes[j] = best - modeOffset[j];
+		}
+		return modes;
+	}
+
+	/**
+	 * @return The relative excess of the nonrenewable resources, sum over k of
+	 *         max(0, consumption[k] - capacity[k]) / capacity[k], if an activity
+	 *         changes from mode from to mode to (no change if from is -1).
+	 */
+	private double excess(int[] consumption, int from, int to)
+	{
+		double excess = 0;
+		for(int k = 0; k < nbNonrenewable; k++)
+		{
+			int c = consumption[k];
+			if(from >= 0)
+			{
+				c += modeNonrenewable[to * nbNonrenewable + k] - modeNonrenewable[from * nbNonrenewable + k];
+			}
+			if(c > nonrenewableCapacity[k])
+			{
+				excess += (double) (c - nonrenewableCapacity[k]) / Math.max(1, nonrenewableCapacity[k]);
+			}
+		}
+		return excess;
+	}
+
+	/**
+	 * @return The sum over the activities of their largest duration, i.e. the horizon of any serial schedule.
+	 */
+	public int sumMaxDurations()
+	{
+		int sum = 0;
+		for(int j = 0; j < nbActivities; j++)
+		{
+			int longest = 0;
+			for(int mode = modeOffset[j]; mode < modeOffset[j + 1]; mode++)
+			{
+				longest = Math.max(longest, modeDuration[mode]);
+			}
+			sum += longest;
+		}
+		return sum;
+	}
+
+	/**
+	 * @return The sum of the durations of all activities, i.e. the length of the naive serial schedule.
+	 */
+	public int sumDurations()
+	{
+		int sum = 0;
+		for(int d : duration)
+		{
+			sum += d;
+		}
+		return sum;
+	}
+
+}
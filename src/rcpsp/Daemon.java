@@ -0,0 +1,572 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+
+package rcpsp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resident solver: solves the jobs it receives on its standard input or on a
+ * Unix domain socket, so that a pipeline solving many projects pays the start
+ * of the java program, the loading of the classes and the JIT compilation only
+ * once.
+ *
+ * **command**: java rcpsp.Daemon [options]
+ * **Options**:
+ *  - -help :prints this parameter description
+ *  - -socket (file) :listens on a Unix domain socket (standard input and output by default)
+ *  - -workers (int) :number of jobs solved at the same time (1 by default)
+ *  - -queue (int) :number of jobs waiting for a worker (16 by default), the next jobs are refused
+ *  - -cache (int) :number of instance files kept in memory (64 by default)
+ *  - the options of {@link SolverRun} (-t, -lb, -seed, -threads, -engine, ...): default settings of the jobs
+ *
+ * **Protocol**: one request per line.
+ *  - solve [options] dataFile : solves an instance file, the options of {@link SolverRun} replace the default settings
+ *  - solve [options] -inline name : solves the instance given on the next lines, in the format of the .sm files, up to a line END
+ *    (the content is read even when the request is refused)
+ *  - ping : answers pong
+ *  - quit : closes the connection (on the standard input: stops the daemon when the jobs are done)
+ *  - shutdown : stops the daemon when the running jobs are done
+ *
+ * The result of a job is sent on the connection of the request when the job
+ * ends, as the line printed by {@link Main} (fileName;objectiveValue;time;e;lowerBound;gap,
+ * the file name being the name given after -inline for inline instances).
+ * Several jobs are solved at the same time, so the results may come in another
+ * order than the requests. A request that cannot be performed gets the line
+ * error;name;message. Every other message goes to the error output.
+ *
+ * The instance files are kept in a least recently used cache and read again
+ * only when they are modified. Each job is solved by its own {@link RCPSPSolver},
+ * with a deadline starting when a worker takes the job.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class Daemon {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Line ending the content of an inline instance */
+	public static final String END = "END";
+
+	/**
+	 * Instance files read recently, the least recently used is removed first.
+	 */
+	static final class InstanceCache
+	{
+		/** Instance read from a file, with the state of the file when it was read */
+		private static final class Entry
+		{
+			final Instance instance;
+			final long lastModified;
+			final long length;
+
+			Entry(Instance instance, long lastModified, long length)
+			{
+				this.instance = instance;
+				this.lastModified = lastModified;
+				this.length = length;
+			}
+		}
+
+		/** Entries by canonical file name, in access order */
+		private final LinkedHashMap<String, Entry> m_entries;
+
+		/** Number of instances found in the cache */
+		private final AtomicInteger m_hits = new AtomicInteger();
+
+		/** Number of instances read */
+		private final AtomicInteger m_misses = new AtomicInteger();
+
+		/**
+		 * @param capacity Maximum number of instances kept.
+		 */
+		InstanceCache(final int capacity)
+		{
+			m_entries = new LinkedHashMap<String, Entry>(16, 0.75f, true)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+				{
+					return size() > capacity;
+				}
+			};
+		}
+
+		/**
+		 * @param fileName Name of an instance file.
+		 * @return The instance, read from the file if it is not in the cache or if the file was modified.
+		 * @throws IOException Returns an error when a problem is met reading the file.
+		 */
+		Instance get(String fileName) throws IOException
+		{
+			File file = new File(fileName);
+			if(!file.exists())
+			{
+				throw new IOException("The instance file : " + fileName + " does not exist.");
+			}
+			String key = file.getCanonicalPath();
+			long lastModified = file.lastModified();
+			long length = file.length();
+			synchronized(m_entries)
+			{
+				Entry entry = m_entries.get(key);
+				if(entry != null && entry.lastModified == lastModified && entry.length == length
+						&& entry.instance.getFileName().equals(fileName))
+				{
+					m_hits.incrementAndGet();
+					return entry.instance;
+				}
+			}
+			// Read outside the lock, so that the other workers are not blocked by a large file
+			m_misses.incrementAndGet();
+			Instance instance = new Instance(fileName);
+			synchronized(m_entries)
+			{
+				m_entries.put(key, new Entry(instance, lastModified, length));
+			}
+			return instance;
+		}
+
+		/** @return Number of instances found in the cache */
+		int getHits()
+		{
+			return m_hits.get();
+		}
+
+		/** @return Number of instances read */
+		int getMisses()
+		{
+			return m_misses.get();
+		}
+	}
+
+	/** Options of {@link SolverRun} given on the command line, applied to every job */
+	private final List<String> m_defaults = new ArrayList<String>();
+
+	/** Workers solving the jobs */
+	private final ThreadPoolExecutor m_executor;
+
+	/** Instance files read recently */
+	private final InstanceCache m_cache;
+
+	/** Number of inline instances received, to name those without name */
+	private final AtomicInteger m_nbInline = new AtomicInteger();
+
+	/** True when the daemon must stop */
+	private volatile boolean m_shutdown;
+
+	/** Socket accepting the connections (null if the daemon reads its standard input) */
+	private volatile ServerSocketChannel m_server;
+
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param defaults Options of {@link SolverRun} applied to every job.
+	 * @param nbWorkers Number of jobs solved at the same time.
+	 * @param queueSize Number of jobs waiting for a worker.
+	 * @param cacheSize Number of instance files kept in memory.
+	 */
+	public Daemon(List<String> defaults, int nbWorkers, int queueSize, int cacheSize)
+	{
+		m_defaults.addAll(defaults);
+		nbWorkers = Math.max(1, nbWorkers);
+		m_executor = new ThreadPoolExecutor(nbWorkers, nbWorkers, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)), r -> {
+					Thread thread = new Thread(r, "rcpsp-daemon");
+					thread.setDaemon(true);
+					return thread;
+				});
+		m_cache = new InstanceCache(Math.max(1, cacheSize));
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Main method.
+	 *
+	 * @param arg program parameters.
+	 */
+	public static void main(String[] arg) {
+		List<String> defaults = new ArrayList<String>();
+		SolverRun check = new SolverRun();
+		String socket = null;
+		int nbWorkers = 1;
+		int queueSize = 16;
+		int cacheSize = 64;
+
+		// Parse command line
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].compareTo("-help") == 0) {
+				System.err.println("The Resource-Constrained Project Scheduling Problem - daemon");
+				System.err.println("Program parameters:");
+				System.err.println("command: java rcpsp.Daemon [options]");
+				System.err.println("Options:");
+				System.err.println("\t-help\t: prints this parameter description");
+				System.err.println("\t-socket\t\t: listens on a Unix domain socket (standard input and output by default)");
+				System.err.println("\t-workers\t: number of jobs solved at the same time (int, 1 by default)");
+				System.err.println("\t-queue\t\t: number of jobs waiting for a worker (int, 16 by default)");
+				System.err.println("\t-cache\t\t: number of instance files kept in memory (int, 64 by default)");
+				SolverRun.printOptions(System.err);
+				System.err.println("Requests (one per line):");
+				System.err.println("\tsolve [options] dataFile");
+				System.err.println("\tsolve [options] -inline name, then the content of the .sm file and a line " + END);
+				System.err.println("\tping, quit, shutdown");
+				return;
+			}
+			try {
+				if (arg[i].compareTo("-socket") == 0 && i + 1 < arg.length) {
+					socket = arg[++i];
+				} else if (arg[i].compareTo("-workers") == 0 && i + 1 < arg.length) {
+					nbWorkers = Integer.parseInt(arg[++i]);
+				} else if (arg[i].compareTo("-queue") == 0 && i + 1 < arg.length) {
+					queueSize = Integer.parseInt(arg[++i]);
+				} else if (arg[i].compareTo("-cache") == 0 && i + 1 < arg.length) {
+					cacheSize = Integer.parseInt(arg[++i]);
+				} else {
+					int last = check.parseArgument(arg, i);
+					if (last < 0) {
+						throw new IllegalArgumentException("Error: Value " + arg[i] + " is not a valid parameter.");
+					}
+					for (int k = i; k <= last; k++) {
+						defaults.add(arg[k]);
+					}
+					i = last;
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Error: The value given for " + arg[i - 1] + " is not a valid integer value.");
+				System.exit(1);
+			} catch (IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+
+		Daemon daemon = new Daemon(defaults, nbWorkers, queueSize, cacheSize);
+		try {
+			if (socket == null) {
+				daemon.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+						new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+			} else {
+				daemon.listen(Path.of(socket));
+			}
+			daemon.shutdown();
+		} catch (Exception e) {
+			System.err.printf("Error: %s", e.getMessage());
+			System.err.println();
+			e.printStackTrace(System.err);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Accepts connections on a Unix domain socket until a shutdown request. Each
+	 * connection is served by its own thread.
+	 *
+	 * @param path File of the socket, replaced if it exists.
+	 * @throws IOException Returns an error when the socket cannot be created.
+	 */
+	public void listen(Path path) throws IOException
+	{
+		Files.deleteIfExists(path);
+		try(ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX))
+		{
+			m_server = server;
+			server.bind(UnixDomainSocketAddress.of(path));
+			System.err.println("Listening on " + path);
+			while(!m_shutdown)
+			{
+				SocketChannel channel;
+				try
+				{
+					channel = server.accept();
+				}
+				catch(IOException e)
+				{
+					if(m_shutdown)
+					{
+						break;
+					}
+					throw e;
+				}
+				Thread thread = new Thread(() -> {
+					try(SocketChannel c = channel)
+					{
+						serve(new BufferedReader(Channels.newReader(c, StandardCharsets.UTF_8)),
+								new PrintWriter(Channels.newWriter(c, StandardCharsets.UTF_8)));
+					}
+					catch(Exception e)
+					{
+						System.err.println("Error: connection: " + e.getMessage());
+					}
+					if(m_shutdown)
+					{
+						// Unblock the accept of the main thread
+						try
+						{
+							m_server.close();
+						}
+						catch(IOException e)
+						{
+							System.err.println("Error: socket: " + e.getMessage());
+						}
+					}
+				}, "rcpsp-connection");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(path);
+		}
+	}
+
+	/**
+	 * Reads the requests of a connection until it is closed, or until a quit or
+	 * shutdown request, and sends the results of its jobs. The method returns
+	 * when the jobs of the connection are done.
+	 *
+	 * @param in Requests.
+	 * @param out Results, the writer is used by the workers.
+	 * @throws Exception Any error met reading the requests.
+	 */
+	public void serve(BufferedReader in, PrintWriter out) throws Exception
+	{
+		AtomicInteger pending = new AtomicInteger();
+		String line;
+		while(!m_shutdown && (line = in.readLine()) != null)
+		{
+			String[] tokens = line.trim().split("\\s+");
+			switch(tokens[0])
+			{
+			case "":
+				break;
+			case "solve":
+				submit(tokens, in, out, pending);
+				break;
+			case "ping":
+				send(out, "pong");
+				break;
+			case "quit":
+				waitJobs(pending);
+				return;
+			case "shutdown":
+				m_shutdown = true;
+				break;
+			default:
+				send(out, "error;" + tokens[0] + ";unknown request");
+			}
+		}
+		waitJobs(pending);
+	}
+
+	/**
+	 * Stops the workers when the jobs are done.
+	 *
+	 * @throws InterruptedException If the thread is interrupted while waiting.
+	 */
+	public void shutdown() throws InterruptedException
+	{
+		m_shutdown = true;
+		m_executor.shutdown();
+		m_executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		System.err.println("Instance cache: " + m_cache.getHits() + " hits, " + m_cache.getMisses() + " files read");
+	}
+
+	/**
+	 * Reads a solve request and gives the job to the workers.
+	 */
+	private void submit(String[] tokens, BufferedReader in, PrintWriter out, AtomicInteger pending) throws IOException
+	{
+		SolverRun run = new SolverRun();
+		String fileName = null;
+		String inlineName = null;
+		// The inline instance is found first, so that its content is skipped whatever the error in the options
+		int inline = Arrays.asList(tokens).indexOf("-inline");
+		int inlineEnd = inline;
+		if(inline > 0)
+		{
+			if(inline + 1 < tokens.length)
+			{
+				inlineName = tokens[++inlineEnd];
+			}
+			else
+			{
+				inlineName = "inline" + m_nbInline.incrementAndGet();
+			}
+		}
+		try
+		{
+			String[] defaults = m_defaults.toArray(new String[0]);
+			for(int i = 0; i < defaults.length; i++)
+			{
+				i = run.parseArgument(defaults, i);
+			}
+			for(int i = 1; i < tokens.length; i++)
+			{
+				if(i == inline)
+				{
+					i = inlineEnd;
+					continue;
+				}
+				int last = run.parseArgument(tokens, i);
+				if(last >= 0)
+				{
+					i = last;
+				}
+				else if(fileName == null && !tokens[i].startsWith("-"))
+				{
+					fileName = tokens[i];
+				}
+				else
+				{
+					throw new IllegalArgumentException("Error: Value " + tokens[i] + " is not a valid parameter.");
+				}
+			}
+		}
+		catch(IllegalArgumentException e)
+		{
+			// Skip the content of the instance that would have been solved
+			if(inlineName != null)
+			{
+				readInline(in);
+			}
+			send(out, "error;" + ((inlineName != null) ? inlineName : tokens[tokens.length - 1]) + ";" + e.getMessage());
+			return;
+		}
+
+		String name = (inlineName != null) ? inlineName : fileName;
+		String content = (inlineName != null) ? readInline(in) : null;
+		if(name == null)
+		{
+			send(out, "error;;no instance in the request");
+			return;
+		}
+		if(run.getResumeFile() != null || run.getCheckpointFile() != null)
+		{
+			send(out, "error;" + name + ";-checkpoint and -resume cannot be used by the daemon");
+			return;
+		}
+
+		pending.incrementAndGet();
+		try
+		{
+			m_executor.execute(() -> {
+				try
+				{
+					Instance instance = (content != null) ? new Instance(name, new StringReader(content)) : m_cache.get(name);
+					send(out, run.run(instance).toString());
+				}
+				catch(Exception e)
+				{
+					send(out, "error;" + name + ";" + e.getMessage());
+				}
+				finally
+				{
+					synchronized(pending)
+					{
+						pending.decrementAndGet();
+						pending.notifyAll();
+					}
+				}
+			});
+		}
+		catch(RejectedExecutionException e)
+		{
+			pending.decrementAndGet();
+			send(out, "error;" + name + ";too many jobs, try again later");
+		}
+	}
+
+	/**
+	 * @return The lines of an inline instance, up to the line {@link #END}.
+	 */
+	private static String readInline(BufferedReader in) throws IOException
+	{
+		StringBuilder content = new StringBuilder();
+		String line;
+		while((line = in.readLine()) != null && !line.trim().equals(END))
+		{
+			content.append(line).append('\n');
+		}
+		return content.toString();
+	}
+
+	/**
+	 * Waits for the jobs of a connection.
+	 */
+	private static void waitJobs(AtomicInteger pending) throws InterruptedException
+	{
+		synchronized(pending)
+		{
+			while(pending.get() > 0)
+			{
+				pending.wait();
+			}
+		}
+	}
+
+	/**
+	 * Sends a line on a connection.
+	 */
+	private static void send(PrintWriter out, String line)
+	{
+		synchronized(out)
+		{
+			out.println(line);
+			out.flush();
+		}
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+/**
+ * A point in time after which an algorithm must stop, together with a
+ * cancellation flag.
+ *
+ * The deadline is created by {@link Main} from the time limit and given to the
+ * {@link RCPSPSolver}. Algorithms should call {@link #poll()} in their main
+ * loop: it only reads the clock every {@link #getPollInterval()} calls, so it
+ * can be called at every iteration. {@link #isExpired()} always reads the clock.
+ *
+ * A deadline may be cancelled at any time (e.g. by the {@link Watchdog}) and
+ * a shorter deadline can be derived with {@link #slice(long)} to give a part
+ * of the time to a sub-algorithm. Cancelling a deadline also cancels its slices.
+ *
+ * Times are measured with <code>System.nanoTime()</code>.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class Deadline {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Default number of calls to {@link #poll()} between two clock reads */
+	public static final int DEFAULT_POLL_INTERVAL = 256;
+
+	/** Deadline this one is a slice of (null for a root deadline) */
+	private final Deadline m_parent;
+
+	/** Time (nanoTime) at which the deadline was created */
+	private final long m_start;
+
+	/** Time (nanoTime) at which the deadline expires */
+	private final long m_end;
+
+	/** Number of calls to {@link #poll()} between two clock reads */
+	private final int m_pollInterval;
+
+	/**
+	 * Number of calls to {@link #poll()} before the next clock read.
+	 * Not synchronized: when several threads poll the same deadline, races only
+	 * change how often the clock is read.
+	 */
+	private int m_countdown;
+
+	/** True once the deadline is known to be reached */
+	private volatile boolean m_expired;
+
+	/** True if the deadline has been cancelled */
+	private volatile boolean m_cancelled;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Number of calls to {@link #poll()} between two clock reads */
+	public int getPollInterval()
+	{
+		return m_pollInterval;
+	}
+
+	/** @return true if the deadline (or the deadline it is a slice of) has been cancelled */
+	public boolean isCancelled()
+	{
+		return m_cancelled || (m_parent != null && m_parent.isCancelled());
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Creates a deadline expiring after the given number of nanoseconds.
+	 *
+	 * @param budgetNanos Time (in nanoseconds) before the deadline expires.
+	 * @param pollInterval Number of calls to {@link #poll()} between two clock reads.
+	 */
+	public Deadline(long budgetNanos, int pollInterval)
+	{
+		this(null, System.nanoTime(), budgetNanos, pollInterval);
+	}
+
+	private Deadline(Deadline parent, long start, long budgetNanos, int pollInterval)
+	{
+		m_parent = parent;
+		m_start = start;
+		m_end = start + Math.max(0, budgetNanos);
+		m_pollInterval = Math.max(1, pollInterval);
+		m_countdown = m_pollInterval;
+	}
+
+	/**
+	 * @param seconds Time (in seconds) before the deadline expires.
+	 * @return A new deadline.
+	 */
+	public static Deadline ofSeconds(long seconds)
+	{
+		return new Deadline(seconds * 1000000000L, DEFAULT_POLL_INTERVAL);
+	}
+
+	/**
+	 * @param millis Time (in milliseconds) before the deadline expires.
+	 * @return A new deadline.
+	 */
+	public static Deadline ofMillis(long millis)
+	{
+		return new Deadline(millis * 1000000L, DEFAULT_POLL_INTERVAL);
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Cheap test to be called at every iteration of an algorithm: the clock is
+	 * only read every {@link #getPollInterval()} calls.
+	 *
+	 * @return true if the algorithm must stop.
+	 */
+	public boolean poll()
+	{
+		if(m_expired || m_cancelled)
+		{
+			return true;
+		}
+		if(--m_countdown > 0)
+		{
+			return false;
+		}
+		m_countdown = m_pollInterval;
+		return isExpired();
+	}
+
+	/**
+	 * Reads the clock.
+	 *
+	 * @return true if the deadline is reached or cancelled.
+	 */
+	public boolean isExpired()
+	{
+		if(m_expired)
+		{
+			return true;
+		}
+		if(isCancelled() || System.nanoTime() - m_end >= 0 || (m_parent != null && m_parent.isExpired()))
+		{
+			m_expired = true;
+		}
+		return m_expired;
+	}
+
+	/**
+	 * Cancels the deadline: {@link #poll()} and {@link #isExpired()} return true from now on.
+	 */
+	public void cancel()
+	{
+		m_cancelled = true;
+	}
+
+	/**
+	 * @return Time elapsed since the creation of the deadline (in nanoseconds).
+	 */
+	public long elapsedNanos()
+	{
+		return System.nanoTime() - m_start;
+	}
+
+	/**
+	 * @return Time elapsed since the creation of the deadline (in milliseconds).
+	 */
+	public long elapsedMillis()
+	{
+		return elapsedNanos() / 1000000L;
+	}
+
+	/**
+	 * @return Time remaining before the deadline (in nanoseconds, 0 if expired).
+	 */
+	public long remainingNanos()
+	{
+		if(isCancelled())
+		{
+			return 0;
+		}
+		return Math.max(0, m_end - System.nanoTime());
+	}
+
+	/**
+	 * @return Time remaining before the deadline (in milliseconds, 0 if expired).
+	 */
+	public long remainingMillis()
+	{
+		return remainingNanos() / 1000000L;
+	}
+
+	/**
+	 * Creates a deadline expiring after the given time, or at this deadline if it comes first.
+	 * The slice is cancelled when this deadline is cancelled.
+	 *
+	 * @param budgetNanos Time (in nanoseconds) given to the slice.
+	 * @return A new deadline.
+	 */
+	public Deadline slice(long budgetNanos)
+	{
+		long now = System.nanoTime();
+		return new Deadline(this, now, Math.min(budgetNanos, m_end - now), m_pollInterval);
+	}
+
+}
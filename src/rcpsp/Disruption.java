@@ -0,0 +1,172 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+/**
+ * An event that changes the data of a published schedule, repaired by
+ * {@link Solution#repair(int, int, Disruption...)}:
+ *  - a new duration of an activity ({@link #newDuration(int, int)});
+ *  - a drop of the capacity of a resource over an interval of time ({@link #capacityDrop(int, int, int, int)});
+ *  - an activity that has started, at a time that may differ from the schedule ({@link #started(int, int)}).
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class Disruption {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Kinds of disruptions */
+	public enum Type
+	{
+		/** New duration of an activity */
+		DURATION,
+		/** Drop of the capacity of a resource over an interval */
+		CAPACITY,
+		/** Activity started at a given time */
+		STARTED
+	}
+
+	/** Kind of the disruption */
+	private final Type m_type;
+
+	/** Index of the activity (DURATION and STARTED), or of the resource (CAPACITY) */
+	private final int m_index;
+
+	/** New duration (DURATION), amount of the drop (CAPACITY) or begin time (STARTED) */
+	private final int m_value;
+
+	/** First time unit of the drop (CAPACITY) */
+	private final int m_from;
+
+	/** End of the drop, excluded (CAPACITY) */
+	private final int m_to;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Kind of the disruption */
+	public Type getType()
+	{
+		return m_type;
+	}
+
+	/** @return Index of the activity (DURATION and STARTED), or of the resource (CAPACITY) */
+	public int getIndex()
+	{
+		return m_index;
+	}
+
+	/** @return New duration (DURATION), amount of the drop (CAPACITY) or begin time (STARTED) */
+	public int getValue()
+	{
+		return m_value;
+	}
+
+	/** @return First time unit of the drop (CAPACITY) */
+	public int getFrom()
+	{
+		return m_from;
+	}
+
+	/** @return End of the drop, excluded (CAPACITY) */
+	public int getTo()
+	{
+		return m_to;
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	private Disruption(Type type, int index, int value, int from, int to)
+	{
+		m_type = type;
+		m_index = index;
+		m_value = value;
+		m_from = from;
+		m_to = to;
+	}
+
+	/**
+	 * @param j Index of the activity.
+	 * @param duration New duration of the activity.
+	 * @return The disruption.
+	 * @throws IllegalArgumentException If the duration is negative.
+	 */
+	public static Disruption newDuration(int j, int duration)
+	{
+		if(duration < 0)
+		{
+			throw new IllegalArgumentException("Error: the duration of activity " + j + " cannot be negative.");
+		}
+		return new Disruption(Type.DURATION, j, duration, 0, 0);
+	}
+
+	/**
+	 * @param i Index of the resource.
+	 * @param from First time unit of the drop.
+	 * @param to End of the drop (excluded).
+	 * @param amount Number of units of the resource lost from time from to time to.
+	 * @return The disruption.
+	 * @throws IllegalArgumentException If the interval or the amount is not valid.
+	 */
+	public static Disruption capacityDrop(int i, int from, int to, int amount)
+	{
+		if(from < 0 || to < from || amount < 0)
+		{
+			throw new IllegalArgumentException("Error: invalid capacity drop of " + amount + " on resource " + i + " from " + from + " to " + to + ".");
+		}
+		return new Disruption(Type.CAPACITY, i, amount, from, to);
+	}
+
+	/**
+	 * @param j Index of the activity.
+	 * @param time Time at which the activity has started: it will not move any more.
+	 * @return The disruption.
+	 * @throws IllegalArgumentException If the time is negative.
+	 */
+	public static Disruption started(int j, int time)
+	{
+		if(time < 0)
+		{
+			throw new IllegalArgumentException("Error: activity " + j + " cannot start before time 0.");
+		}
+		return new Disruption(Type.STARTED, j, time, 0, 0);
+	}
+
+	@Override
+	public String toString()
+	{
+		switch(m_type)
+		{
+		case DURATION:
+			return "duration of activity " + m_index + " = " + m_value;
+		case CAPACITY:
+			return "capacity of resource " + m_index + " - " + m_value + " from " + m_from + " to " + m_to;
+		default:
+			return "activity " + m_index + " started at " + m_value;
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+
+
+package rcpsp;
+
+import java.util.ArrayDeque;
+
+/**
+ * Bounded pool of the activity lists of the best schedules found by an engine.
+ *
+ * The engine adds the list of each schedule that improves the incumbent, so
+ * the pool keeps the last, and best, lists. It is published in the
+ * {@link SearchState} of the engine, and a resumed run starts with the pool of
+ * the checkpoint. The pool can be used by several workers at the same time.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+final class ElitePool {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Number of lists kept by the engines */
+	static final int SIZE = 8;
+
+	/** Maximum number of lists */
+	private final int m_capacity;
+
+	/** Lists of the pool, the best first */
+	private final ArrayDeque<int[]> m_lists = new ArrayDeque<int[]>();
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param capacity Maximum number of lists.
+	 * @param lists Lists the pool starts with, the best first (may be null).
+	 */
+	ElitePool(int capacity, int[][] lists)
+	{
+		m_capacity = capacity;
+		if(lists != null)
+		{
+			for(int k = Math.min(lists.length, capacity) - 1; k >= 0; k--)
+			{
+				m_lists.addFirst(lists[k].clone());
+			}
+		}
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Adds the list of a schedule better than those of the pool, the worst list
+	 * is removed if the pool is full.
+	 *
+	 * @param activityList The activity list (copied).
+	 */
+	synchronized void add(int[] activityList)
+	{
+		m_lists.addFirst(activityList.clone());
+		if(m_lists.size() > m_capacity)
+		{
+			m_lists.removeLast();
+		}
+	}
+
+	/**
+	 * @return The lists of the pool, the best first.
+	 */
+	synchronized int[][] toArray()
+	{
+		return m_lists.toArray(new int[0][]);
+	}
+
+}
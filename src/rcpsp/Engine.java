@@ -0,0 +1,48 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+/**
+ * An algorithm run by the {@link RCPSPSolver}.
+ *
+ * An engine reads the data and the {@link Deadline} from the solver, and
+ * reports every improving solution with {@link RCPSPSolver#updateIncumbent(Solution, String, long)}.
+ * It must stop as soon as the deadline is expired (checked with {@link Deadline#poll()}),
+ * the thread is interrupted or the incumbent is optimal ({@link RCPSPSolver#isOptimal(int)}).
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public interface Engine {
+
+	/**
+	 * @return The name of the engine.
+	 */
+	String getName();
+
+	/**
+	 * Runs the engine until the deadline of the solver.
+	 *
+	 * @param solver The solver giving the data, the deadline and the incumbent.
+	 * @throws Exception May return some error, in particular if some indices are wrong.
+	 */
+	void run(RCPSPSolver solver) throws Exception;
+
+}
@@ -0,0 +1,723 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Choice of the engines run on an instance, and of the part of the time limit
+ * given to each of them, from the {@link InstanceFeatures} of the instance
+ * (see the engine "auto", {@link PortfolioEngine}).
+ *
+ * The choice is made by a table of rules; the first rule whose conditions
+ * hold gives the plan. A table is a text file with one rule per line
+ * ("#" starts a comment):
+ *
+ *     # conditions ; budget ; engines
+ *     n<=32 RS<0.5 ; 0.25 ; biased=0.7 sampling=0.3
+ *     * ; 1 ; biased=1
+ *
+ * The conditions compare a feature of {@link InstanceFeatures#NAMES} with a
+ * value (operators &lt;, &lt;=, &gt;, &gt;=), "*" holds for every instance. The budget
+ * is the part of the time limit used by the plan (the run stops earlier on
+ * the instances where more time does not help), and the engines share it in
+ * the given proportions, in the order of the line.
+ *
+ * A table is learned from the results of batch runs, one run per engine on the
+ * same instances ({@link #learn(List, List, List, Map, long)}, or the command
+ * line of {@link #main(String[])}): the instances are grouped by size and
+ * resource strength, each engine receives a share of a group in proportion to
+ * the number of instances on which it found the best makespan, and the budget
+ * of a group is 1.5 times the latest improvement of these engines (read from
+ * the progress files of the runs).
+ *
+ * **command**: java rcpsp.EngineSelector [options] engine=resultFile...
+ * **Options**:
+ *  - -help :prints this parameter description
+ *  - -progress (engine=file) :JSON lines written with -progress during the run of an engine
+ *  - -instances (directory) :directory of the instance files (by default, the files named in the results)
+ *  - -t (int) :time limit (in seconds) of the runs
+ *  - -out (file) :writes the table in the file (by default, on the standard output)
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class EngineSelector {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/**
+	 * Default table, learned with -t 2 on the bundled instances (see README.md).
+	 */
+	public static final String DEFAULT_TABLE =
+			"n<=32 RS<0.25 ; 0.3 ; sampling=0.5 biased=0.5\n"
+			+ "n<=32 RS<0.5 ; 0.1 ; sampling=0.5 biased=0.5\n"
+			+ "n<=32 ; 0.1 ; sampling=0.5 biased=0.5\n"
+			+ "RS<0.25 ; 1 ; biased=1\n"
+			+ "RS<0.5 ; 0.7 ; biased=1\n"
+			+ "* ; 0.1 ; sampling=0.5 biased=0.5\n";
+
+	/** Smallest budget of a learned plan */
+	private static final double MIN_BUDGET = 0.1;
+
+	/** Margin on the time of the latest improvement in a learned budget */
+	private static final double BUDGET_MARGIN = 1.5;
+
+	/** Smallest share of an engine in a learned plan */
+	private static final double MIN_SHARE = 0.05;
+
+	/** Limits of the resource strength of the groups of a learned table */
+	private static final double[] RS_LIMITS = { 0.25, 0.5 };
+
+	/**
+	 * The engines run on an instance and their shares of the time.
+	 */
+	public static final class Plan
+	{
+		private final double m_budget;
+		private final String[] m_engines;
+		private final double[] m_shares;
+
+		/**
+		 * @param budget Part of the time limit used by the plan (in ]0, 1]).
+		 * @param engines Names of the engines, in the order in which they are run.
+		 * @param shares Share of the budget of each engine (normalized to a sum of 1).
+		 */
+		public Plan(double budget, String[] engines, double[] shares)
+		{
+			double sum = 0;
+			for(double share : shares)
+			{
+				sum += share;
+			}
+			m_budget = budget;
+			m_engines = engines.clone();
+			m_shares = new double[shares.length];
+			for(int k = 0; k < shares.length; k++)
+			{
+				m_shares[k] = (sum > 0) ? shares[k] / sum : 1.0 / shares.length;
+			}
+		}
+
+		/** @return Part of the time limit used by the plan */
+		public double getBudget()
+		{
+			return m_budget;
+		}
+
+		/** @return Names of the engines, in the order in which they are run */
+		public String[] getEngines()
+		{
+			return m_engines.clone();
+		}
+
+		/** @return Share of the budget of each engine (their sum is 1) */
+		public double[] getShares()
+		{
+			return m_shares.clone();
+		}
+
+		/**
+		 * @return The budget and the engines, as in a table: "0.25 ; biased=0.7 sampling=0.3"
+		 */
+		@Override
+		public String toString()
+		{
+			StringBuilder s = new StringBuilder(format(m_budget)).append(" ;");
+			for(int k = 0; k < m_engines.length; k++)
+			{
+				s.append(' ').append(m_engines[k]).append('=').append(format(m_shares[k]));
+			}
+			return s.toString();
+		}
+	}
+
+	/**
+	 * A line of the table: conditions and plan.
+	 */
+	private static final class Rule
+	{
+		final String[] features;
+		final String[] operators;
+		final double[] values;
+		final Plan plan;
+
+		Rule(String[] features, String[] operators, double[] values, Plan plan)
+		{
+			this.features = features;
+			this.operators = operators;
+			this.values = values;
+			this.plan = plan;
+		}
+
+		boolean matches(InstanceFeatures instance)
+		{
+			for(int c = 0; c < features.length; c++)
+			{
+				double value = instance.get(features[c]);
+				boolean holds;
+				switch(operators[c])
+				{
+				case "<":
+					holds = value < values[c];
+					break;
+				case "<=":
+					holds = value <= values[c];
+					break;
+				case ">":
+					holds = value > values[c];
+					break;
+				default:
+					holds = value >= values[c];
+				}
+				if(!holds)
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String toString()
+		{
+			StringBuilder s = new StringBuilder();
+			for(int c = 0; c < features.length; c++)
+			{
+				s.append((c > 0) ? " " : "").append(features[c]).append(operators[c]).append(format(values[c]));
+			}
+			return ((features.length == 0) ? "*" : s.toString()) + " ; " + plan;
+		}
+	}
+
+	/** Rules of the table, in order */
+	private final List<Rule> m_rules;
+
+	/** Plan of the instances that no rule matches: the default engine for the whole time */
+	private static final Plan FALLBACK = new Plan(1.0, new String[] {RandomSamplingEngine.NAME}, new double[] {1.0});
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Creates the selector of the default table {@link #DEFAULT_TABLE}.
+	 */
+	public EngineSelector()
+	{
+		try
+		{
+			m_rules = parse(new StringReader(DEFAULT_TABLE), "the default table");
+		}
+		catch(IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private EngineSelector(List<Rule> rules)
+	{
+		m_rules = rules;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Reads a table.
+	 *
+	 * @param fileName Name of the file.
+	 * @return The selector of the table.
+	 * @throws IOException Returns an error when the file cannot be read or a line is not valid.
+	 */
+	public static EngineSelector read(String fileName) throws IOException
+	{
+		try(Reader in = new FileReader(fileName))
+		{
+			return new EngineSelector(parse(in, fileName));
+		}
+	}
+
+	/**
+	 * Writes the table of the selector.
+	 *
+	 * @param fileName Name of the file.
+	 * @throws IOException Returns an error when the file cannot be written.
+	 */
+	public void write(String fileName) throws IOException
+	{
+		try(PrintWriter out = new PrintWriter(fileName))
+		{
+			out.print(toString());
+		}
+	}
+
+	/**
+	 * @return The table, one rule per line
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder s = new StringBuilder("# conditions ; budget ; engines\n");
+		for(Rule rule : m_rules)
+		{
+			s.append(rule).append('\n');
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Reads the rules of a table.
+	 */
+	private static List<Rule> parse(Reader reader, String name) throws IOException
+	{
+		List<Rule> rules = new ArrayList<Rule>();
+		BufferedReader in = new BufferedReader(reader);
+		String line;
+		int number = 0;
+		while((line = in.readLine()) != null)
+		{
+			number++;
+			int comment = line.indexOf('#');
+			if(comment >= 0)
+			{
+				line = line.substring(0, comment);
+			}
+			if(line.trim().isEmpty())
+			{
+				continue;
+			}
+			try
+			{
+				rules.add(parseRule(line));
+			}
+			catch(IllegalArgumentException e)
+			{
+				throw new IOException("Line " + number + " of " + name + " is not a valid rule: " + e.getMessage().replaceFirst("^Error: ", ""));
+			}
+		}
+		return rules;
+	}
+
+	/**
+	 * @return The rule of a line "conditions ; budget ; engines"
+	 * @throws IllegalArgumentException If the line is not valid.
+	 */
+	private static Rule parseRule(String line)
+	{
+		String[] parts = line.split(";");
+		if(parts.length != 3)
+		{
+			throw new IllegalArgumentException("expected conditions ; budget ; engines");
+		}
+		List<String> features = new ArrayList<String>();
+		List<String> operators = new ArrayList<String>();
+		List<Double> values = new ArrayList<Double>();
+		for(String condition : parts[0].trim().split("\\s+"))
+		{
+			if(condition.equals("*"))
+			{
+				continue;
+			}
+			int op = 0;
+			while(op < condition.length() && "<>=".indexOf(condition.charAt(op)) < 0)
+			{
+				op++;
+			}
+			int value = op;
+			while(value < condition.length() && "<>=".indexOf(condition.charAt(value)) >= 0)
+			{
+				value++;
+			}
+			String feature = condition.substring(0, op);
+			String operator = condition.substring(op, value);
+			if(!Arrays.asList(InstanceFeatures.NAMES).contains(feature) || !Arrays.asList("<", "<=", ">", ">=").contains(operator))
+			{
+				throw new IllegalArgumentException("unknown condition " + condition);
+			}
+			features.add(feature);
+			operators.add(operator);
+			values.add(number(condition.substring(value)));
+		}
+		double budget = number(parts[1].trim());
+		if(budget <= 0 || budget > 1)
+		{
+			throw new IllegalArgumentException("the budget must be in ]0, 1]");
+		}
+		String[] engines = parts[2].trim().split("\\s+");
+		double[] shares = new double[engines.length];
+		for(int k = 0; k < engines.length; k++)
+		{
+			String[] engine = engines[k].split("=");
+			if(engine.length != 2 || engine[0].equals(PortfolioEngine.NAME) || RCPSPSolver.createEngine(engine[0]) == null)
+			{
+				throw new IllegalArgumentException("expected engine=share instead of " + engines[k]);
+			}
+			engines[k] = engine[0];
+			shares[k] = number(engine[1]);
+			if(shares[k] < 0)
+			{
+				throw new IllegalArgumentException("negative share " + engines[k]);
+			}
+		}
+		double[] limits = new double[values.size()];
+		for(int c = 0; c < limits.length; c++)
+		{
+			limits[c] = values.get(c);
+		}
+		return new Rule(features.toArray(new String[0]), operators.toArray(new String[0]), limits, new Plan(budget, engines, shares));
+	}
+
+	/**
+	 * @return The value of a number
+	 * @throws IllegalArgumentException If the text is not a number.
+	 */
+	private static double number(String text)
+	{
+		try
+		{
+			return Double.parseDouble(text);
+		}
+		catch(NumberFormatException e)
+		{
+			throw new IllegalArgumentException("invalid number " + text);
+		}
+	}
+
+	/**
+	 * @return Text of a number, without trailing zeros
+	 */
+	private static String format(double value)
+	{
+		String s = String.format(Locale.ROOT, "%.3f", value);
+		s = s.replaceAll("0+$", "");
+		return s.endsWith(".") ? s.substring(0, s.length() - 1) : s;
+	}
+
+	/**
+	 * Chooses the plan of an instance.
+	 *
+	 * @param features The features of the instance.
+	 * @return The plan of the first rule whose conditions hold (the engine sampling for the whole time if there is none).
+	 */
+	public Plan select(InstanceFeatures features)
+	{
+		for(Rule rule : m_rules)
+		{
+			if(rule.matches(features))
+			{
+				return rule.plan;
+			}
+		}
+		return FALLBACK;
+	}
+
+	/**
+	 * Learns a table from the results of runs of several engines on the same instances.
+	 *
+	 * @param engines Names of the engines.
+	 * @param results Result lines of the run of each engine.
+	 * @param progress Progress of the run of each engine, see {@link ResultAnalyzer#readProgress(String)} (null elements if unknown: budget 1).
+	 * @param features Features of each instance, by key (see {@link ReferenceSolutions#getKey(String)}).
+	 * @param timeLimitMillis Time limit of the runs (in milliseconds).
+	 * @return The selector of the learned table.
+	 * @throws Exception Throw an exception if the features of an instance of the results are missing.
+	 */
+	public static EngineSelector learn(List<String> engines, List<List<RunResult>> results, List<Map<String, List<List<double[]>>>> progress,
+			Map<String, InstanceFeatures> features, long timeLimitMillis) throws Exception
+	{
+		int nbEngines = engines.size();
+
+		// Mean makespan of each instance for each engine
+		Map<String, double[]> sums = new LinkedHashMap<String, double[]>();
+		Map<String, int[]> counts = new LinkedHashMap<String, int[]>();
+		for(int e = 0; e < nbEngines; e++)
+		{
+			for(RunResult result : results.get(e))
+			{
+				if(result.getErrorCode() != RunResult.OK)
+				{
+					continue;
+				}
+				String key = ReferenceSolutions.getKey(result.getFileName());
+				if(!features.containsKey(key))
+				{
+					throw new Exception("Error: the features of instance " + key + " are missing");
+				}
+				sums.computeIfAbsent(key, k -> new double[nbEngines])[e] += result.getObjectiveValue();
+				counts.computeIfAbsent(key, k -> new int[nbEngines])[e]++;
+			}
+		}
+
+		// Groups: sizes in increasing order, then resource strength
+		TreeSet<Integer> sizes = new TreeSet<Integer>();
+		for(String key : sums.keySet())
+		{
+			sizes.add(features.get(key).getNbActivities());
+		}
+		List<Rule> rules = new ArrayList<Rule>();
+		int previousSize = -1;
+		for(int size : sizes)
+		{
+			for(int g = 0; g <= RS_LIMITS.length; g++)
+			{
+				double[] wins = new double[nbEngines];
+				double latest = 0;
+				boolean known = true;
+				int nbInstances = 0;
+				for(Map.Entry<String, double[]> entry : sums.entrySet())
+				{
+					InstanceFeatures f = features.get(entry.getKey());
+					double rs = f.getResourceStrength();
+					if(f.getNbActivities() != size || (g > 0 && rs < RS_LIMITS[g - 1]) || (g < RS_LIMITS.length && rs >= RS_LIMITS[g]))
+					{
+						continue;
+					}
+					int[] count = counts.get(entry.getKey());
+					double best = Double.MAX_VALUE;
+					for(int e = 0; e < nbEngines; e++)
+					{
+						if(count[e] > 0)
+						{
+							best = Math.min(best, entry.getValue()[e] / count[e]);
+						}
+					}
+					int nbBest = 0;
+					for(int e = 0; e < nbEngines; e++)
+					{
+						if(count[e] > 0 && entry.getValue()[e] / count[e] == best)
+						{
+							nbBest++;
+						}
+					}
+					for(int e = 0; e < nbEngines; e++)
+					{
+						if(count[e] > 0 && entry.getValue()[e] / count[e] == best)
+						{
+							wins[e] += 1.0 / nbBest;
+							if(progress.get(e) == null)
+							{
+								known = false;
+							}
+							else
+							{
+								latest = Math.max(latest, latestImprovement(progress.get(e).get(entry.getKey())));
+							}
+						}
+					}
+					nbInstances++;
+				}
+				if(nbInstances == 0)
+				{
+					continue;
+				}
+				List<String> names = new ArrayList<String>();
+				List<Double> shares = new ArrayList<Double>();
+				for(int e = 0; e < nbEngines; e++)
+				{
+					if(wins[e] / nbInstances >= MIN_SHARE)
+					{
+						names.add(engines.get(e));
+						shares.add(wins[e] / nbInstances);
+					}
+				}
+				double budget = 1.0;
+				if(known && timeLimitMillis > 0)
+				{
+					budget = Math.min(1.0, Math.max(MIN_BUDGET, Math.ceil(20 * BUDGET_MARGIN * latest / timeLimitMillis) / 20));
+				}
+				double[] shareArray = new double[shares.size()];
+				for(int k = 0; k < shareArray.length; k++)
+				{
+					shareArray[k] = shares.get(k);
+				}
+				Plan plan = new Plan(budget, names.toArray(new String[0]), shareArray);
+
+				// The groups of the largest size also hold for larger instances
+				List<String> conditionFeatures = new ArrayList<String>();
+				List<String> conditionOperators = new ArrayList<String>();
+				List<Double> conditionValues = new ArrayList<Double>();
+				if(size != sizes.last())
+				{
+					conditionFeatures.add("n");
+					conditionOperators.add("<=");
+					conditionValues.add((double) size);
+				}
+				if(g < RS_LIMITS.length)
+				{
+					conditionFeatures.add("RS");
+					conditionOperators.add("<");
+					conditionValues.add(RS_LIMITS[g]);
+				}
+				double[] values = new double[conditionValues.size()];
+				for(int c = 0; c < values.length; c++)
+				{
+					values[c] = conditionValues.get(c);
+				}
+				rules.add(new Rule(conditionFeatures.toArray(new String[0]), conditionOperators.toArray(new String[0]), values, plan));
+			}
+			previousSize = size;
+		}
+		if(previousSize < 0)
+		{
+			throw new Exception("Error: there is no result to learn from");
+		}
+		return new EngineSelector(rules);
+	}
+
+	/**
+	 * @return Time (in milliseconds) of the latest improvement of the runs of an instance (0 if none)
+	 */
+	private static double latestImprovement(List<List<double[]>> runs)
+	{
+		double latest = 0;
+		if(runs != null)
+		{
+			for(List<double[]> run : runs)
+			{
+				latest = Math.max(latest, run.get(run.size() - 1)[0]);
+			}
+		}
+		return latest;
+	}
+
+	/**
+	 * Main method: learns a table from the results of batch runs.
+	 *
+	 * @param arg program parameters.
+	 */
+	public static void main(String[] arg) {
+		List<String> engines = new ArrayList<String>();
+		List<String> resultFiles = new ArrayList<String>();
+		Map<String, String> progressFiles = new LinkedHashMap<String, String>();
+		String instanceDirectory = null;
+		String outFile = null;
+		long timeLimit = 0;
+
+		// Parse command line
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].compareTo("-help") == 0) {
+				System.err.println("The Resource-Constrained Project Scheduling Problem - learning of an engine table");
+				System.err.println("Program parameters:");
+				System.err.println("command: java rcpsp.EngineSelector [options] engine=resultFile...");
+				System.err.println("Options:");
+				System.err.println("\t-help\t: prints this parameter description");
+				System.err.println("\t-progress\t: engine=file, JSON lines written with -progress during the run of an engine");
+				System.err.println("\t-instances\t: directory of the instance files (by default, the files named in the results)");
+				System.err.println("\t-t\t\t: time limit (in seconds) of the runs");
+				System.err.println("\t-out\t\t: writes the table in a file (by default, on the standard output)");
+				return;
+			}
+			try {
+				if (arg[i].startsWith("-") && i + 1 >= arg.length) {
+					throw new IllegalArgumentException("Error: a value is expected after " + arg[i] + ".");
+				}
+				switch (arg[i]) {
+				case "-progress":
+					String[] progress = arg[++i].split("=", 2);
+					if (progress.length != 2) {
+						throw new IllegalArgumentException("Error: expected engine=file after -progress.");
+					}
+					progressFiles.put(progress[0], progress[1]);
+					break;
+				case "-instances":
+					instanceDirectory = arg[++i];
+					break;
+				case "-t":
+					timeLimit = Long.parseLong(arg[++i]);
+					break;
+				case "-out":
+					outFile = arg[++i];
+					break;
+				default:
+					String[] result = arg[i].split("=", 2);
+					if (result.length != 2 || arg[i].startsWith("-")) {
+						throw new IllegalArgumentException("Error: Value " + arg[i] + " is not a valid parameter.");
+					}
+					RCPSPSolver.createEngine(result[0]);
+					engines.add(result[0]);
+					resultFiles.add(result[1]);
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Error: The value given for " + arg[i - 1] + " is not a valid number.");
+				System.exit(1);
+			} catch (IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+
+		if (engines.isEmpty()) {
+			System.err.println("Error : you must specify the results of an engine as parameter.");
+			System.exit(1);
+		}
+
+		try
+		{
+			List<List<RunResult>> results = new ArrayList<List<RunResult>>();
+			List<Map<String, List<List<double[]>>>> progress = new ArrayList<Map<String, List<List<double[]>>>>();
+			Map<String, InstanceFeatures> features = new LinkedHashMap<String, InstanceFeatures>();
+			for (int e = 0; e < engines.size(); e++) {
+				results.add(ResultAnalyzer.readResults(resultFiles.get(e)));
+				String progressFile = progressFiles.get(engines.get(e));
+				progress.add((progressFile == null) ? null : ResultAnalyzer.readProgress(progressFile));
+				for (RunResult result : results.get(e)) {
+					String key = ReferenceSolutions.getKey(result.getFileName());
+					if (!features.containsKey(key)) {
+						File file = new File(result.getFileName());
+						if (instanceDirectory != null) {
+							file = new File(instanceDirectory, file.getName());
+						}
+						InstanceFeatures f = new InstanceFeatures(new Instance(file.getPath()));
+						features.put(key, f);
+						System.err.println(key + " " + f);
+					}
+				}
+			}
+			EngineSelector selector = learn(engines, results, progress, features, timeLimit * 1000);
+			if (outFile == null) {
+				System.out.print(selector);
+			} else {
+				selector.write(outFile);
+			}
+		} catch (Exception e) {
+			System.err.printf("Error: %s", e.getMessage());
+			System.err.println();
+			System.exit(1);
+		}
+	}
+
+}
@@ -0,0 +1,446 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the makespans (and optionally the begin times) of decoded
+ * activity lists, shared by the threads of a solver (see {@link RCPSPSolver#getEvaluationCache()}).
+ *
+ * An activity list is identified by a 64-bit hash of the list (and of the
+ * modes for a multi-mode instance, see {@link #hash(int[], int[])}); two lists
+ * with the same hash are taken as the same list, which happens with a
+ * probability of about m^2 / 2^65 for m lists.
+ *
+ * The table is set-associative: a hash selects a set of {@link #WAYS} slots,
+ * the only slots where it can be stored, and an entry is replaced in its set
+ * by the clock algorithm (an entry read since the hand last passed it gets a
+ * second chance). The sets are divided among locks (lock striping), so threads
+ * that read or store different lists rarely wait for each other. The number of
+ * slots is derived from the memory given to the constructor.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class EvaluationCache {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Number of slots of a set */
+	public static final int WAYS = 8;
+
+	/** Maximum number of locks */
+	private static final int MAX_STRIPES = 64;
+
+	/** Size (in bytes) of an array header */
+	private static final int ARRAY_HEADER = 16;
+
+	/** Hash of each slot (0 if the slot is empty) */
+	private final long[] m_keys;
+
+	/** Makespan of each slot */
+	private final int[] m_makespans;
+
+	/** Begin times of each slot (null if the begin times are not stored) */
+	private final int[][] m_startTimes;
+
+	/** True if the entry of a slot was read since the hand of its set last passed it */
+	private final boolean[] m_referenced;
+
+	/** Hand of the clock of each set */
+	private final byte[] m_hands;
+
+	/** Number of sets minus one (the number of sets is a power of two) */
+	private final int m_setMask;
+
+	/** Locks of the sets: set s is guarded by m_locks[s % m_locks.length] */
+	private final Object[] m_locks;
+
+	/** Number of entries guarded by each lock */
+	private final int[] m_sizes;
+
+	/** Number of activities of the stored schedules */
+	private final int m_nbActivities;
+
+	/** Number of reads that found the list */
+	private final LongAdder m_hits = new LongAdder();
+
+	/** Number of reads that did not find the list */
+	private final LongAdder m_misses = new LongAdder();
+
+	/** Number of entries replaced by new ones */
+	private final LongAdder m_evictions = new LongAdder();
+
+	/** Number of hits (see {@link Metrics}) */
+	private static final Metrics.Counter HITS = Metrics.counter("cache.hit");
+
+	/** Number of misses */
+	private static final Metrics.Counter MISSES = Metrics.counter("cache.miss");
+
+	/** Number of evictions */
+	private static final Metrics.Counter EVICTIONS = Metrics.counter("cache.eviction");
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Number of slots of the table */
+	public int getCapacity()
+	{
+		return m_keys.length;
+	}
+
+	/** @return True if the begin times of the schedules are stored */
+	public boolean hasStartTimes()
+	{
+		return m_startTimes != null;
+	}
+
+	/** @return Number of reads that found the list */
+	public long getHits()
+	{
+		return m_hits.sum();
+	}
+
+	/** @return Number of reads that did not find the list */
+	public long getMisses()
+	{
+		return m_misses.sum();
+	}
+
+	/** @return Number of entries replaced by new ones */
+	public long getEvictions()
+	{
+		return m_evictions.sum();
+	}
+
+	/** @return Proportion of the reads that found the list (0 if there was no read) */
+	public double getHitRate()
+	{
+		long hits = m_hits.sum();
+		long reads = hits + m_misses.sum();
+		return (reads == 0) ? 0.0 : (double) hits / reads;
+	}
+
+	/** @return Number of entries in the table */
+	public int getSize()
+	{
+		int size = 0;
+		for(int s = 0; s < m_locks.length; s++)
+		{
+			synchronized(m_locks[s])
+			{
+				size += m_sizes[s];
+			}
+		}
+		return size;
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Creates a cache that uses at most maxBytes bytes when it is full (the
+	 * number of slots is a power of two).
+	 *
+	 * @param maxBytes Maximum memory used by the cache (in bytes).
+	 * @param nbActivities Number of activities of the instance.
+	 * @param startTimes True to store the begin times of the schedules, false to store only their makespans.
+	 * @throws IllegalArgumentException If maxBytes is smaller than the size of one set of slots.
+	 */
+	public EvaluationCache(long maxBytes, int nbActivities, boolean startTimes)
+	{
+		long slotBytes = slotBytes(nbActivities, startTimes);
+		long nbSets = maxBytes / (WAYS * slotBytes + 1);
+		if(nbSets < 1)
+		{
+			throw new IllegalArgumentException("Error: an evaluation cache needs at least " + (WAYS * slotBytes + 1) + " bytes.");
+		}
+		int nbSetsPow2 = Integer.highestOneBit((int) Math.min(nbSets, Integer.MAX_VALUE / WAYS));
+		int capacity = nbSetsPow2 * WAYS;
+		m_nbActivities = nbActivities;
+		m_setMask = nbSetsPow2 - 1;
+		m_keys = new long[capacity];
+		m_makespans = new int[capacity];
+		m_startTimes = startTimes ? new int[capacity][] : null;
+		m_referenced = new boolean[capacity];
+		m_hands = new byte[nbSetsPow2];
+		int nbStripes = Math.min(nbSetsPow2, MAX_STRIPES);
+		m_locks = new Object[nbStripes];
+		for(int s = 0; s < nbStripes; s++)
+		{
+			m_locks[s] = new Object();
+		}
+		m_sizes = new int[nbStripes];
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @return Memory (in bytes) used by one slot
+	 */
+	private static long slotBytes(int nbActivities, boolean startTimes)
+	{
+		// key, makespan and reference bit, then a reference to an array of begin times
+		long bytes = 8 + 4 + 1;
+		if(startTimes)
+		{
+			bytes += 4 + ARRAY_HEADER + 4L * nbActivities;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return The 64-bit hash of an activity list, never 0
+	 */
+	public static long hash(int[] activityList)
+	{
+		return hash(activityList, null);
+	}
+
+	/**
+	 * @param activityList An activity list.
+	 * @param modes The mode of each activity (null for a single-mode instance).
+	 * @return The 64-bit hash of an activity list and of its modes, never 0
+	 */
+	public static long hash(int[] activityList, int[] modes)
+	{
+		long h = 0x9E3779B97F4A7C15L;
+		for(int j : activityList)
+		{
+			h = mix(h ^ j);
+		}
+		if(modes != null)
+		{
+			for(int m : modes)
+			{
+				h = mix(h ^ (m + 0x5BD1E995L));
+			}
+		}
+		return (h == 0) ? 1 : h;
+	}
+
+	/**
+	 * @return Finalizer of SplitMix64: every bit of the result depends on every bit of h
+	 */
+	private static long mix(long h)
+	{
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		return h ^ (h >>> 31);
+	}
+
+	/**
+	 * @return The set of a hash (its slots are set * WAYS to set * WAYS + WAYS - 1)
+	 */
+	private int set(long key)
+	{
+		return (int) (key >>> 32) & m_setMask;
+	}
+
+	/**
+	 * @return The lock of a set
+	 */
+	private int stripe(int set)
+	{
+		return set & (m_locks.length - 1);
+	}
+
+	/**
+	 * Reads the makespan of an activity list.
+	 *
+	 * @param key Hash of the activity list, see {@link #hash(int[], int[])}.
+	 * @return The makespan of the list, or -1 if the list is not in the cache.
+	 */
+	public int getMakespan(long key)
+	{
+		int set = set(key);
+		int first = set * WAYS;
+		synchronized(m_locks[stripe(set)])
+		{
+			for(int slot = first; slot < first + WAYS; slot++)
+			{
+				if(m_keys[slot] == key)
+				{
+					m_referenced[slot] = true;
+					m_hits.increment();
+					HITS.increment();
+					return m_makespans[slot];
+				}
+			}
+		}
+		m_misses.increment();
+		MISSES.increment();
+		return -1;
+	}
+
+	/**
+	 * Reads the begin times of the schedule of an activity list. The read is not
+	 * counted as a hit or a miss.
+	 *
+	 * @param key Hash of the activity list.
+	 * @param startTimes Array that receives the begin times.
+	 * @return True if the list is in the cache with its begin times.
+	 */
+	public boolean getStartTimes(long key, int[] startTimes)
+	{
+		if(m_startTimes == null)
+		{
+			return false;
+		}
+		int set = set(key);
+		int first = set * WAYS;
+		synchronized(m_locks[stripe(set)])
+		{
+			for(int slot = first; slot < first + WAYS; slot++)
+			{
+				if(m_keys[slot] == key)
+				{
+					m_referenced[slot] = true;
+					System.arraycopy(m_startTimes[slot], 0, startTimes, 0, m_nbActivities);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stores the evaluation of an activity list, replacing an entry of its set
+	 * if the set is full.
+	 *
+	 * @param key Hash of the activity list.
+	 * @param makespan Makespan of the list.
+	 * @param startTimes Begin times of the schedule (copied; ignored if the cache does not store them).
+	 */
+	public void put(long key, int makespan, int[] startTimes)
+	{
+		int set = set(key);
+		int first = set * WAYS;
+		int stripe = stripe(set);
+		synchronized(m_locks[stripe])
+		{
+			int slot = -1;
+			for(int s = first; s < first + WAYS; s++)
+			{
+				if(m_keys[s] == key)
+				{
+					slot = s;
+					break;
+				}
+				if(slot < 0 && m_keys[s] == 0)
+				{
+					slot = s;
+				}
+			}
+			if(slot < 0)
+			{
+				// Clock: the hand clears the reference bits until it finds an entry that was not read
+				int hand = m_hands[set];
+				while(m_referenced[first + hand])
+				{
+					m_referenced[first + hand] = false;
+					hand = (hand + 1) % WAYS;
+				}
+				slot = first + hand;
+				m_hands[set] = (byte) ((hand + 1) % WAYS);
+				m_evictions.increment();
+				EVICTIONS.increment();
+			}
+			else if(m_keys[slot] == 0)
+			{
+				m_sizes[stripe]++;
+			}
+			m_keys[slot] = key;
+			m_makespans[slot] = makespan;
+			m_referenced[slot] = false;
+			if(m_startTimes != null && startTimes != null)
+			{
+				if(m_startTimes[slot] == null)
+				{
+					m_startTimes[slot] = new int[m_nbActivities];
+				}
+				System.arraycopy(startTimes, 0, m_startTimes[slot], 0, m_nbActivities);
+			}
+		}
+	}
+
+	/**
+	 * Decodes an activity list unless the cache shows that its makespan is not
+	 * smaller than a bound. The decoded makespans are stored in the cache.
+	 *
+	 * @param sgs The decoder of the thread.
+	 * @param activityList A precedence feasible permutation of the activities.
+	 * @param bound Makespan to improve.
+	 * @return The makespan of the list. If it is smaller than bound, the schedule is the last one decoded by sgs.
+	 */
+	public int decode(SerialSGS sgs, int[] activityList, int bound)
+	{
+		long key = hash(activityList);
+		int makespan = getMakespan(key);
+		if(makespan >= 0 && makespan >= bound)
+		{
+			return makespan;
+		}
+		makespan = sgs.decode(activityList);
+		put(key, makespan, sgs.getStartTimes());
+		return makespan;
+	}
+
+	/**
+	 * Removes every entry; the statistics are kept.
+	 */
+	public void clear()
+	{
+		for(int s = 0; s < m_locks.length; s++)
+		{
+			synchronized(m_locks[s])
+			{
+				for(int set = s; set <= m_setMask; set += m_locks.length)
+				{
+					for(int slot = set * WAYS; slot < (set + 1) * WAYS; slot++)
+					{
+						m_keys[slot] = 0;
+						m_referenced[slot] = false;
+					}
+				}
+				m_sizes[s] = 0;
+			}
+		}
+	}
+
+	/**
+	 * @return The statistics of the cache, e.g. "12345 hits, 678 misses (94.8 %), 12 evictions, 690 / 1024 entries"
+	 */
+	@Override
+	public String toString()
+	{
+		return getHits() + " hits, " + getMisses() + " misses (" + String.format(Locale.ROOT, "%.1f", 100 * getHitRate()) + " %), "
+				+ getEvictions() + " evictions, " + getSize() + " / " + getCapacity() + " entries";
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Arrays;
+
+/**
+ * Resource profile stored in an int array of the heap, time-major (see
+ * {@link ProfileKernel}): the operations on intervals are done by the kernel.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+final class HeapProfile extends ResourceProfile {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** m_values[t * m_nbResources + i] is the consumption of resource i at time t */
+	private int[] m_values;
+
+	/** Operations on {@link #m_values} */
+	private final ProfileKernel m_kernel;
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param nbResources Number of resources.
+	 * @param horizon Number of time units.
+	 */
+	HeapProfile(int nbResources, int horizon)
+	{
+		super(nbResources, horizon);
+		m_values = new int[horizon * nbResources];
+		m_kernel = ProfileKernel.create(nbResources);
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	@Override
+	int get(int i, int t)
+	{
+		return m_values[t * m_nbResources + i];
+	}
+
+	@Override
+	void set(int i, int t, int value)
+	{
+		m_values[t * m_nbResources + i] = value;
+		if(value != 0 && t >= m_end)
+		{
+			m_end = t + 1;
+		}
+	}
+
+	@Override
+	void add(int[] demand, int from, int to)
+	{
+		m_kernel.add(m_values, demand, from, to);
+		if(to > m_end && from < to)
+		{
+			m_end = to;
+		}
+	}
+
+	@Override
+	void subtract(int[] demand, int from, int to)
+	{
+		m_kernel.subtract(m_values, demand, from, to);
+		if(to > m_end && from < to)
+		{
+			m_end = to;
+		}
+	}
+
+	@Override
+	int firstConflict(int[] demand, int[] capacity, int from, int to)
+	{
+		return m_kernel.firstConflict(m_values, demand, capacity, from, to);
+	}
+
+	@Override
+	int firstExcess(int[] capacity, int from, int to)
+	{
+		return m_kernel.firstExcess(m_values, capacity, from, to);
+	}
+
+	@Override
+	void clear()
+	{
+		Arrays.fill(m_values, 0, m_end * m_nbResources, 0);
+		m_end = 0;
+	}
+
+	@Override
+	void grow(int horizon)
+	{
+		if(horizon > m_horizon)
+		{
+			m_values = Arrays.copyOf(m_values, horizon * m_nbResources);
+			m_horizon = horizon;
+		}
+	}
+
+	@Override
+	void copyFrom(ResourceProfile profile)
+	{
+		if(!(profile instanceof HeapProfile))
+		{
+			copyValues(profile);
+			return;
+		}
+		HeapProfile heap = (HeapProfile) profile;
+		grow(heap.m_horizon);
+		System.arraycopy(heap.m_values, 0, m_values, 0, heap.m_end * m_nbResources);
+		if(m_end > heap.m_end)
+		{
+			Arrays.fill(m_values, heap.m_end * m_nbResources, m_end * m_nbResources, 0);
+		}
+		m_end = heap.m_end;
+	}
+
+}
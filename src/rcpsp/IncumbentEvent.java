@@ -0,0 +1,56 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recorded at each improvement of the best solution of a run
+ * (see {@link Metrics#incumbent(String, String, int, int, long)}).
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+@Name("rcpsp.Incumbent")
+@Label("Incumbent")
+@Category("RCPSP")
+@Description("Improvement of the best solution")
+public class IncumbentEvent extends Event {
+
+	@Label("Instance")
+	String instance;
+
+	@Label("Engine")
+	String engine;
+
+	@Label("Makespan")
+	int makespan;
+
+	@Label("Lower bound")
+	int lowerBound;
+
+	@Label("Iteration")
+	long iteration;
+
+}
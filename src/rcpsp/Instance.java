@@ -22,7 +22,8 @@ package rcpsp;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.ArrayList;
+import java.io.Reader;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
@@ -33,6 +34,12 @@ import java.util.Scanner;
  * parameter. The data file is read and the data are stored in the Instance
  * object. The data can then be access calling the object methods.
  * 
+ * The multi-mode files (PSPLIB .mm) are read too: an activity has several
+ * modes, each with its own duration and consumptions, and the project may use
+ * nonrenewable resources, whose capacity bounds the total consumption over the
+ * project. The modes are stored in flat arrays indexed by mode; the getters
+ * without mode index return the data of the first mode of each activity.
+ * 
  * @warning Do not modify this class.
  * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
  * 
@@ -58,17 +65,40 @@ public class Instance {
 	/** Consumption of each resource for each activity */
 	private Integer[][] m_consumptionResourceActivity;
 
-	/** Precedences matrix between activities **/
-	private boolean[][] m_precedences;
+	/** Precedences matrix between activities, one bit per activity:
+	 *  bit b of m_precedences[a][b / 64] is set if activity a must be finished before activity b begins **/
+	private long[][] m_precedences;
 
-	/** Direct Precedences matrix between activities 
-	 *  if m_directPrecedences[i][j] = true, activity i must be finished before activity j begins and there is no activity k such
+	/** Direct Precedences matrix between activities, stored as {@link #m_precedences}
+	 *  if bit j of m_directPrecedences[i] is set, activity i must be finished before activity j begins and there is no activity k such
 	 *  that activity i must be finished before activity k and activity k must be finished before activity j **/
-	private boolean[][] m_directPrecedences;
+	private long[][] m_directPrecedences;
+
+	/** Direct successors of each activity, in the order of the file */
+	private int[][] m_directSuccessors;
 
 	/** Name of the file corresponding to the instance */
 	private String m_fileName;
 
+	/** Number of nonrenewable resources */
+	private int m_nbNonrenewable;
+
+	/** Capacity of each nonrenewable resource */
+	private int[] m_capacityNonrenewable;
+
+	/** The modes of activity j are numbered m_modeOffset[j] to m_modeOffset[j + 1] - 1 in the arrays below
+	 *  (the arrays of duration and consumption above contain the first mode of each activity) **/
+	private int[] m_modeOffset;
+
+	/** Duration of each mode */
+	private int[] m_modeDuration;
+
+	/** Consumption of each renewable resource by each mode: m_modeConsumption[mode * m_nbResources + i] */
+	private int[] m_modeConsumption;
+
+	/** Consumption of each nonrenewable resource by each mode: m_modeConsumptionNonrenewable[mode * m_nbNonrenewable + k] */
+	private int[] m_modeConsumptionNonrenewable;
+
 	// --------------------------------------------
 	// ------------ GETTERS AND SETTERS -----------
 	// --------------------------------------------
@@ -134,7 +164,7 @@ public class Instance {
 			throw new Exception("Error: " + a + " n\'is not an index of activity between 0 and " + (m_nbActivities - 1));
 		if ((b < 0) || (b >= m_nbActivities))
 			throw new Exception("Error: " + b + " n\'is not an index of activity between 0 and " + (m_nbActivities - 1));
-		return m_precedences[a][b];
+		return (m_precedences[a][b >>> 6] & (1L << b)) != 0;
 	}
 
 	/**
@@ -148,7 +178,18 @@ public class Instance {
 			throw new Exception("Error: " + a + " n\'is not an index of activity between 0 and " + (m_nbActivities - 1));
 		if ((b < 0) || (b >= m_nbActivities))
 			throw new Exception("Error: " + b + " n\'is not an index of activity between 0 and " + (m_nbActivities - 1));
-		return m_directPrecedences[a][b];
+		return (m_directPrecedences[a][b >>> 6] & (1L << b)) != 0;
+	}
+
+	/**
+	 * @param a Index of the activity (index must be between 0 and the number of activities -1).
+	 * @return A copy of the list of the direct successors of activity a.
+	 * @throws Exception Throw an exception if index a is not valid.
+	 **/
+	public int[] getDirectSuccessors(int a) throws Exception {
+		if ((a < 0) || (a >= m_nbActivities))
+			throw new Exception("Error: " + a + " n\'is not an index of activity between 0 and " + (m_nbActivities - 1));
+		return m_directSuccessors[a].clone();
 	}
 
 	/**
@@ -158,6 +199,89 @@ public class Instance {
 		return m_fileName;
 	}
 
+	/**
+	 * @return True if an activity has several modes or if the instance has nonrenewable resources (.mm file).
+	 */
+	public boolean isMultiMode() {
+		return m_modeOffset[m_nbActivities] > m_nbActivities || m_nbNonrenewable > 0;
+	}
+
+	/**
+	 * @param j Index of the activity (index must be between 0 and the number of activities -1).
+	 * @return The number of modes of activity j.
+	 * @throws Exception Throw an exception if activity j is not a valid object.
+	 */
+	public int getNbModes(int j) throws Exception {
+		if ((j < 0) || (j >= m_nbActivities))
+			throw new Exception("Error: " + j + " is not an index of activity between 0 and " + (m_nbActivities - 1));
+		return m_modeOffset[j + 1] - m_modeOffset[j];
+	}
+
+	/**
+	 * @param j Index of the activity (index must be between 0 and the number of activities -1).
+	 * @param m Index of the mode (index must be between 0 and the number of modes of activity j -1).
+	 * @return The duration of activity j in mode m.
+	 * @throws Exception Throw an exception if indices j and m are not valid.
+	 */
+	public int getDurationActivity(int j, int m) throws Exception {
+		return m_modeDuration[mode(j, m)];
+	}
+
+	/**
+	 * @param i Index of the resource (index must be between 0 and the number of resources -1).
+	 * @param j Index of the activity (index must be between 0 and the number of activities -1).
+	 * @param m Index of the mode (index must be between 0 and the number of modes of activity j -1).
+	 * @return The consumption of resource i for activity j in mode m.
+	 * @throws Exception Throw an exception if indices i, j and m are not valid.
+	 **/
+	public int getConsumptionResourceActivity(int i, int j, int m) throws Exception {
+		if ((i < 0) || (i >= m_nbResources))
+			throw new Exception("Error: " + i + " is not an index of resource between 0 and " + (m_nbResources - 1));
+		return m_modeConsumption[mode(j, m) * m_nbResources + i];
+	}
+
+	/** 
+	 * @return The number of nonrenewable resources in the problem (0 in the .sm files)
+	 */
+	public int getNbNonrenewableResources() {
+		return m_nbNonrenewable;
+	}
+
+	/**
+	 * @param k Index of the nonrenewable resource (index must be between 0 and the number of nonrenewable resources -1).
+	 * @return The capacity of nonrenewable resource k, i.e. the total consumption allowed over the project.
+	 * @throws Exception Throw an exception if index k is not a valid nonrenewable resource.
+	 */
+	public int getCapacityNonrenewableResource(int k) throws Exception {
+		if ((k < 0) || (k >= m_nbNonrenewable))
+			throw new Exception("Error: " + k + " is not an index of nonrenewable resource between 0 and " + (m_nbNonrenewable - 1));
+		return m_capacityNonrenewable[k];
+	}
+
+	/**
+	 * @param k Index of the nonrenewable resource (index must be between 0 and the number of nonrenewable resources -1).
+	 * @param j Index of the activity (index must be between 0 and the number of activities -1).
+	 * @param m Index of the mode (index must be between 0 and the number of modes of activity j -1).
+	 * @return The consumption of nonrenewable resource k for activity j in mode m.
+	 * @throws Exception Throw an exception if indices k, j and m are not valid.
+	 **/
+	public int getConsumptionNonrenewableActivity(int k, int j, int m) throws Exception {
+		if ((k < 0) || (k >= m_nbNonrenewable))
+			throw new Exception("Error: " + k + " is not an index of nonrenewable resource between 0 and " + (m_nbNonrenewable - 1));
+		return m_modeConsumptionNonrenewable[mode(j, m) * m_nbNonrenewable + k];
+	}
+
+	/**
+	 * @return The index of mode m of activity j in the arrays of modes.
+	 */
+	private int mode(int j, int m) throws Exception {
+		if ((j < 0) || (j >= m_nbActivities))
+			throw new Exception("Error: " + j + " is not an index of activity between 0 and " + (m_nbActivities - 1));
+		if ((m < 0) || (m >= m_modeOffset[j + 1] - m_modeOffset[j]))
+			throw new Exception("Error: " + m + " is not an index of mode of activity " + j + " between 0 and " + (m_modeOffset[j + 1] - m_modeOffset[j] - 1));
+		return m_modeOffset[j] + m;
+	}
+
 	// -------------------------------------
 	// ------------ CONSTRUCTOR ------------
 	// -------------------------------------
@@ -173,7 +297,36 @@ public class Instance {
 	 */
 	public Instance(String fileName) throws IOException {
 		m_fileName = fileName;
-		read();
+		File mfile = new File(m_fileName);
+		if (!mfile.exists())
+		{
+			throw new IOException("The instance file : " + m_fileName + " does not exist.");
+		}
+		read(new Scanner(mfile));
+	}
+
+	/**
+	 * Constructor: this method creates an object of class Instance from data in
+	 * the format of the instance files that do not come from a file, e.g. sent
+	 * to the {@link Daemon}.
+	 * 
+	 * @param fileName
+	 *            name given to the instance (returned by {@link #getFileName()})
+	 * @param reader
+	 *            content of an instance file, closed by this method
+	 * @throws IOException
+	 *             Returns an error when a problem is met reading the data.
+	 */
+	public Instance(String fileName, Reader reader) throws IOException {
+		m_fileName = fileName;
+		try
+		{
+			read(new Scanner(reader));
+		}
+		catch (NoSuchElementException | NumberFormatException | ArrayIndexOutOfBoundsException e)
+		{
+			throw new IOException("The instance " + m_fileName + " is not a valid instance: " + e);
+		}
 	}
 
 	// -------------------------------------
@@ -182,15 +335,10 @@ public class Instance {
 
 	/** 
 	 * Read the instance file
+	 * 
+	 * @param sc Scanner on the content of the file, closed by this method.
 	 */
-	private void read() throws IOException {
-
-		File mfile = new File(m_fileName);
-		if (!mfile.exists())
-		{
-			throw new IOException("The instance file : " + m_fileName + " does not exist.");
-		}
-		Scanner sc = new Scanner(mfile);
+	private void read(Scanner sc) throws IOException {
 
 		String line = sc.nextLine();
 		
@@ -208,8 +356,12 @@ public class Instance {
 		}while(!s.contains(":"));
 		m_nbActivities = lineSc.nextInt();
 
-		m_precedences = new boolean[m_nbActivities][m_nbActivities];
-		m_directPrecedences = new boolean[m_nbActivities][m_nbActivities];
+		int nbWords = (m_nbActivities + 63) >>> 6;
+		m_precedences = new long[m_nbActivities][nbWords];
+		m_directPrecedences = new long[m_nbActivities][nbWords];
+		int[][] successors = new int[m_nbActivities][];
+		m_directSuccessors = successors;
+		m_modeOffset = new int[m_nbActivities + 1];
 		m_durationActivity = new Integer[m_nbActivities];
 
 		lineSc.close();
@@ -225,6 +377,21 @@ public class Instance {
 			s = lineSc.next();
 		}while(!s.contains(":"));
 		m_nbResources = lineSc.nextInt();
+		lineSc.close();
+
+		// Read the number of nonrenewable resources (multi-mode files)
+		line = sc.nextLine();
+		m_nbNonrenewable = 0;
+		if (line.contains("nonrenewable"))
+		{
+			lineSc = new Scanner(line);
+			do
+			{
+				s = lineSc.next();
+			}while(!s.contains(":"));
+			m_nbNonrenewable = lineSc.nextInt();
+		}
+		m_capacityNonrenewable = new int[m_nbNonrenewable];
 
 		m_capacityResource = new Integer[m_nbResources];
 		m_consumptionResourceActivity = new Integer[m_nbResources][m_nbActivities];
@@ -238,56 +405,38 @@ public class Instance {
 		for(int j = 0; j < m_nbActivities; j++)
 		{
 
-			line = sc.nextLine();
-			lineSc = new Scanner(line);
-
-			// Initialization
-			for(int i = 0; i < m_nbActivities; i++)
-			{
-				m_precedences[j][i] = false;
-				m_directPrecedences[j][i] = false;
-			}
-
-			lineSc.nextInt();
-			lineSc.nextInt();
-			int nbSucc = lineSc.nextInt();
+			// --- Fields: jobnr, #modes, #successors, successors
+			String[] fields = sc.nextLine().trim().split("\\s+");
+			int nbSucc = Integer.parseInt(fields[2]);
+			m_modeOffset[j + 1] = m_modeOffset[j] + Integer.parseInt(fields[1]);
 
+			successors[j] = new int[nbSucc];
 			for(int i = 0; i < nbSucc; i++)
 			{
-				int succ = lineSc.nextInt() - 1; // --- Numbering starts at 1 in the instance file
-				m_precedences[j][succ] = true;
-				m_directPrecedences[j][succ] = true;
+				int succ = Integer.parseInt(fields[3 + i]) - 1; // --- Numbering starts at 1 in the instance file
+				successors[j][i] = succ;
+				m_precedences[j][succ >>> 6] |= 1L << succ;
+				m_directPrecedences[j][succ >>> 6] |= 1L << succ;
 			}
 		}
 
 
 		// --- Fermeture transitive des précédences, pour une manipulation plus facile 
-		// --- Pour chaque tâche j 
-		for(int j = 0; j < m_nbActivities; j++)
+		// --- Activities are visited in reverse topological order: the successors of
+		// --- an activity are the union of its direct successors and of their successors
+		int[] order = topologicalOrder(successors);
+		for(int k = m_nbActivities - 1; k >= 0; k--)
 		{
-			ArrayList<Integer> listSuccessors = new ArrayList<Integer>();
-			// Add direct successor in the list
-			for(int i = j+1; i < m_nbActivities; i++)
+			int j = order[k];
+			long[] row = m_precedences[j];
+			for(int succ : successors[j])
 			{
-				if(m_precedences[j][i] == true)
+				long[] rowSucc = m_precedences[succ];
+				for(int w = 0; w < nbWords; w++)
 				{
-					listSuccessors.add(i);
+					row[w] |= rowSucc[w];
 				}
 			}
-			// Add (if needed) successors for each element in the list
-			while(listSuccessors.size() != 0)
-			{
-				int current = listSuccessors.get(0);
-				listSuccessors.remove(0);
-				m_precedences[j][current] = true;
-				for(int i = current+1; i < m_nbActivities; i++)
-				{
-					if(m_precedences[current][i] == true && !listSuccessors.contains(i))
-					{
-						listSuccessors.add(i);
-					}
-				}
-			}		
 		}
 
 		// Read consumption resources
@@ -297,16 +446,31 @@ public class Instance {
 		}while(!line.contains("jobnr"));
 
 		sc.nextLine();
+		int nbModes = m_modeOffset[m_nbActivities];
+		m_modeDuration = new int[nbModes];
+		m_modeConsumption = new int[nbModes * m_nbResources];
+		m_modeConsumptionNonrenewable = new int[nbModes * m_nbNonrenewable];
 		for(int j = 0; j < m_nbActivities; j++)
 		{
-			line = sc.nextLine();
-			lineSc = new Scanner(line);
-			lineSc.nextInt();
-			lineSc.nextInt();
-			m_durationActivity[j] = lineSc.nextInt();
+			for(int mode = m_modeOffset[j]; mode < m_modeOffset[j + 1]; mode++)
+			{
+				// --- Fields: jobnr (first mode only), mode, duration, consumption of each renewable then nonrenewable resource
+				String[] fields = sc.nextLine().trim().split("\\s+");
+				int first = fields.length - (2 + m_nbResources + m_nbNonrenewable);
+				m_modeDuration[mode] = Integer.parseInt(fields[first + 1]);
+				for(int i = 0; i < m_nbResources; i++)
+				{
+					m_modeConsumption[mode * m_nbResources + i] = Integer.parseInt(fields[first + 2 + i]);
+				}
+				for(int k = 0; k < m_nbNonrenewable; k++)
+				{
+					m_modeConsumptionNonrenewable[mode * m_nbNonrenewable + k] = Integer.parseInt(fields[first + 2 + m_nbResources + k]);
+				}
+			}
+			m_durationActivity[j] = m_modeDuration[m_modeOffset[j]];
 			for(int i = 0; i < m_nbResources; i++)
 			{
-				m_consumptionResourceActivity[i][j] = lineSc.nextInt();
+				m_consumptionResourceActivity[i][j] = m_modeConsumption[m_modeOffset[j] * m_nbResources + i];
 			}
 		}
 
@@ -325,11 +489,61 @@ public class Instance {
 		{
 			m_capacityResource[i] = lineSc.nextInt();
 		}
+		for(int k = 0; k < m_nbNonrenewable; k++)
+		{
+			m_capacityNonrenewable[k] = lineSc.nextInt();
+		}
 
 		sc.close();
 		lineSc.close();
 	}
 
+	/**
+	 * Sorts the activities in a topological order of the precedence graph
+	 * (Kahn's algorithm). In the PSPLIB files the successors of an activity have
+	 * larger numbers, so the order is usually the order of the file.
+	 *
+	 * @param successors Direct successors of each activity.
+	 * @return The activities in a topological order.
+	 * @throws IOException Returns an error when the precedence graph contains a cycle.
+	 */
+	private int[] topologicalOrder(int[][] successors) throws IOException
+	{
+		int n = successors.length;
+		int[] nbPredecessors = new int[n];
+		for(int[] list : successors)
+		{
+			for(int succ : list)
+			{
+				nbPredecessors[succ]++;
+			}
+		}
+		int[] order = new int[n];
+		int size = 0;
+		for(int j = 0; j < n; j++)
+		{
+			if(nbPredecessors[j] == 0)
+			{
+				order[size++] = j;
+			}
+		}
+		for(int k = 0; k < size; k++)
+		{
+			for(int succ : successors[order[k]])
+			{
+				if(--nbPredecessors[succ] == 0)
+				{
+					order[size++] = succ;
+				}
+			}
+		}
+		if(size < n)
+		{
+			throw new IOException("The precedences of the instance file : " + m_fileName + " contain a cycle.");
+		}
+		return order;
+	}
+
 	/**
 	 * Print weights matrix on the output given as a parameter.
 	 * 
@@ -0,0 +1,348 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Features of an instance that predict how hard it is and which engine suits
+ * it best, see {@link EngineSelector}. The measures are those used to generate
+ * the PSPLIB instances (Kolisch, Sprecher and Drexl, 1995), computed on the
+ * real activities (all but the first and the last one) in the modes of
+ * {@link CompactInstance#modes}:
+ *  - network complexity (NC): number of direct precedences per activity;
+ *  - resource factor (RF): mean proportion of the resources used by an activity;
+ *  - resource strength (RS): mean over the resources of
+ *    (capacity - largest demand) / (peak of the earliest start schedule - largest demand),
+ *    at most 1; the smaller, the scarcer the resource;
+ *  - order strength (OS): proportion of the pairs of activities linked by a
+ *    path of precedences;
+ *  - critical path ratio (CPR): length of the critical path divided by the
+ *    energy bound (the largest total work of a resource over its capacity);
+ *    above 1 the precedences bound the makespan more than the resources.
+ * Every feature is computed in O(n log n + n R + n arcs / 64).
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class InstanceFeatures {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Names of the features, in the order of {@link #get(String)} and of the tables of {@link EngineSelector} */
+	public static final String[] NAMES = { "n", "R", "NC", "RF", "RS", "OS", "CPR" };
+
+	/** Number of activities */
+	private final int m_nbActivities;
+
+	/** Number of resources */
+	private final int m_nbResources;
+
+	/** Network complexity */
+	private final double m_networkComplexity;
+
+	/** Resource factor */
+	private final double m_resourceFactor;
+
+	/** Resource strength */
+	private final double m_resourceStrength;
+
+	/** Order strength */
+	private final double m_orderStrength;
+
+	/** Length of the critical path */
+	private final int m_criticalPath;
+
+	/** Energy bound */
+	private final int m_energyBound;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Number of activities */
+	public int getNbActivities()
+	{
+		return m_nbActivities;
+	}
+
+	/** @return Number of resources */
+	public int getNbResources()
+	{
+		return m_nbResources;
+	}
+
+	/** @return Network complexity: number of direct precedences per activity */
+	public double getNetworkComplexity()
+	{
+		return m_networkComplexity;
+	}
+
+	/** @return Resource factor: mean proportion of the resources used by an activity */
+	public double getResourceFactor()
+	{
+		return m_resourceFactor;
+	}
+
+	/** @return Resource strength, between 0 (scarce resources) and 1 */
+	public double getResourceStrength()
+	{
+		return m_resourceStrength;
+	}
+
+	/** @return Order strength: proportion of the pairs of activities linked by precedences */
+	public double getOrderStrength()
+	{
+		return m_orderStrength;
+	}
+
+	/** @return Length of the critical path */
+	public int getCriticalPath()
+	{
+		return m_criticalPath;
+	}
+
+	/** @return Energy bound: the largest total work of a resource over its capacity */
+	public int getEnergyBound()
+	{
+		return m_energyBound;
+	}
+
+	/** @return Length of the critical path divided by the energy bound */
+	public double getCriticalPathRatio()
+	{
+		return (double) m_criticalPath / Math.max(1, m_energyBound);
+	}
+
+	/**
+	 * @param name Name of a feature, one of {@link #NAMES}.
+	 * @return The value of the feature.
+	 * @throws IllegalArgumentException If the name is not the name of a feature.
+	 */
+	public double get(String name)
+	{
+		switch(name)
+		{
+		case "n":
+			return m_nbActivities;
+		case "R":
+			return m_nbResources;
+		case "NC":
+			return m_networkComplexity;
+		case "RF":
+			return m_resourceFactor;
+		case "RS":
+			return m_resourceStrength;
+		case "OS":
+			return m_orderStrength;
+		case "CPR":
+			return getCriticalPathRatio();
+		default:
+			throw new IllegalArgumentException("Error: unknown feature " + name + ", expected one of " + Arrays.toString(NAMES) + ".");
+		}
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Computes the features of an instance.
+	 *
+	 * @param instance The instance.
+	 * @throws Exception Throw an exception if the precedence graph contains a cycle.
+	 */
+	public InstanceFeatures(Instance instance) throws Exception
+	{
+		this(new CompactInstance(instance));
+	}
+
+	/**
+	 * Computes the features of an instance.
+	 *
+	 * @param data The data of the instance.
+	 */
+	public InstanceFeatures(CompactInstance data)
+	{
+		m_nbActivities = data.nbActivities;
+		m_nbResources = data.nbResources;
+		int nbReal = Math.max(1, m_nbActivities - 2);
+
+		int nbArcs = 0;
+		for(int[] successors : data.successors)
+		{
+			nbArcs += successors.length;
+		}
+		m_networkComplexity = (double) nbArcs / Math.max(1, m_nbActivities);
+
+		int nbUses = 0;
+		for(int j = 1; j < m_nbActivities - 1; j++)
+		{
+			for(int i = 0; i < m_nbResources; i++)
+			{
+				if(data.demand[j][i] > 0)
+				{
+					nbUses++;
+				}
+			}
+		}
+		m_resourceFactor = (m_nbResources == 0) ? 0.0 : (double) nbUses / (nbReal * m_nbResources);
+
+		int[] es = data.earliestStartTimes();
+		int criticalPath = 0;
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			criticalPath = Math.max(criticalPath, es[j] + data.duration[j]);
+		}
+		m_criticalPath = criticalPath;
+		m_resourceStrength = resourceStrength(data, es);
+		m_energyBound = energyBound(data);
+		m_orderStrength = orderStrength(data);
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @return The mean resource strength, the peak of each resource being the one of the earliest start schedule
+	 */
+	private static double resourceStrength(CompactInstance data, int[] es)
+	{
+		if(data.nbResources == 0)
+		{
+			return 1.0;
+		}
+		// Events of the earliest start schedule: time * 2 + 1 for a start, time * 2 for an end (ends first)
+		long[] events = new long[2 * data.nbActivities];
+		int nbEvents = 0;
+		for(int j = 0; j < data.nbActivities; j++)
+		{
+			if(data.duration[j] > 0)
+			{
+				events[nbEvents++] = ((2L * es[j] + 1) << 32) | j;
+				events[nbEvents++] = ((2L * (es[j] + data.duration[j])) << 32) | j;
+			}
+		}
+		events = Arrays.copyOf(events, nbEvents);
+		Arrays.sort(events);
+		double sum = 0;
+		int[] use = new int[data.nbResources];
+		int[] peak = new int[data.nbResources];
+		for(long event : events)
+		{
+			int j = (int) event;
+			int sign = (((event >>> 32) & 1) == 1) ? 1 : -1;
+			for(int i = 0; i < data.nbResources; i++)
+			{
+				use[i] += sign * data.demand[j][i];
+				peak[i] = Math.max(peak[i], use[i]);
+			}
+		}
+		for(int i = 0; i < data.nbResources; i++)
+		{
+			int largest = 0;
+			for(int j = 0; j < data.nbActivities; j++)
+			{
+				largest = Math.max(largest, data.demand[j][i]);
+			}
+			double strength = (peak[i] > largest) ? (double) (data.capacity[i] - largest) / (peak[i] - largest) : 1.0;
+			sum += Math.max(0.0, Math.min(1.0, strength));
+		}
+		return sum / data.nbResources;
+	}
+
+	/**
+	 * @return The largest total work of a resource over its capacity (rounded up)
+	 */
+	private static int energyBound(CompactInstance data)
+	{
+		int bound = 0;
+		for(int i = 0; i < data.nbResources; i++)
+		{
+			long work = 0;
+			for(int j = 0; j < data.nbActivities; j++)
+			{
+				work += (long) data.duration[j] * data.demand[j][i];
+			}
+			if(data.capacity[i] > 0)
+			{
+				bound = (int) Math.max(bound, (work + data.capacity[i] - 1) / data.capacity[i]);
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * @return The order strength: the transitive closure of the precedences is
+	 *         computed with bit sets, in the reverse of a topological order
+	 */
+	private static double orderStrength(CompactInstance data)
+	{
+		int n = data.nbActivities;
+		if(n <= 3)
+		{
+			return 0.0;
+		}
+		int nbWords = (n + 63) >>> 6;
+		long[][] followers = new long[n][nbWords];
+		long pairs = 0;
+		for(int k = n - 1; k >= 0; k--)
+		{
+			int j = data.topologicalOrder[k];
+			for(int s : data.successors[j])
+			{
+				followers[j][s >>> 6] |= 1L << s;
+				for(int w = 0; w < nbWords; w++)
+				{
+					followers[j][w] |= followers[s][w];
+				}
+			}
+			if(j != 0 && j != n - 1)
+			{
+				for(long word : followers[j])
+				{
+					pairs += Long.bitCount(word);
+				}
+				// The sink follows every activity, it is not a real activity
+				if((followers[j][(n - 1) >>> 6] & (1L << (n - 1))) != 0)
+				{
+					pairs--;
+				}
+			}
+		}
+		long nbReal = n - 2;
+		return (double) pairs / (nbReal * (nbReal - 1) / 2);
+	}
+
+	/**
+	 * @return The features, e.g. "n=32 R=4 NC=1.81 RF=0.52 RS=0.25 OS=0.43 CPR=0.86"
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format(Locale.ROOT, "n=%d R=%d NC=%.2f RF=%.2f RS=%.2f OS=%.2f CPR=%.2f", m_nbActivities, m_nbResources,
+				m_networkComplexity, m_resourceFactor, m_resourceStrength, m_orderStrength, getCriticalPathRatio());
+	}
+
+}
@@ -0,0 +1,629 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generator of random instances in the PSPLIB .sm format, in the spirit of
+ * ProGen (Kolisch, Sprecher and Drexl 1995), to test the framework on
+ * projects much larger than the bundled instances.
+ *
+ * **command**: java rcpsp.InstanceGenerator [options] outputFile
+ * **Options**:
+ *  - -help :prints this parameter description
+ *  - -n (int) :number of non-dummy activities (30 by default)
+ *  - -r (int) :number of renewable resources (4 by default)
+ *  - -nc (double) :network complexity, number of arcs per activity including the dummy activities (1.5 by default)
+ *  - -rf (double) :resource factor, mean fraction of the resources used by an activity (0.5 by default)
+ *  - -rs (double) :resource strength, between 0 (tightest) and 1 (capacity of the earliest start schedule) (0.5 by default)
+ *  - -dmin, -dmax (int) :range of the durations (1 to 10 by default)
+ *  - -qmin, -qmax (int) :range of the resource requests (1 to 10 by default)
+ *  - -starts (int) :number of activities without predecessor (3 by default)
+ *  - -seed (long) :seed of the random numbers (0 by default)
+ *  - -count (int) :number of instances; if larger than 1, the files are named outputFile_1.sm, outputFile_2.sm, ...
+ *
+ * The precedence network is built activity by activity: an activity chooses its
+ * predecessors among the activities of a window of lower numbers, so that the
+ * numbering is a topological order and the network is deep rather than wide;
+ * an activity leaving the window without successor is taken as predecessor, so
+ * that few activities precede the sink. A predecessor is rejected if
+ * it is already an ancestor, or a descendant, of another predecessor, so that
+ * the network has no redundant arc. The activities without successor precede
+ * the sink. The capacity of resource k is Kmin + RS (Kmax - Kmin), where Kmin
+ * is the largest request for k and Kmax is the peak of the earliest start
+ * schedule. All the random numbers are drawn from the seed: the same options
+ * give the same files.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class InstanceGenerator {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/**
+	 * A generated project. Activity 0 is the source and the last activity the sink.
+	 */
+	public static final class Project
+	{
+		/** Seed of the project */
+		public long seed;
+		/** duration[j] is the duration of activity j */
+		public int[] duration;
+		/** demand[j][k] is the request of activity j for resource k */
+		public int[][] demand;
+		/** successors[j] contains the direct successors of activity j */
+		public int[][] successors;
+		/** capacity[k] is the capacity of resource k */
+		public int[] capacity;
+		/** Length of the critical path */
+		public int criticalPath;
+		/** Number of arcs, including the arcs of the dummy activities */
+		public int nbArcs;
+	}
+
+	/** Number of non-dummy activities */
+	private int m_nbActivities = 30;
+
+	/** Number of renewable resources */
+	private int m_nbResources = 4;
+
+	/** Network complexity: number of arcs per activity */
+	private double m_networkComplexity = 1.5;
+
+	/** Resource factor: mean fraction of the resources used by an activity */
+	private double m_resourceFactor = 0.5;
+
+	/** Resource strength */
+	private double m_resourceStrength = 0.5;
+
+	/** Smallest duration */
+	private int m_minDuration = 1;
+
+	/** Largest duration */
+	private int m_maxDuration = 10;
+
+	/** Smallest resource request */
+	private int m_minRequest = 1;
+
+	/** Largest resource request */
+	private int m_maxRequest = 10;
+
+	/** Number of activities without predecessor (successors of the source) */
+	private int m_nbStarts = 3;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/**
+	 * @param nbActivities Number of non-dummy activities.
+	 */
+	public void setNbActivities(int nbActivities)
+	{
+		this.m_nbActivities = nbActivities;
+	}
+
+	/**
+	 * @param nbResources Number of renewable resources.
+	 */
+	public void setNbResources(int nbResources)
+	{
+		this.m_nbResources = nbResources;
+	}
+
+	/**
+	 * @param networkComplexity Number of arcs per activity, including the dummy activities.
+	 */
+	public void setNetworkComplexity(double networkComplexity)
+	{
+		this.m_networkComplexity = networkComplexity;
+	}
+
+	/**
+	 * @param resourceFactor Mean fraction of the resources used by an activity (between 0 and 1).
+	 */
+	public void setResourceFactor(double resourceFactor)
+	{
+		this.m_resourceFactor = resourceFactor;
+	}
+
+	/**
+	 * @param resourceStrength Resource strength (between 0 and 1).
+	 */
+	public void setResourceStrength(double resourceStrength)
+	{
+		this.m_resourceStrength = resourceStrength;
+	}
+
+	/**
+	 * @param minDuration Smallest duration.
+	 * @param maxDuration Largest duration.
+	 */
+	public void setDurations(int minDuration, int maxDuration)
+	{
+		this.m_minDuration = minDuration;
+		this.m_maxDuration = maxDuration;
+	}
+
+	/**
+	 * @param minRequest Smallest resource request.
+	 * @param maxRequest Largest resource request.
+	 */
+	public void setRequests(int minRequest, int maxRequest)
+	{
+		this.m_minRequest = minRequest;
+		this.m_maxRequest = maxRequest;
+	}
+
+	/**
+	 * @param nbStarts Number of activities without predecessor.
+	 */
+	public void setNbStarts(int nbStarts)
+	{
+		this.m_nbStarts = nbStarts;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Main method.
+	 *
+	 * @param arg program parameters.
+	 */
+	public static void main(String[] arg) {
+		InstanceGenerator generator = new InstanceGenerator();
+		String output = null;
+		long seed = 0;
+		int count = 1;
+		int minDuration = 1, maxDuration = 10, minRequest = 1, maxRequest = 10;
+
+		// Parse command line
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].compareTo("-help") == 0) {
+				System.err.println("The Resource-Constrained Project Scheduling Problem - instance generator");
+				System.err.println("Program parameters:");
+				System.err.println("command: java rcpsp.InstanceGenerator [options] outputFile");
+				System.err.println("Options:");
+				System.err.println("\t-help\t: prints this parameter description");
+				System.err.println("\t-n\t\t: number of non-dummy activities (int, 30 by default)");
+				System.err.println("\t-r\t\t: number of renewable resources (int, 4 by default)");
+				System.err.println("\t-nc\t\t: network complexity, arcs per activity (double, 1.5 by default)");
+				System.err.println("\t-rf\t\t: resource factor (double, 0.5 by default)");
+				System.err.println("\t-rs\t\t: resource strength (double, 0.5 by default)");
+				System.err.println("\t-dmin, -dmax\t: range of the durations (int, 1 and 10 by default)");
+				System.err.println("\t-qmin, -qmax\t: range of the resource requests (int, 1 and 10 by default)");
+				System.err.println("\t-starts\t\t: number of activities without predecessor (int, 3 by default)");
+				System.err.println("\t-seed\t\t: seed of the random numbers (long, 0 by default)");
+				System.err.println("\t-count\t\t: number of instances (int, 1 by default)");
+				return;
+			}
+			try {
+				if (arg[i].startsWith("-") && i + 1 >= arg.length) {
+					throw new IllegalArgumentException("Error: a value is expected after " + arg[i] + ".");
+				}
+				switch (arg[i]) {
+				case "-n":
+					generator.setNbActivities(Integer.parseInt(arg[++i]));
+					break;
+				case "-r":
+					generator.setNbResources(Integer.parseInt(arg[++i]));
+					break;
+				case "-nc":
+					generator.setNetworkComplexity(Double.parseDouble(arg[++i]));
+					break;
+				case "-rf":
+					generator.setResourceFactor(Double.parseDouble(arg[++i]));
+					break;
+				case "-rs":
+					generator.setResourceStrength(Double.parseDouble(arg[++i]));
+					break;
+				case "-dmin":
+					minDuration = Integer.parseInt(arg[++i]);
+					break;
+				case "-dmax":
+					maxDuration = Integer.parseInt(arg[++i]);
+					break;
+				case "-qmin":
+					minRequest = Integer.parseInt(arg[++i]);
+					break;
+				case "-qmax":
+					maxRequest = Integer.parseInt(arg[++i]);
+					break;
+				case "-starts":
+					generator.setNbStarts(Integer.parseInt(arg[++i]));
+					break;
+				case "-seed":
+					seed = Long.parseLong(arg[++i]);
+					break;
+				case "-count":
+					count = Integer.parseInt(arg[++i]);
+					break;
+				default:
+					if (output != null || arg[i].startsWith("-")) {
+						throw new IllegalArgumentException("Error: Value " + arg[i] + " is not a valid parameter.");
+					}
+					output = arg[i];
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Error: The value given for " + arg[i - 1] + " is not a valid number.");
+				System.exit(1);
+			} catch (IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+
+		if (output == null) {
+			System.err.println("Error : you must specify an output file as parameter (\"-\" for the standard output).");
+			System.exit(1);
+		}
+
+		try
+		{
+			generator.setDurations(minDuration, maxDuration);
+			generator.setRequests(minRequest, maxRequest);
+			RandomService random = new RandomService(seed);
+			for (int k = 1; k <= count; k++) {
+				// The single instance uses the seed itself, a series uses one stream per instance
+				long instanceSeed = (count == 1) ? seed : random.forTask(k).nextLong();
+				Project project = generator.generate(instanceSeed);
+				String fileName = output;
+				if (count > 1) {
+					String base = output.endsWith(".sm") ? output.substring(0, output.length() - 3) : output;
+					fileName = base + "_" + k + ".sm";
+				}
+				try (Writer out = fileName.equals("-") ? new BufferedWriter(new OutputStreamWriter(System.out)) : new BufferedWriter(new FileWriter(fileName))) {
+					write(project, out);
+				}
+				System.err.printf("%s: %d activities, %d arcs (NC %.2f), critical path %d, capacities %s%n", fileName, project.duration.length,
+						project.nbArcs, (double) project.nbArcs / project.duration.length, project.criticalPath, Arrays.toString(project.capacity));
+			}
+		} catch (Exception e) {
+			System.err.printf("Error: %s", e.getMessage());
+			System.err.println();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Generates a project.
+	 *
+	 * @param seed Seed of the random numbers.
+	 * @return The project.
+	 * @throws Exception Throw an exception if the parameters are not valid.
+	 */
+	public Project generate(long seed) throws Exception
+	{
+		int n = m_nbActivities;
+		if(n < 1 || m_nbResources < 0 || m_minDuration < 1 || m_maxDuration < m_minDuration || m_minRequest < 1 || m_maxRequest < m_minRequest
+				|| m_resourceFactor < 0 || m_resourceFactor > 1 || m_resourceStrength < 0 || m_resourceStrength > 1 || m_networkComplexity < 0)
+		{
+			throw new Exception("Error: the parameters of the generator are not valid.");
+		}
+		SplittableRandom random = new SplittableRandom(seed);
+		int nbTotal = n + 2;
+		int sink = n + 1;
+		Project project = new Project();
+		project.seed = seed;
+
+		// Durations and requests
+		project.duration = new int[nbTotal];
+		project.demand = new int[nbTotal][m_nbResources];
+		for(int j = 1; j <= n; j++)
+		{
+			project.duration[j] = m_minDuration + random.nextInt(m_maxDuration - m_minDuration + 1);
+			boolean uses = false;
+			for(int k = 0; k < m_nbResources; k++)
+			{
+				if(random.nextDouble() < m_resourceFactor)
+				{
+					project.demand[j][k] = m_minRequest + random.nextInt(m_maxRequest - m_minRequest + 1);
+					uses = true;
+				}
+			}
+			if(!uses && m_resourceFactor > 0 && m_nbResources > 0)
+			{
+				project.demand[j][random.nextInt(m_nbResources)] = m_minRequest + random.nextInt(m_maxRequest - m_minRequest + 1);
+			}
+		}
+
+		// Precedence network
+		int nbStarts = Math.max(1, Math.min(m_nbStarts, n));
+		int window = Math.max(nbStarts, (int) Math.ceil(2 * Math.sqrt(n)));
+		// Mean number of predecessors of the other activities (the sink receives about nbStarts arcs)
+		double meanPredecessors = (n > nbStarts) ? Math.max(1.0, (m_networkComplexity * nbTotal - 2 * nbStarts) / (n - nbStarts)) : 1.0;
+		int[][] predecessors = new int[nbTotal][];
+		int[] nbSuccessors = new int[nbTotal];
+		int[] stamp = new int[nbTotal];
+		int[] stack = new int[nbTotal];
+		int[] chosen = new int[window];
+		int oldestOpen = 1;
+		for(int j = 1; j <= nbStarts; j++)
+		{
+			predecessors[j] = new int[] {0};
+		}
+		nbSuccessors[0] = nbStarts;
+		int search = 0;
+		for(int j = nbStarts + 1; j <= n; j++)
+		{
+			int first = Math.max(1, j - window);
+			int nbCandidates = j - first;
+			int nbWanted = (int) meanPredecessors + ((random.nextDouble() < meanPredecessors - (int) meanPredecessors) ? 1 : 0);
+			nbWanted = Math.max(1, Math.min(nbWanted, nbCandidates));
+
+			// First predecessor: the activity leaving the window if it has no successor, otherwise a random activity of the window
+			while(oldestOpen < j && (nbSuccessors[oldestOpen] > 0 || oldestOpen < first))
+			{
+				oldestOpen++;
+			}
+			int nbChosen = 0;
+			chosen[nbChosen++] = (oldestOpen == first && j - window >= 1) ? oldestOpen : first + random.nextInt(nbCandidates);
+
+			// Other predecessors: random activities of the window that do not create redundant arcs
+			for(int attempt = 0; nbChosen < nbWanted && attempt < 4 * nbWanted; attempt++)
+			{
+				int candidate = first + random.nextInt(nbCandidates);
+				boolean redundant = false;
+				for(int p = 0; p < nbChosen && !redundant; p++)
+				{
+					int other = chosen[p];
+					redundant = (candidate == other) || isAncestor(Math.min(candidate, other), Math.max(candidate, other), predecessors, stamp, stack, ++search);
+				}
+				if(!redundant)
+				{
+					chosen[nbChosen++] = candidate;
+				}
+			}
+			predecessors[j] = Arrays.copyOf(chosen, nbChosen);
+			for(int p = 0; p < nbChosen; p++)
+			{
+				nbSuccessors[chosen[p]]++;
+			}
+		}
+
+		// Successor lists, the activities without successor precede the sink
+		int[] count = new int[nbTotal];
+		for(int j = 1; j <= n; j++)
+		{
+			if(nbSuccessors[j] == 0)
+			{
+				nbSuccessors[j] = 1;
+			}
+		}
+		project.successors = new int[nbTotal][];
+		for(int j = 0; j < nbTotal; j++)
+		{
+			project.successors[j] = new int[nbSuccessors[j]];
+		}
+		int nbArcs = 0;
+		for(int j = 1; j <= n; j++)
+		{
+			for(int p : predecessors[j])
+			{
+				project.successors[p][count[p]++] = j;
+				nbArcs++;
+			}
+		}
+		for(int j = 1; j <= n; j++)
+		{
+			if(count[j] == 0)
+			{
+				project.successors[j][count[j]++] = sink;
+				nbArcs++;
+			}
+		}
+		for(int[] list : project.successors)
+		{
+			Arrays.sort(list);
+		}
+		project.nbArcs = nbArcs;
+
+		// Earliest start schedule: critical path and peak of each resource
+		int[] earliestStart = new int[nbTotal];
+		for(int j = 0; j < nbTotal; j++)
+		{
+			for(int s : project.successors[j])
+			{
+				earliestStart[s] = Math.max(earliestStart[s], earliestStart[j] + project.duration[j]);
+			}
+		}
+		project.criticalPath = earliestStart[sink];
+		project.capacity = new int[m_nbResources];
+		long[] usage = new long[project.criticalPath + 1];
+		for(int k = 0; k < m_nbResources; k++)
+		{
+			Arrays.fill(usage, 0);
+			int minCapacity = 0;
+			for(int j = 1; j <= n; j++)
+			{
+				int q = project.demand[j][k];
+				minCapacity = Math.max(minCapacity, q);
+				usage[earliestStart[j]] += q;
+				usage[earliestStart[j] + project.duration[j]] -= q;
+			}
+			long peak = 0;
+			long level = 0;
+			for(long delta : usage)
+			{
+				level += delta;
+				peak = Math.max(peak, level);
+			}
+			project.capacity[k] = Math.max(1, (int) Math.round(minCapacity + m_resourceStrength * (peak - minCapacity)));
+		}
+		return project;
+	}
+
+	/**
+	 * @return True if activity a (a &lt; b) is an ancestor of activity b. The search only visits
+	 *         the activities numbered between a and b, since the numbering is a topological order.
+	 */
+	private static boolean isAncestor(int a, int b, int[][] predecessors, int[] stamp, int[] stack, int search)
+	{
+		int size = 0;
+		stack[size++] = b;
+		stamp[b] = search;
+		while(size > 0)
+		{
+			int j = stack[--size];
+			for(int p : predecessors[j])
+			{
+				if(p == a)
+				{
+					return true;
+				}
+				if(p > a && stamp[p] != search)
+				{
+					stamp[p] = search;
+					stack[size++] = p;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes a project in the PSPLIB .sm format.
+	 *
+	 * @param project The project.
+	 * @param out Output.
+	 * @throws IOException Returns an error when the output cannot be written.
+	 */
+	public static void write(Project project, Writer out) throws IOException
+	{
+		int nbTotal = project.duration.length;
+		int nbResources = project.capacity.length;
+		int horizon = 0;
+		for(int d : project.duration)
+		{
+			horizon += d;
+		}
+		String separator = "************************************************************************\n";
+		StringBuilder sb = new StringBuilder(64 * nbTotal);
+		sb.append(separator);
+		sb.append("file with basedata            : rcpsp.InstanceGenerator\n");
+		sb.append("initial value random generator: ").append(project.seed).append('\n');
+		sb.append(separator);
+		sb.append("projects                      :  1\n");
+		sb.append("jobs (incl. supersource/sink ):  ").append(nbTotal).append('\n');
+		sb.append("horizon                       :  ").append(horizon).append('\n');
+		sb.append("RESOURCES\n");
+		sb.append("  - renewable                 :  ").append(nbResources).append("   R\n");
+		sb.append("  - nonrenewable              :  0   N\n");
+		sb.append("  - doubly constrained        :  0   D\n");
+		sb.append(separator);
+		sb.append("PROJECT INFORMATION:\n");
+		sb.append("pronr.  #jobs rel.date duedate tardcost  MPM-Time\n");
+		sb.append(String.format("    1  %5d      0  %6d        0  %8d\n", nbTotal - 2, project.criticalPath, project.criticalPath));
+		sb.append(separator);
+		sb.append("PRECEDENCE RELATIONS:\n");
+		sb.append("jobnr.    #modes  #successors   successors\n");
+		for(int j = 0; j < nbTotal; j++)
+		{
+			pad(sb, j + 1, 4);
+			sb.append("        1");
+			pad(sb, project.successors[j].length, 11);
+			sb.append("        ");
+			for(int s : project.successors[j])
+			{
+				pad(sb, s + 1, 4);
+			}
+			sb.append('\n');
+			flush(sb, out);
+		}
+		sb.append(separator);
+		sb.append("REQUESTS/DURATIONS:\n");
+		sb.append("jobnr. mode duration");
+		for(int k = 0; k < nbResources; k++)
+		{
+			sb.append("  R ").append(k + 1);
+		}
+		sb.append('\n');
+		sb.append("------------------------------------------------------------------------\n");
+		for(int j = 0; j < nbTotal; j++)
+		{
+			pad(sb, j + 1, 3);
+			sb.append("      1");
+			pad(sb, project.duration[j], 6);
+			sb.append(' ');
+			for(int k = 0; k < nbResources; k++)
+			{
+				pad(sb, project.demand[j][k], 5);
+			}
+			sb.append('\n');
+			flush(sb, out);
+		}
+		sb.append(separator);
+		sb.append("RESOURCEAVAILABILITIES:\n");
+		for(int k = 0; k < nbResources; k++)
+		{
+			sb.append("  R ").append(k + 1);
+		}
+		sb.append('\n');
+		for(int k = 0; k < nbResources; k++)
+		{
+			pad(sb, project.capacity[k], 5);
+		}
+		sb.append('\n');
+		sb.append(separator);
+		out.append(sb);
+	}
+
+	/**
+	 * Appends a number right-aligned on width characters (with at least one space before it).
+	 */
+	private static void pad(StringBuilder sb, int value, int width)
+	{
+		String s = Integer.toString(value);
+		for(int k = s.length(); k < width; k++)
+		{
+			sb.append(' ');
+		}
+		if(s.length() >= width)
+		{
+			sb.append(' ');
+		}
+		sb.append(s);
+	}
+
+	/**
+	 * Writes the buffer when it is large.
+	 */
+	private static void flush(StringBuilder sb, Writer out) throws IOException
+	{
+		if(sb.length() > 1 << 16)
+		{
+			out.append(sb);
+			sb.setLength(0);
+		}
+	}
+
+}
@@ -0,0 +1,278 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ProgressListener} writing one JSON object per line for each improving solution:
+ * <pre>
+ * {"instance":"j301_1.sm","timestamp":1500000000000,"time":12.345,"engine":"sampling","iteration":42,"makespan":45,"lowerBound":43}
+ * </pre>
+ * where time is the time elapsed since the beginning of the search in milliseconds.
+ *
+ * Events are put in a bounded queue and written by a background thread, so
+ * the search thread never waits for the disk. If the queue is full, the event
+ * is dropped and counted (see {@link #getNbDropped()}).
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class JsonLinesProgressSink implements ProgressListener, AutoCloseable {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Capacity of the queue of events */
+	private static final int QUEUE_CAPACITY = 4096;
+
+	/** Event put in the queue to stop the writer thread */
+	private static final Object END = new Object();
+
+	/** Events waiting to be written */
+	private final BlockingQueue<Object> m_queue = new ArrayBlockingQueue<Object>(QUEUE_CAPACITY);
+
+	/** Output */
+	private final Writer m_writer;
+
+	/** True if the output must be closed with the sink (false for stderr) */
+	private final boolean m_closeOutput;
+
+	/** Thread writing the events */
+	private final Thread m_thread;
+
+	/** Number of events dropped because the queue was full */
+	private final AtomicLong m_nbDropped = new AtomicLong();
+
+	/** Error met by the writer thread (null if none) */
+	private volatile IOException m_error;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Number of events dropped because the queue was full */
+	public long getNbDropped()
+	{
+		return m_nbDropped.get();
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param out Output stream of the events.
+	 * @param closeOutput True if the stream must be closed with the sink.
+	 */
+	public JsonLinesProgressSink(OutputStream out, boolean closeOutput)
+	{
+		m_writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		m_closeOutput = closeOutput;
+		m_thread = new Thread(this::writeLoop, "rcpsp-progress");
+		m_thread.setDaemon(true);
+		m_thread.start();
+	}
+
+	/**
+	 * @param fileName Name of the output file, or "-" for the error output.
+	 * @return A new sink.
+	 * @throws IOException Returns an error when the file cannot be created.
+	 */
+	public static JsonLinesProgressSink open(String fileName) throws IOException
+	{
+		if(fileName.equals("-"))
+		{
+			return new JsonLinesProgressSink(System.err, false);
+		}
+		return new JsonLinesProgressSink(new FileOutputStream(fileName), true);
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	@Override
+	public void onIncumbent(ProgressEvent event)
+	{
+		if(!m_queue.offer(event))
+		{
+			m_nbDropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Writes the pending events, stops the writer thread and closes the output.
+	 *
+	 * @throws IOException The error met when writing the events, if any.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			while(m_thread.isAlive() && !m_queue.offer(END, 100, TimeUnit.MILLISECONDS))
+			{
+				// The writer thread is busy: wait until there is room for END
+			}
+			m_thread.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		if(m_closeOutput)
+		{
+			m_writer.close();
+		}
+		if(m_nbDropped.get() > 0)
+		{
+			System.err.println("Warning: " + m_nbDropped.get() + " progress events were dropped");
+		}
+		if(m_error != null)
+		{
+			throw m_error;
+		}
+	}
+
+	/**
+	 * Body of the writer thread: writes the events in batches and flushes the
+	 * output when the queue is empty.
+	 */
+	private void writeLoop()
+	{
+		List<Object> batch = new ArrayList<Object>();
+		StringBuilder line = new StringBuilder();
+		try
+		{
+			while(true)
+			{
+				Object first = m_queue.poll(1, TimeUnit.SECONDS);
+				if(first == null)
+				{
+					continue;
+				}
+				batch.add(first);
+				m_queue.drainTo(batch);
+				for(Object o : batch)
+				{
+					if(o == END)
+					{
+						m_writer.flush();
+						return;
+					}
+					line.setLength(0);
+					format((ProgressEvent) o, line);
+					m_writer.write(line.toString());
+				}
+				batch.clear();
+				m_writer.flush();
+			}
+		}
+		catch (IOException e)
+		{
+			m_error = e;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Appends the JSON representation of an event (and a new line) to a buffer.
+	 *
+	 * @param event The event.
+	 * @param out The buffer.
+	 */
+	public static void format(ProgressEvent event, StringBuilder out)
+	{
+		out.append("{\"instance\":");
+		appendString(event.getFileName(), out);
+		out.append(",\"timestamp\":").append(event.getTimestamp());
+		out.append(",\"time\":").append(String.format(Locale.ROOT, "%.3f", event.getElapsedNanos() / 1e6));
+		out.append(",\"engine\":");
+		appendString(event.getEngine(), out);
+		out.append(",\"iteration\":").append(event.getIteration());
+		out.append(",\"makespan\":").append(event.getMakespan());
+		out.append(",\"lowerBound\":").append(event.getLowerBound());
+		out.append("}\n");
+	}
+
+	/**
+	 * Appends a JSON string to a buffer.
+	 */
+	static void appendString(String s, StringBuilder out)
+	{
+		if(s == null)
+		{
+			out.append("null");
+			return;
+		}
+		out.append('"');
+		for(int k = 0; k < s.length(); k++)
+		{
+			char c = s.charAt(k);
+			switch(c)
+			{
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			default:
+				if(c < 0x20)
+				{
+					out.append(String.format("\\u%04x", (int) c));
+				}
+				else
+				{
+					out.append(c);
+				}
+			}
+		}
+		out.append('"');
+	}
+
+}
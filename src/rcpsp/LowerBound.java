@@ -0,0 +1,395 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Arrays;
+
+/**
+ * Lower bounds on the makespan of an RCPSP instance.
+ *
+ * The constructor computes three cheap bounds:
+ *  - LB0: the critical path length, resources being ignored;
+ *  - LB1: the energy bound, for each resource the total work divided by its capacity;
+ *  - the disjunctive bound: the sum of the durations of a set of activities
+ *    that pairwise cannot be processed in parallel (a clique of the disjunction graph).
+ *
+ * A stronger destructive bound can be computed with {@link #improve(Deadline)} for a given amount of time.
+ * It tries to refute makespans T = LB, LB+1, ... using time windows and energetic reasoning.
+ *
+ * If the makespan of a solution equals {@link #getValue()}, the solution is optimal.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class LowerBound {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Maximum number of activities used as seeds of the greedy clique search */
+	private static final int MAX_CLIQUE_SEEDS = 64;
+
+	/** Data of the problem */
+	private final CompactInstance m_data;
+
+	/** Critical path bound (LB0) */
+	private int m_criticalPathBound;
+
+	/** Resource energy bound (LB1) */
+	private int m_energyBound;
+
+	/** Disjunctive (clique) bound */
+	private int m_disjunctiveBound;
+
+	/** Destructive bound, 0 until {@link #improve(Deadline)} is called */
+	private int m_destructiveBound;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return The critical path bound (LB0). */
+	public int getCriticalPathBound()
+	{
+		return m_criticalPathBound;
+	}
+
+	/** @return The resource energy bound (LB1). */
+	public int getEnergyBound()
+	{
+		return m_energyBound;
+	}
+
+	/** @return The disjunctive (clique) bound. */
+	public int getDisjunctiveBound()
+	{
+		return m_disjunctiveBound;
+	}
+
+	/** @return The destructive bound (0 if {@link #improve(Deadline)} has not been called). */
+	public int getDestructiveBound()
+	{
+		return m_destructiveBound;
+	}
+
+	/** @return The best lower bound known on the makespan. */
+	public int getValue()
+	{
+		return Math.max(Math.max(m_criticalPathBound, m_energyBound), Math.max(m_disjunctiveBound, m_destructiveBound));
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Computes the cheap bounds (LB0, LB1 and disjunctive bound) of the instance.
+	 * The bounds of a multi-mode instance are the bounds of its relaxation, see
+	 * {@link CompactInstance#relaxation(Instance)}.
+	 *
+	 * @param instance The instance of the problem.
+	 * @throws Exception Throw an exception if the instance data are not consistent.
+	 */
+	public LowerBound(Instance instance) throws Exception
+	{
+		this(instance.isMultiMode() ? CompactInstance.relaxation(instance) : new CompactInstance(instance));
+	}
+
+	/**
+	 * Computes the cheap bounds (LB0, LB1 and disjunctive bound) of the instance.
+	 *
+	 * @param data The data of the problem.
+	 */
+	public LowerBound(CompactInstance data)
+	{
+		m_data = data;
+		m_criticalPathBound = computeCriticalPathBound();
+		m_energyBound = computeEnergyBound();
+		m_disjunctiveBound = computeDisjunctiveBound();
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @return The length of the longest path of the precedence graph.
+	 */
+	private int computeCriticalPathBound()
+	{
+		int bound = 0;
+		for(int q : m_data.tails())
+		{
+			bound = Math.max(bound, q);
+		}
+		return bound;
+	}
+
+	/**
+	 * @return The maximum over the resources of ceil(total work / capacity).
+	 */
+	private int computeEnergyBound()
+	{
+		int bound = 0;
+		for(int i = 0; i < m_data.nbResources; i++)
+		{
+			long energy = 0;
+			for(int j = 0; j < m_data.nbActivities; j++)
+			{
+				energy += (long) m_data.duration[j] * m_data.demand[j][i];
+			}
+			int capacity = m_data.capacity[i];
+			if(capacity > 0)
+			{
+				bound = (int) Math.max(bound, (energy + capacity - 1) / capacity);
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * Two activities are disjunctive if they cannot be processed in parallel,
+	 * either because of a precedence constraint or because their cumulated
+	 * consumption exceeds the capacity of a resource.
+	 */
+	private boolean isDisjunctive(int a, int b)
+	{
+		Instance instance = m_data.getInstance();
+		try
+		{
+			if(instance.getPrecedence(a, b) || instance.getPrecedence(b, a))
+			{
+				return true;
+			}
+		}
+		catch (Exception e)
+		{
+			return false;
+		}
+		int[] demandA = m_data.demand[a];
+		int[] demandB = m_data.demand[b];
+		for(int i = 0; i < m_data.nbResources; i++)
+		{
+			if(demandA[i] + demandB[i] > m_data.capacity[i])
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Greedy search of heavy cliques in the disjunction graph. Activities are
+	 * considered by decreasing duration and a clique is grown from the longest
+	 * activities used as seeds.
+	 *
+	 * @return The largest sum of durations of a clique found.
+	 */
+	private int computeDisjunctiveBound()
+	{
+		int n = m_data.nbActivities;
+		Integer[] byDuration = new Integer[n];
+		for(int j = 0; j < n; j++)
+		{
+			byDuration[j] = j;
+		}
+		Arrays.sort(byDuration, (a, b) -> m_data.duration[b] - m_data.duration[a]);
+
+		int best = 0;
+		int[] clique = new int[n];
+		int nbSeeds = Math.min(n, MAX_CLIQUE_SEEDS);
+		for(int s = 0; s < nbSeeds; s++)
+		{
+			int seed = byDuration[s];
+			if(m_data.duration[seed] == 0)
+			{
+				break;
+			}
+			int size = 0;
+			int length = 0;
+			clique[size++] = seed;
+			length += m_data.duration[seed];
+			for(int k = 0; k < n; k++)
+			{
+				int candidate = byDuration[k];
+				if(candidate == seed || m_data.duration[candidate] == 0)
+				{
+					continue;
+				}
+				boolean compatible = true;
+				for(int c = 0; c < size && compatible; c++)
+				{
+					compatible = isDisjunctive(candidate, clique[c]);
+				}
+				if(compatible)
+				{
+					clique[size++] = candidate;
+					length += m_data.duration[candidate];
+				}
+			}
+			best = Math.max(best, length);
+		}
+		return best;
+	}
+
+	/**
+	 * Computes the destructive bound within the time given as parameter.
+	 *
+	 * For T = {@link #getValue()}, T+1, ... the method computes the time window
+	 * [ES, LF) of every activity for a deadline T and checks with energetic
+	 * reasoning that the work that must be done in each interval [ES_a, LF_b)
+	 * fits in the capacity of every resource. The first T that cannot be refuted
+	 * is a lower bound. The search stops when the time is up, and the last refuted T
+	 * plus one is kept.
+	 *
+	 * @param deadline Time at which the computation must stop.
+	 * @return The best lower bound known on the makespan.
+	 */
+	public int improve(Deadline deadline)
+	{
+		int[] es = m_data.earliestStartTimes();
+		int[] tails = m_data.tails();
+		int candidate = getValue();
+		while(!deadline.isExpired())
+		{
+			Boolean refuted = refute(candidate, es, tails, deadline);
+			if(refuted == null || !refuted)
+			{
+				break;
+			}
+			candidate++;
+			m_destructiveBound = candidate;
+		}
+		return getValue();
+	}
+
+	/**
+	 * Computes the destructive bound within the time given as parameter, see {@link #improve(Deadline)}.
+	 *
+	 * @param timeMillis Time allowed (in milliseconds) to improve the bound.
+	 * @return The best lower bound known on the makespan.
+	 */
+	public int improve(long timeMillis)
+	{
+		return improve(Deadline.ofMillis(timeMillis));
+	}
+
+	/**
+	 * Tries to prove that no schedule has a makespan lower than or equal to the given value.
+	 *
+	 * @return True if the makespan is refuted, false if it is not, null if the time is up.
+	 */
+	private Boolean refute(int makespan, int[] es, int[] tails, Deadline deadline)
+	{
+		int n = m_data.nbActivities;
+		int[] ls = new int[n];
+		for(int j = 0; j < n; j++)
+		{
+			ls[j] = makespan - tails[j];
+			if(ls[j] < es[j])
+			{
+				return true;
+			}
+		}
+
+		// Interval bounds: earliest starts and latest finishes
+		int[] lefts = distinct(es, null);
+		int[] rights = distinct(ls, m_data.duration);
+
+		for(int t1 : lefts)
+		{
+			if(deadline.isExpired())
+			{
+				return null;
+			}
+			for(int t2 : rights)
+			{
+				if(t2 <= t1)
+				{
+					continue;
+				}
+				if(isOverloaded(t1, t2, es, ls))
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Energetic reasoning on interval [t1, t2): sums, for every resource, the
+	 * minimal work that each activity must perform in the interval.
+	 */
+	private boolean isOverloaded(int t1, int t2, int[] es, int[] ls)
+	{
+		int length = t2 - t1;
+		for(int i = 0; i < m_data.nbResources; i++)
+		{
+			long available = (long) m_data.capacity[i] * length;
+			long required = 0;
+			for(int j = 0; j < m_data.nbActivities; j++)
+			{
+				int r = m_data.demand[j][i];
+				int p = m_data.duration[j];
+				if(r == 0 || p == 0)
+				{
+					continue;
+				}
+				int leftShift = es[j] + p - t1;
+				int rightShift = t2 - ls[j];
+				int work = Math.min(Math.min(length, p), Math.min(leftShift, rightShift));
+				if(work > 0)
+				{
+					required += (long) work * r;
+					if(required > available)
+					{
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The sorted distinct values of a[j] (+ b[j] if b is not null).
+	 */
+	private static int[] distinct(int[] a, int[] b)
+	{
+		int[] values = new int[a.length];
+		for(int j = 0; j < a.length; j++)
+		{
+			values[j] = a[j] + (b == null ? 0 : b[j]);
+		}
+		Arrays.sort(values);
+		int size = 0;
+		for(int k = 0; k < values.length; k++)
+		{
+			if(size == 0 || values[size - 1] != values[k])
+			{
+				values[size++] = values[k];
+			}
+		}
+		return Arrays.copyOf(values, size);
+	}
+
+}
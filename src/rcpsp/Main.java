@@ -19,9 +19,10 @@
 
 package rcpsp;
 
+import java.awt.GraphicsEnvironment;
+import java.io.File;
 import java.io.IOException;
-
-import plot.MainFrame;
+import java.lang.reflect.InvocationTargetException;
 
 /**
  * This class contains the Main function, that is the function that is launched
@@ -53,25 +54,54 @@ public class Main {
 	 * **Options**:
 	 *  - -help :prints this parameter description
 	 *  - -t (int) :maximum number of seconds given to the algorithm
+	 *  - -lb (int) :number of milliseconds given to the destructive lower bound (0 by default)
+	 *  - -progress (file) :writes each improving solution as a JSON line in the file ("-" for the error output)
+	 *  - -checkpoint (file) :saves the state of the search in the file every 60 seconds
+	 *  - -checkpointInterval (int) :number of seconds between two checkpoints
+	 *  - -resume (file) :resumes the search saved in a checkpoint file, with its seed (the time limit includes the time of the saved run; the engine and the number of threads must be those of the saved run)
+	 *  - -seed (long) :seed of the random numbers (0 by default)
+	 *  - -threads (int) :number of threads used by the algorithms (1 by default)
+	 *  - -deterministic :parallel algorithms give the same solutions for the same seed and number of threads (with -iterations, when the time limit is not reached)
+	 *  - -offHeap :stores the resource profiles of the solutions outside of the heap (see ProfileArena)
+	 *  - -iterations (long) :maximum number of iterations of the algorithms
+	 *  - -evalCache (int) :megabytes of the cache of the decoded activity lists (see EvaluationCache, no cache by default)
+	 *  - -engine (name) :algorithm run after the naive heuristic: sampling, biased, auto (chosen from the features of the instance) or naive (default: no algorithm)
+	 *  - -config (file) :engine and parameters of the engines, e.g. the file written by RacingTuner (see SolverConfiguration)
+	 *  - -selector (file) :table of the engines of the engine auto (see EngineSelector, built-in table by default)
+	 *  - -chart (file) :writes the resource profiles of the solution in a .png or .svg file, and its Gantt chart in file-gantt.png or .svg
+	 *  - -g :graphical visualization of the solution (ignored when java.awt.headless is set or no display is available)
+	 *  - -live :graphical visualization of the best solution during the search (see plot.LiveFrame)
 	 *  - -v :trace level (print the solution at the end if true) and the value of the constraints
 	 * 
 	 * **Program output**: 
-	 * fileName;objectiveValue;time;e
+	 * fileName;objectiveValue;time;e;lowerBound;gap
 	 * e is an error code:
 	 *  - e = 0 -> the solution is feasible and returned within the time limit
 	 *  - e = 1 -> unfeasible solution
 	 *  - e = 2 -> overtime.
+	 * The solver runs under a {@link Watchdog}: if it does not stop at the deadline,
+	 * it is interrupted and the best solution it reported is used.
+	 * lowerBound is the lower bound computed by {@link LowerBound} and gap is the
+	 * relative gap (in %) between the objective value and the lower bound.
+	 * 
+	 * The run itself is performed by {@link SolverRun}, also used by {@link BatchMain}.
+	 * With the system property rcpsp.metrics (java -Drcpsp.metrics=true rcpsp.Main ...),
+	 * the counters and timers of the solver are printed on the error output at the end
+	 * of the run, see {@link Metrics}.
 	 * 
 	 * @param arg program parameters.
 	 */
 	public static void main(String[] arg) {
 		String filename = null;
-		long timeLimit = 60;
+		SolverRun run = new SolverRun();
 		boolean verbose = false;
 		boolean graphical = false;
+		String chartFile = null;
+		boolean live = false;
 
 		// Parse command line
 		for (int i = 0; i < arg.length; i++) {
+			int last;
 			if (arg[i].compareTo("-help") == 0) {
 				System.err.println("The Resource-Constrained Project Scheduling Problem");
 				System.err.println("Program parameters:");
@@ -79,7 +109,9 @@ public class Main {
 				System.err.println("Options:");
 				System.err.println("\t-help\t: prints this parameter description");
 				System.err.println("\t-g\t\t: graphical vizualization");
-				System.err.println("\t-t\t\t: maximum number of seconds given to the algorithm (int)");
+				System.err.println("\t-live\t\t: graphical vizualization of the best solution during the search");
+				System.err.println("\t-chart\t\t: writes the charts of the solution in a .png or .svg file (no display needed)");
+				SolverRun.printOptions(System.err);
 				//System.err.println("\t-v\t\t: trace level,print the solution and the constraints");
 				return;				
 
@@ -88,14 +120,22 @@ public class Main {
 //				graphical = true;
 			} else if (arg[i].compareTo("-g") == 0) {
 				graphical = true;
-			} else if (arg[i].compareTo("-t") == 0) {
+			} else if (arg[i].compareTo("-live") == 0) {
+				live = true;
+			} else if (arg[i].compareTo("-chart") == 0 && i + 1 < arg.length) {
+				chartFile = arg[++i];
+			} else {
 				try {
-					timeLimit = Integer.parseInt(arg[++i]);
-				} catch (Exception e) {
-					System.out.println("Error: The time given for -t is not a valid integer value.");
+					last = run.parseArgument(arg, i);
+				} catch (IllegalArgumentException e) {
+					System.out.println(e.getMessage());
 					System.exit(1);
+					return;
+				}
+				if (last >= 0) {
+					i = last;
+					continue;
 				}
-			} else {
 				if (filename != null) {
 					System.err.println("Error: There is a problem in the program parameters.");
 					System.err.println("Value " + arg[i] + " is not a valid parameter.");
@@ -113,50 +153,46 @@ public class Main {
 		// Create and solve problem
 		try
 		{
-			RCPSPSolver rcpsp = new RCPSPSolver();
-			
-			Instance problem = new Instance(filename);
-			rcpsp.setInstance(problem);
-			rcpsp.setSolution(new Solution(problem));
-
-			// Solve the problem
-			long t = System.currentTimeMillis();
-			rcpsp.solve(timeLimit);
-			t = System.currentTimeMillis() - t;
-
-			// Evaluate the solution (and check whether it is feasible)
-			boolean feasible = rcpsp.getSolution().validate();
-			int objectiveValue = rcpsp.getSolution().getObjectiveValue();
-
-			int e = 0;
-			if (!feasible)
-			{
-				e = 1;
-			}
-			else
-			{
-				if(t > (timeLimit + 1) * 1000)
-				{
-					e = 2;
-					System.err.println("Error: Time limit exeeced !!!");
+			RunResult result;
+			if (live && !GraphicsEnvironment.isHeadless()) {
+				// The window receives the best solutions, and shows the last one at the end
+				Instance problem = new Instance(filename);
+				run.addProgressListener(openLiveView(problem));
+				result = run.run(problem);
+			} else {
+				if (live) {
+					System.err.println("Warning: no display is available (java.awt.headless), the option -live is ignored.");
 				}
+				result = run.run(filename);
+			}
+			System.out.println(result);
+			if (Metrics.ENABLED) {
+				Metrics.dump(System.err);
 			}
-			System.out.println(filename + ";"+ objectiveValue + ";" + t + ";" + e);
 
 			// If verbose, print the error
 			if(verbose)
 			{
-				rcpsp.getSolution().print(System.err);
-				if(e == 1)
+				result.getSolution().print(System.err);
+				if(result.getErrorCode() == RunResult.UNFEASIBLE)
 				{
-					System.err.println("Error: There is an error in the solution: "+ rcpsp.getSolution().getError());
+					System.err.println("Error: There is an error in the solution: "+ result.getSolution().getError());
 				}
 			}
 
+			if(chartFile != null)
+			{
+				exportChart(result.getSolution(), new File(chartFile));
+			}
+
 			// If graphical visualization, print the value of the constraints
 			if(graphical)
 			{
-				new MainFrame(rcpsp.getInstance(), rcpsp.getSolution());
+				if (GraphicsEnvironment.isHeadless()) {
+					System.err.println("Warning: no display is available (java.awt.headless), the option -g is ignored.");
+				} else {
+					showSolution(result.getSolution());
+				}
 			}
 
 		} catch (IOException e) {
@@ -171,4 +207,62 @@ public class Main {
 		return;
 
 	}
+
+	/**
+	 * Opens the window of the package plot showing a solution. The graphical
+	 * classes (plot, Swing and AWT) are loaded only here, so that the runs
+	 * without -g do not need them (nor lib/plot.jar) and start faster.
+	 *
+	 * @param solution The solution.
+	 * @throws Exception If the window cannot be created.
+	 */
+	private static void showSolution(Solution solution) throws Exception {
+		try {
+			Class<?> frame = Class.forName("plot.MainFrame");
+			frame.getConstructor(Instance.class, Solution.class).newInstance(solution.getInstance(), solution);
+		} catch (ClassNotFoundException e) {
+			throw new Exception("Error: the graphical visualization needs lib/plot.jar in the class path.");
+		} catch (InvocationTargetException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		}
+	}
+
+	/**
+	 * Opens the window of the package plot showing the best solution during the
+	 * search, loaded like the window of {@link #showSolution(Solution)}.
+	 *
+	 * @param problem The instance solved.
+	 * @return The window, to register on the solver.
+	 * @throws Exception If the window cannot be created.
+	 */
+	private static ProgressListener openLiveView(Instance problem) throws Exception {
+		try {
+			Class<?> frame = Class.forName("plot.LiveFrame");
+			return (ProgressListener) frame.getConstructor(Instance.class).newInstance(problem);
+		} catch (ClassNotFoundException e) {
+			throw new Exception("Error: the graphical visualization needs lib/plot.jar in the class path.");
+		} catch (InvocationTargetException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		}
+	}
+
+	/**
+	 * Writes the charts of a solution with the class plot.ChartExporter, loaded
+	 * only here like the window of {@link #showSolution(Solution)}. It does not
+	 * need a display.
+	 *
+	 * @param solution The solution.
+	 * @param file File of the resource profiles (.png or .svg), the Gantt chart is written next to it.
+	 * @throws Exception If the charts cannot be written.
+	 */
+	static void exportChart(Solution solution, File file) throws Exception {
+		try {
+			Class<?> exporter = Class.forName("plot.ChartExporter");
+			exporter.getMethod("export", Solution.class, File.class).invoke(null, solution, file);
+		} catch (ClassNotFoundException e) {
+			throw new Exception("Error: the charts need lib/plot.jar in the class path.");
+		} catch (InvocationTargetException e) {
+			throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		}
+	}
 }
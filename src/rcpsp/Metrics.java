@@ -0,0 +1,299 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the counters and timers of the solver.
+ *
+ * Metrics are enabled with the system property rcpsp.metrics
+ * (java -Drcpsp.metrics=true rcpsp.Main ...). The flag is a static final
+ * constant: when metrics are disabled, the JIT compiler removes the calls to
+ * {@link Counter#increment()} and {@link Timer#start()} from the compiled code,
+ * so the instrumented methods run at full speed.
+ *
+ * Counters are {@link LongAdder}s, striped between threads, so the workers of
+ * a parallel engine do not contend on the same memory. Instrumented classes
+ * keep their counters in static final fields:
+ *
+ *     private static final Metrics.Counter ADDS = Metrics.counter("solution.add");
+ *     ...
+ *     ADDS.increment();
+ *
+ * The phases of a run (lower bound, heuristics, engines, validation) are
+ * measured with {@link #phase(String, String)}, which also records a JFR
+ * {@link PhaseEvent}; the improvements of the best solution are recorded as
+ * JFR {@link IncumbentEvent}s. JFR events cost almost nothing when no flight
+ * recording is running (java -XX:StartFlightRecording ...).
+ *
+ * {@link #dump(PrintStream)} prints every metric with its rate per second since
+ * the start of the program (or the last {@link #reset()}).
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class Metrics {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** True if the metrics are recorded (system property rcpsp.metrics) */
+	public static final boolean ENABLED = Boolean.getBoolean("rcpsp.metrics");
+
+	/** Counters by name */
+	private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<String, Counter>();
+
+	/** Timers by name */
+	private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<String, Timer>();
+
+	/** Time (nanoTime) at which the metrics started */
+	private static volatile long s_start = System.nanoTime();
+
+	/**
+	 * A counter of events.
+	 */
+	public static final class Counter
+	{
+		private final LongAdder m_count = new LongAdder();
+
+		/** Counts one event */
+		public void increment()
+		{
+			if(ENABLED)
+			{
+				m_count.increment();
+			}
+		}
+
+		/** @param n Number of events to count */
+		public void add(long n)
+		{
+			if(ENABLED)
+			{
+				m_count.add(n);
+			}
+		}
+
+		/** @return The number of events counted */
+		public long get()
+		{
+			return m_count.sum();
+		}
+	}
+
+	/**
+	 * A timer: number of measures, total and largest time.
+	 */
+	public static final class Timer
+	{
+		private final LongAdder m_count = new LongAdder();
+		private final LongAdder m_totalNanos = new LongAdder();
+		private final LongAccumulator m_maxNanos = new LongAccumulator(Math::max, 0);
+
+		/** @return The start time of a measure, to give to {@link #stop(long)} (0 if metrics are disabled) */
+		public long start()
+		{
+			return ENABLED ? System.nanoTime() : 0;
+		}
+
+		/** @param start Value returned by {@link #start()} */
+		public void stop(long start)
+		{
+			if(ENABLED)
+			{
+				record(System.nanoTime() - start);
+			}
+		}
+
+		/** @param nanos Duration of a measure (in nanoseconds) */
+		public void record(long nanos)
+		{
+			if(ENABLED)
+			{
+				m_count.increment();
+				m_totalNanos.add(nanos);
+				m_maxNanos.accumulate(nanos);
+			}
+		}
+
+		/** @return The number of measures */
+		public long getCount()
+		{
+			return m_count.sum();
+		}
+
+		/** @return The total time of the measures (in nanoseconds) */
+		public long getTotalNanos()
+		{
+			return m_totalNanos.sum();
+		}
+
+		/** @return The largest measure (in nanoseconds) */
+		public long getMaxNanos()
+		{
+			return m_maxNanos.get();
+		}
+	}
+
+	/**
+	 * A phase of a run, measured by the timer "phase.name" and recorded as a JFR
+	 * {@link PhaseEvent}. Close it in a finally block.
+	 */
+	public static final class Phase implements AutoCloseable
+	{
+		private final Timer m_timer;
+		private final PhaseEvent m_event;
+		private final long m_start;
+
+		private Phase(String name, String instance)
+		{
+			m_timer = timer("phase." + name);
+			m_event = new PhaseEvent();
+			m_event.phase = name;
+			m_event.instance = instance;
+			m_event.begin();
+			m_start = m_timer.start();
+		}
+
+		@Override
+		public void close()
+		{
+			m_timer.stop(m_start);
+			m_event.end();
+			if(m_event.shouldCommit())
+			{
+				m_event.commit();
+			}
+		}
+	}
+
+	private Metrics()
+	{
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @param name Name of the counter.
+	 * @return The counter of this name (created if needed).
+	 */
+	public static Counter counter(String name)
+	{
+		return COUNTERS.computeIfAbsent(name, k -> new Counter());
+	}
+
+	/**
+	 * @param name Name of the timer.
+	 * @return The timer of this name (created if needed).
+	 */
+	public static Timer timer(String name)
+	{
+		return TIMERS.computeIfAbsent(name, k -> new Timer());
+	}
+
+	/**
+	 * Starts a phase of a run.
+	 *
+	 * @param name Name of the phase.
+	 * @param instance Name of the instance file.
+	 * @return The phase, to close at the end of the phase.
+	 */
+	public static Phase phase(String name, String instance)
+	{
+		return new Phase(name, instance);
+	}
+
+	/**
+	 * Records an improvement of the best solution as a JFR {@link IncumbentEvent}.
+	 *
+	 * @param instance Name of the instance file.
+	 * @param engine Name of the algorithm that found the solution.
+	 * @param makespan Makespan of the solution.
+	 * @param lowerBound Lower bound on the makespan.
+	 * @param iteration Iteration of the algorithm.
+	 */
+	public static void incumbent(String instance, String engine, int makespan, int lowerBound, long iteration)
+	{
+		IncumbentEvent event = new IncumbentEvent();
+		if(event.isEnabled())
+		{
+			event.instance = instance;
+			event.engine = engine;
+			event.makespan = makespan;
+			event.lowerBound = lowerBound;
+			event.iteration = iteration;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Sets all the metrics to 0 and restarts the time of the rates. The counters
+	 * and timers stay registered: the instrumented classes keep their references.
+	 */
+	public static void reset()
+	{
+		for(Counter counter : COUNTERS.values())
+		{
+			counter.m_count.reset();
+		}
+		for(Timer timer : TIMERS.values())
+		{
+			timer.m_count.reset();
+			timer.m_totalNanos.reset();
+			timer.m_maxNanos.reset();
+		}
+		s_start = System.nanoTime();
+	}
+
+	/**
+	 * Prints the metrics, sorted by name. Counters are printed with their rate
+	 * per second, timers with their number of measures, total, mean and largest time.
+	 *
+	 * @param out Output.
+	 */
+	public static void dump(PrintStream out)
+	{
+		double seconds = Math.max(1e-9, (System.nanoTime() - s_start) / 1e9);
+		out.printf(Locale.ROOT, "-- Metrics (%.3f s) --%n", seconds);
+		for(Map.Entry<String, Counter> entry : new TreeMap<String, Counter>(COUNTERS).entrySet())
+		{
+			long count = entry.getValue().get();
+			out.printf(Locale.ROOT, "%-28s %14d %14.1f/s%n", entry.getKey(), count, count / seconds);
+		}
+		for(Map.Entry<String, Timer> entry : new TreeMap<String, Timer>(TIMERS).entrySet())
+		{
+			Timer timer = entry.getValue();
+			long count = timer.getCount();
+			out.printf(Locale.ROOT, "%-28s %14d calls, total %10.3f ms, mean %10.3f us, max %10.3f ms%n", entry.getKey(), count,
+					timer.getTotalNanos() / 1e6, (count == 0) ? 0.0 : timer.getTotalNanos() / 1e3 / count, timer.getMaxNanos() / 1e6);
+		}
+	}
+
+}
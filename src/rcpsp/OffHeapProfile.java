@@ -0,0 +1,339 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Resource profile stored outside of the heap, in direct buffers allocated by
+ * a {@link ProfileArena}: a profile of millions of time units does not load
+ * the garbage collector and can be larger than the heap.
+ *
+ * The values are stored time-major like in {@link HeapProfile}, in chunks of
+ * 2^k time units (a direct buffer holds less than 2 GB), so the horizon is
+ * only limited by the memory of the machine. The operations use scalar
+ * loops; {@link #copyFrom(ResourceProfile)} copies the used part of each
+ * chunk with a bulk copy between buffers.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+final class OffHeapProfile extends ResourceProfile {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Largest number of values in a chunk (1 GB) */
+	private static final int MAX_CHUNK_VALUES = 1 << 28;
+
+	/** Arena that allocated the buffers */
+	private final ProfileArena m_arena;
+
+	/** A chunk holds 2^m_shift time units */
+	private final int m_shift;
+
+	/** Mask giving the time in its chunk */
+	private final int m_mask;
+
+	/** Buffers of the chunks, null once freed */
+	private ByteBuffer[] m_buffers;
+
+	/** m_chunks[t >>> m_shift] holds the consumption of resource i at time t at index (t & m_mask) * m_nbResources + i */
+	private IntBuffer[] m_chunks;
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param arena Arena that allocates the buffers.
+	 * @param nbResources Number of resources.
+	 * @param horizon Number of time units.
+	 */
+	OffHeapProfile(ProfileArena arena, int nbResources, int horizon)
+	{
+		super(nbResources, 0);
+		m_arena = arena;
+		m_shift = 31 - Integer.numberOfLeadingZeros(MAX_CHUNK_VALUES / Math.max(1, nbResources));
+		m_mask = (1 << m_shift) - 1;
+		m_buffers = new ByteBuffer[0];
+		m_chunks = new IntBuffer[0];
+		grow(horizon);
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @return The chunks of the profile.
+	 * @throws IllegalStateException If the profile was freed.
+	 */
+	private IntBuffer[] chunks()
+	{
+		IntBuffer[] chunks = m_chunks;
+		if(chunks == null)
+		{
+			throw new IllegalStateException("Error: the profile was freed by its arena.");
+		}
+		return chunks;
+	}
+
+	/**
+	 * @return The end (excluded) of the chunk of time t, or to if it is before.
+	 */
+	private int chunkEnd(int t, int to)
+	{
+		return (int) Math.min(to, ((long) (t >>> m_shift) + 1) << m_shift);
+	}
+
+	/**
+	 * @return The number of bytes of the buffers.
+	 */
+	long getBytes()
+	{
+		long bytes = 0;
+		ByteBuffer[] buffers = m_buffers;
+		if(buffers != null)
+		{
+			for(ByteBuffer buffer : buffers)
+			{
+				bytes += buffer.capacity();
+			}
+		}
+		return bytes;
+	}
+
+	@Override
+	int get(int i, int t)
+	{
+		return chunks()[t >>> m_shift].get((t & m_mask) * m_nbResources + i);
+	}
+
+	@Override
+	void set(int i, int t, int value)
+	{
+		chunks()[t >>> m_shift].put((t & m_mask) * m_nbResources + i, value);
+		if(value != 0 && t >= m_end)
+		{
+			m_end = t + 1;
+		}
+	}
+
+	@Override
+	void add(int[] demand, int from, int to)
+	{
+		update(demand, from, to, 1);
+		if(to > m_end && from < to)
+		{
+			m_end = to;
+		}
+	}
+
+	@Override
+	void subtract(int[] demand, int from, int to)
+	{
+		update(demand, from, to, -1);
+		if(to > m_end && from < to)
+		{
+			m_end = to;
+		}
+	}
+
+	/**
+	 * Adds sign * demand from time from to time to (excluded).
+	 */
+	private void update(int[] demand, int from, int to, int sign)
+	{
+		IntBuffer[] chunks = chunks();
+		int nbResources = m_nbResources;
+		int t = from;
+		while(t < to)
+		{
+			IntBuffer chunk = chunks[t >>> m_shift];
+			int last = chunkEnd(t, to);
+			int index = (t & m_mask) * nbResources;
+			for(; t < last; t++)
+			{
+				for(int i = 0; i < nbResources; i++, index++)
+				{
+					chunk.put(index, chunk.get(index) + sign * demand[i]);
+				}
+			}
+		}
+	}
+
+	@Override
+	int firstConflict(int[] demand, int[] capacity, int from, int to)
+	{
+		IntBuffer[] chunks = chunks();
+		int nbResources = m_nbResources;
+		int t = from;
+		while(t < to)
+		{
+			IntBuffer chunk = chunks[t >>> m_shift];
+			int last = chunkEnd(t, to);
+			int index = (t & m_mask) * nbResources;
+			for(; t < last; t++)
+			{
+				for(int i = 0; i < nbResources; i++, index++)
+				{
+					if(chunk.get(index) + demand[i] > capacity[i])
+					{
+						return t;
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	int firstExcess(int[] capacity, int from, int to)
+	{
+		IntBuffer[] chunks = chunks();
+		int nbResources = m_nbResources;
+		int t = from;
+		while(t < to)
+		{
+			IntBuffer chunk = chunks[t >>> m_shift];
+			int last = chunkEnd(t, to);
+			int index = (t & m_mask) * nbResources;
+			for(; t < last; t++)
+			{
+				for(int i = 0; i < nbResources; i++, index++)
+				{
+					if(chunk.get(index) > capacity[i])
+					{
+						return t;
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	void clear()
+	{
+		fillZero(0, m_end);
+		m_end = 0;
+	}
+
+	/**
+	 * Sets every value from time from to time to (excluded) to 0.
+	 */
+	private void fillZero(int from, int to)
+	{
+		IntBuffer[] chunks = chunks();
+		int t = from;
+		while(t < to)
+		{
+			IntBuffer chunk = chunks[t >>> m_shift];
+			int last = chunkEnd(t, to);
+			for(int index = (t & m_mask) * m_nbResources, end = ((last - 1) & m_mask) * m_nbResources + m_nbResources; index < end; index++)
+			{
+				chunk.put(index, 0);
+			}
+			t = last;
+		}
+	}
+
+	@Override
+	void grow(int horizon)
+	{
+		IntBuffer[] chunks = chunks();
+		if(horizon <= m_horizon)
+		{
+			return;
+		}
+		int nbChunks = (int) ((horizon + (long) m_mask) >>> m_shift);
+		ByteBuffer[] buffers = Arrays.copyOf(m_buffers, nbChunks);
+		chunks = Arrays.copyOf(chunks, nbChunks);
+		for(int c = Math.max(0, m_buffers.length - 1); c < nbChunks; c++)
+		{
+			long first = (long) c << m_shift;
+			long times = Math.min(horizon - first, 1L << m_shift);
+			if(c < m_buffers.length && buffers[c].capacity() == times * m_nbResources * Integer.BYTES)
+			{
+				continue;
+			}
+			ByteBuffer buffer = m_arena.allocateBuffer(times * m_nbResources * Integer.BYTES);
+			IntBuffer chunk = buffer.asIntBuffer();
+			if(c < m_buffers.length)
+			{
+				// The last chunk grows: copy its values and free the old buffer
+				chunk.put(0, chunks[c], 0, chunks[c].capacity());
+				m_arena.freeBuffer(buffers[c]);
+			}
+			buffers[c] = buffer;
+			chunks[c] = chunk;
+		}
+		m_buffers = buffers;
+		m_chunks = chunks;
+		m_horizon = horizon;
+	}
+
+	@Override
+	void copyFrom(ResourceProfile profile)
+	{
+		if(!(profile instanceof OffHeapProfile))
+		{
+			copyValues(profile);
+			return;
+		}
+		OffHeapProfile offHeap = (OffHeapProfile) profile;
+		IntBuffer[] source = offHeap.chunks();
+		grow(offHeap.m_horizon);
+		IntBuffer[] chunks = chunks();
+		int end = offHeap.m_end;
+		int t = 0;
+		while(t < end)
+		{
+			int last = chunkEnd(t, end);
+			chunks[t >>> m_shift].put(0, source[t >>> m_shift], 0, (last - t) * m_nbResources);
+			t = last;
+		}
+		if(m_end > end)
+		{
+			fillZero(end, m_end);
+		}
+		m_end = end;
+	}
+
+	@Override
+	void free()
+	{
+		ByteBuffer[] buffers = m_buffers;
+		m_buffers = null;
+		m_chunks = null;
+		if(buffers != null)
+		{
+			for(ByteBuffer buffer : buffers)
+			{
+				m_arena.freeBuffer(buffer);
+			}
+		}
+	}
+
+}
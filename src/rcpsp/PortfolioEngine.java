@@ -0,0 +1,98 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Arrays;
+
+/**
+ * The engine "auto": chooses the engines run on an instance, and the part of
+ * the time limit given to each of them, from the features of the instance.
+ *
+ * The {@link InstanceFeatures} of the instance are computed once and the
+ * {@link EngineSelector} of the solver (or the default table) gives the plan:
+ * the run is limited to the budget of the plan (a part of the remaining time,
+ * so that the easy instances do not use the whole time limit) and the engines
+ * of the plan are run one after the other in slices of this budget, in
+ * proportion to their shares. The time left by an engine that stops early is
+ * given to the next ones, and the run stops as soon as the incumbent is optimal.
+ * The features and the plan are printed on the error output.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class PortfolioEngine implements Engine {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Name of the engine */
+	public static final String NAME = "auto";
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	public void run(RCPSPSolver solver) throws Exception
+	{
+		InstanceFeatures features = new InstanceFeatures(solver.getCompactInstance());
+		EngineSelector selector = (solver.getEngineSelector() != null) ? solver.getEngineSelector() : new EngineSelector();
+		EngineSelector.Plan plan = selector.select(features);
+		System.err.println("Features: " + features);
+		System.err.println("Engines: " + plan);
+
+		Deadline deadline = solver.getDeadline();
+		Deadline budget = (plan.getBudget() < 1) ? deadline.slice((long) (plan.getBudget() * deadline.remainingNanos())) : deadline;
+		String[] engines = plan.getEngines();
+		double[] shares = plan.getShares();
+		double remainingShare = Arrays.stream(shares).sum();
+		for(int k = 0; k < engines.length; k++)
+		{
+			if(budget.isExpired() || Thread.currentThread().isInterrupted() || isOptimal(solver))
+			{
+				break;
+			}
+			Engine engine = RCPSPSolver.createEngine(engines[k]);
+			Deadline slice = (k == engines.length - 1) ? budget : budget.slice((long) (budget.remainingNanos() * shares[k] / remainingShare));
+			remainingShare -= shares[k];
+			if(engine != null)
+			{
+				solver.runEngine(engine, slice);
+			}
+		}
+	}
+
+	/**
+	 * @return true if the best solution of the solver is optimal
+	 */
+	private static boolean isOptimal(RCPSPSolver solver)
+	{
+		Solution best = solver.getBestSolution();
+		return best != null && solver.isOptimal(best.getObjectiveValue());
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Owner of the resource profiles stored outside of the heap: the solutions
+ * created with {@link Solution#Solution(Instance, ProfileArena)} (and their
+ * clones) keep their profile in direct buffers allocated by the arena. For
+ * instances with millions of time units, these profiles do not fill the heap
+ * and do not lengthen the pauses of the garbage collector.
+ *
+ * The arena has an explicit lifetime: {@link #close()} frees the memory of
+ * all the profiles it allocated at once, and the solutions of the arena must
+ * not be used anymore (their operations throw an IllegalStateException).
+ * close() must not be called while another thread uses a solution of the
+ * arena. A profile that is no longer referenced before the arena is closed
+ * is freed by the garbage collector, like any direct buffer. The direct
+ * memory is limited by the option -XX:MaxDirectMemorySize of the JVM.
+ *
+ * An arena can be used by several threads at the same time.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class ProfileArena implements AutoCloseable {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** sun.misc.Unsafe, to free a direct buffer without waiting for the garbage collector (null if not available) */
+	private static final Object UNSAFE = unsafe();
+
+	/** Method Unsafe.invokeCleaner(ByteBuffer) (null if not available) */
+	private static final Method INVOKE_CLEANER = invokeCleaner();
+
+	/** Profiles allocated by the arena and not freed (weak keys: the profiles no longer referenced are removed) */
+	private final Map<OffHeapProfile, Boolean> m_profiles = new WeakHashMap<OffHeapProfile, Boolean>();
+
+	/** True once the arena is closed */
+	private boolean m_closed = false;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return True once the arena is closed */
+	public synchronized boolean isClosed()
+	{
+		return m_closed;
+	}
+
+	/** @return Number of profiles of the arena that are still referenced */
+	public synchronized int getNbProfiles()
+	{
+		return m_profiles.size();
+	}
+
+	/** @return Number of bytes of the profiles of the arena that are still referenced */
+	public synchronized long getAllocatedBytes()
+	{
+		long bytes = 0;
+		for(OffHeapProfile profile : m_profiles.keySet())
+		{
+			bytes += profile.getBytes();
+		}
+		return bytes;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	private static Object unsafe()
+	{
+		try
+		{
+			Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			return field.get(null);
+		}
+		catch(ReflectiveOperationException | RuntimeException e)
+		{
+			return null;
+		}
+	}
+
+	private static Method invokeCleaner()
+	{
+		if(UNSAFE == null)
+		{
+			return null;
+		}
+		try
+		{
+			return UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+		}
+		catch(ReflectiveOperationException | RuntimeException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a profile filled with 0.
+	 *
+	 * @param nbResources Number of resources.
+	 * @param horizon Number of time units.
+	 * @return The new profile.
+	 * @throws IllegalStateException If the arena is closed.
+	 */
+	synchronized ResourceProfile allocate(int nbResources, int horizon)
+	{
+		OffHeapProfile profile = new OffHeapProfile(this, nbResources, horizon);
+		m_profiles.put(profile, Boolean.TRUE);
+		return profile;
+	}
+
+	/**
+	 * @param bytes Size of the buffer, at most Integer.MAX_VALUE.
+	 * @return A new direct buffer filled with 0, in the native byte order.
+	 * @throws IllegalStateException If the arena is closed.
+	 */
+	synchronized ByteBuffer allocateBuffer(long bytes)
+	{
+		if(m_closed)
+		{
+			throw new IllegalStateException("Error: the profile arena is closed.");
+		}
+		return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Frees the memory of a buffer allocated by {@link #allocateBuffer(long)} now,
+	 * if the JVM allows it, or when the buffer is garbage collected otherwise.
+	 *
+	 * @param buffer The buffer, that must not be used anymore.
+	 */
+	void freeBuffer(ByteBuffer buffer)
+	{
+		if(INVOKE_CLEANER != null)
+		{
+			try
+			{
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			}
+			catch(ReflectiveOperationException | RuntimeException e)
+			{
+				// Freed by the garbage collector
+			}
+		}
+	}
+
+	/**
+	 * Frees the profiles of the arena. The solutions of the arena must not be used anymore.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		if(m_closed)
+		{
+			return;
+		}
+		m_closed = true;
+		for(OffHeapProfile profile : m_profiles.keySet())
+		{
+			profile.free();
+		}
+		m_profiles.clear();
+	}
+
+}
@@ -0,0 +1,252 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Operations on a resource profile stored time-major in a flat array: the
+ * consumption of resource i at time t is profile[t * nbResources + i].
+ *
+ * The operations on an interval [from, to) of time read a contiguous part of
+ * the array, nbResources values per time unit, which is compared with (or
+ * added to) the demand of an activity repeated every nbResources values. This
+ * is a data-parallel loop: {@link #create(int)} returns an implementation with
+ * the Vector API (class rcpsp.simd.VectorProfileKernel) when the module
+ * jdk.incubator.vector is present (java --add-modules jdk.incubator.vector)
+ * and there are at least {@link #MIN_VECTOR_RESOURCES} resources, and this
+ * scalar implementation otherwise. The system property rcpsp.simd=false forces
+ * the scalar implementation.
+ *
+ * A kernel may keep buffers: use one kernel per thread.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class ProfileKernel {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Constructor of the vector implementation, null if it is not available */
+	private static final Constructor<?> VECTOR = vectorConstructor();
+
+	/**
+	 * Smallest number of resources for which {@link #create(int)} returns the vector
+	 * implementation: with fewer resources, the intervals checked by the schedule
+	 * generation scheme are often shorter than a vector and the scalar loop is faster.
+	 */
+	public static final int MIN_VECTOR_RESOURCES = 8;
+
+	/** Number of resources */
+	protected final int m_nbResources;
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Creates the scalar implementation.
+	 *
+	 * @param nbResources Number of resources.
+	 */
+	public ProfileKernel(int nbResources)
+	{
+		m_nbResources = nbResources;
+	}
+
+	/**
+	 * @param nbResources Number of resources.
+	 * @return A new kernel, with the Vector API if it is available and if there are enough resources.
+	 */
+	public static ProfileKernel create(int nbResources)
+	{
+		ProfileKernel kernel = (nbResources >= MIN_VECTOR_RESOURCES) ? vector(nbResources) : null;
+		return (kernel != null) ? kernel : new ProfileKernel(nbResources);
+	}
+
+	/**
+	 * @param nbResources Number of resources.
+	 * @return A new kernel with the Vector API, or null if it is not available.
+	 */
+	public static ProfileKernel vector(int nbResources)
+	{
+		if(VECTOR != null)
+		{
+			try
+			{
+				return (ProfileKernel) VECTOR.newInstance(nbResources);
+			}
+			catch(ReflectiveOperationException e)
+			{
+				// Not available
+			}
+		}
+		return null;
+	}
+
+	private static Constructor<?> vectorConstructor()
+	{
+		if(!Boolean.parseBoolean(System.getProperty("rcpsp.simd", "true")) || !ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+		{
+			return null;
+		}
+		try
+		{
+			return Class.forName("rcpsp.simd.VectorProfileKernel").getConstructor(int.class);
+		}
+		catch(ReflectiveOperationException | LinkageError e)
+		{
+			return null;
+		}
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @return The name of the implementation.
+	 */
+	public String getName()
+	{
+		return "scalar";
+	}
+
+	/**
+	 * Fit check: finds the first time of [from, to) at which an activity does not fit.
+	 *
+	 * @param profile The profile.
+	 * @param demand demand[i] is the consumption of resource i by the activity.
+	 * @param capacity capacity[i] is the capacity of resource i.
+	 * @param from First time.
+	 * @param to Last time (excluded).
+	 * @return The first time t such that profile + demand exceeds the capacity of a resource at t, or -1 if the activity fits.
+	 */
+	public int firstConflict(int[] profile, int[] demand, int[] capacity, int from, int to)
+	{
+		int nbResources = m_nbResources;
+		for(int t = from; t < to; t++)
+		{
+			int base = t * nbResources;
+			for(int i = 0; i < nbResources; i++)
+			{
+				if(profile[base + i] + demand[i] > capacity[i])
+				{
+					return t;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the earliest time at which an activity fits: the serial schedule
+	 * generation scheme jumps after the first conflicting time until the
+	 * activity fits, see {@link #firstConflict(int[], int[], int[], int, int)}.
+	 *
+	 * @param profile The profile, long enough to hold the activity after the returned time.
+	 * @param demand demand[i] is the consumption of resource i by the activity.
+	 * @param capacity capacity[i] is the capacity of resource i.
+	 * @param from Earliest begin time.
+	 * @param duration Duration of the activity.
+	 * @return The earliest time t, not before time from, such that the activity fits from t to t + duration.
+	 */
+	public int earliestFit(int[] profile, int[] demand, int[] capacity, int from, int duration)
+	{
+		int time = from;
+		int conflict;
+		while((conflict = firstConflict(profile, demand, capacity, time, time + duration)) >= 0)
+		{
+			time = conflict + 1;
+		}
+		return time;
+	}
+
+	/**
+	 * Adds the demand of an activity to the profile from time from to time to (excluded).
+	 *
+	 * @param profile The profile.
+	 * @param demand demand[i] is the consumption of resource i by the activity.
+	 * @param from First time.
+	 * @param to Last time (excluded).
+	 */
+	public void add(int[] profile, int[] demand, int from, int to)
+	{
+		int nbResources = m_nbResources;
+		for(int t = from; t < to; t++)
+		{
+			int base = t * nbResources;
+			for(int i = 0; i < nbResources; i++)
+			{
+				profile[base + i] += demand[i];
+			}
+		}
+	}
+
+	/**
+	 * Removes the demand of an activity from the profile from time from to time to (excluded).
+	 *
+	 * @param profile The profile.
+	 * @param demand demand[i] is the consumption of resource i by the activity.
+	 * @param from First time.
+	 * @param to Last time (excluded).
+	 */
+	public void subtract(int[] profile, int[] demand, int from, int to)
+	{
+		int nbResources = m_nbResources;
+		for(int t = from; t < to; t++)
+		{
+			int base = t * nbResources;
+			for(int i = 0; i < nbResources; i++)
+			{
+				profile[base + i] -= demand[i];
+			}
+		}
+	}
+
+	/**
+	 * Capacity sweep: finds the first time of [from, to) at which a resource exceeds its capacity.
+	 *
+	 * @param profile The profile.
+	 * @param capacity capacity[i] is the capacity of resource i.
+	 * @param from First time.
+	 * @param to Last time (excluded).
+	 * @return The first time t such that the profile exceeds the capacity of a resource at t, or -1 if none.
+	 */
+	public int firstExcess(int[] profile, int[] capacity, int from, int to)
+	{
+		int nbResources = m_nbResources;
+		for(int t = from; t < to; t++)
+		{
+			int base = t * nbResources;
+			for(int i = 0; i < nbResources; i++)
+			{
+				if(profile[base + i] > capacity[i])
+				{
+					return t;
+				}
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+/**
+ * Immutable description of an improving solution, sent to the {@link ProgressListener}s.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class ProgressEvent {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Name of the instance file */
+	private final String m_fileName;
+
+	/** Wall clock time of the event (milliseconds since the epoch) */
+	private final long m_timestamp;
+
+	/** Time elapsed since the beginning of the search (in nanoseconds) */
+	private final long m_elapsedNanos;
+
+	/** Makespan of the new best solution */
+	private final int m_makespan;
+
+	/** Lower bound on the makespan (0 if unknown) */
+	private final int m_lowerBound;
+
+	/** Name of the algorithm that found the solution */
+	private final String m_engine;
+
+	/** Iteration of the algorithm at which the solution was found */
+	private final long m_iteration;
+
+	/** Begin time of each activity (a private copy) */
+	private final int[] m_beginTimes;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Name of the instance file */
+	public String getFileName()
+	{
+		return m_fileName;
+	}
+
+	/** @return Wall clock time of the event (milliseconds since the epoch) */
+	public long getTimestamp()
+	{
+		return m_timestamp;
+	}
+
+	/** @return Time elapsed since the beginning of the search (in nanoseconds) */
+	public long getElapsedNanos()
+	{
+		return m_elapsedNanos;
+	}
+
+	/** @return Makespan of the new best solution */
+	public int getMakespan()
+	{
+		return m_makespan;
+	}
+
+	/** @return Lower bound on the makespan (0 if unknown) */
+	public int getLowerBound()
+	{
+		return m_lowerBound;
+	}
+
+	/** @return Name of the algorithm that found the solution */
+	public String getEngine()
+	{
+		return m_engine;
+	}
+
+	/** @return Iteration of the algorithm at which the solution was found */
+	public long getIteration()
+	{
+		return m_iteration;
+	}
+
+	/** @return Begin time of each activity (do not modify) */
+	public int[] getBeginTimes()
+	{
+		return m_beginTimes;
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param fileName Name of the instance file.
+	 * @param elapsedNanos Time elapsed since the beginning of the search (in nanoseconds).
+	 * @param solution The new best solution (its begin times are copied).
+	 * @param lowerBound Lower bound on the makespan (0 if unknown).
+	 * @param engine Name of the algorithm that found the solution.
+	 * @param iteration Iteration of the algorithm at which the solution was found.
+	 */
+	public ProgressEvent(String fileName, long elapsedNanos, Solution solution, int lowerBound, String engine, long iteration)
+	{
+		m_fileName = fileName;
+		m_timestamp = System.currentTimeMillis();
+		m_elapsedNanos = elapsedNanos;
+		m_makespan = solution.getObjectiveValue();
+		m_lowerBound = lowerBound;
+		m_engine = engine;
+		m_iteration = iteration;
+		Integer[] beginTimes = solution.getBeginTimeActivities();
+		m_beginTimes = new int[beginTimes.length];
+		for(int j = 0; j < beginTimes.length; j++)
+		{
+			m_beginTimes[j] = (beginTimes[j] == null) ? -1 : beginTimes[j];
+		}
+	}
+
+}
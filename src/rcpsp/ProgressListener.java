@@ -0,0 +1,41 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+/**
+ * Listener notified by the {@link RCPSPSolver} each time the best solution is improved.
+ *
+ * The listener is called from the thread of the algorithm that found the
+ * solution, while the solver holds its lock: implementations must return
+ * quickly and must not block (see {@link JsonLinesProgressSink}).
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public interface ProgressListener {
+
+	/**
+	 * Called when a new best solution is found.
+	 *
+	 * @param event Description of the new best solution.
+	 */
+	void onIncumbent(ProgressEvent event);
+
+}
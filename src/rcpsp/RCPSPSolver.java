@@ -21,6 +21,8 @@ package rcpsp;
 
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 
@@ -33,6 +35,16 @@ import java.util.Comparator;
  * 	- {@link #m_instance} : the Instance object which contains the problem data
  * 	- {@link #m_solution} : the Solution object to modify. This object will store the result of the program.
  *  - {@link #m_timeLimit} : the maximum time limit (in seconds) given to the program.
+ *  - {@link #m_deadline} : the time at which the program must stop, to be polled by the algorithms.
+ *
+ * Algorithms should report every improving solution with {@link #updateIncumbent(Solution, String, long)}:
+ * if they do not stop in time, Main returns the best solution reported. Each improvement
+ * is also sent to the {@link ProgressListener}s registered with {@link #addProgressListener(ProgressListener)}.
+ * Long runs can be checkpointed: engines publish snapshots of their state with
+ * {@link #publishState(SearchState)} and restart from {@link #getResumeState()} if it is set.
+ * All random numbers must be drawn from the {@link RandomService} of the solver ({@link #getRandomService()}),
+ * so that a run can be replayed from its seed. Algorithms that decode the same activity lists
+ * again can share the makespans through the {@link EvaluationCache} of the solver, if it is set.
  *  
  * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
  * 
@@ -54,6 +66,66 @@ public class RCPSPSolver {
 	/** Time given to solve the problem. */
 	private long m_timeLimit;
 
+	/** Lower bound on the makespan (0 if unknown). */
+	private int m_lowerBound;
+
+	/** Time at which the algorithms must stop. */
+	private Deadline m_deadline;
+
+	/** Best solution found so far (a copy owned by the solver, null if none). */
+	private volatile Solution m_bestSolution;
+
+	/** Number of improvements of the best solution (see {@link Metrics}). */
+	private static final Metrics.Counter IMPROVEMENTS = Metrics.counter("solver.improvements");
+
+	/** Listeners notified of each improvement of the best solution. */
+	private final List<ProgressListener> m_listeners = new CopyOnWriteArrayList<ProgressListener>();
+
+	/** True if a {@link CheckpointWriter} saves the published states. */
+	private volatile boolean m_checkpointing;
+
+	/** Last state published by an engine (null if none). */
+	private volatile SearchState m_publishedState;
+
+	/** State of an interrupted run to resume (null if none). */
+	private SearchState m_resumeState;
+
+	/** Source of the random numbers of the algorithms. */
+	private RandomService m_random = new RandomService(0);
+
+	/** Number of threads the algorithms may use. */
+	private int m_nbThreads = 1;
+
+	/** True if parallel algorithms must give the same result for the same seed and number of threads. */
+	private boolean m_deterministic;
+
+	/** Maximum number of iterations of the algorithms. */
+	private long m_iterationLimit = Long.MAX_VALUE;
+
+	/** Name of the engine that only runs the naive heuristic (the default engine) */
+	public static final String NAIVE = "naive";
+
+	/** Names of the engines that can be chosen with {@link #setEngineName(String)}: {@link #NAIVE} only runs the naive heuristic. */
+	public static final String[] ENGINES = { RandomSamplingEngine.NAME, BiasedSamplingEngine.NAME, PortfolioEngine.NAME, NAIVE };
+
+	/** Name of the engine run after the naive heuristic. */
+	private String m_engineName = NAIVE;
+
+	/** The RCPSP data stored in primitive arrays (created on demand). */
+	private CompactInstance m_compactInstance;
+
+	/** Cache of the decoded activity lists shared by the algorithms (null if none). */
+	private EvaluationCache m_evaluationCache;
+
+	/** Parameters of the engines (see {@link SolverConfiguration}). */
+	private SolverConfiguration m_configuration = new SolverConfiguration();
+
+	/** Choice of the engines of the engine "auto" (null: the default table). */
+	private EngineSelector m_engineSelector;
+
+	/** Deadline of the engine running in {@link #runEngine(Engine, Deadline)} (null if none). */
+	private Deadline m_engineDeadline;
+
 	// --------------------------------------------
 	// ------------ GETTERS AND SETTERS -----------
 	// --------------------------------------------
@@ -76,6 +148,252 @@ public class RCPSPSolver {
 		return m_timeLimit;
 	}
 
+	/** @return Lower bound on the makespan (0 if unknown) */
+	public int getLowerBound()
+	{
+		return m_lowerBound;
+	}
+
+	/** @return Time at which the algorithms must stop (the deadline of the running engine, see {@link #runEngine(Engine, Deadline)}) */
+	public Deadline getDeadline()
+	{
+		return (m_engineDeadline != null) ? m_engineDeadline : m_deadline;
+	}
+
+	/**
+	 * Sets the time at which the algorithms must stop. If no deadline is set,
+	 * {@link #solve(long)} creates one from its time limit.
+	 * 
+	 * @param deadline The deadline.
+	 */
+	public void setDeadline(Deadline deadline)
+	{
+		this.m_deadline = deadline;
+	}
+
+	/** @return Best solution found so far (null if none) */
+	public Solution getBestSolution()
+	{
+		return m_bestSolution;
+	}
+
+	/**
+	 * Registers a listener notified each time the best solution is improved.
+	 * 
+	 * @param listener The listener.
+	 */
+	public void addProgressListener(ProgressListener listener)
+	{
+		m_listeners.add(listener);
+	}
+
+	/**
+	 * @param listener The listener to unregister.
+	 */
+	public void removeProgressListener(ProgressListener listener)
+	{
+		m_listeners.remove(listener);
+	}
+
+	/** @return Source of the random numbers of the algorithms */
+	public RandomService getRandomService()
+	{
+		return m_random;
+	}
+
+	/**
+	 * @param random Source of the random numbers of the algorithms.
+	 */
+	public void setRandomService(RandomService random)
+	{
+		this.m_random = random;
+	}
+
+	/** @return Number of threads the algorithms may use */
+	public int getNbThreads()
+	{
+		return m_nbThreads;
+	}
+
+	/**
+	 * @param nbThreads Number of threads the algorithms may use.
+	 */
+	public void setNbThreads(int nbThreads)
+	{
+		this.m_nbThreads = Math.max(1, nbThreads);
+	}
+
+	/** @return true if parallel algorithms must give the same result for the same seed and number of threads */
+	public boolean isDeterministic()
+	{
+		return m_deterministic;
+	}
+
+	/**
+	 * @param deterministic true if parallel algorithms must give the same result for the same seed and number of threads.
+	 */
+	public void setDeterministic(boolean deterministic)
+	{
+		this.m_deterministic = deterministic;
+	}
+
+	/** @return Maximum number of iterations of the algorithms */
+	public long getIterationLimit()
+	{
+		return m_iterationLimit;
+	}
+
+	/**
+	 * Limits the number of iterations, e.g. to get a result that does not depend on the speed of the computer.
+	 * 
+	 * @param iterationLimit Maximum number of iterations of the algorithms.
+	 */
+	public void setIterationLimit(long iterationLimit)
+	{
+		this.m_iterationLimit = iterationLimit;
+	}
+
+	/** @return Name of the engine run after the naive heuristic */
+	public String getEngineName()
+	{
+		return m_engineName;
+	}
+
+	/**
+	 * @param engineName Name of the engine run after the naive heuristic, one of {@link #ENGINES}.
+	 * @throws IllegalArgumentException If the name is not the name of an engine.
+	 */
+	public void setEngineName(String engineName)
+	{
+		createEngine(engineName);
+		this.m_engineName = engineName;
+	}
+
+	/** @return true if the published states are saved, i.e. engines should call {@link #publishState(SearchState)} */
+	public boolean isCheckpointing()
+	{
+		return m_checkpointing;
+	}
+
+	/**
+	 * @param checkpointing true if the published states are saved.
+	 */
+	public void setCheckpointing(boolean checkpointing)
+	{
+		this.m_checkpointing = checkpointing;
+	}
+
+	/** @return Last state published by an engine (null if none) */
+	public SearchState getPublishedState()
+	{
+		return m_publishedState;
+	}
+
+	/**
+	 * Publishes a snapshot of the state of an engine, to be saved by the {@link CheckpointWriter}.
+	 * 
+	 * @param state An immutable snapshot.
+	 */
+	public void publishState(SearchState state)
+	{
+		this.m_publishedState = state;
+	}
+
+	/** @return State of an interrupted run to resume (null if none) */
+	public SearchState getResumeState()
+	{
+		return m_resumeState;
+	}
+
+	/**
+	 * Sets the state of an interrupted run: {@link #solve(long)} restores its best
+	 * solution and the engine that published it resumes from its iteration.
+	 * 
+	 * @param state The state read from a checkpoint file.
+	 */
+	public void setResumeState(SearchState state)
+	{
+		this.m_resumeState = state;
+	}
+
+	/**
+	 * @return Time elapsed since the beginning of the search (in nanoseconds), including the time of the resumed run.
+	 */
+	public long getElapsedNanos()
+	{
+		long elapsed = (m_deadline == null) ? 0 : m_deadline.elapsedNanos();
+		if(m_resumeState != null)
+		{
+			elapsed += m_resumeState.getElapsedNanos();
+		}
+		return elapsed;
+	}
+
+	/** @return Parameters of the engines */
+	public SolverConfiguration getConfiguration()
+	{
+		return m_configuration;
+	}
+
+	/**
+	 * @param configuration Parameters of the engines (the engine is chosen with {@link #setEngineName(String)}).
+	 */
+	public void setConfiguration(SolverConfiguration configuration)
+	{
+		this.m_configuration = configuration;
+	}
+
+	/** @return Choice of the engines of the engine "auto" (null: the default table) */
+	public EngineSelector getEngineSelector()
+	{
+		return m_engineSelector;
+	}
+
+	/**
+	 * @param engineSelector Choice of the engines of the engine "auto" (null: the default table).
+	 */
+	public void setEngineSelector(EngineSelector engineSelector)
+	{
+		this.m_engineSelector = engineSelector;
+	}
+
+	/**
+	 * @return The problem data stored in primitive arrays.
+	 * @throws Exception Throw an exception if the instance data are not consistent.
+	 */
+	public CompactInstance getCompactInstance() throws Exception
+	{
+		if(m_compactInstance == null || m_compactInstance.getInstance() != m_instance)
+		{
+			m_compactInstance = new CompactInstance(m_instance);
+		}
+		return m_compactInstance;
+	}
+
+	/** @return Cache of the decoded activity lists shared by the algorithms (null if none) */
+	public EvaluationCache getEvaluationCache()
+	{
+		return m_evaluationCache;
+	}
+
+	/**
+	 * @param evaluationCache Cache of the decoded activity lists shared by the algorithms (null if none).
+	 */
+	public void setEvaluationCache(EvaluationCache evaluationCache)
+	{
+		this.m_evaluationCache = evaluationCache;
+	}
+
+	/**
+	 * Sets the lower bound on the makespan, see {@link LowerBound}.
+	 * 
+	 * @param lowerBound A lower bound on the makespan.
+	 */
+	public void setLowerBound(int lowerBound)
+	{
+		this.m_lowerBound = lowerBound;
+	}
+
 	/**
 	 * Initializes the problem solution with a new Solution object (the old one
 	 * will be deleted).
@@ -110,6 +428,48 @@ public class RCPSPSolver {
 	// -------------- METHODS --------------
 	// -------------------------------------
 
+	/**
+	 * A solution whose makespan equals the lower bound is optimal: there is no
+	 * need to search any further. Call this method in your algorithms to stop
+	 * as soon as possible.
+	 * 
+	 * @param objectiveValue Makespan of a feasible solution.
+	 * @return true if the makespan equals the lower bound, false otherwise.
+	 */
+	public boolean isOptimal(int objectiveValue)
+	{
+		return m_lowerBound > 0 && objectiveValue <= m_lowerBound;
+	}
+
+	/**
+	 * Reports a feasible solution. If it is better than the best solution found
+	 * so far, a copy of it becomes the new best solution and the progress listeners are notified.
+	 * 
+	 * @param solution A complete and feasible solution.
+	 * @param engine Name of the algorithm that found the solution.
+	 * @param iteration Iteration of the algorithm at which the solution was found.
+	 * @return true if the solution improves the best solution found so far.
+	 */
+	public synchronized boolean updateIncumbent(Solution solution, String engine, long iteration)
+	{
+		if(m_bestSolution != null && m_bestSolution.getObjectiveValue() <= solution.getObjectiveValue())
+		{
+			return false;
+		}
+		m_bestSolution = solution.clone();
+		IMPROVEMENTS.increment();
+		Metrics.incumbent(m_instance.getFileName(), engine, m_bestSolution.getObjectiveValue(), m_lowerBound, iteration);
+		if(!m_listeners.isEmpty())
+		{
+			ProgressEvent event = new ProgressEvent(m_instance.getFileName(), getElapsedNanos(), m_bestSolution, m_lowerBound, engine, iteration);
+			for(ProgressListener listener : m_listeners)
+			{
+				listener.onIncumbent(event);
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * **TODO** Modify this method to solve the problem.
 	 * 
@@ -120,31 +480,121 @@ public class RCPSPSolver {
 	 * 
 	 * When your algorithm terminates, make sure the attribute m_solution in this class points to the solution you want to return.
 	 * 
-	 * You have to make sure that your algorithm does not take more time than the time limit m_time.
+	 * You have to make sure that your algorithm does not take more time than the time limit m_time:
+	 * poll the deadline {@link #m_deadline} regularly and stop when it is expired.
 	 * 
 	 * @param time Time allowed (in seconds) to solve the problem.
 	 * @throws Exception May return some error, in particular if some vertices index are wrong.
 	 */
 	public void solve(long time) throws Exception {
 		m_timeLimit = time;
+		if(m_deadline == null)
+		{
+			m_deadline = Deadline.ofSeconds(time);
+		}
 		long t = System.currentTimeMillis();
 		long timeElapsed = 0;
 
 		// Naive method
-		int nbActivities = m_instance.getNbActivities();
-		int currentProjectTime = 0;
-		// Loop on activities
-		// Fix activity (j+1) at the end of activity j
-		// Works only if tasks are sorted w.r.t theirs precedences
-		for(int j = 0; j < nbActivities; j++)
+		Metrics.Phase naivePhase = Metrics.phase("naive", m_instance.getFileName());
+		try
+		{
+			int nbActivities = m_instance.getNbActivities();
+			int currentProjectTime = 0;
+			// Modes of a multi-mode instance: the modes used by the engines
+			int[] modes = getCompactInstance().modes;
+			// Loop on activities
+			// Fix activity (j+1) at the end of activity j
+			// Works only if tasks are sorted w.r.t theirs precedences
+			for(int j = 0; j < nbActivities; j++)
+			{
+				m_solution.setModeActivity(j, modes[j]);
+				m_solution.addActivity(j, currentProjectTime);
+				currentProjectTime += m_instance.getDurationActivity(j, modes[j]);
+			}
+		}
+		finally
 		{
-			m_solution.addActivity(j, currentProjectTime);
-			currentProjectTime += m_instance.getDurationActivity(j);
+			naivePhase.close();
 		}
 		timeElapsed = System.currentTimeMillis() - t;
 		System.err.println("Time for naive heuristic : " + timeElapsed);
+		if(isOptimal(m_solution.getObjectiveValue()))
+		{
+			System.err.println("Naive solution is optimal");
+		}
 		m_solution.print(System.err);
 		System.err.flush();		
+		updateIncumbent(m_solution, NAIVE, 0);
+
+		// Best solution of the interrupted run
+		if(m_resumeState != null && m_resumeState.getBeginTimes() != null)
+		{
+			updateIncumbent(m_resumeState.toSolution(m_instance, m_solution.getProfileArena()), m_resumeState.getEngine(), m_resumeState.getIteration());
+		}
+
+		// Search until the deadline
+		Engine engine = createEngine(m_engineName);
+		if(engine != null)
+		{
+			Metrics.Phase enginePhase = Metrics.phase(engine.getName(), m_instance.getFileName());
+			try
+			{
+				engine.run(this);
+			}
+			finally
+			{
+				enginePhase.close();
+			}
+		}
+		m_solution = m_bestSolution;
+	}
+
+	/**
+	 * Runs an engine until a deadline of its own, earlier than the deadline of
+	 * the solver: the engine sees it with {@link #getDeadline()}. Used by the
+	 * engines that run other engines, see {@link PortfolioEngine}.
+	 *
+	 * @param engine The engine.
+	 * @param deadline The deadline of the engine (a slice of {@link #getDeadline()}).
+	 * @throws Exception May return some error, in particular if some indices are wrong.
+	 */
+	public void runEngine(Engine engine, Deadline deadline) throws Exception
+	{
+		Deadline previous = m_engineDeadline;
+		m_engineDeadline = deadline;
+		Metrics.Phase phase = Metrics.phase(engine.getName(), m_instance.getFileName());
+		try
+		{
+			engine.run(this);
+		}
+		finally
+		{
+			phase.close();
+			m_engineDeadline = previous;
+		}
+	}
+
+	/**
+	 * @param name Name of an engine, one of {@link #ENGINES}.
+	 * @return A new engine, or null for {@link #NAIVE} (no engine after the naive heuristic).
+	 * @throws IllegalArgumentException If the name is not the name of an engine.
+	 */
+	public static Engine createEngine(String name)
+	{
+		switch(name)
+		{
+		case RandomSamplingEngine.NAME:
+			return new RandomSamplingEngine();
+		case BiasedSamplingEngine.NAME:
+			return new BiasedSamplingEngine();
+		case PortfolioEngine.NAME:
+			return new PortfolioEngine();
+		case NAIVE:
+			return null;
+		default:
+			throw new IllegalArgumentException("Error: unknown engine " + name + ", expected one of " + Arrays.toString(ENGINES) + ".");
+		}
 	}
 
 }
@@ -0,0 +1,785 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tuning of the parameters of the engines by iterated racing (as irace), in a
+ * single program: the runs of the candidate configurations are solved in
+ * parallel on a pool of workers, and the best configuration is written in a
+ * file read with the option -config (see {@link SolverConfiguration}).
+ *
+ * The parameters to tune and their domains are read from a file, one
+ * parameter per line ("#" starts a comment): c for a categorical parameter
+ * and its values, i (integer) or r (real) for a numerical parameter and its
+ * bounds:
+ *
+ *     engine          c  (sampling, biased)
+ *     biased.bias     r  (0, 4)
+ *
+ * The tuning runs 2 + log2(d) iterations for d parameters. Each iteration
+ * draws new candidates (uniformly at the first iteration, then around the best
+ * candidates of the previous iteration, the elites, with a spread that
+ * decreases from one iteration to the next) and races them with the elites: the
+ * alive candidates are run on a sequence of (instance, seed) pairs, the same
+ * for all the candidates and all the iterations, and after each pair (from the
+ * -firstTest th) the candidates that are worse than the best one with the
+ * confidence 1 - alpha are dropped. The test is the Friedman test followed by
+ * the post-hoc test of Conover, or the paired t-test against the best candidate
+ * (see {@link Statistics}). A race stops when its share of the budget is spent
+ * or when only the elites of the next iteration are alive; the results of the
+ * elites are kept, so they are not run again on the same pairs.
+ *
+ * The cost of a run is the gap (in %) of its makespan to the lower bound, and
+ * {@link #PENALTY} for a run that is unfeasible or over the time limit.
+ *
+ * **command**: java rcpsp.RacingTuner [options] -params file (directory|dataFile)...
+ * Every .sm file of the directories is an instance of the tuning. **Options**:
+ *  - -help :prints this parameter description
+ *  - -params (file) :parameters to tune and their domains
+ *  - -budget (int) :total number of runs (200 by default)
+ *  - -workers (int) :number of runs solved at the same time (1 by default)
+ *  - -test (friedman|t) :test that drops the candidates (friedman by default)
+ *  - -alpha (double) :level of the test (0.05 by default)
+ *  - -firstTest (int) :number of runs of a candidate before its first test (5 by default)
+ *  - -seed (long) :seed of the tuner; the seeds of the runs are drawn from it (0 by default)
+ *  - -out (file) :writes the best configuration in the file
+ *  - the options of {@link SolverRun} given to every run (-t or -iterations, -threads, -engine or -config for the settings that are not tuned, ...)
+ *
+ * **Program output**: the progress of the races and the best configuration on the standard output.
+ * The messages of the runs go to the error output.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class RacingTuner {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Cost of a run that is unfeasible or over the time limit */
+	public static final double PENALTY = 1000;
+
+	/** Number of significant digits of the values of the real parameters */
+	private static final MathContext DIGITS = new MathContext(4);
+
+	/**
+	 * A parameter to tune and its domain.
+	 */
+	static final class Parameter
+	{
+		final String name;
+		/** c (categorical), i (integer) or r (real) */
+		final char type;
+		/** Values of a categorical parameter (null otherwise) */
+		final String[] values;
+		/** Bounds of a numerical parameter */
+		final double min;
+		final double max;
+
+		Parameter(String name, char type, String[] values, double min, double max)
+		{
+			this.name = name;
+			this.type = type;
+			this.values = values;
+			this.min = min;
+			this.max = max;
+		}
+	}
+
+	/**
+	 * A candidate configuration and the costs of its runs.
+	 */
+	private static final class Candidate
+	{
+		final int id;
+		/** Value of each parameter */
+		final String[] values;
+		final SolverConfiguration configuration;
+		/** Cost of the run on each pair of the sequence (in the order of the sequence) */
+		final List<Double> costs = new ArrayList<Double>();
+
+		Candidate(int id, String[] values, SolverConfiguration configuration)
+		{
+			this.id = id;
+			this.values = values;
+			this.configuration = configuration;
+		}
+
+		double meanCost(int nbPairs)
+		{
+			double sum = 0;
+			for(int s = 0; s < nbPairs; s++)
+			{
+				sum += costs.get(s);
+			}
+			return sum / nbPairs;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "#" + id + " (" + configuration + ")";
+		}
+	}
+
+	/** Parameters to tune */
+	private final List<Parameter> m_parameters;
+
+	/** Instances of the tuning */
+	private final List<Instance> m_instances;
+
+	/** Options of {@link SolverRun} given to every run */
+	private final String[] m_runArguments;
+
+	/** Settings that are not tuned (see -config) */
+	private final SolverConfiguration m_baseConfiguration;
+
+	/** Generator of the candidates and of the sequence of pairs */
+	private final Random m_random;
+
+	/** Sequence of (instance, seed) pairs of the races: index of the instance, seed */
+	private final List<long[]> m_pairs = new ArrayList<long[]>();
+
+	/** Order of the instances of the current round of the sequence */
+	private final List<Integer> m_round = new ArrayList<Integer>();
+
+	/** Maximum number of runs */
+	private int m_budget = 200;
+
+	/** Number of runs solved at the same time */
+	private int m_nbWorkers = 1;
+
+	/** True for the paired t-test, false for the Friedman test */
+	private boolean m_tTest = false;
+
+	/** Level of the tests */
+	private double m_alpha = 0.05;
+
+	/** Number of pairs before the first test of a race */
+	private int m_firstTest = 5;
+
+	/** Number of runs done */
+	private int m_nbRuns = 0;
+
+	/** Number of candidates created */
+	private int m_nbCandidates = 0;
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param parameters Parameters to tune.
+	 * @param instances Instances of the tuning.
+	 * @param runArguments Options of {@link SolverRun} given to every run.
+	 * @param seed Seed of the tuner.
+	 */
+	public RacingTuner(List<Parameter> parameters, List<Instance> instances, String[] runArguments, long seed)
+	{
+		m_parameters = parameters;
+		m_instances = instances;
+		m_runArguments = runArguments.clone();
+		m_baseConfiguration = newRun(new SolverConfiguration(), 0).getConfiguration();
+		m_random = new Random(seed);
+	}
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Number of runs done */
+	public int getNbRuns()
+	{
+		return m_nbRuns;
+	}
+
+	/** @param budget Maximum number of runs */
+	public void setBudget(int budget)
+	{
+		this.m_budget = budget;
+	}
+
+	/** @param nbWorkers Number of runs solved at the same time */
+	public void setNbWorkers(int nbWorkers)
+	{
+		this.m_nbWorkers = nbWorkers;
+	}
+
+	/** @param tTest True for the paired t-test, false for the Friedman test */
+	public void setTTest(boolean tTest)
+	{
+		this.m_tTest = tTest;
+	}
+
+	/** @param alpha Level of the tests */
+	public void setAlpha(double alpha)
+	{
+		this.m_alpha = alpha;
+	}
+
+	/** @param firstTest Number of pairs before the first test of a race */
+	public void setFirstTest(int firstTest)
+	{
+		this.m_firstTest = firstTest;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Reads the parameters to tune.
+	 *
+	 * @param fileName Name of the file.
+	 * @return The parameters.
+	 * @throws IOException Returns an error when the file cannot be read or a line is not valid.
+	 */
+	public static List<Parameter> readParameters(String fileName) throws IOException
+	{
+		List<Parameter> parameters = new ArrayList<Parameter>();
+		try(BufferedReader in = new BufferedReader(new FileReader(fileName)))
+		{
+			String line;
+			int number = 0;
+			while((line = in.readLine()) != null)
+			{
+				number++;
+				int comment = line.indexOf('#');
+				if(comment >= 0)
+				{
+					line = line.substring(0, comment);
+				}
+				if(line.trim().isEmpty())
+				{
+					continue;
+				}
+				String[] fields = line.trim().split("\\s+", 3);
+				if(fields.length != 3 || fields[1].length() != 1 || "cir".indexOf(fields[1].charAt(0)) < 0
+						|| !fields[2].startsWith("(") || !fields[2].endsWith(")"))
+				{
+					throw new IOException("Line " + number + " of " + fileName + " is not a parameter: name (c|i|r) (values)");
+				}
+				String[] values = fields[2].substring(1, fields[2].length() - 1).split(",");
+				for(int k = 0; k < values.length; k++)
+				{
+					values[k] = values[k].trim();
+				}
+				char type = fields[1].charAt(0);
+				try
+				{
+					SolverConfiguration check = new SolverConfiguration();
+					if(type == 'c')
+					{
+						for(String value : values)
+						{
+							check.set(fields[0], value);
+						}
+						parameters.add(new Parameter(fields[0], type, values, 0, 0));
+					}
+					else
+					{
+						check.set(fields[0], values[0]);
+						double min = Double.parseDouble(values[0]);
+						double max = Double.parseDouble(values[values.length - 1]);
+						if(values.length != 2 || !(min < max))
+						{
+							throw new IllegalArgumentException("expected (min, max) with min < max");
+						}
+						parameters.add(new Parameter(fields[0], type, null, min, max));
+					}
+				}
+				catch(IllegalArgumentException e)
+				{
+					throw new IOException("Line " + number + " of " + fileName + ": " + e.getMessage().replaceFirst("^Error: ", ""));
+				}
+			}
+		}
+		if(parameters.isEmpty())
+		{
+			throw new IOException("There is no parameter to tune in " + fileName);
+		}
+		return parameters;
+	}
+
+	/**
+	 * Runs the iterated races.
+	 *
+	 * @return The best configuration found.
+	 * @throws Exception Any error met by a run.
+	 */
+	public SolverConfiguration tune() throws Exception
+	{
+		int d = m_parameters.size();
+		int nbIterations = 2 + log2(d);
+		int nbElites = 2 + log2(d);
+		double spread = 0.5;
+		List<Candidate> elites = new ArrayList<Candidate>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, m_nbWorkers), r -> {
+			Thread thread = new Thread(r, "rcpsp-tuner");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try
+		{
+			for(int iteration = 1; iteration <= nbIterations; iteration++)
+			{
+				int budget = (m_budget - m_nbRuns) / (nbIterations - iteration + 1);
+				int nbRaced = budget / (m_firstTest + Math.min(5, iteration));
+				int nbNew = nbRaced - elites.size();
+				if(nbNew <= 0 && !elites.isEmpty())
+				{
+					break;
+				}
+				if(iteration > 1)
+				{
+					spread *= Math.pow(1.0 / Math.max(2, nbRaced), 1.0 / d);
+				}
+				List<Candidate> candidates = new ArrayList<Candidate>(elites);
+				Set<String> known = new HashSet<String>();
+				for(Candidate elite : elites)
+				{
+					known.add(Arrays.toString(elite.values));
+				}
+				for(int k = 0; k < Math.max(1, nbNew); k++)
+				{
+					Candidate candidate = null;
+					for(int attempt = 0; attempt < 100 && (candidate == null || known.contains(Arrays.toString(candidate.values))); attempt++)
+					{
+						candidate = sample(elites, spread, iteration, nbIterations);
+					}
+					if(known.add(Arrays.toString(candidate.values)))
+					{
+						candidate = new Candidate(++m_nbCandidates, candidate.values, candidate.configuration);
+						candidates.add(candidate);
+					}
+				}
+				System.out.println("Iteration " + iteration + "/" + nbIterations + ": " + candidates.size() + " candidates ("
+						+ elites.size() + " elites), " + budget + " runs");
+				elites = race(executor, candidates, budget, nbElites);
+				System.out.println("Elites: " + elites);
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		return elites.get(0).configuration;
+	}
+
+	/**
+	 * Races candidates on the sequence of pairs.
+	 *
+	 * @param budget Maximum number of runs of the race.
+	 * @param nbElites Number of alive candidates at which the race stops.
+	 * @return The alive candidates at the end of the race, best first (at most nbElites).
+	 */
+	private List<Candidate> race(ExecutorService executor, List<Candidate> candidates, int budget, int nbElites) throws Exception
+	{
+		List<Candidate> alive = new ArrayList<Candidate>(candidates);
+		int used = 0;
+		int nbPairs = 0;
+		while(true)
+		{
+			long[] pair = pair(nbPairs);
+			List<Candidate> pending = new ArrayList<Candidate>();
+			for(Candidate candidate : alive)
+			{
+				if(candidate.costs.size() <= nbPairs)
+				{
+					pending.add(candidate);
+				}
+			}
+			if(used + pending.size() > budget)
+			{
+				break;
+			}
+			List<Future<Double>> costs = new ArrayList<Future<Double>>();
+			for(Candidate candidate : pending)
+			{
+				costs.add(executor.submit(() -> cost(candidate, pair)));
+			}
+			for(int k = 0; k < pending.size(); k++)
+			{
+				try
+				{
+					pending.get(k).costs.add(costs.get(k).get());
+				}
+				catch(ExecutionException e)
+				{
+					throw new Exception("Error: run of " + pending.get(k) + " on " + m_instances.get((int) pair[0]).getFileName()
+							+ ": " + e.getCause().getMessage());
+				}
+			}
+			used += pending.size();
+			m_nbRuns += pending.size();
+			nbPairs++;
+			if(nbPairs >= m_firstTest && alive.size() > 1)
+			{
+				alive = eliminate(alive, nbPairs);
+			}
+			Candidate best = best(alive, nbPairs).get(0);
+			System.out.println("  " + nbPairs + " " + ReferenceSolutions.getKey(m_instances.get((int) pair[0]).getFileName()) + " seed " + pair[1]
+					+ ": " + alive.size() + " alive, best " + best + " mean gap " + String.format(Locale.ROOT, "%.2f", best.meanCost(nbPairs))
+					+ " %, " + m_nbRuns + "/" + m_budget + " runs");
+			if(nbPairs >= m_firstTest && alive.size() <= nbElites)
+			{
+				break;
+			}
+		}
+		if(nbPairs == 0)
+		{
+			return alive.subList(0, Math.min(nbElites, alive.size()));
+		}
+		List<Candidate> ranked = best(alive, nbPairs);
+		return new ArrayList<Candidate>(ranked.subList(0, Math.min(nbElites, ranked.size())));
+	}
+
+	/**
+	 * @return The candidates that are not worse than the best one with the confidence 1 - alpha.
+	 */
+	private List<Candidate> eliminate(List<Candidate> alive, int nbPairs)
+	{
+		double[][] costs = costs(alive, nbPairs);
+		List<Candidate> survivors = new ArrayList<Candidate>();
+		if(m_tTest)
+		{
+			Candidate best = best(alive, nbPairs).get(0);
+			for(Candidate candidate : alive)
+			{
+				double[] differences = new double[nbPairs];
+				for(int s = 0; s < nbPairs; s++)
+				{
+					differences[s] = candidate.costs.get(s) - best.costs.get(s);
+				}
+				if(candidate == best || Statistics.pairedTTest(differences) >= m_alpha)
+				{
+					survivors.add(candidate);
+				}
+			}
+			return survivors;
+		}
+		if(Statistics.friedmanTest(costs) >= m_alpha)
+		{
+			return alive;
+		}
+		double[] sums = Statistics.friedmanRankSums(costs);
+		double bestSum = Arrays.stream(sums).min().getAsDouble();
+		double difference = Statistics.friedmanCriticalDifference(costs, m_alpha);
+		for(int j = 0; j < alive.size(); j++)
+		{
+			if(sums[j] - bestSum <= difference)
+			{
+				survivors.add(alive.get(j));
+			}
+		}
+		return survivors;
+	}
+
+	/**
+	 * @return The candidates, best first: by rank sum (Friedman test) or by mean cost (t-test) on the first pairs.
+	 */
+	private List<Candidate> best(List<Candidate> alive, int nbPairs)
+	{
+		double[] scores = new double[alive.size()];
+		if(m_tTest)
+		{
+			for(int j = 0; j < scores.length; j++)
+			{
+				scores[j] = alive.get(j).meanCost(nbPairs);
+			}
+		}
+		else
+		{
+			scores = Statistics.friedmanRankSums(costs(alive, nbPairs));
+		}
+		Integer[] order = new Integer[alive.size()];
+		for(int j = 0; j < order.length; j++)
+		{
+			order[j] = j;
+		}
+		double[] key = scores;
+		Arrays.sort(order, (p, q) -> (key[p] != key[q]) ? Double.compare(key[p], key[q]) : Integer.compare(alive.get(p).id, alive.get(q).id));
+		List<Candidate> ranked = new ArrayList<Candidate>();
+		for(int j : order)
+		{
+			ranked.add(alive.get(j));
+		}
+		return ranked;
+	}
+
+	/**
+	 * @return costs[s][j]: cost of candidate j on pair s
+	 */
+	private static double[][] costs(List<Candidate> alive, int nbPairs)
+	{
+		double[][] costs = new double[nbPairs][alive.size()];
+		for(int s = 0; s < nbPairs; s++)
+		{
+			for(int j = 0; j < alive.size(); j++)
+			{
+				costs[s][j] = alive.get(j).costs.get(s);
+			}
+		}
+		return costs;
+	}
+
+	/**
+	 * @return The pair s of the sequence: each round runs the instances once, in a random order, with new seeds
+	 */
+	private synchronized long[] pair(int s)
+	{
+		while(m_pairs.size() <= s)
+		{
+			if(m_round.isEmpty())
+			{
+				for(int k = 0; k < m_instances.size(); k++)
+				{
+					m_round.add(k);
+				}
+				Collections.shuffle(m_round, m_random);
+			}
+			m_pairs.add(new long[] {m_round.remove(0), m_random.nextInt(Integer.MAX_VALUE)});
+		}
+		return m_pairs.get(s);
+	}
+
+	/**
+	 * @return The cost of a run of a candidate on a pair
+	 */
+	private double cost(Candidate candidate, long[] pair) throws Exception
+	{
+		RunResult result = newRun(candidate.configuration, pair[1]).run(m_instances.get((int) pair[0]));
+		return (result.getErrorCode() == RunResult.OK) ? result.getGap() : PENALTY;
+	}
+
+	/**
+	 * @return A run with the options of the tuner, a configuration and a seed
+	 */
+	private SolverRun newRun(SolverConfiguration configuration, long seed)
+	{
+		SolverRun run = new SolverRun();
+		for(int i = 0; i < m_runArguments.length; i++)
+		{
+			i = run.parseArgument(m_runArguments, i);
+		}
+		run.setConfiguration(configuration);
+		run.setSeed(seed);
+		return run;
+	}
+
+	/**
+	 * Draws a new candidate: uniformly if there is no elite, otherwise around an
+	 * elite drawn with a probability decreasing with its rank.
+	 *
+	 * @param spread Standard deviation of the numerical parameters, relative to their range.
+	 */
+	private Candidate sample(List<Candidate> elites, double spread, int iteration, int nbIterations)
+	{
+		Candidate parent = null;
+		if(!elites.isEmpty())
+		{
+			int n = elites.size();
+			int r = m_random.nextInt(n * (n + 1) / 2);
+			int rank = 0;
+			while(r >= n - rank)
+			{
+				r -= n - rank;
+				rank++;
+			}
+			parent = elites.get(rank);
+		}
+		String[] values = new String[m_parameters.size()];
+		SolverConfiguration configuration = new SolverConfiguration(m_baseConfiguration);
+		for(int p = 0; p < values.length; p++)
+		{
+			Parameter parameter = m_parameters.get(p);
+			if(parameter.type == 'c')
+			{
+				boolean keep = parent != null && m_random.nextDouble() < iteration / (nbIterations + 1.0);
+				values[p] = keep ? parent.values[p] : parameter.values[m_random.nextInt(parameter.values.length)];
+			}
+			else
+			{
+				double value;
+				if(parent == null)
+				{
+					value = parameter.min + m_random.nextDouble() * (parameter.max - parameter.min);
+				}
+				else
+				{
+					double center = Double.parseDouble(parent.values[p]);
+					value = Double.NaN;
+					for(int attempt = 0; attempt < 100 && !(value >= parameter.min && value <= parameter.max); attempt++)
+					{
+						value = center + m_random.nextGaussian() * spread * (parameter.max - parameter.min);
+					}
+					value = Math.max(parameter.min, Math.min(parameter.max, value));
+				}
+				values[p] = (parameter.type == 'i') ? Long.toString(Math.round(value))
+						: new BigDecimal(value).round(DIGITS).stripTrailingZeros().toPlainString();
+			}
+			configuration.set(parameter.name, values[p]);
+		}
+		return new Candidate(0, values, configuration);
+	}
+
+	/**
+	 * @return floor(log2(d)) for d &gt;= 1
+	 */
+	private static int log2(int d)
+	{
+		return 31 - Integer.numberOfLeadingZeros(d);
+	}
+
+	/**
+	 * Main method.
+	 *
+	 * @param arg program parameters.
+	 */
+	public static void main(String[] arg) {
+		SolverRun run = new SolverRun();
+		List<String> runArguments = new ArrayList<String>();
+		List<String> files = new ArrayList<String>();
+		String parameterFile = null;
+		String outFile = null;
+		int budget = 200;
+		int nbWorkers = 1;
+		boolean tTest = false;
+		double alpha = 0.05;
+		int firstTest = 5;
+		long seed = 0;
+
+		// Parse command line
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].compareTo("-help") == 0) {
+				System.err.println("The Resource-Constrained Project Scheduling Problem - tuning of the parameters by iterated racing");
+				System.err.println("Program parameters:");
+				System.err.println("command: java rcpsp.RacingTuner [options] -params file (directory|dataFile)...");
+				System.err.println("Options:");
+				System.err.println("\t-help\t: prints this parameter description");
+				System.err.println("\t-params\t\t: parameters to tune and their domains, one per line: name (c|i|r) (values)");
+				System.err.println("\t-budget\t\t: total number of runs (int, 200 by default)");
+				System.err.println("\t-workers\t: number of runs solved at the same time (int, 1 by default)");
+				System.err.println("\t-test\t\t: test that drops the candidates, friedman or t (friedman by default)");
+				System.err.println("\t-alpha\t\t: level of the test (double, 0.05 by default)");
+				System.err.println("\t-firstTest\t: number of runs of a candidate before its first test (int, 5 by default)");
+				System.err.println("\t-seed\t\t: seed of the tuner (long, 0 by default)");
+				System.err.println("\t-out\t\t: writes the best configuration in a file (read by the option -config)");
+				System.err.println("Options of every run:");
+				SolverRun.printOptions(System.err);
+				return;
+			}
+			try {
+				if (arg[i].compareTo("-params") == 0 && i + 1 < arg.length) {
+					parameterFile = arg[++i];
+				} else if (arg[i].compareTo("-budget") == 0 && i + 1 < arg.length) {
+					budget = Integer.parseInt(arg[++i]);
+				} else if (arg[i].compareTo("-workers") == 0 && i + 1 < arg.length) {
+					nbWorkers = Integer.parseInt(arg[++i]);
+				} else if (arg[i].compareTo("-test") == 0 && i + 1 < arg.length) {
+					String test = arg[++i];
+					if (!test.equals("friedman") && !test.equals("t")) {
+						throw new IllegalArgumentException("Error: the test must be friedman or t.");
+					}
+					tTest = test.equals("t");
+				} else if (arg[i].compareTo("-alpha") == 0 && i + 1 < arg.length) {
+					alpha = Double.parseDouble(arg[++i]);
+				} else if (arg[i].compareTo("-firstTest") == 0 && i + 1 < arg.length) {
+					firstTest = Integer.parseInt(arg[++i]);
+				} else if (arg[i].compareTo("-seed") == 0 && i + 1 < arg.length) {
+					seed = Long.parseLong(arg[++i]);
+				} else if (arg[i].compareTo("-out") == 0 && i + 1 < arg.length) {
+					outFile = arg[++i];
+				} else {
+					int last = run.parseArgument(arg, i);
+					if (last >= 0) {
+						runArguments.addAll(Arrays.asList(arg).subList(i, last + 1));
+						i = last;
+					} else {
+						BatchMain.addInstances(new File(arg[i]), files);
+					}
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Error: The value given for " + arg[i - 1] + " is not a valid number.");
+				System.exit(1);
+			} catch (IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+
+		if (parameterFile == null || files.isEmpty()) {
+			System.err.println("Error : you must specify the parameters to tune and a directory or the filenames of instances as parameter.");
+			System.exit(1);
+		}
+		if (run.getCheckpointFile() != null || run.getResumeFile() != null || run.getProgressFile() != null) {
+			System.err.println("Error : -checkpoint, -resume and -progress cannot be used by the tuner.");
+			System.exit(1);
+		}
+		int nbCores = Runtime.getRuntime().availableProcessors();
+		if (nbWorkers * run.getNbThreads() > nbCores) {
+			System.err.println("Warning: " + nbWorkers + " workers x " + run.getNbThreads() + " threads for " + nbCores + " processors, the runs will compete for the processors");
+		}
+
+		try
+		{
+			List<Instance> instances = new ArrayList<Instance>();
+			for (String file : files) {
+				instances.add(new Instance(file));
+			}
+			RacingTuner tuner = new RacingTuner(readParameters(parameterFile), instances, runArguments.toArray(new String[0]), seed);
+			tuner.setBudget(budget);
+			tuner.setNbWorkers(nbWorkers);
+			tuner.setTTest(tTest);
+			tuner.setAlpha(alpha);
+			tuner.setFirstTest(firstTest);
+			SolverConfiguration best = tuner.tune();
+			System.out.println("Best configuration: " + best);
+			if (outFile != null) {
+				best.write(outFile, "RacingTuner: " + tuner.getNbRuns() + " runs on " + instances.size() + " instances, " + String.join(" ", runArguments));
+			}
+		} catch (Exception e) {
+			System.err.printf("Error: %s", e.getMessage());
+			System.err.println();
+			System.exit(1);
+		}
+	}
+
+}
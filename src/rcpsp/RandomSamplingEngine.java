@@ -0,0 +1,318 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pure random sampling: random precedence feasible activity lists are decoded
+ * with the {@link SerialSGS} until the deadline, and the best schedule is kept.
+ *
+ * This engine is a simple example of an algorithm that polls the
+ * {@link Deadline} of the solver at every iteration.
+ *
+ * Iterations are grouped in blocks; the random numbers of block b are drawn
+ * from the generator {@link RandomService#forTask(long)} of task b. At the
+ * beginning of each block (or epoch) the engine may publish its state, from
+ * which a run can be resumed (see {@link SearchState}).
+ *
+ * The engine runs on {@link RCPSPSolver#getNbThreads()} workers:
+ *  - in deterministic mode, the workers run in epochs: during epoch e, worker w
+ *    decodes block e * nbThreads + w, then the best schedules of the workers are
+ *    merged in the order of the workers. When the deadline cuts an epoch, the
+ *    blocks completed by the workers are still merged, in the same order, and the
+ *    search stops. With a limit of iterations (-iterations) and no deadline reached,
+ *    the sequence of best solutions only depends on the seed and the number of
+ *    threads, so two runs give bit-identical results. Under a time limit, the set
+ *    of blocks completed before the deadline depends on the timing of the run;
+ *  - otherwise, the workers take the next block as soon as they are done and
+ *    report their improvements immediately.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class RandomSamplingEngine implements Engine {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Name of the engine */
+	public static final String NAME = "sampling";
+
+	/** Number of iterations of a block */
+	private static final int BLOCK_SIZE = 1024;
+
+	/** Number of iterations done by the engine (see {@link Metrics}) */
+	private static final Metrics.Counter ITERATIONS = Metrics.counter("sampling.iterations");
+
+	/**
+	 * Scratch data of a worker, reused from one block to the next.
+	 */
+	private static final class Worker
+	{
+		final SerialSGS sgs;
+		final int[] activityList;
+		final int[] remaining;
+		final int[] eligible;
+
+		/** Best makespan found during the current block(s) */
+		int bestMakespan;
+		/** Solution of makespan bestMakespan, null if the worker did not improve the bound it was given */
+		Solution best;
+		/** Activity list of best */
+		final int[] bestList;
+		/** Iteration at which best was found */
+		long bestIteration;
+
+		Worker(CompactInstance data)
+		{
+			sgs = new SerialSGS(data);
+			activityList = new int[data.nbActivities];
+			remaining = new int[data.nbActivities];
+			eligible = new int[data.nbActivities];
+			bestList = new int[data.nbActivities];
+		}
+	}
+
+	/** Activity lists of the best schedules found by the engine */
+	private ElitePool m_elite;
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	public void run(RCPSPSolver solver) throws Exception
+	{
+		CompactInstance data = solver.getCompactInstance();
+		int nbWorkers = solver.getNbThreads();
+		Worker[] workers = new Worker[nbWorkers];
+		for(int w = 0; w < nbWorkers; w++)
+		{
+			workers[w] = new Worker(data);
+		}
+
+		long firstBlock = 0;
+		m_elite = new ElitePool(ElitePool.SIZE, null);
+		SearchState resume = solver.getResumeState();
+		if(resume != null && NAME.equals(resume.getEngine()))
+		{
+			// The epochs depend on the number of threads
+			resume.checkResume(solver, solver.isDeterministic());
+			firstBlock = resume.getIteration() / BLOCK_SIZE;
+			m_elite = new ElitePool(ElitePool.SIZE, resume.getElite());
+		}
+
+		try(WorkerPool pool = new WorkerPool(nbWorkers))
+		{
+			if(solver.isDeterministic())
+			{
+				runEpochs(solver, pool, workers, firstBlock);
+			}
+			else
+			{
+				runFree(solver, pool, workers, firstBlock);
+			}
+		}
+	}
+
+	/**
+	 * Deterministic mode: blocks are decoded by epochs of nbWorkers blocks. The
+	 * completed blocks of an epoch cut by the deadline are still merged, in the
+	 * order of the workers.
+	 */
+	private void runEpochs(RCPSPSolver solver, WorkerPool pool, Worker[] workers, long firstBlock) throws Exception
+	{
+		Deadline deadline = solver.getDeadline();
+		int nbWorkers = workers.length;
+		int bestMakespan = bestMakespan(solver);
+		long block = firstBlock;
+		while(!deadline.isExpired() && !Thread.currentThread().isInterrupted() && !solver.isOptimal(bestMakespan)
+				&& block * BLOCK_SIZE < solver.getIterationLimit())
+		{
+			publishState(solver, block * BLOCK_SIZE);
+			final long epochBlock = block;
+			final int bound = bestMakespan;
+			List<Boolean> completed = pool.runWorkers(w -> runBlock(solver, workers[w], epochBlock + w, bound, true));
+			for(int w = 0; w < nbWorkers; w++)
+			{
+				Worker worker = workers[w];
+				if(completed.get(w) && worker.best != null && worker.bestMakespan < bestMakespan)
+				{
+					bestMakespan = worker.bestMakespan;
+					if(solver.updateIncumbent(worker.best, NAME, worker.bestIteration))
+					{
+						m_elite.add(worker.bestList);
+					}
+				}
+			}
+			if(completed.contains(Boolean.FALSE))
+			{
+				break;
+			}
+			block += nbWorkers;
+		}
+	}
+
+	/**
+	 * Non deterministic mode: each worker decodes the next block until the deadline.
+	 */
+	private void runFree(RCPSPSolver solver, WorkerPool pool, Worker[] workers, long firstBlock) throws Exception
+	{
+		Deadline deadline = solver.getDeadline();
+		AtomicLong nextBlock = new AtomicLong(firstBlock);
+		pool.runWorkers(w -> {
+			Worker worker = workers[w];
+			while(!deadline.isExpired() && !Thread.currentThread().isInterrupted())
+			{
+				int bestMakespan = bestMakespan(solver);
+				long block = nextBlock.getAndIncrement();
+				if(solver.isOptimal(bestMakespan) || block * BLOCK_SIZE >= solver.getIterationLimit())
+				{
+					break;
+				}
+				if(w == 0)
+				{
+					publishState(solver, block * BLOCK_SIZE);
+				}
+				runBlock(solver, worker, block, bestMakespan, false);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Decodes the BLOCK_SIZE random activity lists of a block (fewer for the
+	 * last block before the iteration limit).
+	 *
+	 * @param bound Makespan to improve.
+	 * @param deferred If true, the best schedule of the block is kept in the worker; otherwise improvements are reported to the solver.
+	 * @return true if the block was completed, false if it was interrupted by the deadline.
+	 */
+	private boolean runBlock(RCPSPSolver solver, Worker worker, long block, int bound, boolean deferred) throws Exception
+	{
+		Deadline deadline = solver.getDeadline();
+		CompactInstance data = solver.getCompactInstance();
+		SplittableRandom random = solver.getRandomService().forTask(block);
+		EvaluationCache cache = solver.getEvaluationCache();
+		worker.best = null;
+		worker.bestMakespan = bound;
+		int size = (int) Math.max(0, Math.min(BLOCK_SIZE, solver.getIterationLimit() - block * BLOCK_SIZE));
+		for(int k = 0; k < size; k++)
+		{
+			if(deadline.poll())
+			{
+				ITERATIONS.add(k);
+				return false;
+			}
+			randomActivityList(data, random, worker);
+			int makespan = (cache == null) ? worker.sgs.decode(worker.activityList) : cache.decode(worker.sgs, worker.activityList, worker.bestMakespan);
+			if(makespan < worker.bestMakespan)
+			{
+				worker.bestMakespan = makespan;
+				worker.bestIteration = block * BLOCK_SIZE + k + 1;
+				worker.best = new Solution(solver.getInstance(), solver.getSolution().getProfileArena());
+				worker.sgs.toSolution(worker.best);
+				System.arraycopy(worker.activityList, 0, worker.bestList, 0, worker.bestList.length);
+				if(!deferred)
+				{
+					if(solver.updateIncumbent(worker.best, NAME, worker.bestIteration))
+					{
+						m_elite.add(worker.bestList);
+					}
+					if(solver.isOptimal(makespan))
+					{
+						ITERATIONS.add(k + 1);
+						return true;
+					}
+				}
+			}
+		}
+		ITERATIONS.add(size);
+		return true;
+	}
+
+	/**
+	 * @return Makespan of the best solution of the solver (Integer.MAX_VALUE if none).
+	 */
+	private static int bestMakespan(RCPSPSolver solver)
+	{
+		Solution best = solver.getBestSolution();
+		return (best == null) ? Integer.MAX_VALUE : best.getObjectiveValue();
+	}
+
+	/**
+	 * Publishes the state of the engine if the solver is checkpointing.
+	 */
+	private void publishState(RCPSPSolver solver, long iteration)
+	{
+		if(solver.isCheckpointing())
+		{
+			String fileName = solver.getInstance().getFileName();
+			long seed = solver.getRandomService().getSeed();
+			solver.publishState(new SearchState(fileName, NAME, seed, solver.getNbThreads(), iteration, solver.getElapsedNanos(),
+					solver.getBestSolution(), m_elite.toArray()));
+		}
+	}
+
+	/**
+	 * Builds a random topological order of the precedence graph: at each step,
+	 * an activity is drawn uniformly among the activities whose predecessors are all in the list.
+	 */
+	private static void randomActivityList(CompactInstance data, SplittableRandom random, Worker worker)
+	{
+		int[] activityList = worker.activityList;
+		int[] remaining = worker.remaining;
+		int[] eligible = worker.eligible;
+		int nbEligible = 0;
+		for(int j = 0; j < data.nbActivities; j++)
+		{
+			remaining[j] = data.predecessors[j].length;
+			if(remaining[j] == 0)
+			{
+				eligible[nbEligible++] = j;
+			}
+		}
+		for(int k = 0; k < data.nbActivities; k++)
+		{
+			int index = random.nextInt(nbEligible);
+			int j = eligible[index];
+			eligible[index] = eligible[--nbEligible];
+			activityList[k] = j;
+			for(int s : data.successors[j])
+			{
+				if(--remaining[s] == 0)
+				{
+					eligible[nbEligible++] = s;
+				}
+			}
+		}
+	}
+
+}
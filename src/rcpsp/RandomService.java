@@ -0,0 +1,104 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.SplittableRandom;
+
+/**
+ * Source of all the random numbers of a run, created from the seed given with -seed.
+ *
+ * Random generators are never shared between threads: each task gets its own
+ * <code>SplittableRandom</code>, whose seed is derived from the seed of the run
+ * and the index of the task. The generator of a
+ * task therefore does not depend on the thread that runs it nor on the order in
+ * which tasks are started, which makes parallel runs reproducible.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class RandomService {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Odd constant used to separate the streams (golden ratio) */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/** Seed of the run */
+	private final long m_seed;
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param seed Seed of the run.
+	 */
+	public RandomService(long seed)
+	{
+		m_seed = seed;
+	}
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Seed of the run */
+	public long getSeed()
+	{
+		return m_seed;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @param task Index of the task (e.g. the index of a block of iterations).
+	 * @return A new generator, always the same for a given seed and task.
+	 */
+	public SplittableRandom forTask(long task)
+	{
+		return new SplittableRandom(derive(task));
+	}
+
+	/**
+	 * @return The seed of stream id.
+	 */
+	private long derive(long id)
+	{
+		return mix64(mix64(m_seed) + GOLDEN_GAMMA * (id + 1));
+	}
+
+	/**
+	 * SplitMix64 finalizer: close inputs give unrelated outputs.
+	 *
+	 * @param z Any value.
+	 * @return The mixed value.
+	 */
+	public static long mix64(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
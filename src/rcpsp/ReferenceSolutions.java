@@ -0,0 +1,164 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Best known values of the instances, read from a file such as
+ * instances/optimal_solutions.txt.
+ *
+ * Each line of the file contains the name of an instance followed by either
+ * the optimal makespan, or an upper bound and a lower bound separated by a
+ * slash, and an optional comment. Fields are separated by any number of
+ * spaces or tabs:
+ *
+ *     j301_1      43          Optimal
+ *     j1201_1     105/104     Upper Bound / Lower Bound
+ *
+ * Instances are identified by the name of their file without directory and
+ * extension (see {@link #getKey(String)}), so "../instances/j301_1.sm" and
+ * "j301_1" refer to the same entry.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class ReferenceSolutions {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Best known makespan (upper bound) of each instance */
+	private final Map<String, Integer> m_upperBounds = new LinkedHashMap<String, Integer>();
+
+	/** Best known lower bound of each instance (equal to the upper bound if it is optimal) */
+	private final Map<String, Integer> m_lowerBounds = new LinkedHashMap<String, Integer>();
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/**
+	 * @param fileName Name (or file name) of an instance.
+	 * @return True if the file gives a value for the instance.
+	 */
+	public boolean contains(String fileName)
+	{
+		return m_upperBounds.containsKey(getKey(fileName));
+	}
+
+	/**
+	 * @param fileName Name (or file name) of an instance.
+	 * @return Best known makespan of the instance, or -1 if unknown.
+	 */
+	public int getUpperBound(String fileName)
+	{
+		Integer value = m_upperBounds.get(getKey(fileName));
+		return (value == null) ? -1 : value;
+	}
+
+	/**
+	 * @param fileName Name (or file name) of an instance.
+	 * @return Best known lower bound of the instance, or -1 if unknown.
+	 */
+	public int getLowerBound(String fileName)
+	{
+		Integer value = m_lowerBounds.get(getKey(fileName));
+		return (value == null) ? -1 : value;
+	}
+
+	/**
+	 * @param fileName Name (or file name) of an instance.
+	 * @return True if the best known makespan of the instance is optimal.
+	 */
+	public boolean isOptimal(String fileName)
+	{
+		return contains(fileName) && getUpperBound(fileName) == getLowerBound(fileName);
+	}
+
+	/** @return Number of instances in the file */
+	public int size()
+	{
+		return m_upperBounds.size();
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Reads a file of best known values.
+	 *
+	 * @param fileName Name of the file.
+	 * @throws IOException Returns an error when the file cannot be read or a line is not valid.
+	 */
+	public ReferenceSolutions(String fileName) throws IOException
+	{
+		try(BufferedReader in = new BufferedReader(new FileReader(fileName)))
+		{
+			String line;
+			int number = 0;
+			while((line = in.readLine()) != null)
+			{
+				number++;
+				String[] fields = line.trim().split("\\s+");
+				if(fields.length < 2 || fields[0].isEmpty())
+				{
+					continue;
+				}
+				try
+				{
+					int slash = fields[1].indexOf('/');
+					int upper = Integer.parseInt((slash < 0) ? fields[1] : fields[1].substring(0, slash));
+					int lower = (slash < 0) ? upper : Integer.parseInt(fields[1].substring(slash + 1));
+					String key = getKey(fields[0]);
+					m_upperBounds.put(key, upper);
+					m_lowerBounds.put(key, lower);
+				}
+				catch(NumberFormatException e)
+				{
+					throw new IOException("Line " + number + " of " + fileName + " is not valid: " + line.trim());
+				}
+			}
+		}
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @param fileName Name or file name of an instance.
+	 * @return The name of the instance: the name of the file without directory and extension.
+	 */
+	public static String getKey(String fileName)
+	{
+		String name = new File(fileName).getName();
+		int dot = name.lastIndexOf('.');
+		return (dot > 0) ? name.substring(0, dot) : name;
+	}
+
+}
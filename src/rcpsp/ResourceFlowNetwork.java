@@ -0,0 +1,802 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Arrays;
+
+/**
+ * Resource-flow network of a schedule: for each resource, the units used by
+ * an activity are handed over to the activities that follow it. An arc
+ * (i, k, r, q) says that q units of resource r go from activity i to activity
+ * k, so k begins after the end of i. The first activity (the source) gives
+ * the capacity of each resource and the last activity (the sink) takes it
+ * back. Every schedule in which each activity begins after the end of its
+ * predecessors and of the activities it receives units from is resource
+ * feasible: the network is a view of a schedule that does not depend on the
+ * horizon.
+ *
+ * The network is built from a feasible schedule in one sweep over the begin
+ * and end times (O(n log n + n R)): each resource has a pool of released
+ * units, and an activity takes its units from the activities released last.
+ * The begin times kept by the network are the earliest begin times in the
+ * graph of the precedences and of the arcs with a flow (so they are not later
+ * than the begin times of the schedule).
+ *
+ * A move reroutes q units of resource r: the flows i -> j and k -> l become
+ * i -> l and k -> j ({@link #swap(int, int, int, int, int, int)}). The flows
+ * of every activity are unchanged, and the move is feasible if it does not
+ * create a cycle, which is checked by a search among the activities that
+ * begin before i or k. A move or a new duration ({@link #setDuration(int, int)})
+ * only updates the begin times of the activities that follow it. This is the
+ * graph used to evaluate a neighbourhood without the resource profile, or to
+ * reschedule when durations change.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class ResourceFlowNetwork {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Data of the instance, in the modes of the schedule */
+	private final CompactInstance m_data;
+
+	/** Number of activities */
+	private final int m_nbActivities;
+
+	/** Number of resources */
+	private final int m_nbResources;
+
+	/** The sink: the last activity */
+	private final int m_sink;
+
+	/** Duration of each activity */
+	private final int[] m_duration;
+
+	/** Earliest begin time of each activity in the network */
+	private final int[] m_start;
+
+	/** Origin of each arc */
+	private int[] m_arcFrom;
+
+	/** Destination of each arc */
+	private int[] m_arcTo;
+
+	/** Resource of each arc */
+	private int[] m_arcResource;
+
+	/** Number of units on each arc (0 if the arc is free) */
+	private int[] m_arcFlow;
+
+	/** Number of arcs used or free */
+	private int m_nbArcs = 0;
+
+	/** Free arcs */
+	private int[] m_freeArcs;
+
+	/** Number of free arcs */
+	private int m_nbFreeArcs = 0;
+
+	/** m_out[j] contains the arcs from activity j (m_nbOut[j] first elements) */
+	private final int[][] m_out;
+
+	/** Number of arcs from each activity */
+	private final int[] m_nbOut;
+
+	/** m_in[j] contains the arcs to activity j (m_nbIn[j] first elements) */
+	private final int[][] m_in;
+
+	/** Number of arcs to each activity */
+	private final int[] m_nbIn;
+
+	/** Activities to update, in a circular buffer */
+	private final int[] m_queue;
+
+	/** True if an activity is in {@link #m_queue} */
+	private final boolean[] m_queued;
+
+	/** Position of the first activity of {@link #m_queue} */
+	private int m_head = 0;
+
+	/** Position after the last activity of {@link #m_queue} */
+	private int m_tail = 0;
+
+	/** Activities to visit by a search */
+	private final int[] m_stack;
+
+	/** m_visited[j] == m_visit if activity j was visited by the current search */
+	private final int[] m_visited;
+
+	/** Number of the current search */
+	private int m_visit = 0;
+
+	/** Activities whose begin time was changed by {@link #evaluateSwap(int, int, int, int, int, int)} */
+	private final int[] m_log;
+
+	/** Begin time of the activities of {@link #m_log} before the move */
+	private final int[] m_logStart;
+
+	/** True if an activity is in {@link #m_log} */
+	private final boolean[] m_logged;
+
+	/** Number of activities in {@link #m_log}, -1 if the changes are not logged */
+	private int m_nbLog = -1;
+
+	/** Number of moves evaluated (see {@link Metrics}) */
+	private static final Metrics.Counter EVALUATIONS = Metrics.counter("flow.evaluate");
+
+	/** Number of activities whose begin time was updated */
+	private static final Metrics.Counter UPDATES = Metrics.counter("flow.update");
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Number of activities */
+	public int getNbActivities()
+	{
+		return m_nbActivities;
+	}
+
+	/** @return Number of resources */
+	public int getNbResources()
+	{
+		return m_nbResources;
+	}
+
+	/** @return Duration of activity j */
+	public int getDuration(int j)
+	{
+		return m_duration[j];
+	}
+
+	/** @return Earliest begin time of activity j in the network */
+	public int getStartTime(int j)
+	{
+		return m_start[j];
+	}
+
+	/** @return Earliest begin time of each activity in the network (a copy) */
+	public int[] getStartTimes()
+	{
+		return m_start.clone();
+	}
+
+	/** @return Makespan of the earliest schedule of the network */
+	public int getMakespan()
+	{
+		return m_start[m_sink];
+	}
+
+	/**
+	 * @return Number of units of resource r that go from activity i to activity k
+	 */
+	public int getFlow(int i, int k, int r)
+	{
+		int a = arc(i, k, r);
+		return (a < 0) ? 0 : m_arcFlow[a];
+	}
+
+	/**
+	 * @return The activities that receive units of resource r from activity i
+	 */
+	public int[] getFlowSuccessors(int i, int r)
+	{
+		int[] successors = new int[m_nbOut[i]];
+		int nb = 0;
+		for(int k = 0; k < m_nbOut[i]; k++)
+		{
+			int a = m_out[i][k];
+			if(m_arcResource[a] == r)
+			{
+				successors[nb++] = m_arcTo[a];
+			}
+		}
+		return Arrays.copyOf(successors, nb);
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Builds the network of a solution.
+	 *
+	 * @param solution A solution whose activities are all scheduled.
+	 * @throws Exception Throw an exception if an activity is not scheduled or if the schedule is not feasible.
+	 */
+	public ResourceFlowNetwork(Solution solution) throws Exception
+	{
+		this(new CompactInstance(solution.getInstance(), solution.getModeActivities()), startTimes(solution));
+	}
+
+	/**
+	 * Builds the network of a schedule, e.g. the one of a {@link SerialSGS}.
+	 *
+	 * @param data Data of the instance, in the modes of the schedule.
+	 * @param startTimes Begin time of each activity.
+	 * @throws Exception Throw an exception if the schedule is not feasible, or if the first or the last activity consumes resources.
+	 */
+	public ResourceFlowNetwork(CompactInstance data, int[] startTimes) throws Exception
+	{
+		m_data = data;
+		m_nbActivities = data.nbActivities;
+		m_nbResources = data.nbResources;
+		m_sink = m_nbActivities - 1;
+		if(startTimes.length != m_nbActivities)
+		{
+			throw new Exception("Error: the schedule has " + startTimes.length + " activities, the instance has " + m_nbActivities);
+		}
+		for(int i = 0; i < m_nbResources; i++)
+		{
+			if(data.demand[0][i] != 0 || data.demand[m_sink][i] != 0)
+			{
+				throw new Exception("Error: the first and the last activities must not consume resources");
+			}
+		}
+		m_duration = data.duration.clone();
+		m_start = new int[m_nbActivities];
+		int capacity = 2 * m_nbActivities * m_nbResources + 16;
+		m_arcFrom = new int[capacity];
+		m_arcTo = new int[capacity];
+		m_arcResource = new int[capacity];
+		m_arcFlow = new int[capacity];
+		m_freeArcs = new int[capacity];
+		m_out = new int[m_nbActivities][4];
+		m_nbOut = new int[m_nbActivities];
+		m_in = new int[m_nbActivities][4];
+		m_nbIn = new int[m_nbActivities];
+		m_queue = new int[m_nbActivities];
+		m_queued = new boolean[m_nbActivities];
+		m_stack = new int[m_nbActivities];
+		m_visited = new int[m_nbActivities];
+		m_log = new int[m_nbActivities];
+		m_logStart = new int[m_nbActivities];
+		m_logged = new boolean[m_nbActivities];
+
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			for(int s : data.successors[j])
+			{
+				if(startTimes[s] < startTimes[j] + m_duration[j])
+				{
+					throw new Exception("Error: activity " + s + " begins before the end of its predecessor " + j);
+				}
+			}
+		}
+		build(startTimes);
+		computeStartTimes();
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @return Begin time of each activity of a solution
+	 */
+	private static int[] startTimes(Solution solution) throws Exception
+	{
+		Integer[] begins = solution.getBeginTimeActivities();
+		int[] start = new int[begins.length];
+		for(int j = 0; j < begins.length; j++)
+		{
+			if(begins[j] == null)
+			{
+				throw new Exception("Error: activity " + j + " is not scheduled");
+			}
+			start[j] = begins[j];
+		}
+		return start;
+	}
+
+	/**
+	 * Computes the flows of a schedule. The activities begin in the order of
+	 * their begin times (those of duration 0 first at a given time, the sink
+	 * last) and take their units from the pool of each resource, after the
+	 * activities that end before are put back in the pools.
+	 *
+	 * @param startTimes Begin time of each activity.
+	 * @throws Exception Throw an exception if a capacity is exceeded.
+	 */
+	private void build(int[] startTimes) throws Exception
+	{
+		long[] byStart = new long[m_nbActivities - 1];
+		long[] byEnd = new long[m_nbActivities];
+		int nbEnds = 0;
+		for(int j = 1; j < m_nbActivities; j++)
+		{
+			long rank = (j == m_sink) ? 2 : ((m_duration[j] > 0) ? 1 : 0);
+			byStart[j - 1] = ((long) startTimes[j] << 32) | (rank << 30) | j;
+			if(m_duration[j] > 0)
+			{
+				byEnd[nbEnds++] = ((long) (startTimes[j] + m_duration[j]) << 32) | j;
+			}
+		}
+		Arrays.sort(byStart);
+		byEnd = Arrays.copyOf(byEnd, nbEnds);
+		Arrays.sort(byEnd);
+
+		// Released units of each resource: activity and number of units, the last released on top
+		int[][] poolActivity = new int[m_nbResources][m_nbActivities];
+		int[][] poolUnits = new int[m_nbResources][m_nbActivities];
+		int[] poolSize = new int[m_nbResources];
+		for(int i = 0; i < m_nbResources; i++)
+		{
+			poolActivity[i][0] = 0;
+			poolUnits[i][0] = m_data.capacity[i];
+			poolSize[i] = 1;
+		}
+
+		int nextEnd = 0;
+		for(long key : byStart)
+		{
+			int j = (int) (key & 0x3FFFFFFF);
+			int time = startTimes[j];
+			for(; nextEnd < nbEnds && (byEnd[nextEnd] >>> 32) <= time; nextEnd++)
+			{
+				release((int) byEnd[nextEnd], poolActivity, poolUnits, poolSize);
+			}
+			for(int i = 0; i < m_nbResources; i++)
+			{
+				int units = (j == m_sink) ? m_data.capacity[i] : m_data.demand[j][i];
+				while(units > 0)
+				{
+					if(poolSize[i] == 0)
+					{
+						throw new Exception("Error: the schedule exceeds the capacity of resource " + i + " at time " + time);
+					}
+					int top = poolSize[i] - 1;
+					int q = Math.min(units, poolUnits[i][top]);
+					addFlow(poolActivity[i][top], j, i, q);
+					units -= q;
+					poolUnits[i][top] -= q;
+					if(poolUnits[i][top] == 0)
+					{
+						poolSize[i]--;
+					}
+				}
+			}
+			if(m_duration[j] == 0 && j != m_sink)
+			{
+				release(j, poolActivity, poolUnits, poolSize);
+			}
+		}
+	}
+
+	/**
+	 * Puts the units of activity j back in the pools.
+	 */
+	private void release(int j, int[][] poolActivity, int[][] poolUnits, int[] poolSize)
+	{
+		for(int i = 0; i < m_nbResources; i++)
+		{
+			if(m_data.demand[j][i] > 0)
+			{
+				poolActivity[i][poolSize[i]] = j;
+				poolUnits[i][poolSize[i]] = m_data.demand[j][i];
+				poolSize[i]++;
+			}
+		}
+	}
+
+	/**
+	 * @return The arc of resource r from activity i to activity k, or -1 if there is none
+	 */
+	private int arc(int i, int k, int r)
+	{
+		for(int n = 0; n < m_nbOut[i]; n++)
+		{
+			int a = m_out[i][n];
+			if(m_arcTo[a] == k && m_arcResource[a] == r)
+			{
+				return a;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds q units of resource r from activity i to activity k, on a new arc if needed.
+	 */
+	private void addFlow(int i, int k, int r, int q)
+	{
+		int a = arc(i, k, r);
+		if(a >= 0)
+		{
+			m_arcFlow[a] += q;
+			return;
+		}
+		if(m_nbFreeArcs > 0)
+		{
+			a = m_freeArcs[--m_nbFreeArcs];
+		}
+		else
+		{
+			if(m_nbArcs == m_arcFlow.length)
+			{
+				int capacity = 2 * m_nbArcs;
+				m_arcFrom = Arrays.copyOf(m_arcFrom, capacity);
+				m_arcTo = Arrays.copyOf(m_arcTo, capacity);
+				m_arcResource = Arrays.copyOf(m_arcResource, capacity);
+				m_arcFlow = Arrays.copyOf(m_arcFlow, capacity);
+				m_freeArcs = Arrays.copyOf(m_freeArcs, capacity);
+			}
+			a = m_nbArcs++;
+		}
+		m_arcFrom[a] = i;
+		m_arcTo[a] = k;
+		m_arcResource[a] = r;
+		m_arcFlow[a] = q;
+		if(m_nbOut[i] == m_out[i].length)
+		{
+			m_out[i] = Arrays.copyOf(m_out[i], 2 * m_nbOut[i]);
+		}
+		m_out[i][m_nbOut[i]++] = a;
+		if(m_nbIn[k] == m_in[k].length)
+		{
+			m_in[k] = Arrays.copyOf(m_in[k], 2 * m_nbIn[k]);
+		}
+		m_in[k][m_nbIn[k]++] = a;
+	}
+
+	/**
+	 * Removes q units from arc a, and the arc if it has no flow left.
+	 */
+	private void removeFlow(int a, int q)
+	{
+		m_arcFlow[a] -= q;
+		if(m_arcFlow[a] == 0)
+		{
+			unlink(m_out[m_arcFrom[a]], m_nbOut, m_arcFrom[a], a);
+			unlink(m_in[m_arcTo[a]], m_nbIn, m_arcTo[a], a);
+			m_freeArcs[m_nbFreeArcs++] = a;
+		}
+	}
+
+	/**
+	 * Removes arc a from the list of arcs of activity j.
+	 */
+	private static void unlink(int[] arcs, int[] nbArcs, int j, int a)
+	{
+		for(int n = 0; n < nbArcs[j]; n++)
+		{
+			if(arcs[n] == a)
+			{
+				arcs[n] = arcs[--nbArcs[j]];
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Computes the earliest begin time of every activity, in a topological
+	 * order of the graph of the precedences and of the flows.
+	 */
+	private void computeStartTimes()
+	{
+		int[] nbPredecessors = new int[m_nbActivities];
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			nbPredecessors[j] = m_data.predecessors[j].length + m_nbIn[j];
+		}
+		Arrays.fill(m_start, 0);
+		int size = 0;
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			if(nbPredecessors[j] == 0)
+			{
+				m_stack[size++] = j;
+			}
+		}
+		while(size > 0)
+		{
+			int j = m_stack[--size];
+			int end = m_start[j] + m_duration[j];
+			for(int s : m_data.successors[j])
+			{
+				m_start[s] = Math.max(m_start[s], end);
+				if(--nbPredecessors[s] == 0)
+				{
+					m_stack[size++] = s;
+				}
+			}
+			for(int n = 0; n < m_nbOut[j]; n++)
+			{
+				int s = m_arcTo[m_out[j][n]];
+				m_start[s] = Math.max(m_start[s], end);
+				if(--nbPredecessors[s] == 0)
+				{
+					m_stack[size++] = s;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds activity j to the activities whose begin time must be computed again.
+	 */
+	private void enqueue(int j)
+	{
+		if(!m_queued[j])
+		{
+			m_queued[j] = true;
+			m_queue[m_tail++ % m_nbActivities] = j;
+		}
+	}
+
+	/**
+	 * Adds the activities that follow activity j to the queue.
+	 */
+	private void enqueueSuccessors(int j)
+	{
+		for(int s : m_data.successors[j])
+		{
+			enqueue(s);
+		}
+		for(int n = 0; n < m_nbOut[j]; n++)
+		{
+			enqueue(m_arcTo[m_out[j][n]]);
+		}
+	}
+
+	/**
+	 * Computes again the begin time of the activities of the queue and of the
+	 * activities that follow them, as long as begin times change.
+	 */
+	private void propagate()
+	{
+		while(m_head < m_tail)
+		{
+			int j = m_queue[m_head++ % m_nbActivities];
+			m_queued[j] = false;
+			int start = 0;
+			for(int p : m_data.predecessors[j])
+			{
+				start = Math.max(start, m_start[p] + m_duration[p]);
+			}
+			for(int n = 0; n < m_nbIn[j]; n++)
+			{
+				int p = m_arcFrom[m_in[j][n]];
+				start = Math.max(start, m_start[p] + m_duration[p]);
+			}
+			if(start == m_start[j])
+			{
+				continue;
+			}
+			UPDATES.increment();
+			if(m_nbLog >= 0 && !m_logged[j])
+			{
+				m_logged[j] = true;
+				m_log[m_nbLog] = j;
+				m_logStart[m_nbLog++] = m_start[j];
+			}
+			m_start[j] = start;
+			enqueueSuccessors(j);
+		}
+		m_head = 0;
+		m_tail = 0;
+	}
+
+	/**
+	 * @return True if there is a path from activity from to activity to in the graph of the precedences and of the flows
+	 */
+	private boolean reaches(int from, int to)
+	{
+		if(from == to)
+		{
+			return true;
+		}
+		// Along a path the begin times do not decrease: only the activities that begin before to are visited
+		int limit = m_start[to];
+		m_visit++;
+		m_visited[from] = m_visit;
+		int size = 0;
+		m_stack[size++] = from;
+		while(size > 0)
+		{
+			int j = m_stack[--size];
+			for(int s : m_data.successors[j])
+			{
+				if(s == to)
+				{
+					return true;
+				}
+				if(m_visited[s] != m_visit && m_start[s] <= limit)
+				{
+					m_visited[s] = m_visit;
+					m_stack[size++] = s;
+				}
+			}
+			for(int n = 0; n < m_nbOut[j]; n++)
+			{
+				int s = m_arcTo[m_out[j][n]];
+				if(s == to)
+				{
+					return true;
+				}
+				if(m_visited[s] != m_visit && m_start[s] <= limit)
+				{
+					m_visited[s] = m_visit;
+					m_stack[size++] = s;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks a move of {@link #swap(int, int, int, int, int, int)}.
+	 *
+	 * @return True if the move does not create a cycle.
+	 * @throws Exception Throw an exception if the arcs do not carry q units of resource r.
+	 */
+	private boolean isPossibleToSwap(int r, int i, int j, int k, int l, int q) throws Exception
+	{
+		int a = arc(i, j, r);
+		int b = arc(k, l, r);
+		if(q <= 0 || a < 0 || b < 0 || m_arcFlow[a] < q || m_arcFlow[b] < q)
+		{
+			throw new Exception("Error: the flows " + i + " -> " + j + " and " + k + " -> " + l + " do not carry " + q + " units of resource " + r);
+		}
+		if(i == k || j == l)
+		{
+			return true;
+		}
+		if(i == l || k == j)
+		{
+			return false;
+		}
+		// A cycle uses i -> l (a path from l to i), k -> j (a path from j to k) or both
+		return !reaches(l, i) && !reaches(j, k) && !(reaches(l, k) && reaches(j, i));
+	}
+
+	/**
+	 * Moves q units of resource r: the flows i -> j and k -> l become i -> l and k -> j.
+	 */
+	private void reroute(int r, int i, int j, int k, int l, int q)
+	{
+		removeFlow(arc(i, j, r), q);
+		removeFlow(arc(k, l, r), q);
+		addFlow(i, l, r, q);
+		addFlow(k, j, r, q);
+		enqueue(j);
+		enqueue(l);
+		propagate();
+	}
+
+	/**
+	 * Reroutes q units of resource r: the flows i -> j and k -> l become i -> l
+	 * and k -> j. The move is done only if it does not create a cycle, and the
+	 * begin times of the activities that follow j and l are updated.
+	 *
+	 * @param r The resource.
+	 * @param i Origin of the first flow.
+	 * @param j Destination of the first flow.
+	 * @param k Origin of the second flow.
+	 * @param l Destination of the second flow.
+	 * @param q Number of units to move.
+	 * @return True if the move is done, false if it creates a cycle.
+	 * @throws Exception Throw an exception if the flows i -> j and k -> l do not carry q units of resource r.
+	 */
+	public boolean swap(int r, int i, int j, int k, int l, int q) throws Exception
+	{
+		if(!isPossibleToSwap(r, i, j, k, l, q))
+		{
+			return false;
+		}
+		if(i != k && j != l)
+		{
+			reroute(r, i, j, k, l, q);
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluates a move of {@link #swap(int, int, int, int, int, int)} without doing it.
+	 *
+	 * @param r The resource.
+	 * @param i Origin of the first flow.
+	 * @param j Destination of the first flow.
+	 * @param k Origin of the second flow.
+	 * @param l Destination of the second flow.
+	 * @param q Number of units to move.
+	 * @return The makespan after the move, or -1 if the move creates a cycle.
+	 * @throws Exception Throw an exception if the flows i -> j and k -> l do not carry q units of resource r.
+	 */
+	public int evaluateSwap(int r, int i, int j, int k, int l, int q) throws Exception
+	{
+		EVALUATIONS.increment();
+		if(!isPossibleToSwap(r, i, j, k, l, q))
+		{
+			return -1;
+		}
+		if(i == k || j == l)
+		{
+			return getMakespan();
+		}
+		m_nbLog = 0;
+		reroute(r, i, j, k, l, q);
+		int makespan = getMakespan();
+
+		// Undo the move and restore the begin times
+		removeFlow(arc(i, l, r), q);
+		removeFlow(arc(k, j, r), q);
+		addFlow(i, j, r, q);
+		addFlow(k, l, r, q);
+		for(int n = 0; n < m_nbLog; n++)
+		{
+			m_start[m_log[n]] = m_logStart[n];
+			m_logged[m_log[n]] = false;
+		}
+		m_nbLog = -1;
+		return makespan;
+	}
+
+	/**
+	 * Changes the duration of an activity and updates the begin times of the
+	 * activities that follow it. The flows do not change, so the schedule stays
+	 * resource feasible (e.g. to reschedule after a disruption).
+	 *
+	 * @param j The activity.
+	 * @param duration The new duration.
+	 * @return The new makespan.
+	 * @throws Exception Throw an exception if the duration is negative.
+	 */
+	public int setDuration(int j, int duration) throws Exception
+	{
+		if(duration < 0)
+		{
+			throw new Exception("Error: the duration of activity " + j + " cannot be " + duration);
+		}
+		m_duration[j] = duration;
+		enqueueSuccessors(j);
+		propagate();
+		return getMakespan();
+	}
+
+	/**
+	 * Creates a solution from the earliest begin times of the network.
+	 *
+	 * @return A new solution.
+	 * @throws Exception Throw an exception if a duration was changed by {@link #setDuration(int, int)}: the instance does not match the network anymore.
+	 */
+	public Solution toSolution() throws Exception
+	{
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			if(m_duration[j] != m_data.duration[j])
+			{
+				throw new Exception("Error: the duration of activity " + j + " is not the one of the instance");
+			}
+		}
+		Solution solution = new Solution(m_data.getInstance());
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			solution.setModeActivity(j, (m_data.modes == null) ? 0 : m_data.modes[j]);
+			solution.addActivity(j, m_start[j]);
+		}
+		solution.evaluate();
+		return solution;
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+/**
+ * Consumption of the resources at each time of a solution, see {@link Solution}.
+ *
+ * The profile has a number of time units (the horizon) that grows on demand,
+ * and knows the end of its used part: after {@link #getEnd()} every value is
+ * 0, so that {@link #clear()} and {@link #copyFrom(ResourceProfile)} only touch
+ * the used part when the horizon is much longer than the schedule.
+ *
+ * Two implementations: {@link HeapProfile} stores the values in an int array
+ * of the heap, {@link OffHeapProfile} in direct buffers allocated by a
+ * {@link ProfileArena}. A profile is not thread-safe.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+abstract class ResourceProfile {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Number of resources */
+	protected final int m_nbResources;
+
+	/** Number of time units */
+	protected int m_horizon;
+
+	/** Every value at a time not before m_end is 0 */
+	protected int m_end;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Number of resources */
+	int getNbResources()
+	{
+		return m_nbResources;
+	}
+
+	/** @return Number of time units */
+	int getHorizon()
+	{
+		return m_horizon;
+	}
+
+	/** @return A time such that every value at a later time is 0 */
+	int getEnd()
+	{
+		return m_end;
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param nbResources Number of resources.
+	 * @param horizon Number of time units.
+	 */
+	protected ResourceProfile(int nbResources, int horizon)
+	{
+		m_nbResources = nbResources;
+		m_horizon = horizon;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @return The consumption of resource i at time t.
+	 */
+	abstract int get(int i, int t);
+
+	/**
+	 * Sets the consumption of resource i at time t.
+	 */
+	abstract void set(int i, int t, int value);
+
+	/**
+	 * Adds the demand of an activity from time from to time to (excluded), see {@link ProfileKernel#add(int[], int[], int, int)}.
+	 */
+	abstract void add(int[] demand, int from, int to);
+
+	/**
+	 * Removes the demand of an activity from time from to time to (excluded), see {@link ProfileKernel#subtract(int[], int[], int, int)}.
+	 */
+	abstract void subtract(int[] demand, int from, int to);
+
+	/**
+	 * @return The first time of [from, to) at which the activity does not fit, or -1, see {@link ProfileKernel#firstConflict(int[], int[], int[], int, int)}.
+	 */
+	abstract int firstConflict(int[] demand, int[] capacity, int from, int to);
+
+	/**
+	 * @return The first time of [from, to) at which a resource exceeds its capacity, or -1, see {@link ProfileKernel#firstExcess(int[], int[], int, int)}.
+	 */
+	abstract int firstExcess(int[] capacity, int from, int to);
+
+	/**
+	 * Sets every value to 0.
+	 */
+	abstract void clear();
+
+	/**
+	 * Makes the profile at least horizon time units long (the values are kept).
+	 *
+	 * @param horizon Number of time units.
+	 */
+	abstract void grow(int horizon);
+
+	/**
+	 * Replaces the values by the values of another profile, with a bulk copy
+	 * of the used part. The horizon grows if it is shorter than the horizon
+	 * of the other profile.
+	 *
+	 * @param profile The profile to copy, with the same number of resources.
+	 */
+	abstract void copyFrom(ResourceProfile profile);
+
+	/**
+	 * Frees the memory of the profile, which must not be used anymore
+	 * (nothing to do for a profile on the heap).
+	 */
+	void free()
+	{
+	}
+
+	/**
+	 * Copies the values of a profile of another implementation, time by time.
+	 */
+	protected void copyValues(ResourceProfile profile)
+	{
+		grow(profile.m_horizon);
+		int end = Math.max(m_end, profile.m_end);
+		for(int t = 0; t < end; t++)
+		{
+			for(int i = 0; i < m_nbResources; i++)
+			{
+				set(i, t, (t < profile.m_end) ? profile.get(i, t) : 0);
+			}
+		}
+		m_end = profile.m_end;
+	}
+
+}
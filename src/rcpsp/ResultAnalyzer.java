@@ -0,0 +1,806 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Analysis of the result lines written by {@link Main} or {@link BatchMain}
+ * (e.g. benchmark/standardOutput.txt), and comparison with a baseline run.
+ *
+ * **command**: java rcpsp.ResultAnalyzer [options] resultFile
+ * **Options**:
+ *  - -help :prints this parameter description
+ *  - -reference (file) :best known values of the instances (instances/optimal_solutions.txt), see {@link ReferenceSolutions}
+ *  - -progress (file) :JSON lines written with the option -progress during the run, to compute the time to target
+ *  - -target (double) :the target of an instance is the best known value plus this gap in % (0 by default)
+ *  - -baseline (file) :result file of the baseline run
+ *  - -baselineProgress (file) :JSON lines written during the baseline run
+ *  - -alpha (double) :significance level of the tests (0.05 by default)
+ *  - -csv (file) :writes the analysis of each instance in a CSV file
+ *  - -json (file) :writes the analysis in a JSON file
+ *
+ * For each instance the analyser computes, over the runs found in the result
+ * file: the best and mean makespans, the gap (in %) to the best known lower
+ * bound (the optimum when it is known, the lower bound of the result line if
+ * the instance is not in the reference file), the number of runs reaching the
+ * target, the time to target (first improving solution of the progress file
+ * under the target) and the number of unfeasible (e = 1) and overtime (e = 2)
+ * runs. The time of a run is its time to target, or its total time if it did
+ * not reach the target or if there is no progress file.
+ *
+ * When a baseline is given, the gaps and times of each instance are compared
+ * with a rank-sum test (needs several runs per instance), and the mean gaps and
+ * times of the instances with a paired signed-rank test (see {@link Statistics}).
+ * A regression is reported when an instance of the baseline is missing, when
+ * an instance has more failed runs, or when a test finds the new runs worse
+ * or slower at the significance level. In this case the program ends with exit
+ * code 2, so that it can be used to decide whether a change of the solver is kept.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class ResultAnalyzer {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Exit code of the program when a regression is found */
+	public static final int REGRESSION = 2;
+
+	/**
+	 * Analysis of the runs of one instance.
+	 */
+	static final class InstanceReport
+	{
+		/** Name of the instance */
+		String name;
+		/** Best known makespan (-1 if unknown) */
+		int reference = -1;
+		/** Lower bound used to compute the gaps (-1 if unknown) */
+		int lowerBound = -1;
+		/** True if the best known makespan is optimal */
+		boolean optimal;
+		/** Target makespan (-1 if unknown) */
+		int target = -1;
+		/** Number of runs */
+		int nbRuns;
+		/** Best makespan of the feasible runs (-1 if none) */
+		int best = -1;
+		/** Mean makespan of the feasible runs */
+		double meanObjective = Double.NaN;
+		/** Gap (in %) of each run, infinite for an unfeasible run */
+		double[] gaps;
+		/** Time (in milliseconds) of each run: time to target, or total time */
+		double[] times;
+		/** Mean time to target of the runs that reached it (NaN if unknown) */
+		double meanTimeToTarget = Double.NaN;
+		/** Number of runs reaching the target */
+		int nbReached;
+		/** Number of unfeasible runs */
+		int nbUnfeasible;
+		/** Number of runs returned after the time limit */
+		int nbOvertime;
+
+		/** Analysis of the same instance in the baseline (null if none) */
+		InstanceReport baseline;
+		/** p-value of "the gaps are larger than in the baseline" */
+		double pWorse = Double.NaN;
+		/** p-value of "the times are larger than in the baseline" */
+		double pSlower = Double.NaN;
+		/** Result of the comparison with the baseline */
+		String status = "";
+
+		double meanGap()
+		{
+			return Statistics.mean(gaps);
+		}
+
+		double meanTime()
+		{
+			return Statistics.mean(times);
+		}
+
+		int nbFailures()
+		{
+			return nbUnfeasible + nbOvertime;
+		}
+	}
+
+	/** Best known values (null if none) */
+	private ReferenceSolutions m_reference;
+
+	/** Gap (in %) to the best known value defining the target */
+	private double m_targetGap = 0;
+
+	/** Significance level of the tests */
+	private double m_alpha = 0.05;
+
+	/** p-value of "the mean gaps are larger than in the baseline" over all instances */
+	private double m_pWorse = Double.NaN;
+
+	/** p-value of "the mean times are larger than in the baseline" over all instances */
+	private double m_pSlower = Double.NaN;
+
+	/** Geometric mean over all instances of the ratio of the mean times to the baseline */
+	private double m_timeRatio = Double.NaN;
+
+	/** Number of regressions found by the comparison */
+	private int m_nbRegressions = 0;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/**
+	 * @param reference Best known values (null if none).
+	 */
+	public void setReference(ReferenceSolutions reference)
+	{
+		this.m_reference = reference;
+	}
+
+	/**
+	 * @param targetGap Gap (in %) to the best known value defining the target.
+	 */
+	public void setTargetGap(double targetGap)
+	{
+		this.m_targetGap = targetGap;
+	}
+
+	/**
+	 * @param alpha Significance level of the tests.
+	 */
+	public void setAlpha(double alpha)
+	{
+		this.m_alpha = alpha;
+	}
+
+	/** @return Number of regressions found by the last comparison */
+	public int getNbRegressions()
+	{
+		return m_nbRegressions;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Main method.
+	 *
+	 * @param arg program parameters.
+	 */
+	public static void main(String[] arg) {
+		ResultAnalyzer analyzer = new ResultAnalyzer();
+		String resultFile = null;
+		String progressFile = null;
+		String baselineFile = null;
+		String baselineProgressFile = null;
+		String csvFile = null;
+		String jsonFile = null;
+
+		// Parse command line
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].compareTo("-help") == 0) {
+				System.err.println("The Resource-Constrained Project Scheduling Problem - analysis of results");
+				System.err.println("Program parameters:");
+				System.err.println("command: java rcpsp.ResultAnalyzer [options] resultFile");
+				System.err.println("Options:");
+				System.err.println("\t-help\t: prints this parameter description");
+				System.err.println("\t-reference\t: best known values of the instances (optimal_solutions.txt)");
+				System.err.println("\t-progress\t: JSON lines written with -progress during the run");
+				System.err.println("\t-target\t\t: gap in % to the best known value defining the target (double, 0 by default)");
+				System.err.println("\t-baseline\t: result file of the baseline run");
+				System.err.println("\t-baselineProgress\t: JSON lines written with -progress during the baseline run");
+				System.err.println("\t-alpha\t\t: significance level of the tests (double, 0.05 by default)");
+				System.err.println("\t-csv\t\t: writes the analysis of each instance in a CSV file");
+				System.err.println("\t-json\t\t: writes the analysis in a JSON file");
+				return;
+			}
+			try {
+				if (arg[i].startsWith("-") && i + 1 >= arg.length) {
+					throw new IllegalArgumentException("Error: a value is expected after " + arg[i] + ".");
+				}
+				switch (arg[i]) {
+				case "-reference":
+					analyzer.setReference(new ReferenceSolutions(arg[++i]));
+					break;
+				case "-progress":
+					progressFile = arg[++i];
+					break;
+				case "-target":
+					analyzer.setTargetGap(Double.parseDouble(arg[++i]));
+					break;
+				case "-baseline":
+					baselineFile = arg[++i];
+					break;
+				case "-baselineProgress":
+					baselineProgressFile = arg[++i];
+					break;
+				case "-alpha":
+					analyzer.setAlpha(Double.parseDouble(arg[++i]));
+					break;
+				case "-csv":
+					csvFile = arg[++i];
+					break;
+				case "-json":
+					jsonFile = arg[++i];
+					break;
+				default:
+					if (resultFile != null || arg[i].startsWith("-")) {
+						throw new IllegalArgumentException("Error: Value " + arg[i] + " is not a valid parameter.");
+					}
+					resultFile = arg[i];
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("Error: The value given for " + arg[i - 1] + " is not a valid number.");
+				System.exit(1);
+			} catch (IllegalArgumentException | IOException e) {
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+
+		if (resultFile == null) {
+			System.err.println("Error : you must specify a result file as parameter.");
+			System.exit(1);
+		}
+
+		try
+		{
+			Map<String, InstanceReport> reports = analyzer.analyze(readResults(resultFile),
+					(progressFile == null) ? null : readProgress(progressFile));
+			if (baselineFile != null) {
+				Map<String, InstanceReport> baseline = analyzer.analyze(readResults(baselineFile),
+						(baselineProgressFile == null) ? null : readProgress(baselineProgressFile));
+				analyzer.compare(reports, baseline);
+			}
+			analyzer.print(reports, baselineFile != null);
+			if (csvFile != null) {
+				analyzer.writeCsv(csvFile, reports, baselineFile != null);
+			}
+			if (jsonFile != null) {
+				analyzer.writeJson(jsonFile, reports, baselineFile != null);
+			}
+			if (analyzer.getNbRegressions() > 0) {
+				System.exit(REGRESSION);
+			}
+		} catch (Exception e) {
+			System.err.printf("Error: %s", e.getMessage());
+			System.err.println();
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Reads the result lines of a file; the other lines are ignored.
+	 *
+	 * @param fileName Name of the file.
+	 * @return The results, in the order of the file.
+	 * @throws IOException Returns an error when the file cannot be read.
+	 */
+	public static List<RunResult> readResults(String fileName) throws IOException
+	{
+		List<RunResult> results = new ArrayList<RunResult>();
+		try(BufferedReader in = new BufferedReader(new FileReader(fileName)))
+		{
+			String line;
+			while((line = in.readLine()) != null)
+			{
+				RunResult result = RunResult.parse(line);
+				if(result != null)
+				{
+					results.add(result);
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Reads a progress file written by {@link JsonLinesProgressSink}.
+	 *
+	 * The events of an instance are split in runs: a new run begins when the
+	 * time goes back or the makespan does not improve.
+	 *
+	 * @param fileName Name of the file.
+	 * @return For each instance (see {@link ReferenceSolutions#getKey(String)}), the list of its runs;
+	 *         each run is a list of {time in milliseconds, makespan}.
+	 * @throws IOException Returns an error when the file cannot be read.
+	 */
+	public static Map<String, List<List<double[]>>> readProgress(String fileName) throws IOException
+	{
+		Map<String, List<List<double[]>>> progress = new LinkedHashMap<String, List<List<double[]>>>();
+		try(BufferedReader in = new BufferedReader(new FileReader(fileName)))
+		{
+			String line;
+			while((line = in.readLine()) != null)
+			{
+				String instance = field(line, "instance");
+				String time = field(line, "time");
+				String makespan = field(line, "makespan");
+				if(instance == null || time == null || makespan == null)
+				{
+					continue;
+				}
+				double[] event;
+				try
+				{
+					event = new double[] {Double.parseDouble(time), Integer.parseInt(makespan)};
+				}
+				catch(NumberFormatException e)
+				{
+					continue;
+				}
+				List<List<double[]>> runs = progress.computeIfAbsent(ReferenceSolutions.getKey(instance), k -> new ArrayList<List<double[]>>());
+				List<double[]> run = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+				if(run == null || event[0] < run.get(run.size() - 1)[0] || event[1] >= run.get(run.size() - 1)[1])
+				{
+					run = new ArrayList<double[]>();
+					runs.add(run);
+				}
+				run.add(event);
+			}
+		}
+		return progress;
+	}
+
+	/**
+	 * @return The value of a field of a JSON line (without quotes for a string), or null if the field is missing.
+	 */
+	private static String field(String line, String key)
+	{
+		String pattern = "\"" + key + "\":";
+		int start = line.indexOf(pattern);
+		if(start < 0)
+		{
+			return null;
+		}
+		start += pattern.length();
+		if(start < line.length() && line.charAt(start) == '"')
+		{
+			StringBuilder value = new StringBuilder();
+			for(int k = start + 1; k < line.length(); k++)
+			{
+				char c = line.charAt(k);
+				if(c == '"')
+				{
+					return value.toString();
+				}
+				if(c == '\\' && k + 1 < line.length())
+				{
+					c = line.charAt(++k);
+				}
+				value.append(c);
+			}
+			return null;
+		}
+		int end = start;
+		while(end < line.length() && line.charAt(end) != ',' && line.charAt(end) != '}')
+		{
+			end++;
+		}
+		return line.substring(start, end).trim();
+	}
+
+	/**
+	 * Analyses the runs of each instance.
+	 *
+	 * @param results Result lines.
+	 * @param progress Runs read by {@link #readProgress(String)} (null if none).
+	 * @return The analysis of each instance, in the order of the results.
+	 */
+	public Map<String, InstanceReport> analyze(List<RunResult> results, Map<String, List<List<double[]>>> progress)
+	{
+		Map<String, List<RunResult>> runs = new LinkedHashMap<String, List<RunResult>>();
+		for(RunResult result : results)
+		{
+			runs.computeIfAbsent(ReferenceSolutions.getKey(result.getFileName()), k -> new ArrayList<RunResult>()).add(result);
+		}
+
+		Map<String, InstanceReport> reports = new LinkedHashMap<String, InstanceReport>();
+		for(Map.Entry<String, List<RunResult>> entry : runs.entrySet())
+		{
+			InstanceReport report = new InstanceReport();
+			report.name = entry.getKey();
+			List<RunResult> instanceRuns = entry.getValue();
+			if(m_reference != null && m_reference.contains(report.name))
+			{
+				report.reference = m_reference.getUpperBound(report.name);
+				report.lowerBound = m_reference.getLowerBound(report.name);
+				report.optimal = m_reference.isOptimal(report.name);
+				report.target = (int) Math.floor(report.reference * (1 + m_targetGap / 100) + 1e-9);
+			}
+			else
+			{
+				for(RunResult result : instanceRuns)
+				{
+					report.lowerBound = Math.max(report.lowerBound, result.getLowerBound());
+				}
+			}
+
+			int n = instanceRuns.size();
+			report.nbRuns = n;
+			report.gaps = new double[n];
+			report.times = new double[n];
+			double sum = 0;
+			int nbFeasible = 0;
+			for(int k = 0; k < n; k++)
+			{
+				RunResult result = instanceRuns.get(k);
+				report.times[k] = result.getTime();
+				if(result.getErrorCode() == RunResult.UNFEASIBLE)
+				{
+					report.nbUnfeasible++;
+					report.gaps[k] = Double.POSITIVE_INFINITY;
+					continue;
+				}
+				if(result.getErrorCode() == RunResult.OVERTIME)
+				{
+					report.nbOvertime++;
+				}
+				int objective = result.getObjectiveValue();
+				sum += objective;
+				nbFeasible++;
+				report.best = (report.best < 0) ? objective : Math.min(report.best, objective);
+				report.gaps[k] = (report.lowerBound > 0) ? 100.0 * (objective - report.lowerBound) / report.lowerBound : Double.NaN;
+				if(report.target >= 0 && objective <= report.target)
+				{
+					report.nbReached++;
+				}
+			}
+			if(nbFeasible > 0)
+			{
+				report.meanObjective = sum / nbFeasible;
+			}
+
+			// Time to target: first improving solution under the target in each run of the progress file
+			List<List<double[]>> instanceProgress = (progress == null) ? null : progress.get(report.name);
+			if(instanceProgress != null && report.target >= 0)
+			{
+				List<Double> timesToTarget = new ArrayList<Double>();
+				for(int k = 0; k < instanceProgress.size(); k++)
+				{
+					double timeToTarget = Double.NaN;
+					for(double[] event : instanceProgress.get(k))
+					{
+						if(event[1] <= report.target)
+						{
+							timeToTarget = event[0];
+							break;
+						}
+					}
+					if(!Double.isNaN(timeToTarget))
+					{
+						timesToTarget.add(timeToTarget);
+						if(k < n && instanceRuns.get(k).getErrorCode() != RunResult.UNFEASIBLE)
+						{
+							report.times[k] = timeToTarget;
+						}
+					}
+				}
+				double[] values = new double[timesToTarget.size()];
+				for(int k = 0; k < values.length; k++)
+				{
+					values[k] = timesToTarget.get(k);
+				}
+				report.meanTimeToTarget = Statistics.mean(values);
+			}
+			reports.put(report.name, report);
+		}
+		return reports;
+	}
+
+	/**
+	 * Compares the analysis of a run with the analysis of the baseline, and
+	 * counts the regressions (see {@link #getNbRegressions()}).
+	 *
+	 * @param reports Analysis of the run (the baseline of each instance is set).
+	 * @param baseline Analysis of the baseline run.
+	 */
+	public void compare(Map<String, InstanceReport> reports, Map<String, InstanceReport> baseline)
+	{
+		m_nbRegressions = 0;
+		List<Double> gapDifferences = new ArrayList<Double>();
+		List<Double> logTimeRatios = new ArrayList<Double>();
+		for(InstanceReport base : baseline.values())
+		{
+			InstanceReport report = reports.get(base.name);
+			if(report == null)
+			{
+				System.err.println("Regression: instance " + base.name + " of the baseline is missing");
+				m_nbRegressions++;
+				continue;
+			}
+			report.baseline = base;
+			report.pWorse = Statistics.rankSumTest(report.gaps, base.gaps);
+			report.pSlower = Statistics.rankSumTest(report.times, base.times);
+			double pBetter = Statistics.rankSumTest(base.gaps, report.gaps);
+			double pFaster = Statistics.rankSumTest(base.times, report.times);
+			if((double) report.nbFailures() / report.nbRuns > (double) base.nbFailures() / base.nbRuns)
+			{
+				report.status = "failures";
+			}
+			else if(report.pWorse < m_alpha)
+			{
+				report.status = "quality regression";
+			}
+			else if(report.pSlower < m_alpha)
+			{
+				report.status = "slowdown";
+			}
+			else if(pBetter < m_alpha || pFaster < m_alpha)
+			{
+				report.status = "improvement";
+			}
+			else
+			{
+				report.status = "unchanged";
+			}
+			if(!report.status.equals("unchanged") && !report.status.equals("improvement"))
+			{
+				m_nbRegressions++;
+			}
+
+			double gapDifference = report.meanGap() - base.meanGap();
+			if(!Double.isNaN(gapDifference))
+			{
+				gapDifferences.add(gapDifference);
+			}
+			if(report.meanTime() > 0 && base.meanTime() > 0)
+			{
+				logTimeRatios.add(Math.log(report.meanTime() / base.meanTime()));
+			}
+		}
+
+		// Paired tests over the instances
+		m_pWorse = Statistics.signedRankTest(toArray(gapDifferences));
+		double[] ratios = toArray(logTimeRatios);
+		m_pSlower = Statistics.signedRankTest(ratios);
+		m_timeRatio = Math.exp(Statistics.mean(ratios));
+		if(m_pWorse < m_alpha)
+		{
+			System.err.println("Regression: the gaps are larger than in the baseline (p = " + formatP(m_pWorse) + ")");
+			m_nbRegressions++;
+		}
+		if(m_pSlower < m_alpha)
+		{
+			System.err.println("Regression: the runs are slower than in the baseline (p = " + formatP(m_pSlower) + ")");
+			m_nbRegressions++;
+		}
+	}
+
+	/**
+	 * Prints the analysis on the standard output.
+	 *
+	 * @param reports Analysis of each instance.
+	 * @param compared True if the reports were compared with a baseline.
+	 */
+	public void print(Map<String, InstanceReport> reports, boolean compared)
+	{
+		System.out.printf("%-12s %5s %7s %7s %9s %9s %11s %11s %7s %5s%s%n", "instance", "runs", "best", "ref", "gap(%)", "maxGap", "time(ms)", "ttt(ms)", "reached", "fail",
+				compared ? String.format(" %9s %9s %8s %8s  %s", "baseGap", "baseTime", "pWorse", "pSlower", "status") : "");
+		for(InstanceReport report : reports.values())
+		{
+			String reference = (report.reference < 0) ? "-" : report.reference + (report.optimal ? "*" : "");
+			System.out.printf("%-12s %5d %7d %7s %9s %9s %11s %11s %7d %5d%s%n", report.name, report.nbRuns, report.best, reference,
+					format(report.meanGap()), format(Statistics.max(report.gaps)), format(report.meanTime()), format(report.meanTimeToTarget),
+					report.nbReached, report.nbFailures(),
+					(compared && report.baseline != null) ? String.format(" %9s %9s %8s %8s  %s", format(report.baseline.meanGap()), format(report.baseline.meanTime()),
+							formatP(report.pWorse), formatP(report.pSlower), report.status) : "");
+		}
+		System.out.println("Instances: " + reports.size() + ", runs: " + total(reports, "runs") + ", reached: " + total(reports, "reached")
+				+ ", unfeasible: " + total(reports, "unfeasible") + ", overtime: " + total(reports, "overtime"));
+		System.out.println("Mean gap: " + format(meanOf(reports, true)) + " %, mean time: " + format(meanOf(reports, false)) + " ms");
+		if(compared)
+		{
+			System.out.println("Baseline: pWorse = " + formatP(m_pWorse) + ", pSlower = " + formatP(m_pSlower) + ", time ratio = " + format(m_timeRatio)
+					+ ", regressions: " + m_nbRegressions);
+		}
+	}
+
+	/**
+	 * Writes the analysis of each instance in a CSV file.
+	 *
+	 * @param fileName Name of the file.
+	 * @param reports Analysis of each instance.
+	 * @param compared True if the reports were compared with a baseline.
+	 * @throws IOException Returns an error when the file cannot be written.
+	 */
+	public void writeCsv(String fileName, Map<String, InstanceReport> reports, boolean compared) throws IOException
+	{
+		try(PrintWriter out = new PrintWriter(fileName))
+		{
+			out.print("instance,runs,reference,lowerBound,optimal,target,best,meanObjective,meanGap,maxGap,meanTime,meanTimeToTarget,reached,unfeasible,overtime");
+			out.println(compared ? ",baselineMeanGap,baselineMeanTime,pWorse,pSlower,status" : "");
+			for(InstanceReport report : reports.values())
+			{
+				out.print(report.name + "," + report.nbRuns + "," + report.reference + "," + report.lowerBound + "," + report.optimal + "," + report.target
+						+ "," + report.best + "," + format(report.meanObjective) + "," + format(report.meanGap()) + "," + format(Statistics.max(report.gaps))
+						+ "," + format(report.meanTime()) + "," + format(report.meanTimeToTarget) + "," + report.nbReached + "," + report.nbUnfeasible + "," + report.nbOvertime);
+				if(compared)
+				{
+					InstanceReport base = report.baseline;
+					out.print("," + ((base == null) ? "" : format(base.meanGap())) + "," + ((base == null) ? "" : format(base.meanTime()))
+							+ "," + formatP(report.pWorse) + "," + formatP(report.pSlower) + "," + report.status);
+				}
+				out.println();
+			}
+		}
+	}
+
+	/**
+	 * Writes the analysis in a JSON file: an object with the aggregate values
+	 * ("summary"), the values of each instance ("instances") and, if there is a
+	 * baseline, the result of the comparison ("comparison").
+	 *
+	 * @param fileName Name of the file.
+	 * @param reports Analysis of each instance.
+	 * @param compared True if the reports were compared with a baseline.
+	 * @throws IOException Returns an error when the file cannot be written.
+	 */
+	public void writeJson(String fileName, Map<String, InstanceReport> reports, boolean compared) throws IOException
+	{
+		StringBuilder json = new StringBuilder();
+		json.append("{\n  \"summary\": {\"instances\": ").append(reports.size());
+		json.append(", \"runs\": ").append(total(reports, "runs"));
+		json.append(", \"reached\": ").append(total(reports, "reached"));
+		json.append(", \"unfeasible\": ").append(total(reports, "unfeasible"));
+		json.append(", \"overtime\": ").append(total(reports, "overtime"));
+		json.append(", \"meanGap\": ").append(jsonNumber(meanOf(reports, true)));
+		json.append(", \"meanTime\": ").append(jsonNumber(meanOf(reports, false)));
+		json.append("},\n  \"instances\": [");
+		String separator = "\n";
+		for(InstanceReport report : reports.values())
+		{
+			json.append(separator).append("    {\"instance\": ");
+			JsonLinesProgressSink.appendString(report.name, json);
+			json.append(", \"runs\": ").append(report.nbRuns);
+			json.append(", \"reference\": ").append(report.reference);
+			json.append(", \"lowerBound\": ").append(report.lowerBound);
+			json.append(", \"optimal\": ").append(report.optimal);
+			json.append(", \"target\": ").append(report.target);
+			json.append(", \"best\": ").append(report.best);
+			json.append(", \"meanObjective\": ").append(jsonNumber(report.meanObjective));
+			json.append(", \"meanGap\": ").append(jsonNumber(report.meanGap()));
+			json.append(", \"maxGap\": ").append(jsonNumber(Statistics.max(report.gaps)));
+			json.append(", \"meanTime\": ").append(jsonNumber(report.meanTime()));
+			json.append(", \"meanTimeToTarget\": ").append(jsonNumber(report.meanTimeToTarget));
+			json.append(", \"reached\": ").append(report.nbReached);
+			json.append(", \"unfeasible\": ").append(report.nbUnfeasible);
+			json.append(", \"overtime\": ").append(report.nbOvertime);
+			if(compared && report.baseline != null)
+			{
+				json.append(", \"baselineMeanGap\": ").append(jsonNumber(report.baseline.meanGap()));
+				json.append(", \"baselineMeanTime\": ").append(jsonNumber(report.baseline.meanTime()));
+				json.append(", \"pWorse\": ").append(jsonNumber(report.pWorse));
+				json.append(", \"pSlower\": ").append(jsonNumber(report.pSlower));
+				json.append(", \"status\": ");
+				JsonLinesProgressSink.appendString(report.status, json);
+			}
+			json.append("}");
+			separator = ",\n";
+		}
+		json.append("\n  ]");
+		if(compared)
+		{
+			json.append(",\n  \"comparison\": {\"alpha\": ").append(jsonNumber(m_alpha));
+			json.append(", \"pWorse\": ").append(jsonNumber(m_pWorse));
+			json.append(", \"pSlower\": ").append(jsonNumber(m_pSlower));
+			json.append(", \"timeRatio\": ").append(jsonNumber(m_timeRatio));
+			json.append(", \"regressions\": ").append(m_nbRegressions);
+			json.append("}");
+		}
+		json.append("\n}\n");
+		try(PrintWriter out = new PrintWriter(fileName))
+		{
+			out.print(json);
+		}
+	}
+
+	/**
+	 * @return The sum of a counter ("runs", "reached", "unfeasible" or "overtime") over the instances.
+	 */
+	private static int total(Map<String, InstanceReport> reports, String counter)
+	{
+		int total = 0;
+		for(InstanceReport report : reports.values())
+		{
+			switch(counter)
+			{
+			case "runs":
+				total += report.nbRuns;
+				break;
+			case "reached":
+				total += report.nbReached;
+				break;
+			case "unfeasible":
+				total += report.nbUnfeasible;
+				break;
+			default:
+				total += report.nbOvertime;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @return The mean over the instances of their mean gap (if gap is true) or mean time.
+	 */
+	private static double meanOf(Map<String, InstanceReport> reports, boolean gap)
+	{
+		double[] values = new double[reports.size()];
+		int k = 0;
+		for(InstanceReport report : reports.values())
+		{
+			values[k++] = gap ? report.meanGap() : report.meanTime();
+		}
+		return Statistics.mean(values);
+	}
+
+	private static double[] toArray(List<Double> values)
+	{
+		double[] array = new double[values.size()];
+		for(int k = 0; k < array.length; k++)
+		{
+			array[k] = values.get(k);
+		}
+		return array;
+	}
+
+	/**
+	 * @return The value with 2 decimals, or an empty string if it is not a number.
+	 */
+	private static String format(double value)
+	{
+		if(Double.isNaN(value))
+		{
+			return "";
+		}
+		return Double.isInfinite(value) ? "inf" : String.format(Locale.ROOT, "%.2f", value);
+	}
+
+	/**
+	 * @return The p-value with 4 decimals, or an empty string if it is not a number.
+	 */
+	private static String formatP(double value)
+	{
+		return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.4f", value);
+	}
+
+	/**
+	 * @return The value as a JSON number, or null if it is not a finite number.
+	 */
+	private static String jsonNumber(double value)
+	{
+		return Double.isFinite(value) ? Double.toString(value) : "null";
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Locale;
+
+/**
+ * Result of a {@link SolverRun}: the returned solution and the values printed
+ * on the result line, see {@link #toString()}.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class RunResult {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** No error: the solution is feasible and returned within the time limit */
+	public static final int OK = 0;
+
+	/** Error code of an unfeasible solution */
+	public static final int UNFEASIBLE = 1;
+
+	/** Error code of a solution returned after the time limit */
+	public static final int OVERTIME = 2;
+
+	/** Name of the instance file */
+	private final String m_fileName;
+
+	/** Solution returned by the solver */
+	private final Solution m_solution;
+
+	/** Objective value of the solution */
+	private final int m_objectiveValue;
+
+	/** Time (in milliseconds) used by the solver */
+	private final long m_time;
+
+	/** Error code: {@link #OK}, {@link #UNFEASIBLE} or {@link #OVERTIME} */
+	private final int m_errorCode;
+
+	/** Lower bound on the makespan */
+	private final int m_lowerBound;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Name of the instance file */
+	public String getFileName()
+	{
+		return m_fileName;
+	}
+
+	/** @return Solution returned by the solver */
+	public Solution getSolution()
+	{
+		return m_solution;
+	}
+
+	/** @return Objective value of the solution */
+	public int getObjectiveValue()
+	{
+		return m_objectiveValue;
+	}
+
+	/** @return Time (in milliseconds) used by the solver */
+	public long getTime()
+	{
+		return m_time;
+	}
+
+	/** @return Error code: {@link #OK}, {@link #UNFEASIBLE} or {@link #OVERTIME} */
+	public int getErrorCode()
+	{
+		return m_errorCode;
+	}
+
+	/** @return Lower bound on the makespan */
+	public int getLowerBound()
+	{
+		return m_lowerBound;
+	}
+
+	/** @return Relative gap (in %) between the objective value and the lower bound */
+	public double getGap()
+	{
+		return (m_lowerBound > 0) ? 100.0 * (m_objectiveValue - m_lowerBound) / m_lowerBound : 0.0;
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param fileName Name of the instance file.
+	 * @param solution Solution returned by the solver.
+	 * @param objectiveValue Objective value of the solution.
+	 * @param time Time (in milliseconds) used by the solver.
+	 * @param errorCode Error code.
+	 * @param lowerBound Lower bound on the makespan.
+	 */
+	public RunResult(String fileName, Solution solution, int objectiveValue, long time, int errorCode, int lowerBound)
+	{
+		m_fileName = fileName;
+		m_solution = solution;
+		m_objectiveValue = objectiveValue;
+		m_time = time;
+		m_errorCode = errorCode;
+		m_lowerBound = lowerBound;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * @return The result line: fileName;objectiveValue;time;e;lowerBound;gap
+	 */
+	@Override
+	public String toString()
+	{
+		return m_fileName + ";" + m_objectiveValue + ";" + m_time + ";" + m_errorCode + ";" + m_lowerBound + ";" + String.format(Locale.ROOT, "%.2f", getGap());
+	}
+
+	/**
+	 * Reads a result line written by {@link #toString()}. The lower bound and the
+	 * gap are optional, for the lines written by older versions (lower bound 0).
+	 *
+	 * @param line A line of the standard output of {@link Main} or {@link BatchMain}.
+	 * @return The result (without solution), or null if the line is not a result line.
+	 */
+	public static RunResult parse(String line)
+	{
+		String[] fields = line.trim().split(";");
+		if(fields.length < 4 || fields[0].isEmpty())
+		{
+			return null;
+		}
+		try
+		{
+			int objectiveValue = Integer.parseInt(fields[1].trim());
+			long time = Long.parseLong(fields[2].trim());
+			int errorCode = Integer.parseInt(fields[3].trim());
+			int lowerBound = (fields.length > 4) ? Integer.parseInt(fields[4].trim()) : 0;
+			return new RunResult(fields[0].trim(), null, objectiveValue, time, errorCode, lowerBound);
+		}
+		catch(NumberFormatException e)
+		{
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,510 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Repair of a schedule after disruptions, see {@link Solution#repair(int, int, Disruption...)}.
+ *
+ * The durations, demands and begin times are copied in primitive arrays and
+ * the resource profile of the solution is updated in place. An activity that
+ * must move is removed from the profile and put in a queue ordered by its old
+ * begin time; when it is scheduled again, its successors that now begin too
+ * early are removed in turn. A capacity that is exceeded (by a drop, a longer
+ * duration or a started activity) is restored by removing the activities that
+ * begin last at the time of the excess. The work is proportional to the part
+ * of the schedule that moves, not to the size of the instance.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+final class ScheduleRepair {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** The repaired solution */
+	private final Solution m_solution;
+
+	/** Number of activities */
+	private final int m_nbActivities;
+
+	/** Number of resources */
+	private final int m_nbResources;
+
+	/** Current time */
+	private final int m_now;
+
+	/** Begin time of each activity (-1 while it is removed) */
+	private final int[] m_start;
+
+	/** Begin time of each activity before the repair (-1 if it was not scheduled) */
+	private final int[] m_oldStart;
+
+	/** Duration of each activity */
+	private final int[] m_duration;
+
+	/** m_demand[j][i] is the consumption of resource i by activity j */
+	private final int[][] m_demand;
+
+	/** Capacity of each resource (without drop) */
+	private final int[] m_capacity;
+
+	/** Direct successors of each activity */
+	private final int[][] m_successors;
+
+	/** Direct predecessors of each activity */
+	private final int[][] m_predecessors;
+
+	/** True if an activity cannot move */
+	private final boolean[] m_fixed;
+
+	/** Smallest begin time of each removed activity: its old begin time */
+	private final int[] m_minStart;
+
+	/** Removed activities, by smallest begin time */
+	private final PriorityQueue<Integer> m_queue;
+
+	/** Activities whose begin time or duration changed */
+	private final List<Integer> m_touched = new ArrayList<Integer>();
+
+	/** Consumption of the resources (the profile of the solution) */
+	private final ResourceProfile m_profile;
+
+	/** False if the fixed activities exceed a constraint */
+	private boolean m_feasible = true;
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param solution The solution to repair, its activities must all be scheduled.
+	 * @param now Current time: the activities that began before it do not move.
+	 * @throws Exception Throw an exception if an activity of the solution is not scheduled.
+	 */
+	ScheduleRepair(Solution solution, int now) throws Exception
+	{
+		Instance instance = solution.getInstance();
+		m_solution = solution;
+		m_nbActivities = instance.getNbActivities();
+		m_nbResources = instance.getNbResources();
+		m_now = now;
+		m_profile = solution.getProfile();
+
+		m_start = new int[m_nbActivities];
+		m_duration = new int[m_nbActivities];
+		m_demand = new int[m_nbActivities][m_nbResources];
+		m_fixed = new boolean[m_nbActivities];
+		m_minStart = new int[m_nbActivities];
+		m_successors = new int[m_nbActivities][];
+		int[] nbPred = new int[m_nbActivities];
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			Integer begin = solution.getBeginTimeActivities()[j];
+			if(begin == null)
+			{
+				throw new Exception("Error: activity " + j + " is not scheduled, the schedule cannot be repaired");
+			}
+			m_start[j] = begin;
+			m_fixed[j] = begin < now;
+			m_duration[j] = solution.durationActivity(j);
+			for(int i = 0; i < m_nbResources; i++)
+			{
+				m_demand[j][i] = solution.consumptionActivity(i, j);
+			}
+			m_successors[j] = instance.getDirectSuccessors(j);
+			for(int s : m_successors[j])
+			{
+				nbPred[s]++;
+			}
+		}
+		m_oldStart = m_start.clone();
+		m_predecessors = new int[m_nbActivities][];
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			m_predecessors[j] = new int[nbPred[j]];
+		}
+		Arrays.fill(nbPred, 0);
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			for(int s : m_successors[j])
+			{
+				m_predecessors[s][nbPred[s]++] = j;
+			}
+		}
+		m_capacity = new int[m_nbResources];
+		for(int i = 0; i < m_nbResources; i++)
+		{
+			m_capacity[i] = instance.getCapacityResource(i);
+		}
+		m_queue = new PriorityQueue<Integer>(16, (a, b) -> (m_minStart[a] != m_minStart[b]) ? Integer.compare(m_minStart[a], m_minStart[b]) : Integer.compare(a, b));
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Applies the disruptions and repairs the schedule.
+	 *
+	 * @param effort Maximum number of activities tried by the local improvement.
+	 * @param disruptions The disruptions.
+	 * @return True if the repaired schedule is feasible.
+	 * @throws Exception Throw an exception if a disruption does not correspond to the instance.
+	 */
+	boolean run(int effort, Disruption... disruptions) throws Exception
+	{
+		List<int[]> excesses = new ArrayList<int[]>();
+		for(Disruption d : disruptions)
+		{
+			int j = d.getIndex();
+			int limit = (d.getType() == Disruption.Type.CAPACITY) ? m_nbResources : m_nbActivities;
+			if(j < 0 || j >= limit)
+			{
+				throw new Exception("Error: " + d + " does not correspond to the instance");
+			}
+			switch(d.getType())
+			{
+			case DURATION:
+				setDuration(j, d.getValue());
+				m_touched.add(j);
+				if(m_fixed[j])
+				{
+					place(j, m_start[j]);
+					excesses.add(new int[] {m_start[j], m_start[j] + m_duration[j]});
+				}
+				else if(m_start[j] >= 0)
+				{
+					remove(j);
+				}
+				break;
+			case CAPACITY:
+				dropCapacity(j, d.getFrom(), d.getTo(), d.getValue());
+				excesses.add(new int[] {d.getFrom(), d.getTo()});
+				break;
+			default:
+				if(m_start[j] >= 0)
+				{
+					unplace(j);
+				}
+				m_queue.remove(j);
+				m_fixed[j] = true;
+				m_touched.add(j);
+				place(j, d.getValue());
+				excesses.add(new int[] {m_start[j], m_start[j] + m_duration[j]});
+			}
+		}
+
+		// Restore the capacities, then schedule the removed activities again
+		for(int[] interval : excesses)
+		{
+			resolveExcess(interval[0], interval[1]);
+		}
+		while(!m_queue.isEmpty())
+		{
+			int j = m_queue.poll();
+			place(j, earliestStart(j, m_minStart[j]));
+		}
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			if(m_start[j] != m_oldStart[j])
+			{
+				m_touched.add(j);
+			}
+		}
+		if(effort > 0)
+		{
+			improve(effort);
+		}
+
+		// Copy the schedule into the solution
+		Integer[] begins = m_solution.getBeginTimeActivities();
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			if(m_start[j] != m_oldStart[j])
+			{
+				begins[j] = m_start[j];
+			}
+		}
+		m_solution.evaluate();
+		return m_feasible;
+	}
+
+	/**
+	 * Changes the duration of an activity in the solution.
+	 */
+	private void setDuration(int j, int duration)
+	{
+		if(m_start[j] >= 0)
+		{
+			unplace(j);
+		}
+		if(m_solution.m_duration == null)
+		{
+			m_solution.m_duration = new int[m_nbActivities];
+			Arrays.fill(m_solution.m_duration, -1);
+		}
+		m_solution.m_duration[j] = duration;
+		m_duration[j] = duration;
+	}
+
+	/**
+	 * Lowers the capacity of resource i from time from to time to in the solution.
+	 */
+	private void dropCapacity(int i, int from, int to, int amount)
+	{
+		if(m_solution.m_capacityDrop == null)
+		{
+			m_solution.m_capacityDrop = new int[m_nbResources][];
+		}
+		int[] drop = m_solution.m_capacityDrop[i];
+		if(drop == null || drop.length < to)
+		{
+			drop = (drop == null) ? new int[to] : Arrays.copyOf(drop, to);
+			m_solution.m_capacityDrop[i] = drop;
+		}
+		for(int t = from; t < to; t++)
+		{
+			drop[t] += amount;
+		}
+	}
+
+	/**
+	 * @return The capacity of resource i at time t.
+	 */
+	private int capacity(int i, int t)
+	{
+		int[][] drops = m_solution.m_capacityDrop;
+		if(drops != null && drops[i] != null && t < drops[i].length)
+		{
+			return m_capacity[i] - drops[i][t];
+		}
+		return m_capacity[i];
+	}
+
+	/**
+	 * Removes the consumption of activity j from the profile (the activity stays at its begin time).
+	 */
+	private void unplace(int j)
+	{
+		m_profile.subtract(m_demand[j], m_start[j], m_start[j] + m_duration[j]);
+	}
+
+	/**
+	 * Removes activity j from the schedule, it will be scheduled again after its old begin time.
+	 */
+	private void remove(int j)
+	{
+		m_minStart[j] = Math.max(m_start[j], m_now);
+		m_start[j] = -1;
+		m_queue.add(j);
+	}
+
+	/**
+	 * Schedules activity j at time time and removes the successors that begin before its end.
+	 */
+	private void place(int j, int time)
+	{
+		int end = time + m_duration[j];
+		ensureHorizon(end);
+		m_start[j] = time;
+		m_profile.add(m_demand[j], time, end);
+		for(int s : m_successors[j])
+		{
+			if(m_start[s] >= 0 && m_start[s] < end)
+			{
+				if(m_fixed[s])
+				{
+					m_feasible = false;
+				}
+				else
+				{
+					unplace(s);
+					remove(s);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Makes the profile long enough to hold an activity that ends at time end.
+	 */
+	private void ensureHorizon(int end)
+	{
+		int horizon = m_profile.getHorizon();
+		if(horizon < end)
+		{
+			m_profile.grow(Math.max(end, 2 * horizon));
+		}
+	}
+
+	/**
+	 * @return The earliest time, not before time min nor before the end of the
+	 *         scheduled predecessors, at which activity j fits in the profile.
+	 */
+	private int earliestStart(int j, int min)
+	{
+		int time = min;
+		for(int p : m_predecessors[j])
+		{
+			if(m_start[p] >= 0)
+			{
+				time = Math.max(time, m_start[p] + m_duration[p]);
+			}
+		}
+		int[] demand = m_demand[j];
+		for(int i = 0; i < m_nbResources; i++)
+		{
+			if(demand[i] > m_capacity[i])
+			{
+				// The activity never fits
+				m_feasible = false;
+				return time;
+			}
+		}
+		int duration = m_duration[j];
+		ensureHorizon(time + duration);
+		int t = time;
+		while(t < time + duration)
+		{
+			boolean fits = true;
+			for(int i = 0; i < m_nbResources && fits; i++)
+			{
+				fits = m_profile.get(i, t) + demand[i] <= capacity(i, t);
+			}
+			if(fits)
+			{
+				t++;
+			}
+			else
+			{
+				time = t + 1;
+				t = time;
+				ensureHorizon(time + duration);
+			}
+		}
+		return time;
+	}
+
+	/**
+	 * Removes the activities that begin last until no capacity is exceeded from time from to time to.
+	 */
+	private void resolveExcess(int from, int to)
+	{
+		to = Math.min(to, m_profile.getHorizon());
+		for(int t = from; t < to; t++)
+		{
+			for(int i = 0; i < m_nbResources; i++)
+			{
+				while(m_profile.get(i, t) > capacity(i, t))
+				{
+					// The movable activity in progress at time t that begins last
+					int last = -1;
+					for(int j = 0; j < m_nbActivities; j++)
+					{
+						if(m_start[j] >= 0 && !m_fixed[j] && m_demand[j][i] > 0 && m_start[j] <= t && t < m_start[j] + m_duration[j]
+								&& (last < 0 || m_start[j] >= m_start[last]))
+						{
+							last = j;
+						}
+					}
+					if(last < 0)
+					{
+						m_feasible = false;
+						break;
+					}
+					unplace(last);
+					remove(last);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Local improvement: the activities that moved, or whose duration changed,
+	 * and their successors are moved earlier when the resources allow it, in
+	 * the order of their begin times; an activity that moves earlier adds its
+	 * successors to the candidates.
+	 *
+	 * @param effort Maximum number of activities tried.
+	 */
+	private void improve(int effort)
+	{
+		boolean[] candidate = new boolean[m_nbActivities];
+		PriorityQueue<Integer> candidates = new PriorityQueue<Integer>(16, (a, b) -> (m_start[a] != m_start[b]) ? Integer.compare(m_start[a], m_start[b]) : Integer.compare(a, b));
+		for(int j : m_touched)
+		{
+			for(int s : m_successors[j])
+			{
+				if(!candidate[s])
+				{
+					candidate[s] = true;
+					candidates.add(s);
+				}
+			}
+			if(!candidate[j])
+			{
+				candidate[j] = true;
+				candidates.add(j);
+			}
+		}
+		for(int k = 0; k < effort && !candidates.isEmpty(); k++)
+		{
+			int j = candidates.poll();
+			candidate[j] = false;
+			if(m_fixed[j])
+			{
+				continue;
+			}
+			int old = m_start[j];
+			unplace(j);
+			m_start[j] = -1;
+			int time = earliestStart(j, m_now);
+			int latestEnd = Integer.MAX_VALUE;
+			for(int s : m_successors[j])
+			{
+				latestEnd = Math.min(latestEnd, m_start[s]);
+			}
+			if(time < old && time + m_duration[j] <= latestEnd)
+			{
+				place(j, time);
+				for(int s : m_successors[j])
+				{
+					if(!candidate[s])
+					{
+						candidate[s] = true;
+						candidates.add(s);
+					}
+				}
+			}
+			else
+			{
+				place(j, old);
+			}
+		}
+	}
+
+}
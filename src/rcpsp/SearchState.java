@@ -0,0 +1,374 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Immutable snapshot of the state of a search, used to checkpoint a run and
+ * to resume it later (see {@link CheckpointWriter}).
+ *
+ * An engine publishes a snapshot with {@link RCPSPSolver#publishState(SearchState)}
+ * at the beginning of a block of iterations: the snapshot contains the best
+ * schedule, the pool of elite activity lists of the engine (see {@link ElitePool}),
+ * the seed of the random number generator, the number of threads and the
+ * iteration counter. Engines derive their random numbers from (seed, iteration),
+ * so a run resumed with the same seed and number of threads continues the
+ * interrupted run exactly when its blocks are run in order (deterministic mode).
+ * Otherwise the blocks after the published one may already have been done,
+ * or blocks before it may still have been running, so the resumed run does
+ * some blocks again or skips a few. {@link #checkResume(RCPSPSolver, boolean)}
+ * refuses to resume with another seed or number of threads.
+ *
+ * Binary format (big endian): magic, version, instance file name, engine name,
+ * seed, number of threads, iteration, elapsed time, number of activities n, makespan, a boolean
+ * telling whether there is a schedule, the n begin times if there is one (-1
+ * for an activity without begin time), the number of elite lists and the n
+ * activities of each list.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class SearchState {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** First bytes of a checkpoint file ("RCPK") */
+	private static final int MAGIC = 0x5243504B;
+
+	/** Version of the file format */
+	private static final int VERSION = 2;
+
+	/** Name of the instance file */
+	private final String m_fileName;
+
+	/** Name of the engine that published the state */
+	private final String m_engine;
+
+	/** Seed of the random number generator */
+	private final long m_seed;
+
+	/** Number of threads of the run */
+	private final int m_nbThreads;
+
+	/** Number of iterations done */
+	private final long m_iteration;
+
+	/** Time elapsed since the beginning of the search (in nanoseconds) */
+	private final long m_elapsedNanos;
+
+	/** Makespan of the best schedule (0 if none) */
+	private final int m_makespan;
+
+	/** Begin times of the best schedule (null if none) */
+	private final int[] m_beginTimes;
+
+	/** Elite activity lists */
+	private final int[][] m_elite;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Name of the instance file */
+	public String getFileName()
+	{
+		return m_fileName;
+	}
+
+	/** @return Name of the engine that published the state */
+	public String getEngine()
+	{
+		return m_engine;
+	}
+
+	/** @return Seed of the random number generator */
+	public long getSeed()
+	{
+		return m_seed;
+	}
+
+	/** @return Number of threads of the run */
+	public int getNbThreads()
+	{
+		return m_nbThreads;
+	}
+
+	/** @return Number of iterations done */
+	public long getIteration()
+	{
+		return m_iteration;
+	}
+
+	/** @return Time elapsed since the beginning of the search (in nanoseconds) */
+	public long getElapsedNanos()
+	{
+		return m_elapsedNanos;
+	}
+
+	/** @return Makespan of the best schedule (0 if none) */
+	public int getMakespan()
+	{
+		return m_makespan;
+	}
+
+	/** @return Begin times of the best schedule (null if none, do not modify) */
+	public int[] getBeginTimes()
+	{
+		return m_beginTimes;
+	}
+
+	/** @return Elite activity lists (do not modify) */
+	public int[][] getElite()
+	{
+		return m_elite;
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Creates a snapshot. The arrays are copied.
+	 *
+	 * @param fileName Name of the instance file.
+	 * @param engine Name of the engine.
+	 * @param seed Seed of the random number generator.
+	 * @param nbThreads Number of threads of the run.
+	 * @param iteration Number of iterations done.
+	 * @param elapsedNanos Time elapsed since the beginning of the search (in nanoseconds).
+	 * @param best Best solution found so far (may be null).
+	 * @param elite Elite activity lists (may be null).
+	 */
+	public SearchState(String fileName, String engine, long seed, int nbThreads, long iteration, long elapsedNanos, Solution best, int[][] elite)
+	{
+		m_fileName = fileName;
+		m_engine = engine;
+		m_seed = seed;
+		m_nbThreads = nbThreads;
+		m_iteration = iteration;
+		m_elapsedNanos = elapsedNanos;
+		if(best == null)
+		{
+			m_makespan = 0;
+			m_beginTimes = null;
+		}
+		else
+		{
+			m_makespan = best.getObjectiveValue();
+			Integer[] beginTimes = best.getBeginTimeActivities();
+			m_beginTimes = new int[beginTimes.length];
+			for(int j = 0; j < beginTimes.length; j++)
+			{
+				m_beginTimes[j] = (beginTimes[j] == null) ? -1 : beginTimes[j];
+			}
+		}
+		if(elite == null)
+		{
+			m_elite = new int[0][];
+		}
+		else
+		{
+			m_elite = new int[elite.length][];
+			for(int k = 0; k < elite.length; k++)
+			{
+				m_elite[k] = elite[k].clone();
+			}
+		}
+	}
+
+	private SearchState(String fileName, String engine, long seed, int nbThreads, long iteration, long elapsedNanos, int makespan, int[] beginTimes, int[][] elite)
+	{
+		m_fileName = fileName;
+		m_engine = engine;
+		m_seed = seed;
+		m_nbThreads = nbThreads;
+		m_iteration = iteration;
+		m_elapsedNanos = elapsedNanos;
+		m_makespan = makespan;
+		m_beginTimes = beginTimes;
+		m_elite = elite;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Checks that a solver can resume the search of the snapshot: an engine calls
+	 * it before continuing from the iteration of its own snapshot.
+	 *
+	 * @param solver The solver.
+	 * @param sameThreads true if the engine needs the same number of threads to draw the same random numbers.
+	 * @throws Exception Throw an exception if the seed or the number of threads of the solver are not those of the snapshot.
+	 */
+	public void checkResume(RCPSPSolver solver, boolean sameThreads) throws Exception
+	{
+		if(solver.getRandomService().getSeed() != m_seed)
+		{
+			throw new Exception("Error: the checkpoint was saved with the seed " + m_seed + ", the run uses the seed " + solver.getRandomService().getSeed());
+		}
+		if(sameThreads && solver.getNbThreads() != m_nbThreads)
+		{
+			throw new Exception("Error: the checkpoint was saved with " + m_nbThreads + " thread(s), use -threads " + m_nbThreads + " to resume it");
+		}
+	}
+
+	/**
+	 * Creates a solution from the best schedule of the snapshot. The activities of
+	 * a multi-mode instance are in the modes chosen by {@link CompactInstance#selectModes()},
+	 * the modes used by the engines.
+	 *
+	 * @param instance The instance of the problem.
+	 * @return A new solution, or null if the snapshot contains no schedule.
+	 * @throws Exception Throw an exception if the snapshot does not correspond to the instance.
+	 */
+	public Solution toSolution(Instance instance) throws Exception
+	{
+		return toSolution(instance, null);
+	}
+
+	/**
+	 * Creates a solution from the best schedule of the snapshot, see {@link #toSolution(Instance)}.
+	 *
+	 * @param instance The instance of the problem.
+	 * @param arena The arena of the solution (null to store its profile on the heap).
+	 * @return A new solution, or null if the snapshot contains no schedule.
+	 * @throws Exception Throw an exception if the snapshot does not correspond to the instance.
+	 */
+	public Solution toSolution(Instance instance, ProfileArena arena) throws Exception
+	{
+		if(m_beginTimes == null)
+		{
+			return null;
+		}
+		if(m_beginTimes.length != instance.getNbActivities())
+		{
+			throw new Exception("Error: the checkpoint has " + m_beginTimes.length + " activities, the instance has " + instance.getNbActivities());
+		}
+		Solution solution = new Solution(instance, arena);
+		int[] modes = instance.isMultiMode() ? new CompactInstance(instance).modes : new int[m_beginTimes.length];
+		for(int j = 0; j < m_beginTimes.length; j++)
+		{
+			solution.setModeActivity(j, modes[j]);
+			solution.addActivity(j, m_beginTimes[j]);
+		}
+		solution.evaluate();
+		return solution;
+	}
+
+	/**
+	 * Writes the snapshot in a file.
+	 *
+	 * @param fileName Name of the file.
+	 * @throws IOException Returns an error when the file cannot be written.
+	 */
+	public void write(String fileName) throws IOException
+	{
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName))))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(m_fileName);
+			out.writeUTF(m_engine);
+			out.writeLong(m_seed);
+			out.writeInt(m_nbThreads);
+			out.writeLong(m_iteration);
+			out.writeLong(m_elapsedNanos);
+			int n = (m_beginTimes == null) ? ((m_elite.length == 0) ? 0 : m_elite[0].length) : m_beginTimes.length;
+			out.writeInt(n);
+			out.writeInt(m_makespan);
+			out.writeBoolean(m_beginTimes != null);
+			if(m_beginTimes != null)
+			{
+				for(int t : m_beginTimes)
+				{
+					out.writeInt(t);
+				}
+			}
+			out.writeInt(m_elite.length);
+			for(int[] list : m_elite)
+			{
+				for(int j : list)
+				{
+					out.writeInt(j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a snapshot written by {@link #write(String)}.
+	 *
+	 * @param fileName Name of the file.
+	 * @return The snapshot.
+	 * @throws IOException Returns an error when the file cannot be read or is not a checkpoint.
+	 */
+	public static SearchState read(String fileName) throws IOException
+	{
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName))))
+		{
+			if(in.readInt() != MAGIC)
+			{
+				throw new IOException("The file " + fileName + " is not a checkpoint file.");
+			}
+			int version = in.readInt();
+			if(version != VERSION)
+			{
+				throw new IOException("The checkpoint file " + fileName + " has version " + version + ", expected " + VERSION + ".");
+			}
+			String instance = in.readUTF();
+			String engine = in.readUTF();
+			long seed = in.readLong();
+			int nbThreads = in.readInt();
+			long iteration = in.readLong();
+			long elapsed = in.readLong();
+			int n = in.readInt();
+			int makespan = in.readInt();
+			int[] beginTimes = null;
+			if(in.readBoolean())
+			{
+				beginTimes = new int[n];
+				for(int j = 0; j < n; j++)
+				{
+					beginTimes[j] = in.readInt();
+				}
+			}
+			int[][] elite = new int[in.readInt()][n];
+			for(int[] list : elite)
+			{
+				for(int k = 0; k < n; k++)
+				{
+					list[k] = in.readInt();
+				}
+			}
+			return new SearchState(instance, engine, seed, nbThreads, iteration, elapsed, makespan, beginTimes, elite);
+		}
+	}
+
+}
@@ -0,0 +1,225 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Arrays;
+
+/**
+ * Serial schedule generation scheme (SGS).
+ *
+ * The decoder takes an activity list, i.e. a permutation of the activities in
+ * which every activity appears after all its predecessors, and schedules the
+ * activities one by one in this order at their earliest feasible start time.
+ * The activities are in the modes of {@link CompactInstance#modes}, or in the
+ * modes given to {@link #decode(int[], int[])} for a multi-mode instance.
+ *
+ * The object keeps its own resource profile, stored time-major and checked with
+ * a {@link ProfileKernel}, and can decode many activity lists
+ * without allocating memory. It is not thread-safe: use one decoder per thread.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class SerialSGS {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Data of the problem */
+	private final CompactInstance m_data;
+
+	/** m_profile[t * nbResources + i] is the consumption of resource i at time t */
+	private final int[] m_profile;
+
+	/** Operations on the profile */
+	private final ProfileKernel m_kernel;
+
+	/** Demands of the activity in its mode (multi-mode decoding) */
+	private final int[] m_demand;
+
+	/** Begin time of each activity in the last decoded schedule */
+	private final int[] m_start;
+
+	/** End time of each activity in the last decoded schedule */
+	private final int[] m_end;
+
+	/** Modes of the last decoded schedule */
+	private int[] m_modes;
+
+	/** Makespan of the last decoded schedule */
+	private int m_makespan;
+
+	/** Number of decoded activity lists (see {@link Metrics}) */
+	private static final Metrics.Counter DECODES = Metrics.counter("sgs.decode");
+
+	/** Number of mode vectors rejected before decoding */
+	private static final Metrics.Counter REJECTED = Metrics.counter("sgs.decode.rejected");
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return The begin times of the last decoded schedule (do not modify). */
+	public int[] getStartTimes()
+	{
+		return m_start;
+	}
+
+	/** @return The modes of the last decoded schedule (do not modify). */
+	public int[] getModes()
+	{
+		return m_modes;
+	}
+
+	/** @return The makespan of the last decoded schedule. */
+	public int getMakespan()
+	{
+		return m_makespan;
+	}
+
+	/** @return The data of the problem. */
+	public CompactInstance getData()
+	{
+		return m_data;
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param data The data of the problem.
+	 */
+	public SerialSGS(CompactInstance data)
+	{
+		m_data = data;
+		// maximum horizon time : the sum of all activities duration (in their longest mode)
+		m_profile = new int[(data.sumMaxDurations() + 1) * data.nbResources];
+		m_kernel = ProfileKernel.create(data.nbResources);
+		m_demand = new int[data.nbResources];
+		m_start = new int[data.nbActivities];
+		m_end = new int[data.nbActivities];
+		m_modes = data.modes;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Decodes an activity list.
+	 *
+	 * @param activityList A precedence feasible permutation of the activities.
+	 * @return The makespan of the schedule.
+	 */
+	public int decode(int[] activityList)
+	{
+		DECODES.increment();
+		clear();
+		m_modes = m_data.modes;
+		for(int j : activityList)
+		{
+			schedule(j, m_data.duration[j], m_data.demand[j]);
+		}
+		return m_makespan;
+	}
+
+	/**
+	 * Decodes an activity list with a mode for every activity. The mode vector
+	 * is first checked with {@link CompactInstance#isFeasible(int[])}, so that
+	 * the modes that violate the nonrenewable resources are rejected without
+	 * decoding.
+	 *
+	 * @param activityList A precedence feasible permutation of the activities.
+	 * @param modes modes[j] is the mode of activity j (kept until the next decoding).
+	 * @return The makespan of the schedule, or -1 if the mode vector is not feasible.
+	 */
+	public int decode(int[] activityList, int[] modes)
+	{
+		if(!m_data.isFeasible(modes))
+		{
+			REJECTED.increment();
+			return -1;
+		}
+		DECODES.increment();
+		clear();
+		m_modes = modes;
+		int nbResources = m_data.nbResources;
+		for(int j : activityList)
+		{
+			int mode = m_data.modeOffset[j] + modes[j];
+			System.arraycopy(m_data.modeDemand, mode * nbResources, m_demand, 0, nbResources);
+			schedule(j, m_data.modeDuration[mode], m_demand);
+		}
+		return m_makespan;
+	}
+
+	/**
+	 * Empties the resource profile of the last schedule.
+	 */
+	private void clear()
+	{
+		Arrays.fill(m_profile, 0, m_makespan * m_data.nbResources, 0);
+		m_makespan = 0;
+	}
+
+	/**
+	 * Schedules an activity at its earliest feasible start time.
+	 *
+	 * @param j The activity, its predecessors are already scheduled.
+	 * @param duration Duration of the activity.
+	 * @param demand Demand of the activity for each resource.
+	 */
+	private void schedule(int j, int duration, int[] demand)
+	{
+		// Precedence constraints
+		int time = 0;
+		for(int p : m_data.predecessors[j])
+		{
+			time = Math.max(time, m_end[p]);
+		}
+
+		// Resource constraints: jump after the last conflicting time
+		time = m_kernel.earliestFit(m_profile, demand, m_data.capacity, time, duration);
+
+		m_start[j] = time;
+		m_end[j] = time + duration;
+		m_kernel.add(m_profile, demand, time, time + duration);
+		m_makespan = Math.max(m_makespan, time + duration);
+	}
+
+	/**
+	 * Copies the last decoded schedule into a solution.
+	 *
+	 * @param solution The solution to fill.
+	 * @throws Exception Throw an exception if the solution does not correspond to the same instance.
+	 */
+	public void toSolution(Solution solution) throws Exception
+	{
+		for(int j = 0; j < m_data.nbActivities; j++)
+		{
+			solution.setModeActivity(j, m_modes[j]);
+			solution.addActivity(j, m_start[j]);
+		}
+		solution.evaluate();
+	}
+
+}
@@ -0,0 +1,448 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Slacks and critical chain of the schedule of a {@link Solution}, kept up to
+ * date as the solution changes.
+ *
+ * For a scheduled activity j of begin time S and end time E:
+ *  - the forward slack is the number of time units j can be delayed alone:
+ *    its successors do not move, the makespan does not increase and the
+ *    resources have room for j from time E on;
+ *  - the backward slack is the number of time units j can be moved earlier
+ *    alone, after the end of its predecessors and before time S;
+ *  - j is critical if delaying it delays the makespan: it ends at the
+ *    makespan, or it ends when a critical activity k begins and k is a
+ *    direct successor of j or k uses a resource that has no room left for j
+ *    at the begin time of k (a resource link). The critical activities form
+ *    the critical chain(s) from the beginning to the end of the schedule.
+ * In a partial schedule, the successors (predecessors) of an activity are the
+ * nearest scheduled activities that follow (precede) it, through the activities
+ * that are not scheduled.
+ *
+ * The solution reports each interval of time in which an activity appears or
+ * disappears ({@link #changed(int, int, int)}). Only the slacks whose window
+ * (the times scanned to compute them) meets such an interval, and those of the
+ * direct predecessors and successors of the activity, are computed again when
+ * they are read; the critical chain is computed again in one pass over the
+ * precedence and resource links (O(n log n + arcs)) after a change.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+final class SlackTracker {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Number of changes between two reads after which every slack is computed again */
+	private static final int MAX_CHANGES = 32;
+
+	/** Solution of the schedule */
+	private final Solution m_solution;
+
+	/** Number of activities */
+	private final int m_nbActivities;
+
+	/** Number of resources */
+	private final int m_nbResources;
+
+	/** Direct successors of each activity */
+	private final int[][] m_successors;
+
+	/** Direct predecessors of each activity */
+	private final int[][] m_predecessors;
+
+	/** Forward slack of each activity, -1 if it must be computed */
+	private final int[] m_forward;
+
+	/** Backward slack of each activity, -1 if it must be computed */
+	private final int[] m_backward;
+
+	/** Begin time of each activity when its slacks were computed */
+	private final int[] m_start;
+
+	/** End time of each activity when its slacks were computed */
+	private final int[] m_end;
+
+	/** Activities to visit in the precedence graph */
+	private final int[] m_stack;
+
+	/** Scheduled activities found by {@link #nearest(int, int[][], Integer[])} */
+	private final int[] m_found;
+
+	/** m_visited[j] == m_visit if activity j was visited by the current search */
+	private final int[] m_visited;
+
+	/** Number of the current search in the precedence graph */
+	private int m_visit = 0;
+
+	/** True for the activities of the critical chain */
+	private final boolean[] m_critical;
+
+	/** True if {@link #m_critical} is up to date */
+	private boolean m_criticalValid = false;
+
+	/** True if every slack must be computed */
+	private boolean m_allDirty = true;
+
+	/** Number of changes since the last read */
+	private int m_nbChanges = 0;
+
+	/** Makespan of the schedule when the slacks were computed */
+	private int m_makespan = -1;
+
+	/** Number of slacks computed (see {@link Metrics}) */
+	private static final Metrics.Counter SLACKS = Metrics.counter("solution.slack");
+
+	/** Number of computations of the critical chain */
+	private static final Metrics.Counter CHAINS = Metrics.counter("solution.criticalChain");
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param solution The solution to follow.
+	 * @throws Exception Throw an exception if the instance of the solution is not valid.
+	 */
+	SlackTracker(Solution solution) throws Exception
+	{
+		Instance instance = solution.getInstance();
+		m_solution = solution;
+		m_nbActivities = instance.getNbActivities();
+		m_nbResources = instance.getNbResources();
+		m_successors = new int[m_nbActivities][];
+		int[] nbPredecessors = new int[m_nbActivities];
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			m_successors[j] = instance.getDirectSuccessors(j);
+			for(int s : m_successors[j])
+			{
+				nbPredecessors[s]++;
+			}
+		}
+		m_predecessors = new int[m_nbActivities][];
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			m_predecessors[j] = new int[nbPredecessors[j]];
+		}
+		Arrays.fill(nbPredecessors, 0);
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			for(int s : m_successors[j])
+			{
+				m_predecessors[s][nbPredecessors[s]++] = j;
+			}
+		}
+		m_forward = new int[m_nbActivities];
+		m_backward = new int[m_nbActivities];
+		m_start = new int[m_nbActivities];
+		m_end = new int[m_nbActivities];
+		m_critical = new boolean[m_nbActivities];
+		m_stack = new int[m_nbActivities];
+		m_found = new int[m_nbActivities];
+		m_visited = new int[m_nbActivities];
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Every slack and the critical chain must be computed again, e.g. after
+	 * a change of the profile or of a duration.
+	 */
+	void invalidate()
+	{
+		m_allDirty = true;
+		m_criticalValid = false;
+	}
+
+	/**
+	 * Activity j appeared in the schedule, or disappeared from it, from time
+	 * from to time to (excluded).
+	 */
+	void changed(int j, int from, int to)
+	{
+		m_criticalValid = false;
+		if(m_allDirty)
+		{
+			return;
+		}
+		if(++m_nbChanges > MAX_CHANGES)
+		{
+			// E.g. a whole schedule copied: one computation of every slack is cheaper
+			m_allDirty = true;
+			return;
+		}
+		m_forward[j] = -1;
+		m_backward[j] = -1;
+		Integer[] begins = m_solution.getBeginTimeActivities();
+		for(int k = nearest(j, m_predecessors, begins) - 1; k >= 0; k--)
+		{
+			m_forward[m_found[k]] = -1;
+		}
+		for(int k = nearest(j, m_successors, begins) - 1; k >= 0; k--)
+		{
+			m_backward[m_found[k]] = -1;
+		}
+		// The slacks whose window meets [from, to)
+		for(int i = 0; i < m_nbActivities; i++)
+		{
+			if(m_forward[i] >= 0 && from <= m_end[i] + m_forward[i] && to > m_end[i])
+			{
+				m_forward[i] = -1;
+			}
+			if(m_backward[i] >= 0 && from < m_start[i] && to >= m_start[i] - m_backward[i])
+			{
+				m_backward[i] = -1;
+			}
+		}
+	}
+
+	/**
+	 * Finds the nearest scheduled activities linked to activity j, through the
+	 * activities that are not scheduled.
+	 *
+	 * @param j The activity.
+	 * @param links The direct successors, or the direct predecessors, of each activity.
+	 * @param begins Begin time of each activity.
+	 * @return The number of activities found, stored at the beginning of {@link #m_found}.
+	 */
+	private int nearest(int j, int[][] links, Integer[] begins)
+	{
+		m_visit++;
+		m_visited[j] = m_visit;
+		int size = 0;
+		int nbFound = 0;
+		m_stack[size++] = j;
+		while(size > 0)
+		{
+			for(int l : links[m_stack[--size]])
+			{
+				if(m_visited[l] != m_visit)
+				{
+					m_visited[l] = m_visit;
+					if(begins[l] == null)
+					{
+						m_stack[size++] = l;
+					}
+					else
+					{
+						m_found[nbFound++] = l;
+					}
+				}
+			}
+		}
+		return nbFound;
+	}
+
+	/**
+	 * Marks the slacks to compute after the changes of the schedule.
+	 */
+	private void update()
+	{
+		int makespan = m_solution.getObjectiveValue();
+		if(m_allDirty)
+		{
+			Arrays.fill(m_forward, -1);
+			Arrays.fill(m_backward, -1);
+			m_allDirty = false;
+		}
+		else if(makespan != m_makespan)
+		{
+			// The forward slacks bounded by the makespan
+			int bound = Math.min(makespan, m_makespan);
+			for(int i = 0; i < m_nbActivities; i++)
+			{
+				if(m_forward[i] >= 0 && m_end[i] + m_forward[i] >= bound)
+				{
+					m_forward[i] = -1;
+				}
+			}
+		}
+		m_makespan = makespan;
+		m_nbChanges = 0;
+	}
+
+	/**
+	 * @param j A scheduled activity.
+	 * @return The forward slack of activity j.
+	 */
+	int getForwardSlack(int j) throws Exception
+	{
+		update();
+		if(m_forward[j] < 0)
+		{
+			SLACKS.increment();
+			Integer[] begins = m_solution.getBeginTimeActivities();
+			int start = begins[j];
+			int end = start + m_solution.durationActivity(j);
+			int bound = m_makespan;
+			for(int k = nearest(j, m_successors, begins) - 1; k >= 0; k--)
+			{
+				bound = Math.min(bound, begins[m_found[k]]);
+			}
+			int slack = 0;
+			if(bound > end)
+			{
+				int conflict = m_solution.firstConflict(m_solution.demandActivity(j), end, bound);
+				slack = ((conflict < 0) ? bound : conflict) - end;
+			}
+			m_start[j] = start;
+			m_end[j] = end;
+			m_forward[j] = slack;
+		}
+		return m_forward[j];
+	}
+
+	/**
+	 * @param j A scheduled activity.
+	 * @return The backward slack of activity j.
+	 */
+	int getBackwardSlack(int j) throws Exception
+	{
+		update();
+		if(m_backward[j] < 0)
+		{
+			SLACKS.increment();
+			Integer[] begins = m_solution.getBeginTimeActivities();
+			int start = begins[j];
+			int bound = 0;
+			for(int k = nearest(j, m_predecessors, begins) - 1; k >= 0; k--)
+			{
+				int p = m_found[k];
+				bound = Math.max(bound, begins[p] + m_solution.durationActivity(p));
+			}
+			int slack = 0;
+			if(bound < start)
+			{
+				int conflict = m_solution.lastConflict(m_solution.demandActivity(j), bound, start);
+				slack = start - ((conflict < 0) ? bound : conflict + 1);
+			}
+			m_start[j] = start;
+			m_end[j] = start + m_solution.durationActivity(j);
+			m_backward[j] = slack;
+		}
+		return m_backward[j];
+	}
+
+	/**
+	 * @param j An activity.
+	 * @return True if activity j is scheduled and on the critical chain.
+	 */
+	boolean isCritical(int j) throws Exception
+	{
+		if(!m_criticalValid)
+		{
+			computeCriticalChain();
+		}
+		return m_critical[j];
+	}
+
+	/**
+	 * Marks the critical activities, from the activities that end at the
+	 * makespan back along the precedence and resource links.
+	 */
+	private void computeCriticalChain() throws Exception
+	{
+		CHAINS.increment();
+		Arrays.fill(m_critical, false);
+		Integer[] begins = m_solution.getBeginTimeActivities();
+		int makespan = m_solution.getObjectiveValue();
+
+		// Scheduled activities sorted by end time
+		int[] start = new int[m_nbActivities];
+		int[] end = new int[m_nbActivities];
+		int nbScheduled = 0;
+		long[] byEnd = new long[m_nbActivities];
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			if(begins[j] != null)
+			{
+				start[j] = begins[j];
+				end[j] = start[j] + m_solution.durationActivity(j);
+				byEnd[nbScheduled++] = ((long) end[j] << 32) | j;
+			}
+		}
+		byEnd = Arrays.copyOf(byEnd, nbScheduled);
+		Arrays.sort(byEnd);
+
+		ArrayDeque<Integer> stack = new ArrayDeque<Integer>();
+		for(int j = 0; j < m_nbActivities; j++)
+		{
+			if(begins[j] != null && end[j] == makespan)
+			{
+				m_critical[j] = true;
+				stack.push(j);
+			}
+		}
+		while(!stack.isEmpty())
+		{
+			int k = stack.pop();
+			// Precedence links
+			for(int p : m_predecessors[k])
+			{
+				if(!m_critical[p] && begins[p] != null && end[p] == start[k])
+				{
+					m_critical[p] = true;
+					stack.push(p);
+				}
+			}
+			// Resource links: the activities that end when k begins
+			int first = Arrays.binarySearch(byEnd, (long) start[k] << 32);
+			for(int e = (first < 0) ? -first - 1 : first; e < nbScheduled && (int) (byEnd[e] >>> 32) == start[k]; e++)
+			{
+				int i = (int) byEnd[e];
+				if(!m_critical[i] && i != k && resourceLink(i, k, start[k]))
+				{
+					m_critical[i] = true;
+					stack.push(i);
+				}
+			}
+		}
+		m_criticalValid = true;
+	}
+
+	/**
+	 * @return True if activity i, delayed by one time unit, would exceed at
+	 *         time time the capacity of a resource used by activity k.
+	 */
+	private boolean resourceLink(int i, int k, int time) throws Exception
+	{
+		for(int r = 0; r < m_nbResources; r++)
+		{
+			int demand = m_solution.consumptionActivity(r, i);
+			if(demand > 0 && m_solution.consumptionActivity(r, k) > 0
+					&& m_solution.getConsumptionResource(r, time) + demand > m_solution.getCapacityResource(r, time))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -43,6 +43,24 @@ public class Solution {
 	 */
 	protected Integer[] m_beginTimeActivity;
 
+	/**
+	 * Mode of each activity (0 by default). Element at the j-th position is the
+	 * index of the mode of activity j, see {@link Instance#getNbModes(int)}.
+	 */
+	protected int[] m_modeActivity;
+
+	/**
+	 * Duration of each activity set by a {@link Disruption}, -1 if the activity
+	 * has the duration of its mode (null if no duration was changed).
+	 */
+	protected int[] m_duration;
+
+	/**
+	 * Capacity lost by each resource at each time because of disruptions:
+	 * m_capacityDrop[i][t] (null, or null rows, if no capacity dropped).
+	 */
+	protected int[][] m_capacityDrop;
+
 	/**
 	 * Value of the objective, i.e., the makespan of all activities
 	 * This value should be maintain properly while the solution is modified.
@@ -52,7 +70,8 @@ public class Solution {
 	protected int m_objectiveValue = 0;
 
 	/** 
-	 * Sum of resources used at each step time.
+	 * Sum of resources used at each step time, stored time-major on the heap
+	 * (see {@link ProfileKernel}) or outside of the heap (see {@link ProfileArena}).
 	 * For a solution, computational of each resource is done by method {@link #validate()}.
 	 * 
 	 * For performance reasons, it is better to update this element iteratively
@@ -60,7 +79,22 @@ public class Solution {
 	 * 
 	 * This iteratively update is done in {@link #addActivity(int j, int time)}.
 	 */
-	private int[][] m_consumptionResource;
+	private ResourceProfile m_consumptionResource;
+
+	/** Arena of the profile (null if the profile is on the heap) */
+	private final ProfileArena m_arena;
+
+	/** Number of resources */
+	private final int m_nbResources;
+
+	/** Capacity of each resource */
+	private final int[] m_capacity;
+
+	/** Consumption of each resource by the activity being added, removed or checked */
+	private final int[] m_demand;
+
+	/** Slacks and critical chain of the schedule (null until they are read) */
+	private SlackTracker m_slack;
 
 
 	/** Data of the problem associated with the solution */
@@ -69,6 +103,16 @@ public class Solution {
 	/** Error code returned by {@link #validate()} */
 	protected String m_error = "";
 
+	/** Metrics of the operations on solutions (see {@link Metrics}) */
+	private static final Metrics.Counter ADDS = Metrics.counter("solution.add");
+	private static final Metrics.Counter REMOVES = Metrics.counter("solution.remove");
+	private static final Metrics.Counter PROBES = Metrics.counter("solution.probe");
+	private static final Metrics.Counter REJECTED_PROBES = Metrics.counter("solution.probe.rejected");
+	private static final Metrics.Counter EVALUATIONS = Metrics.counter("solution.evaluate");
+	private static final Metrics.Counter CLONES = Metrics.counter("solution.clone");
+	private static final Metrics.Timer VALIDATIONS = Metrics.timer("solution.validate");
+	private static final Metrics.Timer REPAIRS = Metrics.timer("solution.repair");
+
 
 	// --------------------------------------------
 	// ------------ GETTERS AND SETTERS -----------
@@ -82,6 +126,80 @@ public class Solution {
 		return m_beginTimeActivity;
 	}
 
+	/**
+	 * @return Array of modes of activities
+	 */
+	public int[] getModeActivities()
+	{
+		return m_modeActivity;
+	}
+
+	/**
+	 * @param j index of the activity
+	 * @return The mode of activity j
+	 */
+	public int getModeActivity(int j)
+	{
+		return m_modeActivity[j];
+	}
+
+	/**
+	 * Set the mode of activity j. If the activity is scheduled, it stays at the
+	 * same begin time with the duration and the consumptions of its new mode.
+	 * 
+	 * @param j index of the activity
+	 * @param mode index of the mode
+	 * @throws Exception Throw an exception if activity j or the mode is not valid.
+	 */
+	public void setModeActivity(int j, int mode) throws Exception
+	{
+		if ((mode < 0) || (mode >= m_instance.getNbModes(j)))
+			throw new Exception("Error: " + mode + " is not an index of mode of activity " + j + " between 0 and " + (m_instance.getNbModes(j) - 1));
+		if (m_modeActivity[j] == mode)
+		{
+			return;
+		}
+		Integer time = m_beginTimeActivity[j];
+		if (time != null)
+		{
+			removeActivity(j);
+		}
+		m_modeActivity[j] = mode;
+		if (time != null)
+		{
+			addActivity(j, time);
+		}
+	}
+
+	/**
+	 * @param j index of the activity
+	 * @return The duration of activity j in its mode, or its duration set by a {@link Disruption}
+	 * @throws Exception Throw an exception if activity j is not a valid object.
+	 */
+	public int getDurationActivity(int j) throws Exception
+	{
+		int nbActivities = m_instance.getNbActivities();
+		if ((j < 0) || (j >= nbActivities))
+			throw new Exception("Error: " + j + " is not an index of activity between 0 and " + (nbActivities - 1));
+		return durationActivity(j);
+	}
+
+	/**
+	 * @param i index of the resource
+	 * @param time a time unit
+	 * @return The capacity of resource i at time time, lowered by the capacity drops of the disruptions
+	 * @throws Exception Throw an exception if resource i is not a valid object.
+	 */
+	public int getCapacityResource(int i, int time) throws Exception
+	{
+		int capacity = m_instance.getCapacityResource(i);
+		if (m_capacityDrop != null && m_capacityDrop[i] != null && time < m_capacityDrop[i].length)
+		{
+			capacity -= m_capacityDrop[i][time];
+		}
+		return capacity;
+	}
+
 	/**
 	 * @return Objective value (i.e. makespan)
 	 */
@@ -101,19 +219,48 @@ public class Solution {
 	}
 
 	/**
-	 * @return An array representing the consumption of each resource
+	 * Copies the whole profile of the solution: the arrays are not a view of the
+	 * solution, changing them does not change the solution. With a profile
+	 * outside of the heap, the copy is on the heap. Use {@link #getConsumptionResource(int, int)}
+	 * and {@link #setConsumptionResource(int, int, int)} to read or change a value.
+	 *
+	 * @return A copy of the consumption of each resource: element [i][t] is the consumption of resource i at time t
+	 * @deprecated The profile is no longer stored as arrays, this method allocates nbResources x horizon values at each call.
 	 */
+	@Deprecated
 	public int[][] getConsumptionResources()
 	{
-		return m_consumptionResource;
+		int horizon = m_consumptionResource.getHorizon();
+		int[][] consumption = new int[m_nbResources][horizon];
+		for(int t = 0; t < m_consumptionResource.getEnd(); t++)
+		{
+			for(int i = 0; i < m_nbResources; i++)
+			{
+				consumption[i][t] = m_consumptionResource.get(i, t);
+			}
+		}
+		return consumption;
 	}
 
 	/**
-	 * @return An array representing the consumption of each resource
+	 * Replaces the consumption of each resource.
+	 * 
+	 * @param consumptionResource Element [i][t] is the consumption of resource i at time t (the values are copied)
 	 */
 	public void setConsumptionResources(int[][] consumptionResource)
 	{
-		this.m_consumptionResource = consumptionResource;
+		invalidateSlacks();
+		int horizon = (consumptionResource.length == 0) ? 0 : consumptionResource[0].length;
+		ResourceProfile profile = newProfile(horizon);
+		for(int t = 0; t < horizon; t++)
+		{
+			for(int i = 0; i < m_nbResources; i++)
+			{
+				profile.set(i, t, consumptionResource[i][t]);
+			}
+		}
+		m_consumptionResource.free();
+		m_consumptionResource = profile;
 	}
 
 	/**
@@ -123,7 +270,7 @@ public class Solution {
 	 */
 	public int getConsumptionResource(int i, int time)
 	{
-		return getConsumptionResources()[i][time]; 
+		return m_consumptionResource.get(i, time);
 	}
 
 	/**
@@ -135,7 +282,8 @@ public class Solution {
 	 */
 	public void setConsumptionResource(int i, int time, int value)
 	{
-		this.m_consumptionResource[i][time] = value;
+		this.m_consumptionResource.set(i, time, value);
+		invalidateSlacks();
 	}
 
 	/**
@@ -152,6 +300,13 @@ public class Solution {
 		return m_error;
 	}
 
+	/**
+	 * @return The arena that holds the consumption of the resources outside of the heap, or null if it is on the heap
+	 */
+	public ProfileArena getProfileArena() {
+		return m_arena;
+	}
+
 	// -------------------------------------
 	// ------------ CONSTRUCTOR ------------
 	// -------------------------------------
@@ -162,25 +317,48 @@ public class Solution {
      * @param instance The instance of the problem.
      */
 	public Solution(Instance instance) throws Exception
+	{ 
+		this(instance, null);
+	}
+
+    /**
+     * Creates an object of the class Solution for the problem data loaded in Instance,
+     * with the consumption of the resources stored outside of the heap.
+     * 
+     * @param instance The instance of the problem.
+     * @param arena The arena that allocates the consumption of the resources (null to store it on the heap).
+     * @throws IllegalStateException If the arena is closed.
+     */
+	public Solution(Instance instance, ProfileArena arena) throws Exception
 	{ 
 		m_instance = instance;
+		m_arena = arena;
 		int nbActivities = instance.getNbActivities();
 		int nbResources = instance.getNbResources();
+		m_nbResources = nbResources;
+		m_capacity = new int[nbResources];
+		for(int i = 0; i < nbResources; i++)
+		{
+			m_capacity[i] = instance.getCapacityResource(i);
+		}
+		m_demand = new int[nbResources];
 		m_beginTimeActivity = new Integer[nbActivities];
 		Arrays.fill(m_beginTimeActivity, null);
+		m_modeActivity = new int[nbActivities];
 
-		// maximum horizon time : the sum of all activities duration
+		// maximum horizon time : the sum of all activities duration (in their longest mode)
 		int maxHorizonTime = 0;
 		for(int j = 0; j < nbActivities; j++)
 		{
-			maxHorizonTime += instance.getDurationActivity(j);
+			int duration = instance.getDurationActivity(j);
+			for(int m = 1; m < instance.getNbModes(j); m++)
+			{
+				duration = Math.max(duration, instance.getDurationActivity(j, m));
+			}
+			maxHorizonTime += duration;
 		}
 
-		setConsumptionResources(new int[nbResources][maxHorizonTime]);
-		for(int[] row : getConsumptionResources())
-		{
-			Arrays.fill(row, 0);
-		}		
+		m_consumptionResource = newProfile(maxHorizonTime);
 	}
 
 	// -------------------------------------
@@ -191,25 +369,166 @@ public class Solution {
 	/** 
 	 * Overload of method clone of class <code>Object</code>.
 	 * 
-	 * @return A copy of the solution.
+	 * @return A copy of the solution, in the same arena.
 	 */
 	public Solution clone()
 	{
+		return clone(m_arena);
+	}
+
+	/** 
+	 * Copies the solution: the used part of the consumption of the resources is
+	 * copied in bulk.
+	 * 
+	 * @param arena The arena of the copy (null to store it on the heap).
+	 * @return A copy of the solution.
+	 * @throws IllegalStateException If the arena is closed.
+	 */
+	public Solution clone(ProfileArena arena)
+	{
+		CLONES.increment();
 		Solution solution = null;
 		try
 		{
-			solution = new Solution(m_instance);
+			solution = new Solution(m_instance, arena);
 		} catch (Exception e)
 		{ 
 			e.printStackTrace();
 		}
 		solution.m_objectiveValue = m_objectiveValue;
 		solution.m_beginTimeActivity = Arrays.copyOf(m_beginTimeActivity, m_instance.getNbActivities());
-		solution.setConsumptionResources(Arrays.copyOf(getConsumptionResources(),m_instance.getNbResources()));
+		solution.m_modeActivity = Arrays.copyOf(m_modeActivity, m_instance.getNbActivities());
+		if (m_duration != null)
+		{
+			solution.m_duration = m_duration.clone();
+		}
+		if (m_capacityDrop != null)
+		{
+			solution.m_capacityDrop = new int[m_capacityDrop.length][];
+			for(int i = 0; i < m_capacityDrop.length; i++)
+			{
+				solution.m_capacityDrop[i] = (m_capacityDrop[i] == null) ? null : m_capacityDrop[i].clone();
+			}
+		}
+		solution.m_consumptionResource.copyFrom(m_consumptionResource);
 		solution.m_error = new String(m_error); 
 		return solution;	  
 	}
 
+	/**
+	 * @return The duration of activity j in its mode (or set by a disruption)
+	 */
+	int durationActivity(int j) throws Exception
+	{
+		if (m_duration != null && m_duration[j] >= 0)
+		{
+			return m_duration[j];
+		}
+		return m_instance.getDurationActivity(j, m_modeActivity[j]);
+	}
+
+	/**
+	 * @return The consumption of resource i by activity j in its mode
+	 */
+	int consumptionActivity(int i, int j) throws Exception
+	{
+		return m_instance.getConsumptionResourceActivity(i, j, m_modeActivity[j]);
+	}
+
+	/**
+	 * @return The consumption of each resource by activity j in its mode, in a buffer of the solution
+	 */
+	int[] demandActivity(int j) throws Exception
+	{
+		for(int i = 0; i < m_nbResources; i++)
+		{
+			m_demand[i] = consumptionActivity(i, j);
+		}
+		return m_demand;
+	}
+
+	/**
+	 * @return A new profile filled with 0, in the arena of the solution
+	 */
+	private ResourceProfile newProfile(int horizon)
+	{
+		return (m_arena == null) ? new HeapProfile(m_nbResources, horizon) : m_arena.allocate(m_nbResources, horizon);
+	}
+
+	/**
+	 * @return The consumption of the resources (the profile of the solution)
+	 */
+	ResourceProfile getProfile()
+	{
+		return m_consumptionResource;
+	}
+
+	/**
+	 * @return The first time of [from, to) at which an activity of consumptions demand does not fit, or -1 if it fits
+	 */
+	int firstConflict(int[] demand, int from, int to) throws Exception
+	{
+		if(m_capacityDrop == null)
+		{
+			return m_consumptionResource.firstConflict(demand, m_capacity, from, to);
+		}
+		for(int t = from; t < to; t++)
+		{
+			for(int i = 0; i < m_nbResources; i++)
+			{
+				if(m_consumptionResource.get(i, t) + demand[i] > getCapacityResource(i, t))
+				{
+					return t;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The last time of [from, to) at which an activity of consumptions demand does not fit, or -1 if it fits
+	 */
+	int lastConflict(int[] demand, int from, int to) throws Exception
+	{
+		for(int t = to - 1; t >= from; t--)
+		{
+			for(int i = 0; i < m_nbResources; i++)
+			{
+				if(m_consumptionResource.get(i, t) + demand[i] > getCapacityResource(i, t))
+				{
+					return t;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The slacks and the critical chain must be computed again.
+	 */
+	private void invalidateSlacks()
+	{
+		if(m_slack != null)
+		{
+			m_slack.invalidate();
+		}
+	}
+
+	/**
+	 * @return The slacks of the solution, created when they are first read
+	 */
+	private SlackTracker slacks(int j) throws Exception
+	{
+		int nbActivities = m_instance.getNbActivities();
+		if ((j < 0) || (j >= nbActivities))
+			throw new Exception("Error: " + j + " is not an index of activity between 0 and " + (nbActivities - 1));
+		if (m_slack == null)
+		{
+			m_slack = new SlackTracker(this);
+		}
+		return m_slack;
+	}
+
 	/**
 	 * Add activity j at time time (shift the activity if it is already scheduled).
 	 * Update the objective value and all resources used.
@@ -224,6 +543,8 @@ public class Solution {
 		if ((j < 0) || (j >= nbActivities))
 			throw new Exception("Error: " + j + " is not an index of activity between 0 and " + (nbActivities - 1));
 
+		ADDS.increment();
+
 		// If activity was already set to a time, we removed it
 		if(m_beginTimeActivity[j] != null)
 		{
@@ -234,15 +555,13 @@ public class Solution {
 		m_beginTimeActivity[j] = time;
 
 		// Update the objective value
-		m_objectiveValue = Math.max(m_objectiveValue, time + m_instance.getDurationActivity(j));
+		m_objectiveValue = Math.max(m_objectiveValue, time + durationActivity(j));
 
 		// Update consumption of resources
-		for(int t = time; t < time + m_instance.getDurationActivity(j); t++)
+		m_consumptionResource.add(demandActivity(j), time, time + durationActivity(j));
+		if (m_slack != null)
 		{
-			for(int i = 0; i < m_instance.getNbResources(); i++)
-			{
-				getConsumptionResources()[i][t] += m_instance.getConsumptionResourceActivity(i, j);
-			}
+			m_slack.changed(j, time, time + durationActivity(j));
 		}
 	}
 
@@ -261,17 +580,17 @@ public class Solution {
 
 		if (m_beginTimeActivity[j] != null)
 		{
+			REMOVES.increment();
+
 			// Update the objective value
 			evaluate();
 
 			int time = m_beginTimeActivity[j];
 			// Update consumption of resources
-			for (int t = time; t < time + m_instance.getDurationActivity(j); t++)
+			m_consumptionResource.subtract(demandActivity(j), time, time + durationActivity(j));
+			if (m_slack != null)
 			{
-				for (int i = 0; i < m_instance.getNbResources(); i++)
-				{
-					getConsumptionResources()[i][t] -= m_instance.getConsumptionResourceActivity(i, j);
-				}
+				m_slack.changed(j, time, time + durationActivity(j));
 			}
 
 			// Update begin time
@@ -296,18 +615,14 @@ public class Solution {
 		if ((j < 0) || (j >= nbActivities))
 			throw new Exception("Error: " + j + " is not an index of activity between 0 and " + (nbActivities - 1));
 
+		PROBES.increment();
+
 		// Check resources constraints
-		int nbResources = m_instance.getNbResources();
-		int durationActivity = m_instance.getDurationActivity(j);
-		for(int t = time; t < time + durationActivity; t++)
+		int durationActivity = durationActivity(j);
+		if(firstConflict(demandActivity(j), time, time + durationActivity) >= 0)
 		{
-			for(int i = 0; i < nbResources; i++)
-			{
-				if(getConsumptionResources()[i][t] + m_instance.getConsumptionResourceActivity(i,j) > m_instance.getCapacityResource(i))
-				{
-					return false;
-				}
-			}
+			REJECTED_PROBES.increment();
+			return false;
 		}
 
 		// Check precedence constraints
@@ -318,8 +633,9 @@ public class Solution {
 			{
 				if (m_beginTimeActivity[i] != null)
 				{
-					if(m_beginTimeActivity[i] + m_instance.getDurationActivity(i) > time)
+					if(m_beginTimeActivity[i] + durationActivity(i) > time)
 					{
+						REJECTED_PROBES.increment();
 						return false;
 					}
 				}
@@ -329,8 +645,9 @@ public class Solution {
 			{
 				if(m_beginTimeActivity[i] != null)
 				{
-					if(m_beginTimeActivity[i] < m_instance.getDurationActivity(j) + time)
+					if(m_beginTimeActivity[i] < durationActivity(j) + time)
 					{
+						REJECTED_PROBES.increment();
 						return false;
 					}
 				}
@@ -349,19 +666,91 @@ public class Solution {
 	 */ 
 	public int evaluate() throws Exception
 	{
+		EVALUATIONS.increment();
 		m_objectiveValue = 0;
 		int nbActivities = m_instance.getNbActivities();
 		for(int j = 0; j < nbActivities; j++)
 		{
 			if (m_beginTimeActivity[j] != null)
 			{
-				m_objectiveValue = Math.max(m_objectiveValue,m_instance.getDurationActivity(j) + m_beginTimeActivity[j]);
+				m_objectiveValue = Math.max(m_objectiveValue,durationActivity(j) + m_beginTimeActivity[j]);
 			}
 		}
 		return m_objectiveValue;
 	}
 
 
+	/**
+	 * Forward slack of activity j: the number of time units it can be delayed
+	 * alone, without moving another activity, exceeding a capacity or increasing
+	 * the makespan. The slacks are kept up to date by {@link #addActivity(int, int)}
+	 * and {@link #removeActivity(int)}: after a change, only the slacks that depend
+	 * on the changed times are computed again.
+	 * 
+	 * @param j index of the activity
+	 * @return The forward slack of activity j
+	 * @throws Exception Throw an exception if activity j is not a valid object or is not scheduled.
+	 */
+	public int getForwardSlack(int j) throws Exception
+	{
+		SlackTracker slacks = slacks(j);
+		if (m_beginTimeActivity[j] == null)
+			throw new Exception("Error: activity " + j + " is not scheduled");
+		return slacks.getForwardSlack(j);
+	}
+
+	/**
+	 * Backward slack of activity j: the number of time units it can be moved
+	 * earlier alone, without moving another activity nor exceeding a capacity
+	 * (see {@link #getForwardSlack(int)}).
+	 * 
+	 * @param j index of the activity
+	 * @return The backward slack of activity j
+	 * @throws Exception Throw an exception if activity j is not a valid object or is not scheduled.
+	 */
+	public int getBackwardSlack(int j) throws Exception
+	{
+		SlackTracker slacks = slacks(j);
+		if (m_beginTimeActivity[j] == null)
+			throw new Exception("Error: activity " + j + " is not scheduled");
+		return slacks.getBackwardSlack(j);
+	}
+
+	/**
+	 * Check if activity j is on the critical chain: it ends at the makespan, or
+	 * it ends when a critical activity begins that is one of its successors or
+	 * that uses a resource without room left for j. Delaying a critical activity
+	 * delays the makespan, so the moves of a local search can target these activities.
+	 * 
+	 * @param j index of the activity
+	 * @return true if activity j is scheduled and critical, false otherwise
+	 * @throws Exception Throw an exception if activity j is not a valid object.
+	 */
+	public boolean isCritical(int j) throws Exception
+	{
+		return slacks(j).isCritical(j);
+	}
+
+	/**
+	 * @return The critical activities, by increasing index (see {@link #isCritical(int)})
+	 * @throws Exception
+	 */
+	public int[] getCriticalActivities() throws Exception
+	{
+		int nbActivities = m_instance.getNbActivities();
+		int[] critical = new int[nbActivities];
+		int nbCritical = 0;
+		for(int j = 0; j < nbActivities; j++)
+		{
+			if(slacks(j).isCritical(j))
+			{
+				critical[nbCritical++] = j;
+			}
+		}
+		return Arrays.copyOf(critical, nbCritical);
+	}
+
+
 	/**
 	 * Check if the solution is feasible solution for RCPSP.
 	 * Tests are following:
@@ -374,6 +763,7 @@ public class Solution {
 	 * @throws Exception
 	 */
 	public boolean validate() throws Exception {
+		long start = VALIDATIONS.start();
 		boolean result = true;
 		m_error = "";
 		evaluate();
@@ -381,10 +771,8 @@ public class Solution {
 		int nbActivities = m_instance.getNbActivities();
 		int nbRessources = m_instance.getNbResources();
 		// Update resources consumption
-		for(int[] row: getConsumptionResources())
-		{
-			Arrays.fill(row, 0);
-		}	
+		invalidateSlacks();
+		m_consumptionResource.clear();
 		for(int j = 0; j <nbActivities; j++)
 		{
 			if(m_beginTimeActivity[j] == null)
@@ -394,27 +782,41 @@ public class Solution {
 			}
 			else
 			{
-				for(int t = m_beginTimeActivity[j]; t < m_beginTimeActivity[j] + m_instance.getDurationActivity(j); t++)
-				{
-					for(int i = 0; i < nbRessources; i++)
-					{
-						getConsumptionResources()[i][t] += m_instance.getConsumptionResourceActivity(i, j);
-					}
-				}
+				m_consumptionResource.add(demandActivity(j), m_beginTimeActivity[j], m_beginTimeActivity[j] + durationActivity(j));
 			}
 		}
 
-		int dureeMax = getConsumptionResources()[0].length;
-		for(int t = 0; t < dureeMax; t++)
+		// Nonrenewable resources: total consumption over the project
+		int nbNonrenewable = m_instance.getNbNonrenewableResources();
+		for(int k = 0; k < nbNonrenewable; k++)
+		{
+			int consumption = 0;
+			for(int j = 0; j < nbActivities; j++)
+			{
+				consumption += m_instance.getConsumptionNonrenewableActivity(k, j, m_modeActivity[j]);
+			}
+			if(consumption > m_instance.getCapacityNonrenewableResource(k))
+			{
+				m_error += "Error: nonrenewable resource " + k + " exceeds capacity.\n";
+				result = false;
+			}
+		}
+
+		// Capacity sweep: the kernel finds the next time at which a capacity is exceeded
+		// (without capacity drop, the capacities are not exceeded after the end of the profile)
+		int dureeMax = (m_capacityDrop == null) ? m_consumptionResource.getEnd() : m_consumptionResource.getHorizon();
+		int t = (m_capacityDrop == null) ? m_consumptionResource.firstExcess(m_capacity, 0, dureeMax) : 0;
+		while(t >= 0 && t < dureeMax)
 		{
 			for(int i = 0; i < nbRessources ; i++)
 			{
-				if(getConsumptionResources()[i][t] > m_instance.getCapacityResource(i))
+				if(m_consumptionResource.get(i, t) > getCapacityResource(i, t))
 				{
 					m_error += "Error: resource " + i + " at time" + t + " exceeds capacity.\n";
 					result = false;
 				}
 			}
+			t = (m_capacityDrop == null) ? m_consumptionResource.firstExcess(m_capacity, t + 1, dureeMax) : t + 1;
 		}
 
 
@@ -430,8 +832,11 @@ public class Solution {
 					{
 						if(m_beginTimeActivity[i] != null)
 						{
-							if(m_beginTimeActivity[i] + m_instance.getDurationActivity(i) > m_beginTimeActivity[j])
+							if(m_beginTimeActivity[i] + durationActivity(i) > m_beginTimeActivity[j])
+							{
+								VALIDATIONS.stop(start);
 								return false;
+							}
 						}
 					}
 					// If i is a successor of j, it must be scheduled after
@@ -439,8 +844,11 @@ public class Solution {
 					{
 						if(m_beginTimeActivity[i] != null)
 						{
-							if(m_beginTimeActivity[i] < m_instance.getDurationActivity(j) + m_beginTimeActivity[j])
+							if(m_beginTimeActivity[i] < durationActivity(j) + m_beginTimeActivity[j])
+							{
+								VALIDATIONS.stop(start);
 								return false;
+							}
 						}
 					}
 				}
@@ -456,9 +864,45 @@ public class Solution {
 		{
 			m_error += "Solution is not feasible.";
 		}
+		VALIDATIONS.stop(start);
 		return result;
 	}
 
+	/**
+	 * Repairs the schedule after disruptions, without solving the problem again.
+	 * 
+	 * The activities that started before time now, and the activities given by
+	 * {@link Disruption#started(int, int)}, do not move. The other activities
+	 * only move if a disruption makes their begin time infeasible: they are
+	 * removed from the schedule, with the activities that must move after them,
+	 * and scheduled again at their earliest feasible time after their old begin
+	 * time (and after now). The rest of the schedule is not modified. Then, if
+	 * effort is positive, up to effort activities of the repaired part of the
+	 * schedule are moved earlier when the resources allow it.
+	 * 
+	 * The duration changes and capacity drops are kept by the solution (and by its clones).
+	 * 
+	 * @param now Current time: no activity is moved before it.
+	 * @param effort Maximum number of activities tried by the local improvement (0 for none).
+	 * @param disruptions The disruptions, applied in this order.
+	 * @return True if the repaired schedule is feasible; false if the activities
+	 *         that cannot move exceed a capacity or a precedence.
+	 * @throws Exception Throw an exception if a disruption does not correspond to the instance.
+	 */
+	public boolean repair(int now, int effort, Disruption... disruptions) throws Exception
+	{
+		long start = REPAIRS.start();
+		try
+		{
+			return new ScheduleRepair(this, now).run(effort, disruptions);
+		}
+		finally
+		{
+			invalidateSlacks();
+			REPAIRS.stop(start);
+		}
+	}
+
 	/**
 	 * Print the solution to the stream <code>out</code>.
 	 * 
@@ -472,6 +916,10 @@ public class Solution {
 		for(int j = 0; j < m_instance.getNbActivities(); j++)
 		{
 			out.print("Activity " + j + ": " + m_beginTimeActivity[j]+"\n");
+			if(m_modeActivity[j] != 0)
+			{
+				out.print("   mode " + m_modeActivity[j] + "\n");
+			}
 		}		
 		out.println("---------------------");
 	}
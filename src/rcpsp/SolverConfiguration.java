@@ -0,0 +1,277 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of the algorithms: the engine and the parameters of the engines,
+ * read from a file with the option -config of {@link SolverRun}, or written by
+ * {@link RacingTuner}.
+ *
+ * A configuration file has one setting "name=value" per line ("#" starts a
+ * comment):
+ *
+ *     engine=biased
+ *     biased.bias=1.7
+ *
+ * The names are {@link #ENGINE} and the parameters of the engines listed in
+ * {@link #PARAMETERS}. The values are checked when they are set (so a file is
+ * checked when it is read); an engine reads its parameters when it starts, with
+ * a default value for the parameters that are not set. A configuration is not
+ * modified while solvers use it.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class SolverConfiguration {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Name of the setting of the engine, one of {@link RCPSPSolver#ENGINES} */
+	public static final String ENGINE = "engine";
+
+	/** Names of the parameters of the engines */
+	public static final List<String> PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+			BiasedSamplingEngine.PARAMETER_BIAS, BiasedSamplingEngine.PARAMETER_BATCH_SIZE));
+
+	/** Value of each setting, in the order of the file */
+	private final Map<String, String> m_values = new LinkedHashMap<String, String>();
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Name of the engine (null if it is not set) */
+	public String getEngineName()
+	{
+		return m_values.get(ENGINE);
+	}
+
+	/** @return Value of each setting (not modifiable) */
+	public Map<String, String> getValues()
+	{
+		return Collections.unmodifiableMap(m_values);
+	}
+
+	/**
+	 * @param name Name of a parameter.
+	 * @param defaultValue Value of the parameter when it is not set.
+	 * @return Value of the parameter.
+	 * @throws IllegalArgumentException If the value is not an integer.
+	 */
+	public int getInt(String name, int defaultValue)
+	{
+		String value = m_values.get(name);
+		return (value == null) ? defaultValue : parseInt(name, value);
+	}
+
+	/**
+	 * @param name Name of a parameter.
+	 * @param defaultValue Value of the parameter when it is not set.
+	 * @return Value of the parameter.
+	 * @throws IllegalArgumentException If the value is not a number.
+	 */
+	public double getDouble(String name, double defaultValue)
+	{
+		String value = m_values.get(name);
+		return (value == null) ? defaultValue : parseDouble(name, value);
+	}
+
+	/**
+	 * Sets a setting.
+	 *
+	 * @param name {@link #ENGINE} or one of {@link #PARAMETERS}.
+	 * @param value Value of the setting.
+	 * @throws IllegalArgumentException If the name is unknown, the engine does not exist or the value is not valid for the parameter.
+	 */
+	public void set(String name, String value)
+	{
+		switch(name)
+		{
+		case ENGINE:
+			RCPSPSolver.createEngine(value);
+			break;
+		case BiasedSamplingEngine.PARAMETER_BATCH_SIZE:
+			if(parseInt(name, value) < 1)
+			{
+				throw new IllegalArgumentException("Error: the value of " + name + " must be positive.");
+			}
+			break;
+		case BiasedSamplingEngine.PARAMETER_BIAS:
+			if(!(parseDouble(name, value) >= 0))
+			{
+				throw new IllegalArgumentException("Error: the value of " + name + " must not be negative.");
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Error: unknown setting " + name + ", expected " + ENGINE + " or one of " + PARAMETERS + ".");
+		}
+		m_values.put(name, value);
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * Creates an empty configuration: the default engine and the default values of the parameters.
+	 */
+	public SolverConfiguration()
+	{
+	}
+
+	/**
+	 * Creates a copy of a configuration.
+	 *
+	 * @param configuration The configuration to copy.
+	 */
+	public SolverConfiguration(SolverConfiguration configuration)
+	{
+		m_values.putAll(configuration.m_values);
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Reads a configuration file.
+	 *
+	 * @param fileName Name of the file.
+	 * @return The configuration.
+	 * @throws IOException Returns an error when the file cannot be read or a line is not valid.
+	 */
+	public static SolverConfiguration read(String fileName) throws IOException
+	{
+		SolverConfiguration configuration = new SolverConfiguration();
+		try(BufferedReader in = new BufferedReader(new FileReader(fileName)))
+		{
+			String line;
+			int number = 0;
+			while((line = in.readLine()) != null)
+			{
+				number++;
+				int comment = line.indexOf('#');
+				if(comment >= 0)
+				{
+					line = line.substring(0, comment);
+				}
+				if(line.trim().isEmpty())
+				{
+					continue;
+				}
+				String[] setting = line.split("=", 2);
+				if(setting.length != 2)
+				{
+					throw new IOException("Line " + number + " of " + fileName + " is not a setting name=value.");
+				}
+				try
+				{
+					configuration.set(setting[0].trim(), setting[1].trim());
+				}
+				catch(IllegalArgumentException e)
+				{
+					throw new IOException("Line " + number + " of " + fileName + ": " + e.getMessage().replaceFirst("^Error: ", ""));
+				}
+			}
+		}
+		return configuration;
+	}
+
+	/**
+	 * Writes the configuration in a file.
+	 *
+	 * @param fileName Name of the file.
+	 * @param comment Comment written on the first line (null if none).
+	 * @throws IOException Returns an error when the file cannot be written.
+	 */
+	public void write(String fileName, String comment) throws IOException
+	{
+		try(PrintWriter out = new PrintWriter(fileName))
+		{
+			if(comment != null)
+			{
+				out.println("# " + comment);
+			}
+			for(Map.Entry<String, String> setting : m_values.entrySet())
+			{
+				out.println(setting.getKey() + "=" + setting.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @return The integer value of a parameter
+	 * @throws IllegalArgumentException If the value is not an integer.
+	 */
+	private static int parseInt(String name, String value)
+	{
+		try
+		{
+			return Integer.parseInt(value);
+		}
+		catch(NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Error: the value of " + name + " is not a valid integer value.");
+		}
+	}
+
+	/**
+	 * @return The numerical value of a parameter
+	 * @throws IllegalArgumentException If the value is not a number.
+	 */
+	private static double parseDouble(String name, String value)
+	{
+		try
+		{
+			return Double.parseDouble(value);
+		}
+		catch(NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Error: the value of " + name + " is not a valid number.");
+		}
+	}
+
+	/**
+	 * @return The settings on a line: "engine=biased biased.bias=1.7"
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder s = new StringBuilder();
+		for(Map.Entry<String, String> setting : m_values.entrySet())
+		{
+			s.append((s.length() > 0) ? " " : "").append(setting.getKey()).append('=').append(setting.getValue());
+		}
+		return s.toString();
+	}
+
+}
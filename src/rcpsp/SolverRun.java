@@ -0,0 +1,517 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Settings of a run of the solver on one instance, and the code that performs it.
+ *
+ * A run creates a new {@link RCPSPSolver}, computes the lower bound, solves the
+ * instance under a {@link Watchdog} and evaluates the returned solution. It is
+ * shared by {@link Main}, which runs one instance, and {@link BatchMain}, which
+ * runs many instances in the same program: the settings can be read from the
+ * command line with {@link #parseArgument(String[], int)}.
+ *
+ * A SolverRun object only holds settings, so it can be used by several threads
+ * at the same time as long as the settings are not modified; every call to
+ * {@link #run(Instance)} uses its own solver and its own deadline.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class SolverRun {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Time (in milliseconds) given to the solver to stop after the deadline, then after an interruption */
+	private static final long GRACE_TIME = 250;
+
+	/** Maximum number of seconds given to the algorithm */
+	private long m_timeLimit = 60;
+
+	/** Number of milliseconds given to the destructive lower bound */
+	private long m_lowerBoundTime = 0;
+
+	/** File receiving the improving solutions as JSON lines (null if none) */
+	private String m_progressFile;
+
+	/** Checkpoint file (null if none) */
+	private String m_checkpointFile;
+
+	/** Number of seconds between two checkpoints */
+	private long m_checkpointInterval = 60;
+
+	/** Checkpoint file of the run to resume (null if none) */
+	private String m_resumeFile;
+
+	/** Seed of the random numbers */
+	private long m_seed = 0;
+
+	/** Number of threads used by the algorithms */
+	private int m_nbThreads = 1;
+
+	/** True if parallel algorithms must be deterministic */
+	private boolean m_deterministic = false;
+
+	/** Maximum number of iterations of the algorithms */
+	private long m_iterationLimit = Long.MAX_VALUE;
+
+	/** True if the resource profiles of the solutions are stored outside of the heap (see {@link ProfileArena}) */
+	private boolean m_offHeap = false;
+
+	/** Memory (in megabytes) of the cache of the decoded activity lists (0 if none, see {@link EvaluationCache}) */
+	private int m_evaluationCacheSize = 0;
+
+	/** Name of the engine run after the naive heuristic */
+	private String m_engineName = RCPSPSolver.NAIVE;
+
+	/** Engine and parameters of the engines read with -config */
+	private SolverConfiguration m_configuration = new SolverConfiguration();
+
+	/** Choice of the engines of the engine "auto" (null: the default table, see {@link EngineSelector}) */
+	private EngineSelector m_engineSelector;
+
+	/** Listeners registered on the solver of every run */
+	private final List<ProgressListener> m_listeners = new CopyOnWriteArrayList<ProgressListener>();
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Maximum number of seconds given to the algorithm */
+	public long getTimeLimit()
+	{
+		return m_timeLimit;
+	}
+
+	/**
+	 * @param timeLimit Maximum number of seconds given to the algorithm.
+	 */
+	public void setTimeLimit(long timeLimit)
+	{
+		this.m_timeLimit = timeLimit;
+	}
+
+	/** @return File receiving the improving solutions as JSON lines (null if none) */
+	public String getProgressFile()
+	{
+		return m_progressFile;
+	}
+
+	/** @return Checkpoint file (null if none) */
+	public String getCheckpointFile()
+	{
+		return m_checkpointFile;
+	}
+
+	/** @return Checkpoint file of the run to resume (null if none) */
+	public String getResumeFile()
+	{
+		return m_resumeFile;
+	}
+
+	/** @return Number of threads used by the algorithms */
+	public int getNbThreads()
+	{
+		return m_nbThreads;
+	}
+
+	/**
+	 * @param progressFile File receiving the improving solutions as JSON lines (null if none, "-" for the error output).
+	 */
+	public void setProgressFile(String progressFile)
+	{
+		this.m_progressFile = progressFile;
+	}
+
+	/**
+	 * @param offHeap True to store the resource profiles of the solutions outside of the heap, for instances with long horizons.
+	 */
+	public void setOffHeap(boolean offHeap)
+	{
+		this.m_offHeap = offHeap;
+	}
+
+	/**
+	 * @param megabytes Memory of the cache of the decoded activity lists of each run (0 for no cache).
+	 */
+	public void setEvaluationCacheSize(int megabytes)
+	{
+		this.m_evaluationCacheSize = megabytes;
+	}
+
+	/**
+	 * @param seed Seed of the random numbers.
+	 */
+	public void setSeed(long seed)
+	{
+		this.m_seed = seed;
+	}
+
+	/** @return Engine and parameters of the engines read with -config (empty by default) */
+	public SolverConfiguration getConfiguration()
+	{
+		return m_configuration;
+	}
+
+	/**
+	 * Sets the parameters of the engines, and the engine if the configuration names one.
+	 *
+	 * @param configuration The configuration.
+	 */
+	public void setConfiguration(SolverConfiguration configuration)
+	{
+		this.m_configuration = configuration;
+		if(configuration.getEngineName() != null)
+		{
+			m_engineName = configuration.getEngineName();
+		}
+	}
+
+	/**
+	 * @param engineSelector Choice of the engines of the engine "auto" (null for the default table).
+	 */
+	public void setEngineSelector(EngineSelector engineSelector)
+	{
+		this.m_engineSelector = engineSelector;
+	}
+
+	/**
+	 * Registers a listener on the solver of every run, e.g. a progress sink shared by several runs.
+	 *
+	 * @param listener The listener.
+	 */
+	public void addProgressListener(ProgressListener listener)
+	{
+		m_listeners.add(listener);
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Prints the description of the options read by {@link #parseArgument(String[], int)}.
+	 *
+	 * @param out Output.
+	 */
+	public static void printOptions(PrintStream out)
+	{
+		out.println("\t-t\t\t: maximum number of seconds given to the algorithm (int)");
+		out.println("\t-lb\t\t: number of milliseconds given to the destructive lower bound (int, 0 by default)");
+		out.println("\t-progress\t: writes each improving solution as a JSON line in a file (\"-\" for the error output)");
+		out.println("\t-checkpoint\t: saves the state of the search in a file");
+		out.println("\t-checkpointInterval\t: number of seconds between two checkpoints (int, 60 by default)");
+		out.println("\t-resume\t\t: resumes the search saved in a checkpoint file, with its seed and engine");
+		out.println("\t-seed\t\t: seed of the random numbers (long, 0 by default)");
+		out.println("\t-threads\t: number of threads used by the algorithms (int, 1 by default)");
+		out.println("\t-deterministic\t: same solutions for the same seed and number of threads (with -iterations)");
+		out.println("\t-offHeap\t: stores the resource profiles of the solutions outside of the heap");
+		out.println("\t-iterations\t: maximum number of iterations of the algorithms (long)");
+		out.println("\t-evalCache\t: megabytes of the cache of the decoded activity lists (int, 0 by default: no cache)");
+		out.println("\t-engine\t\t: algorithm run after the naive heuristic, " + String.join(" or ", RCPSPSolver.ENGINES) + " (" + RCPSPSolver.NAIVE + " by default)");
+		out.println("\t-config\t\t: engine and parameters of the engines written by RacingTuner (see SolverConfiguration)");
+		out.println("\t-selector\t: table of the engines of the engine " + PortfolioEngine.NAME + " (see EngineSelector, built-in table by default)");
+	}
+
+	/**
+	 * Reads the option at index i of the command line, if it is a setting of the run.
+	 *
+	 * @param arg Program parameters.
+	 * @param i Index of the option.
+	 * @return The index of the last parameter read (i or i+1), or -1 if arg[i] is not an option of the run.
+	 * @throws IllegalArgumentException If the value of the option is missing or is not valid.
+	 */
+	public int parseArgument(String[] arg, int i)
+	{
+		String option = arg[i];
+		if(option.equals("-deterministic"))
+		{
+			m_deterministic = true;
+			return i;
+		}
+		if(option.equals("-offHeap"))
+		{
+			m_offHeap = true;
+			return i;
+		}
+		if(!option.equals("-t") && !option.equals("-lb") && !option.equals("-progress") && !option.equals("-checkpoint")
+				&& !option.equals("-checkpointInterval") && !option.equals("-resume") && !option.equals("-seed")
+				&& !option.equals("-threads") && !option.equals("-iterations") && !option.equals("-engine")
+				&& !option.equals("-evalCache") && !option.equals("-selector")
+				&& !option.equals("-config"))
+		{
+			return -1;
+		}
+		if(i + 1 >= arg.length)
+		{
+			throw new IllegalArgumentException("Error: a value is expected after " + option + ".");
+		}
+		String value = arg[i + 1];
+		if(option.equals("-engine"))
+		{
+			RCPSPSolver.createEngine(value);
+			m_engineName = value;
+			return i + 1;
+		}
+		if(option.equals("-config"))
+		{
+			try
+			{
+				setConfiguration(SolverConfiguration.read(value));
+			}
+			catch(IOException e)
+			{
+				throw new IllegalArgumentException("Error: " + e.getMessage());
+			}
+			return i + 1;
+		}
+		if(option.equals("-selector"))
+		{
+			try
+			{
+				m_engineSelector = EngineSelector.read(value);
+			}
+			catch(IOException e)
+			{
+				throw new IllegalArgumentException("Error: " + e.getMessage());
+			}
+			return i + 1;
+		}
+		try
+		{
+			switch(option)
+			{
+			case "-t":
+				m_timeLimit = Integer.parseInt(value);
+				break;
+			case "-lb":
+				m_lowerBoundTime = Integer.parseInt(value);
+				break;
+			case "-progress":
+				m_progressFile = value;
+				break;
+			case "-checkpoint":
+				m_checkpointFile = value;
+				break;
+			case "-checkpointInterval":
+				m_checkpointInterval = Integer.parseInt(value);
+				break;
+			case "-resume":
+				m_resumeFile = value;
+				break;
+			case "-seed":
+				m_seed = Long.parseLong(value);
+				break;
+			case "-threads":
+				m_nbThreads = Integer.parseInt(value);
+				break;
+			case "-evalCache":
+				m_evaluationCacheSize = Integer.parseInt(value);
+				break;
+			default:
+				m_iterationLimit = Long.parseLong(value);
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Error: The value given for " + option + " is not a valid integer value.");
+		}
+		return i + 1;
+	}
+
+	/**
+	 * Solves the instance stored in a file.
+	 *
+	 * @param fileName Name of the instance file.
+	 * @return The result of the run.
+	 * @throws IOException Returns an error when a problem is met reading a file.
+	 * @throws Exception Any error met by the solver.
+	 */
+	public RunResult run(String fileName) throws Exception
+	{
+		return run(new Instance(fileName));
+	}
+
+	/**
+	 * Solves an instance with a new solver.
+	 *
+	 * @param problem The instance.
+	 * @return The result of the run.
+	 * @throws IOException Returns an error when a problem is met reading or writing a file.
+	 * @throws Exception Any error met by the solver.
+	 */
+	public RunResult run(Instance problem) throws Exception
+	{
+		String filename = problem.getFileName();
+		RCPSPSolver rcpsp = new RCPSPSolver();
+		rcpsp.setInstance(problem);
+		// The profiles outside of the heap live as long as the run
+		ProfileArena arena = m_offHeap ? new ProfileArena() : null;
+		rcpsp.setSolution(new Solution(problem, arena));
+		rcpsp.setRandomService(new RandomService(m_seed));
+		rcpsp.setNbThreads(m_nbThreads);
+		rcpsp.setDeterministic(m_deterministic);
+		rcpsp.setIterationLimit(m_iterationLimit);
+		rcpsp.setEngineName(m_engineName);
+		rcpsp.setEngineSelector(m_engineSelector);
+		rcpsp.setConfiguration(m_configuration);
+		if(m_evaluationCacheSize > 0)
+		{
+			rcpsp.setEvaluationCache(new EvaluationCache(m_evaluationCacheSize * 1048576L, problem.getNbActivities(), false));
+		}
+		for(ProgressListener listener : m_listeners)
+		{
+			rcpsp.addProgressListener(listener);
+		}
+		JsonLinesProgressSink progress = null;
+		CheckpointWriter checkpoint = null;
+		LowerBound lowerBound;
+		Solution solution;
+		boolean feasible;
+		long t;
+		// The resources of the run are released even if the solver fails
+		boolean terminated = true;
+		try
+		{
+			if(m_progressFile != null)
+			{
+				progress = JsonLinesProgressSink.open(m_progressFile);
+				rcpsp.addProgressListener(progress);
+			}
+
+			// Resume an interrupted run: it has already used a part of the time
+			long previousTime = 0;
+			if(m_resumeFile != null)
+			{
+				SearchState state = SearchState.read(m_resumeFile);
+				if(!new File(state.getFileName()).getName().equals(new File(filename).getName()))
+				{
+					throw new IOException("The checkpoint " + m_resumeFile + " was saved for instance " + state.getFileName());
+				}
+				// The engine of the checkpoint must run again, with the same random numbers
+				if(m_engineSelector == null && !m_engineName.equals(PortfolioEngine.NAME) && !m_engineName.equals(state.getEngine()))
+				{
+					throw new IOException("The checkpoint " + m_resumeFile + " was saved by the engine " + state.getEngine() + ", use -engine " + state.getEngine() + " to resume it");
+				}
+				if(state.getSeed() != m_seed)
+				{
+					System.err.println("Resuming with the seed " + state.getSeed() + " of the checkpoint");
+					rcpsp.setRandomService(new RandomService(state.getSeed()));
+				}
+				rcpsp.setResumeState(state);
+				previousTime = state.getElapsedNanos() / 1000000L;
+			}
+			if(m_checkpointFile != null)
+			{
+				checkpoint = new CheckpointWriter(rcpsp, m_checkpointFile, m_checkpointInterval);
+			}
+
+			// Compute a lower bound and solve the problem
+			final long time = m_timeLimit;
+			Deadline deadline = Deadline.ofMillis(Math.max(0, m_timeLimit * 1000 - previousTime));
+			rcpsp.setDeadline(deadline);
+			Metrics.Phase lowerBoundPhase = Metrics.phase("lowerBound", filename);
+			try
+			{
+				lowerBound = new LowerBound(problem);
+				if(m_lowerBoundTime > 0)
+				{
+					lowerBound.improve(deadline.slice(m_lowerBoundTime * 1000000L));
+				}
+			}
+			finally
+			{
+				lowerBoundPhase.close();
+			}
+			rcpsp.setLowerBound(lowerBound.getValue());
+			terminated = new Watchdog(deadline, GRACE_TIME).run("rcpsp-solver", () -> rcpsp.solve(time));
+			t = previousTime + deadline.elapsedMillis();
+			if(rcpsp.getEvaluationCache() != null)
+			{
+				System.err.println("Evaluation cache: " + rcpsp.getEvaluationCache());
+			}
+
+			// If the solver did not stop, use the best solution it reported
+			solution = rcpsp.getSolution();
+			if(!terminated && rcpsp.getBestSolution() != null)
+			{
+				solution = rcpsp.getBestSolution();
+			}
+
+			// Evaluate the solution (and check whether it is feasible)
+			Metrics.Phase validatePhase = Metrics.phase("validate", filename);
+			try
+			{
+				feasible = solution.validate();
+			}
+			finally
+			{
+				validatePhase.close();
+			}
+			if(arena != null)
+			{
+				// The returned solution outlives the run: its profile moves to an arena left to the garbage collector
+				solution = solution.clone(new ProfileArena());
+			}
+		}
+		finally
+		{
+			if(checkpoint != null)
+			{
+				checkpoint.close();
+			}
+			if(progress != null)
+			{
+				rcpsp.removeProgressListener(progress);
+				progress.close();
+			}
+			// A solver that did not stop may still use its arena
+			if(arena != null && terminated)
+			{
+				arena.close();
+			}
+		}
+		int objectiveValue = solution.getObjectiveValue();
+
+		int e = RunResult.OK;
+		if (!feasible)
+		{
+			e = RunResult.UNFEASIBLE;
+		}
+		else
+		{
+			if(t > (m_timeLimit + 1) * 1000)
+			{
+				e = RunResult.OVERTIME;
+				System.err.println("Error: Time limit exeeced !!!");
+			}
+		}
+		return new RunResult(filename, solution, objectiveValue, t, e, lowerBound.getValue());
+	}
+
+}
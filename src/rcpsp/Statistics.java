@@ -0,0 +1,546 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.Arrays;
+
+/**
+ * Descriptive statistics and tests used to compare series of runs (see
+ * {@link ResultAnalyzer} and {@link RacingTuner}).
+ *
+ * Run times and gaps are far from normally distributed (many runs stop at the
+ * time limit, many gaps are 0), so the comparisons use rank tests:
+ *  - the Wilcoxon signed-rank test for paired values (one value per instance
+ *    in both series);
+ *  - the Mann-Whitney rank-sum test for two independent samples (several runs
+ *    of the same instance).
+ *
+ * Both tests are one-sided: they return the probability, under the hypothesis
+ * that the two series are equivalent, of a difference at least as large as the
+ * observed one in the direction "the first series is larger". Ties receive
+ * their average rank. The signed-rank test is exact up to 50 non-zero
+ * differences and uses the normal approximation beyond; the rank-sum test
+ * always uses the normal approximation with a tie correction.
+ *
+ * Several configurations run on the same instances are compared with the
+ * Friedman test (ranks within each instance, chi-squared approximation with a
+ * tie correction) and the post-hoc test of Conover, or with the paired t-test
+ * when the values are close to normal. The distribution functions are computed
+ * with the continued fractions of the incomplete gamma and beta functions.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class Statistics {
+
+	/** Largest number of differences for which the signed-rank test is exact */
+	private static final int EXACT_LIMIT = 50;
+
+	private Statistics()
+	{
+	}
+
+	/**
+	 * @param values Values (infinite and NaN values are ignored).
+	 * @return The mean of the finite values, NaN if there is none.
+	 */
+	public static double mean(double[] values)
+	{
+		double sum = 0;
+		int count = 0;
+		for(double v : values)
+		{
+			if(Double.isFinite(v))
+			{
+				sum += v;
+				count++;
+			}
+		}
+		return (count == 0) ? Double.NaN : sum / count;
+	}
+
+	/**
+	 * @param values Values (NaN values are ignored).
+	 * @return The median of the values, NaN if there is none.
+	 */
+	public static double median(double[] values)
+	{
+		double[] sorted = Arrays.stream(values).filter(v -> !Double.isNaN(v)).sorted().toArray();
+		int n = sorted.length;
+		if(n == 0)
+		{
+			return Double.NaN;
+		}
+		return (n % 2 == 1) ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+	}
+
+	/**
+	 * @param values Values (NaN values are ignored).
+	 * @return The largest finite value, NaN if there is none.
+	 */
+	public static double max(double[] values)
+	{
+		double max = Double.NaN;
+		for(double v : values)
+		{
+			if(Double.isFinite(v) && !(v <= max))
+			{
+				max = v;
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Wilcoxon signed-rank test.
+	 *
+	 * @param differences Paired differences (first series minus second series). Zeros and NaN are ignored.
+	 * @return One-sided p-value of the hypothesis "the differences are positive" (1 if there is no non-zero difference).
+	 */
+	public static double signedRankTest(double[] differences)
+	{
+		double[] d = Arrays.stream(differences).filter(v -> !Double.isNaN(v) && v != 0).toArray();
+		int n = d.length;
+		if(n == 0)
+		{
+			return 1.0;
+		}
+		double[] magnitudes = new double[n];
+		for(int k = 0; k < n; k++)
+		{
+			magnitudes[k] = Math.abs(d[k]);
+		}
+		double[] ranks = ranks(magnitudes);
+
+		// Doubled ranks are integers, even with ties
+		int[] doubled = new int[n];
+		int observed = 0;
+		int total = 0;
+		for(int k = 0; k < n; k++)
+		{
+			doubled[k] = (int) Math.round(2 * ranks[k]);
+			total += doubled[k];
+			if(d[k] > 0)
+			{
+				observed += doubled[k];
+			}
+		}
+
+		if(n <= EXACT_LIMIT)
+		{
+			// count[s]: probability that the positive differences have a doubled rank sum of s
+			double[] count = new double[total + 1];
+			count[0] = 1;
+			int reached = 0;
+			for(int r : doubled)
+			{
+				for(int s = reached; s >= 0; s--)
+				{
+					if(count[s] != 0)
+					{
+						count[s + r] += count[s] / 2;
+						count[s] /= 2;
+					}
+				}
+				reached += r;
+			}
+			double p = 0;
+			for(int s = observed; s <= total; s++)
+			{
+				p += count[s];
+			}
+			return Math.min(1.0, p);
+		}
+
+		double mean = n * (n + 1) / 4.0;
+		double variance = n * (n + 1) * (2.0 * n + 1) / 24.0 - tieCorrection(magnitudes) / 48.0;
+		if(variance <= 0)
+		{
+			return 1.0;
+		}
+		double z = (observed / 2.0 - mean - 0.5) / Math.sqrt(variance);
+		return 1.0 - normalCdf(z);
+	}
+
+	/**
+	 * Mann-Whitney rank-sum test.
+	 *
+	 * @param a First sample (NaN values are ignored, infinite values are the largest values).
+	 * @param b Second sample.
+	 * @return One-sided p-value of the hypothesis "the values of a are larger than the values of b" (1 if a sample is empty).
+	 */
+	public static double rankSumTest(double[] a, double[] b)
+	{
+		double[] x = Arrays.stream(a).filter(v -> !Double.isNaN(v)).toArray();
+		double[] y = Arrays.stream(b).filter(v -> !Double.isNaN(v)).toArray();
+		int n1 = x.length;
+		int n2 = y.length;
+		if(n1 == 0 || n2 == 0)
+		{
+			return 1.0;
+		}
+		double[] all = new double[n1 + n2];
+		System.arraycopy(x, 0, all, 0, n1);
+		System.arraycopy(y, 0, all, n1, n2);
+		double[] ranks = ranks(all);
+		double rankSum = 0;
+		for(int k = 0; k < n1; k++)
+		{
+			rankSum += ranks[k];
+		}
+		double u = rankSum - n1 * (n1 + 1) / 2.0;
+		int n = n1 + n2;
+		double mean = n1 * (double) n2 / 2.0;
+		double variance = n1 * (double) n2 / 12.0 * ((n + 1) - tieCorrection(all) / (n * (n - 1.0)));
+		if(variance <= 0)
+		{
+			return 1.0;
+		}
+		double z = (u - mean - 0.5) / Math.sqrt(variance);
+		return 1.0 - normalCdf(z);
+	}
+
+	/**
+	 * Paired Student t-test.
+	 *
+	 * @param differences Paired differences (first series minus second series). NaN and infinite values are ignored.
+	 * @return One-sided p-value of the hypothesis "the mean difference is positive" (1 if there are less than 2 differences).
+	 */
+	public static double pairedTTest(double[] differences)
+	{
+		double[] d = Arrays.stream(differences).filter(Double::isFinite).toArray();
+		int n = d.length;
+		if(n < 2)
+		{
+			return 1.0;
+		}
+		double mean = mean(d);
+		double squares = 0;
+		for(double v : d)
+		{
+			squares += (v - mean) * (v - mean);
+		}
+		double deviation = Math.sqrt(squares / (n - 1));
+		if(deviation == 0)
+		{
+			return (mean > 0) ? 0.0 : 1.0;
+		}
+		return 1.0 - studentCdf(mean / (deviation / Math.sqrt(n)), n - 1);
+	}
+
+	/**
+	 * @param values values[b][j]: value of treatment j (e.g. a configuration) on block b (e.g. an instance).
+	 * @return The sum over the blocks of the rank of each treatment within its block (the smallest value has rank 1).
+	 */
+	public static double[] friedmanRankSums(double[][] values)
+	{
+		double[] sums = new double[values[0].length];
+		for(double[] block : values)
+		{
+			double[] ranks = ranks(block);
+			for(int j = 0; j < sums.length; j++)
+			{
+				sums[j] += ranks[j];
+			}
+		}
+		return sums;
+	}
+
+	/**
+	 * Friedman test.
+	 *
+	 * @param values values[b][j]: value of treatment j on block b (at least one block, the same number of treatments in each block).
+	 * @return p-value of the hypothesis "the treatments are not equivalent" (1 if there are less than 2 treatments).
+	 */
+	public static double friedmanTest(double[][] values)
+	{
+		int b = values.length;
+		int k = values[0].length;
+		if(k < 2)
+		{
+			return 1.0;
+		}
+		double[] sums = friedmanRankSums(values);
+		double squares = squaredRanks(values);
+		double expected = b * k * (k + 1.0) * (k + 1.0) / 4;
+		if(squares - expected <= 0)
+		{
+			return 1.0;
+		}
+		double statistic = 0;
+		for(double sum : sums)
+		{
+			statistic += (sum - b * (k + 1) / 2.0) * (sum - b * (k + 1) / 2.0);
+		}
+		statistic *= (k - 1) / (squares - expected);
+		return 1.0 - chiSquareCdf(statistic, k - 1);
+	}
+
+	/**
+	 * Post-hoc test of Conover after a Friedman test: two treatments differ when
+	 * the difference of their rank sums (see {@link #friedmanRankSums(double[][])})
+	 * is larger than the critical difference.
+	 *
+	 * @param values values[b][j]: value of treatment j on block b.
+	 * @param alpha Level of the test.
+	 * @return The critical difference of the rank sums (infinite if there is a single block or treatment).
+	 */
+	public static double friedmanCriticalDifference(double[][] values, double alpha)
+	{
+		int b = values.length;
+		int k = values[0].length;
+		double dof = (b - 1.0) * (k - 1.0);
+		if(dof <= 0)
+		{
+			return Double.POSITIVE_INFINITY;
+		}
+		double sumSquares = 0;
+		for(double sum : friedmanRankSums(values))
+		{
+			sumSquares += sum * sum;
+		}
+		double variance = 2 * (b * squaredRanks(values) - sumSquares) / dof;
+		return studentQuantile(1 - alpha / 2, dof) * Math.sqrt(Math.max(0, variance));
+	}
+
+	/**
+	 * @return The sum of the squared ranks of the values within each block.
+	 */
+	private static double squaredRanks(double[][] values)
+	{
+		double squares = 0;
+		for(double[] block : values)
+		{
+			for(double rank : ranks(block))
+			{
+				squares += rank * rank;
+			}
+		}
+		return squares;
+	}
+
+	/**
+	 * @return The ranks (from 1) of the values, ties receive their average rank.
+	 */
+	private static double[] ranks(double[] values)
+	{
+		int n = values.length;
+		Integer[] order = new Integer[n];
+		for(int k = 0; k < n; k++)
+		{
+			order[k] = k;
+		}
+		Arrays.sort(order, (p, q) -> Double.compare(values[p], values[q]));
+		double[] ranks = new double[n];
+		int first = 0;
+		while(first < n)
+		{
+			int last = first;
+			while(last + 1 < n && values[order[last + 1]] == values[order[first]])
+			{
+				last++;
+			}
+			double rank = (first + last) / 2.0 + 1;
+			for(int k = first; k <= last; k++)
+			{
+				ranks[order[k]] = rank;
+			}
+			first = last + 1;
+		}
+		return ranks;
+	}
+
+	/**
+	 * @return The sum of t^3 - t over the groups of t equal values.
+	 */
+	private static double tieCorrection(double[] values)
+	{
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		double correction = 0;
+		int first = 0;
+		while(first < sorted.length)
+		{
+			int last = first;
+			while(last + 1 < sorted.length && sorted[last + 1] == sorted[first])
+			{
+				last++;
+			}
+			double t = last - first + 1;
+			correction += t * t * t - t;
+			first = last + 1;
+		}
+		return correction;
+	}
+
+	/**
+	 * @return The cumulative distribution function of the standard normal distribution at z.
+	 */
+	public static double normalCdf(double z)
+	{
+		// Abramowitz and Stegun 7.1.26 (absolute error below 1.5e-7)
+		double x = Math.abs(z) / Math.sqrt(2);
+		double t = 1 / (1 + 0.3275911 * x);
+		double erf = 1 - ((((1.061405429 * t - 1.453152027) * t + 1.421413741) * t - 0.284496736) * t + 0.254829592) * t * Math.exp(-x * x);
+		return (z >= 0) ? (1 + erf) / 2 : (1 - erf) / 2;
+	}
+
+	/**
+	 * @return The cumulative distribution function of the chi-squared distribution with dof degrees of freedom at x.
+	 */
+	public static double chiSquareCdf(double x, double dof)
+	{
+		return (x <= 0) ? 0.0 : regularizedGamma(dof / 2, x / 2);
+	}
+
+	/**
+	 * @return The cumulative distribution function of the Student t distribution with dof degrees of freedom at t.
+	 */
+	public static double studentCdf(double t, double dof)
+	{
+		double tail = regularizedBeta(dof / (dof + t * t), dof / 2, 0.5) / 2;
+		return (t >= 0) ? 1 - tail : tail;
+	}
+
+	/**
+	 * @return The quantile of order p (in ]0, 1[) of the Student t distribution with dof degrees of freedom.
+	 */
+	public static double studentQuantile(double p, double dof)
+	{
+		double low = -1e6;
+		double high = 1e6;
+		for(int k = 0; k < 200 && high - low > 1e-12 * Math.max(1, Math.abs(low)); k++)
+		{
+			double middle = (low + high) / 2;
+			if(studentCdf(middle, dof) < p)
+			{
+				low = middle;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		return (low + high) / 2;
+	}
+
+	/**
+	 * @return The regularized lower incomplete gamma function P(a, x) (series for x &lt; a + 1, continued fraction beyond).
+	 */
+	private static double regularizedGamma(double a, double x)
+	{
+		double logFactor = a * Math.log(x) - x - logGamma(a);
+		if(x < a + 1)
+		{
+			double term = 1 / a;
+			double sum = term;
+			for(int n = 1; n < 1000 && Math.abs(term) > Math.abs(sum) * 1e-15; n++)
+			{
+				term *= x / (a + n);
+				sum += term;
+			}
+			return Math.min(1.0, sum * Math.exp(logFactor));
+		}
+		// Lentz's algorithm for the continued fraction of Q(a, x)
+		double b = x + 1 - a;
+		double c = 1 / Double.MIN_NORMAL;
+		double d = 1 / b;
+		double h = d;
+		for(int n = 1; n < 1000; n++)
+		{
+			double an = -n * (n - a);
+			b += 2;
+			d = an * d + b;
+			d = (Math.abs(d) < Double.MIN_NORMAL) ? Double.MIN_NORMAL : d;
+			c = b + an / c;
+			c = (Math.abs(c) < Double.MIN_NORMAL) ? Double.MIN_NORMAL : c;
+			d = 1 / d;
+			double delta = d * c;
+			h *= delta;
+			if(Math.abs(delta - 1) < 1e-15)
+			{
+				break;
+			}
+		}
+		return Math.max(0.0, 1 - Math.exp(logFactor) * h);
+	}
+
+	/**
+	 * @return The regularized incomplete beta function I_x(a, b).
+	 */
+	private static double regularizedBeta(double x, double a, double b)
+	{
+		if(x <= 0)
+		{
+			return 0.0;
+		}
+		if(x >= 1)
+		{
+			return 1.0;
+		}
+		// The continued fraction converges quickly for x < (a + 1) / (a + b + 2)
+		if(x > (a + 1) / (a + b + 2))
+		{
+			return 1 - regularizedBeta(1 - x, b, a);
+		}
+		double factor = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x)) / a;
+		// Lentz's algorithm
+		double c = 1;
+		double d = 1 - (a + b) * x / (a + 1);
+		d = 1 / ((Math.abs(d) < Double.MIN_NORMAL) ? Double.MIN_NORMAL : d);
+		double h = d;
+		for(int m = 1; m < 1000; m++)
+		{
+			for(int parity = 0; parity < 2; parity++)
+			{
+				double coefficient = (parity == 0) ? m * (b - m) * x / ((a + 2 * m - 1) * (a + 2 * m))
+						: -(a + m) * (a + b + m) * x / ((a + 2 * m) * (a + 2 * m + 1));
+				d = 1 + coefficient * d;
+				d = 1 / ((Math.abs(d) < Double.MIN_NORMAL) ? Double.MIN_NORMAL : d);
+				c = 1 + coefficient / c;
+				c = (Math.abs(c) < Double.MIN_NORMAL) ? Double.MIN_NORMAL : c;
+				h *= d * c;
+			}
+			if(Math.abs(d * c - 1) < 1e-15)
+			{
+				break;
+			}
+		}
+		return factor * h;
+	}
+
+	/**
+	 * @return The logarithm of the gamma function at x &gt; 0 (Lanczos approximation).
+	 */
+	private static double logGamma(double x)
+	{
+		double[] coefficients = { 76.18009172947146, -86.50532032941677, 24.01409824083091, -1.231739572450155,
+				0.1208650973866179e-2, -0.5395239384953e-5 };
+		double y = x;
+		double series = 1.000000000190015;
+		for(double coefficient : coefficients)
+		{
+			series += coefficient / ++y;
+		}
+		double t = x + 5.5;
+		return (x + 0.5) * Math.log(t) - t + Math.log(2.5066282746310005 * series / x);
+	}
+
+}
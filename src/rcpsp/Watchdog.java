@@ -0,0 +1,140 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+/**
+ * Runs an algorithm in a separate thread and makes sure the caller gets the
+ * control back shortly after a {@link Deadline}.
+ *
+ * When the deadline is reached, the watchdog cancels it so that algorithms
+ * polling it stop. If the algorithm is still running after a grace period, its
+ * thread is interrupted. If it is still running after a second grace period,
+ * the watchdog gives up and returns: the caller must then fall back to the
+ * best solution found so far (see {@link RCPSPSolver#getBestSolution()}).
+ *
+ * The thread is a daemon thread, so an algorithm that never stops does not
+ * prevent the program from exiting.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class Watchdog {
+
+	/**
+	 * Task run by the watchdog.
+	 */
+	public interface Task
+	{
+		/**
+		 * @throws Exception Any error met by the algorithm.
+		 */
+		void run() throws Exception;
+	}
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Deadline of the task */
+	private final Deadline m_deadline;
+
+	/** Time (in milliseconds) given to the task to stop after each signal */
+	private final long m_graceMillis;
+
+	/** Error thrown by the task, including the errors of the JVM such as OutOfMemoryError (null if none) */
+	private volatile Throwable m_error;
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param deadline Deadline of the task.
+	 * @param graceMillis Time (in milliseconds) given to the task to stop after it is cancelled and after it is interrupted.
+	 */
+	public Watchdog(Deadline deadline, long graceMillis)
+	{
+		m_deadline = deadline;
+		m_graceMillis = graceMillis;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Runs the task and waits until it terminates or the deadline (plus grace periods) is reached.
+	 *
+	 * @param name Name of the thread running the task.
+	 * @param task The algorithm to run.
+	 * @return true if the task terminated, false if it had to be abandoned.
+	 * @throws Exception The error thrown by the task, if any (wrapped in an Exception if it is not one).
+	 */
+	public boolean run(String name, Task task) throws Exception
+	{
+		Thread thread = new Thread(() -> {
+			try
+			{
+				task.run();
+			}
+			catch (Throwable e)
+			{
+				m_error = e;
+			}
+		}, name);
+		thread.setDaemon(true);
+		thread.start();
+
+		// Wait for the deadline
+		long remaining;
+		while(thread.isAlive() && !m_deadline.isCancelled() && (remaining = m_deadline.remainingMillis()) > 0)
+		{
+			thread.join(remaining);
+		}
+
+		// Ask the task to stop, then interrupt it
+		if(thread.isAlive())
+		{
+			m_deadline.cancel();
+			thread.join(m_graceMillis);
+		}
+		if(thread.isAlive())
+		{
+			System.err.println("Warning: " + name + " did not stop at the deadline, interrupting it");
+			thread.interrupt();
+			thread.join(m_graceMillis);
+		}
+		if(thread.isAlive())
+		{
+			System.err.println("Warning: " + name + " did not stop after interruption, using the best solution found");
+			return false;
+		}
+		if(m_error instanceof Exception)
+		{
+			throw (Exception) m_error;
+		}
+		if(m_error != null)
+		{
+			throw new Exception(name + " failed: " + m_error, m_error);
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fixed set of worker threads running the same task in parallel.
+ *
+ * {@link #runWorkers(WorkerTask)} runs the task once per worker and waits for
+ * all of them: the results are returned in the order of the workers, whatever
+ * the order in which they terminate. In deterministic mode an engine calls it
+ * once per epoch and merges the results in this order, so that the run only
+ * depends on the seed and the number of workers. Otherwise an engine calls it
+ * once and the workers run until the deadline.
+ *
+ * With a single worker, the task runs in the calling thread.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class WorkerPool implements AutoCloseable {
+
+	/**
+	 * Task run by each worker.
+	 *
+	 * @param <T> Type of the result of the task.
+	 */
+	public interface WorkerTask<T>
+	{
+		/**
+		 * @param worker Index of the worker (between 0 and the number of workers - 1).
+		 * @return The result of the worker.
+		 * @throws Exception Any error met by the task.
+		 */
+		T run(int worker) throws Exception;
+	}
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Number of workers */
+	private final int m_nbWorkers;
+
+	/** Threads of the workers (null for a single worker) */
+	private final ExecutorService m_executor;
+
+	// --------------------------------------------
+	// ------------ GETTERS AND SETTERS -----------
+	// --------------------------------------------
+
+	/** @return Number of workers */
+	public int getNbWorkers()
+	{
+		return m_nbWorkers;
+	}
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param nbWorkers Number of workers.
+	 */
+	public WorkerPool(int nbWorkers)
+	{
+		m_nbWorkers = Math.max(1, nbWorkers);
+		if(m_nbWorkers == 1)
+		{
+			m_executor = null;
+		}
+		else
+		{
+			m_executor = Executors.newFixedThreadPool(m_nbWorkers, r -> {
+				Thread thread = new Thread(r, "rcpsp-worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Runs the task on every worker and waits until all of them are done.
+	 *
+	 * @param task The task.
+	 * @param <T> Type of the result of the task.
+	 * @return The results, in the order of the workers.
+	 * @throws Exception The first error met by a worker, if any.
+	 */
+	public <T> List<T> runWorkers(WorkerTask<T> task) throws Exception
+	{
+		List<T> results = new ArrayList<T>(m_nbWorkers);
+		if(m_executor == null)
+		{
+			results.add(task.run(0));
+			return results;
+		}
+		List<Callable<T>> callables = new ArrayList<Callable<T>>(m_nbWorkers);
+		for(int w = 0; w < m_nbWorkers; w++)
+		{
+			final int worker = w;
+			callables.add(() -> task.run(worker));
+		}
+		try
+		{
+			for(Future<T> future : m_executor.invokeAll(callables))
+			{
+				results.add(future.get());
+			}
+		}
+		catch (ExecutionException e)
+		{
+			if(e.getCause() instanceof Exception)
+			{
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+		return results;
+	}
+
+	/**
+	 * Stops the threads of the workers.
+	 */
+	@Override
+	public void close()
+	{
+		if(m_executor != null)
+		{
+			m_executor.shutdownNow();
+		}
+	}
+
+}
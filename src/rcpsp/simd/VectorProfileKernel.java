@@ -0,0 +1,237 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package rcpsp.simd;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import rcpsp.ProfileKernel;
+
+/**
+ * Implementation of {@link ProfileKernel} with the Vector API (module
+ * jdk.incubator.vector, compiled and run with --add-modules jdk.incubator.vector).
+ *
+ * The interval [from, to) of the time-major profile is the contiguous part
+ * [from * nbResources, to * nbResources) of the array. It is read by vectors
+ * of the preferred species, and each vector is compared with the same part of
+ * the repeated demand (or capacity): the buffer m_pattern holds the demand
+ * repeated over nbResources + one vector, so that the repeated demand of a
+ * vector starting at resource r is the vector of m_pattern at index r. The
+ * last values, fewer than a vector, are handled by the scalar loop.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public final class VectorProfileKernel extends ProfileKernel {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Species of the vectors */
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	/** Number of values of a vector */
+	private static final int LENGTH = SPECIES.length();
+
+	/** Repeated values of the demand, the capacity or their difference */
+	private final int[] m_pattern;
+
+	/** Shift of the resource of the first value from a vector to the next: LENGTH modulo nbResources */
+	private final int m_step;
+
+	// -------------------------------------
+	// ------------ CONSTRUCTOR ------------
+	// -------------------------------------
+
+	/**
+	 * @param nbResources Number of resources.
+	 */
+	public VectorProfileKernel(int nbResources)
+	{
+		super(nbResources);
+		m_pattern = new int[nbResources + LENGTH];
+		m_step = (nbResources == 0) ? 0 : LENGTH % nbResources;
+	}
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	@Override
+	public String getName()
+	{
+		return "vector" + SPECIES.vectorBitSize();
+	}
+
+	/**
+	 * Fills a buffer with the values repeated every nbResources values.
+	 */
+	private void repeat(int[] pattern, int[] values)
+	{
+		int nbResources = m_nbResources;
+		System.arraycopy(values, 0, pattern, 0, nbResources);
+		for(int k = nbResources; k < pattern.length; k++)
+		{
+			pattern[k] = pattern[k - nbResources];
+		}
+	}
+
+	@Override
+	public int firstConflict(int[] profile, int[] demand, int[] capacity, int from, int to)
+	{
+		if(m_nbResources == 0)
+		{
+			return -1;
+		}
+		repeatSlack(demand, capacity);
+		return firstOver(profile, from, to);
+	}
+
+	@Override
+	public int earliestFit(int[] profile, int[] demand, int[] capacity, int from, int duration)
+	{
+		if(m_nbResources == 0)
+		{
+			return from;
+		}
+		// The repeated slack is computed once for all the jumps
+		repeatSlack(demand, capacity);
+		int time = from;
+		int conflict;
+		while((conflict = firstOver(profile, time, time + duration)) >= 0)
+		{
+			time = conflict + 1;
+		}
+		return time;
+	}
+
+	/**
+	 * Fills {@link #m_pattern} with capacity - demand repeated: profile + demand > capacity
+	 * is evaluated as profile > capacity - demand.
+	 */
+	private void repeatSlack(int[] demand, int[] capacity)
+	{
+		int nbResources = m_nbResources;
+		int[] limit = m_pattern;
+		for(int i = 0; i < nbResources; i++)
+		{
+			limit[i] = capacity[i] - demand[i];
+		}
+		for(int k = nbResources; k < limit.length; k++)
+		{
+			limit[k] = limit[k - nbResources];
+		}
+	}
+
+	/**
+	 * @return The first time of [from, to) at which the profile exceeds the values of {@link #m_pattern}, or -1.
+	 */
+	private int firstOver(int[] profile, int from, int to)
+	{
+		int nbResources = m_nbResources;
+		int[] limit = m_pattern;
+		int end = to * nbResources;
+		int k = from * nbResources;
+		int r = 0;
+		for(; k + LENGTH <= end; k += LENGTH)
+		{
+			VectorMask<Integer> over = IntVector.fromArray(SPECIES, profile, k).compare(VectorOperators.GT, IntVector.fromArray(SPECIES, limit, r));
+			if(over.anyTrue())
+			{
+				return (k + over.firstTrue()) / nbResources;
+			}
+			r += m_step;
+			if(r >= nbResources)
+			{
+				r -= nbResources;
+			}
+		}
+		for(; k < end; k++)
+		{
+			if(profile[k] > limit[r])
+			{
+				return k / nbResources;
+			}
+			r = (r + 1 == nbResources) ? 0 : r + 1;
+		}
+		return -1;
+	}
+
+	@Override
+	public void add(int[] profile, int[] demand, int from, int to)
+	{
+		update(profile, demand, from, to, false);
+	}
+
+	@Override
+	public void subtract(int[] profile, int[] demand, int from, int to)
+	{
+		update(profile, demand, from, to, true);
+	}
+
+	private void update(int[] profile, int[] demand, int from, int to, boolean subtract)
+	{
+		int nbResources = m_nbResources;
+		if(nbResources == 0)
+		{
+			return;
+		}
+		int[] values = m_pattern;
+		repeat(values, demand);
+		if(subtract)
+		{
+			for(int k = 0; k < values.length; k++)
+			{
+				values[k] = -values[k];
+			}
+		}
+		int end = to * nbResources;
+		int k = from * nbResources;
+		int r = 0;
+		for(; k + LENGTH <= end; k += LENGTH)
+		{
+			IntVector.fromArray(SPECIES, profile, k).add(IntVector.fromArray(SPECIES, values, r)).intoArray(profile, k);
+			r += m_step;
+			if(r >= nbResources)
+			{
+				r -= nbResources;
+			}
+		}
+		for(; k < end; k++)
+		{
+			profile[k] += values[r];
+			r = (r + 1 == nbResources) ? 0 : r + 1;
+		}
+	}
+
+	@Override
+	public int firstExcess(int[] profile, int[] capacity, int from, int to)
+	{
+		if(m_nbResources == 0)
+		{
+			return -1;
+		}
+		repeat(m_pattern, capacity);
+		return firstOver(profile, from, to);
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+	rcpsp-framework
+	Copyright (C) 2017 Fabien Lehuede / Damien Prot / Axel Grimault
+
+	This program is free software; you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation; either version 2 of the License, or
+	(at your option) any later version.
+
+	This program is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License along
+	with this program; if not, write to the Free Software Foundation, Inc.,
+	51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+
+
+package rcpsp;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the line protocol of {@link Daemon} on scripts of requests.
+ *
+ * **command**: java rcpsp.DaemonTest [instanceFile]
+ *
+ * The instance file (./../instances/j301_1.sm by default) is sent inline to
+ * the daemon. The program prints the checks that fail and ends with the exit
+ * code 1 if there is at least one.
+ *
+ * @author Fabien Lehuede / Damien Prot / Axel Grimault 2017
+ *
+ */
+public class DaemonTest {
+
+	// ---------------------------------------------
+	// --------------- ATTRIBUTES ------------------
+	// ---------------------------------------------
+
+	/** Number of checks that failed */
+	private static int m_nbFailures = 0;
+
+	// -------------------------------------
+	// -------------- METHODS --------------
+	// -------------------------------------
+
+	/**
+	 * Main method.
+	 *
+	 * @param arg Arguments.
+	 * @throws Exception Any error met by the daemon.
+	 */
+	public static void main(String[] arg) throws Exception {
+		String fileName = (arg.length > 0) ? arg[0] : "./../instances/j301_1.sm";
+		List<String> lines = Files.readAllLines(Paths.get(fileName), StandardCharsets.UTF_8);
+		String content = String.join("\n", lines) + "\n";
+		String head = String.join("\n", lines.subList(0, 5)) + "\n";
+
+		// A refused request must not read the content of its inline instance as requests
+		List<String> out = serve("solve -t 1 -bogus -inline foo\n" + head + Daemon.END + "\nping\n");
+		check("bad option before -inline", out.size() == 2 && out.get(0).startsWith("error;foo;") && out.get(1).equals("pong"), out);
+
+		out = serve("solve -inline foo -t x\n" + head + Daemon.END + "\nping\n");
+		check("bad option after -inline", out.size() == 2 && out.get(0).startsWith("error;foo;") && out.get(1).equals("pong"), out);
+
+		out = serve("solve -t 1 -bogus -inline\n" + head + Daemon.END + "\nping\n");
+		check("bad option before an unnamed -inline", out.size() == 2 && out.get(0).startsWith("error;inline") && out.get(1).equals("pong"), out);
+
+		out = serve("solve -t 1 -inline foo\n" + content + Daemon.END + "\nping\n");
+		check("inline instance", out.size() == 2 && out.contains("pong") && out.get(out.get(0).equals("pong") ? 1 : 0).startsWith("foo;"), out);
+
+		out = serve("solve -t 1\nunknown\n");
+		check("request errors", out.size() == 2 && out.get(0).startsWith("error;;") && out.get(1).startsWith("error;unknown;"), out);
+
+		if(m_nbFailures > 0) {
+			System.err.println(m_nbFailures + " check(s) failed");
+			System.exit(1);
+		}
+		System.out.println("All checks passed");
+	}
+
+	/**
+	 * Sends a script of requests to a new daemon.
+	 *
+	 * @param requests Requests, one per line.
+	 * @return The lines answered by the daemon, once its jobs are done.
+	 */
+	private static List<String> serve(String requests) throws Exception {
+		Daemon daemon = new Daemon(new ArrayList<String>(), 1, 16, 4);
+		StringWriter result = new StringWriter();
+		daemon.serve(new BufferedReader(new StringReader(requests)), new PrintWriter(result));
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new StringReader(result.toString()));
+		String line;
+		while((line = reader.readLine()) != null) {
+			lines.add(line);
+		}
+		return lines;
+	}
+
+	/**
+	 * Prints a check that failed, with the lines answered by the daemon.
+	 */
+	private static void check(String name, boolean passed, List<String> out) {
+		if(!passed) {
+			m_nbFailures++;
+			System.err.println("FAILED: " + name + " " + out);
+		}
+	}
+}